@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "3.4.4"
 	id("io.spring.dependency-management") version "1.1.7"
 	id("jacoco")
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.loopy"
@@ -48,6 +49,9 @@ dependencies {
 	runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.3")
 	runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.3")
 	
+	// Caffeine (cache trong bộ nhớ)
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	
 	// Redis (cho caching)
 	implementation("org.springframework.boot:spring-boot-starter-data-redis")
 	
@@ -63,6 +67,11 @@ dependencies {
 	// Jackson date/time support
 	implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
 	
+	// Định dạng nhị phân và nén LZ4 cho giá trị cache trên Redis
+	implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+	implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+	implementation("org.lz4:lz4-java:1.8.0")
+	
 	// Database
 	runtimeOnly("org.postgresql:postgresql")
 	implementation("org.flywaydb:flyway-core")
@@ -79,6 +88,9 @@ dependencies {
 	testImplementation("org.testcontainers:junit-jupiter")
 	testImplementation("org.testcontainers:postgresql")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	
+	// Benchmark (./gradlew jmh)
+	jmh("org.springframework:spring-test")
 }
 
 tasks.withType<Test> {
@@ -92,6 +104,12 @@ tasks.jacocoTestReport {
 	}
 }
 
+jmh {
+	warmupIterations.set(2)
+	iterations.set(5)
+	fork.set(1)
+}
+
 jacoco {
 	toolVersion = "0.8.11"
 }
@@ -0,0 +1,86 @@
+// Tải thử GET /videos/{id}/content với 200 người xem tua video đồng thời.
+//
+// Mỗi virtual user mô phỏng một player: đọc phần đầu file, sau đó liên tục tua
+// tới vị trí ngẫu nhiên và đọc một đoạn như khi player nạp buffer. Request
+// nhận 503 (vượt app.video.proxy.max-concurrent-streams) được đếm riêng.
+//
+// Chạy:
+//   k6 run -e BASE_URL=http://localhost:8080/api -e TOKEN=<access token> \
+//          -e VIDEO_ID=<uuid> deploy/loadtest/video-content-seek.js
+//
+// Theo dõi cùng lúc video.proxy.streams.active, video.proxy.streams.rejected
+// và jvm.memory.used qua /api/actuator/metrics.
+
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const TOKEN = __ENV.TOKEN;
+const VIDEO_ID = __ENV.VIDEO_ID;
+const CHUNK_SIZE = parseInt(__ENV.CHUNK_SIZE || `${2 * 1024 * 1024}`, 10);
+
+const rejected = new Counter('content_rejected');
+const timeToFirstByte = new Trend('content_ttfb', true);
+
+export const options = {
+    scenarios: {
+        seeking_viewers: {
+            executor: 'constant-vus',
+            vus: 200,
+            duration: __ENV.DURATION || '5m',
+        },
+    },
+    thresholds: {
+        'http_req_failed{expected_response:true}': ['rate<0.01'],
+        content_ttfb: ['p(95)<500'],
+        checks: ['rate>0.99'],
+    },
+};
+
+const url = `${BASE_URL}/videos/${VIDEO_ID}/content`;
+const headers = { Authorization: `Bearer ${TOKEN}` };
+
+export function setup() {
+    const res = http.get(url, { headers: { ...headers, Range: 'bytes=0-0' } });
+    check(res, { 'probe is 206': (r) => r.status === 206 });
+    const contentRange = res.headers['Content-Range'];
+    return {
+        size: parseInt(contentRange.split('/')[1], 10),
+        etag: res.headers['Etag'],
+    };
+}
+
+function readRange(start, size, etag) {
+    const end = Math.min(start + CHUNK_SIZE, size) - 1;
+    const res = http.get(url, {
+        headers: { ...headers, Range: `bytes=${start}-${end}`, 'If-Range': etag },
+        responseType: 'binary',
+        responseCallback: http.expectedStatuses(206, 503),
+    });
+    if (res.status === 503) {
+        rejected.add(1);
+        return;
+    }
+    timeToFirstByte.add(res.timings.waiting);
+    check(res, {
+        'status is 206': (r) => r.status === 206,
+        'content range matches': (r) => r.headers['Content-Range'] === `bytes ${start}-${end}/${size}`,
+        'body length matches': (r) => r.body.byteLength === end - start + 1,
+    });
+}
+
+export default function (data) {
+    // Bắt đầu phát từ đầu video
+    readRange(0, data.size, data.etag);
+
+    // Tua tới vị trí ngẫu nhiên rồi đọc liên tiếp vài đoạn
+    for (let seek = 0; seek < 5; seek++) {
+        let position = Math.floor(Math.random() * Math.max(1, data.size - CHUNK_SIZE));
+        for (let i = 0; i < 3 && position < data.size; i++) {
+            readRange(position, data.size, data.etag);
+            position += CHUNK_SIZE;
+            sleep(0.5 + Math.random());
+        }
+    }
+}
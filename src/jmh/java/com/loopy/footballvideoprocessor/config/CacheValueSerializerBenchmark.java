@@ -0,0 +1,203 @@
+package com.loopy.footballvideoprocessor.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
+import com.loopy.footballvideoprocessor.dashboard.dto.DashboardSummary;
+import com.loopy.footballvideoprocessor.dashboard.dto.UserStats;
+import com.loopy.footballvideoprocessor.dashboard.dto.VideoStats;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+/**
+ * So sánh kích thước và thời gian encode/decode giá trị cache trên Redis:
+ * <ul>
+ * <li>legacy-json: GenericJackson2JsonRedisSerializer dùng trước đây</li>
+ * <li>json, smile, cbor: CacheValueSerializer không nén</li>
+ * <li>*-lz4: CacheValueSerializer nén LZ4 với ngưỡng 1KB</li>
+ * </ul>
+ * Kích thước của từng giá trị được báo cáo cùng kết quả qua bộ đếm phụ
+ * encodedBytes. Chạy bằng {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheValueSerializerBenchmark {
+
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    @Param({ "legacy-json", "json", "smile", "cbor", "json-lz4", "smile-lz4", "cbor-lz4" })
+    private String codec;
+
+    @Param({ "video", "page", "dashboard" })
+    private String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = createSerializer(codec);
+        value = switch (payload) {
+            case "video" -> video(0);
+            case "page" -> page();
+            case "dashboard" -> dashboard();
+            default -> throw new IllegalArgumentException(payload);
+        };
+        encoded = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize size) {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode(EncodedSize size) {
+        return serializer.deserialize(encoded);
+    }
+
+    /**
+     * Bộ đếm phụ của JMH, đưa kích thước giá trị đã encode vào bảng kết quả
+     * thay vì in ra console
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public long encodedBytes;
+
+        // JMH không tự đặt lại bộ đếm phụ giữa các iteration
+        @Setup(Level.Iteration)
+        public void setUp(CacheValueSerializerBenchmark benchmark) {
+            encodedBytes = benchmark.encoded.length;
+        }
+    }
+
+    private static RedisSerializer<Object> createSerializer(String codec) {
+        if ("legacy-json".equals(codec)) {
+            return new GenericJackson2JsonRedisSerializer(CacheValueSerializer.createObjectMapper(new JsonFactory()));
+        }
+        boolean compressed = codec.endsWith("-lz4");
+        CacheValueFormat format = CacheValueFormat.valueOf(codec.replace("-lz4", "").toUpperCase());
+        return new CacheValueSerializer(format, compressed ? COMPRESSION_THRESHOLD : -1);
+    }
+
+    private static VideoDto video(int index) {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 1, 20, 0).plusMinutes(index);
+        UUID userId = UUID.fromString("7b0e7c5e-2f57-4a37-9b7e-3f1d2a6c9e10");
+        return VideoDto.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .username("coach.nguyen")
+                .title("Trận đấu vòng " + index + " - hiệp " + (index % 2 + 1))
+                .description("Video toàn trận từ camera chiến thuật, cần phân tích đội hình và pressing")
+                .videoType(VideoType.UPLOADED)
+                .filePath("videos/" + userId + "/" + UUID.randomUUID() + ".mp4")
+                .fileSize(734_003_200L + index)
+                .duration(2_820)
+                .thumbnailPath("thumbnails/" + userId + "/" + UUID.randomUUID() + ".jpg")
+                .processedPath("processed/" + userId + "/" + UUID.randomUUID() + ".mp4")
+                .isDownloadable(true)
+                .status(VideoStatus.COMPLETED)
+                .progress(100)
+                .createdAt(createdAt)
+                .updatedAt(createdAt.plusHours(1))
+                .build();
+    }
+
+    private static PagedResponse<VideoDto> page() {
+        List<VideoDto> videos = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            videos.add(video(i));
+        }
+        return new PagedResponse<>(videos, 0, 20, 137, 7, false);
+    }
+
+    private static DashboardSummary dashboard() {
+        List<UserStats.UserSummary> recentUsers = new ArrayList<>();
+        List<VideoStats.VideoSummary> recentVideos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            recentUsers.add(UserStats.UserSummary.builder()
+                    .id(UUID.randomUUID())
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .name("Người dùng " + i)
+                    .enabled(true)
+                    .roles(new ArrayList<>(List.of("ROLE_USER")))
+                    .createdAt(LocalDateTime.of(2025, 3, 1, 8, 0).plusDays(i))
+                    .videoCount(12 + i)
+                    .storageUsed(8_800_000_000L + i)
+                    .build());
+            VideoDto video = video(i);
+            recentVideos.add(VideoStats.VideoSummary.builder()
+                    .id(video.getId())
+                    .userId(video.getUserId())
+                    .username(video.getUsername())
+                    .title(video.getTitle())
+                    .description(video.getDescription())
+                    .videoType(video.getVideoType().name())
+                    .status(video.getStatus().name())
+                    .fileSize(video.getFileSize())
+                    .duration(video.getDuration())
+                    .build());
+        }
+
+        List<VideoStats.StatusDistribution> statusDistribution = new ArrayList<>();
+        Map<String, Integer> videoStatusDistribution = new HashMap<>();
+        for (VideoStatus status : VideoStatus.values()) {
+            statusDistribution.add(VideoStats.StatusDistribution.builder()
+                    .status(status.name())
+                    .count(40 + status.ordinal())
+                    .build());
+            videoStatusDistribution.put(status.name(), 40 + status.ordinal());
+        }
+
+        return DashboardSummary.builder()
+                .totalUsers(1_250)
+                .newUsersLast30Days(84)
+                .totalVideos(9_870)
+                .processedVideosLast30Days(1_310)
+                .totalStorageUsed(7_450_000_000_000L)
+                .userStats(UserStats.builder()
+                        .totalUsers(1_250)
+                        .activeUsers(1_190)
+                        .inactiveUsers(60)
+                        .roleDistribution(new ArrayList<>(List.of(
+                                new UserStats.RoleDistribution("ROLE_USER", 1_240),
+                                new UserStats.RoleDistribution("ROLE_ADMIN", 10))))
+                        .build())
+                .videoStats(VideoStats.builder()
+                        .totalVideos(9_870)
+                        .uploadedVideos(7_020)
+                        .youtubeVideos(2_850)
+                        .statusDistribution(statusDistribution)
+                        .build())
+                .recentUsers(recentUsers)
+                .recentVideos(recentVideos)
+                .videoStatusDistribution(videoStatusDistribution)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.loopy.footballvideoprocessor.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * So sánh chi phí xác thực JWT trên đường đi của filter:
+ * <ul>
+ * <li>legacyThreeParses: cách cũ, dựng lại khóa và parse token ba lần</li>
+ * <li>parseOnce: parse và kiểm tra chữ ký một lần với JwtParser dựng sẵn</li>
+ * <li>filterCached: toàn bộ JwtAuthenticationFilter khi token đã có trong cache</li>
+ * </ul>
+ * Chạy bằng {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "veryLongAndSecureJwtSecretKeyUsedForSigningJwtTokens";
+
+    private JwtTokenProvider tokenProvider;
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setExpiration(86_400_000L);
+        properties.setRefreshExpiration(604_800_000L);
+
+        tokenProvider = new JwtTokenProvider(properties, new NotRevokedService());
+        filter = new JwtAuthenticationFilter(tokenProvider);
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        AuthenticatedUser principal = new AuthenticatedUser(UUID.randomUUID(), "benchmark", "", true, authorities);
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, authorities),
+                UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    public Object legacyThreeParses() {
+        Claims validated = Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+        Claims forUsername = Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token).getPayload();
+        Claims forAuthentication = Jwts.parser().verifyWith(legacyKey()).build().parseSignedClaims(token)
+                .getPayload();
+        return validated.getExpiration() != null ? forUsername.getSubject() + forAuthentication.get("roles") : null;
+    }
+
+    @Benchmark
+    public Claims parseOnce() {
+        return tokenProvider.parseToken(token);
+    }
+
+    @Benchmark
+    public Authentication filterCached() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/videos");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Không token nào bị thu hồi, tương ứng trường hợp Bloom filter trả lời ngay
+     * mà không cần hỏi Redis
+     */
+    private static class NotRevokedService implements TokenRevocationService {
+
+        @Override
+        public boolean isRevoked(String tokenId, String familyId) {
+            return false;
+        }
+
+        @Override
+        public void revoke(String tokenId, Instant expiresAt) {
+        }
+
+        @Override
+        public void revokeFamily(String familyId) {
+        }
+
+        @Override
+        public void startFamily(String familyId, String tokenId, Duration ttl) {
+        }
+
+        @Override
+        public boolean rotate(String familyId, String currentTokenId, String newTokenId, Duration ttl) {
+            return true;
+        }
+    }
+}
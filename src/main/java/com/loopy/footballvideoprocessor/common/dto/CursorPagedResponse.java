@@ -0,0 +1,25 @@
+package com.loopy.footballvideoprocessor.common.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Kết quả phân trang theo cursor: trang tiếp theo được lấy bằng nextCursor
+ * thay vì số trang, nên chi phí không tăng theo độ sâu của trang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPagedResponse<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+    // Chỉ có giá trị khi được yêu cầu
+    private Long totalElements;
+}
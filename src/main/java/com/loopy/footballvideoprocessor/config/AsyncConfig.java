@@ -21,4 +21,23 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Executor dùng để upload song song các part khi upload multipart lên R2.
+     * Số part đang chạy của mỗi file được giới hạn riêng trong R2StorageService,
+     * nên queue ở đây không cần giới hạn.
+     */
+    @Bean(name = "r2UploadExecutor")
+    public Executor r2UploadExecutor(CloudflareProperties cloudflareProperties) {
+        int maxThreads = cloudflareProperties.getR2() != null
+                ? cloudflareProperties.getR2().getMultipart().getMaxThreads()
+                : 16;
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setThreadNamePrefix("R2Upload-");
+        executor.initialize();
+        return executor;
+    }
 }
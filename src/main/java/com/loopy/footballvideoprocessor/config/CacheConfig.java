@@ -2,86 +2,115 @@ package com.loopy.footballvideoprocessor.config;
 
 import java.time.Duration;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.unit.DataSize;
 
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableCaching
-public class CacheConfig {
+public class CacheConfig implements CachingConfigurer {
 
+        public static final String VIDEO_CACHE = "videoCache";
+        public static final String VIDEO_LIST_CACHE = "videoListCache";
+        public static final String USERS_CACHE = "users";
+        public static final String DASHBOARD_CACHE = "dashboard";
+
+        // Số khóa mỗi lần SCAN khi xóa cache theo pattern, tránh dùng KEYS
+        private static final int EVICTION_SCAN_BATCH_SIZE = 1000;
+
+        @Value("${app.cache.local.enabled:true}")
+        private boolean localCacheEnabled;
+
+        @Value("${app.cache.local.ttl:30s}")
+        private Duration localCacheTtl;
+
+        @Value("${app.cache.local.maximum-size:10000}")
+        private long localCacheMaximumSize;
+
+        @Value("${app.cache.invalidation-channel:cache-invalidation}")
+        private String invalidationChannel;
+
+        @Value("${app.cache.codec:smile}")
+        private CacheValueFormat cacheValueFormat;
+
+        @Value("${app.cache.compression.enabled:true}")
+        private boolean compressionEnabled;
+
+        @Value("${app.cache.compression.threshold:1KB}")
+        private DataSize compressionThreshold;
+
+        /**
+         * Lỗi khi đọc/ghi cache (ví dụ Redis không kết nối được) chỉ được ghi log,
+         * request vẫn được xử lý bằng cách đọc trực tiếp cơ sở dữ liệu
+         */
+        @Override
+        public CacheErrorHandler errorHandler() {
+                return new LoggingCacheErrorHandler();
+        }
+
+        /**
+         * Cache hai tầng: Caffeine trên từng instance (L1) trước Redis (L2). Có thể
+         * tắt L1 bằng app.cache.local.enabled=false để chỉ dùng Redis.
+         */
         @Bean
-        public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+        public CacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate redisTemplate,
+                        RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+                // TwoTierCacheManager tự hoãn ghi/xóa tới sau commit cho cả hai tầng
+                RedisCacheManager redisCacheManager = redisCacheManager(connectionFactory, !localCacheEnabled);
+                if (!localCacheEnabled) {
+                        return redisCacheManager;
+                }
+
+                TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, redisTemplate,
+                                meterRegistry, invalidationChannel, localCacheTtl, localCacheMaximumSize);
+                listenerContainer.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+                return cacheManager;
+        }
+
+        private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory, boolean transactionAware) {
+                RedisSerializationContext.SerializationPair<Object> values = RedisSerializationContext.SerializationPair
+                                .fromSerializer(new CacheValueSerializer(cacheValueFormat,
+                                                compressionEnabled ? (int) compressionThreshold.toBytes() : -1));
+
                 RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                                 .entryTtl(Duration.ofMinutes(60))
                                 .disableCachingNullValues()
                                 .serializeKeysWith(
                                                 RedisSerializationContext.SerializationPair
                                                                 .fromSerializer(new StringRedisSerializer()))
-                                .serializeValuesWith(
-                                                RedisSerializationContext.SerializationPair.fromSerializer(
-                                                                new GenericJackson2JsonRedisSerializer(
-                                                                                redisObjectMapper())));
+                                .serializeValuesWith(values);
 
-                return RedisCacheManager.builder(connectionFactory)
+                RedisCacheManager redisCacheManager = RedisCacheManager
+                                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory,
+                                                BatchStrategies.scan(EVICTION_SCAN_BATCH_SIZE)))
                                 .cacheDefaults(cacheConfig)
-                                .withCacheConfiguration("videoCache",
-                                                RedisCacheConfiguration.defaultCacheConfig()
-                                                                .entryTtl(Duration.ofMinutes(60))
-                                                                .serializeValuesWith(
-                                                                                RedisSerializationContext.SerializationPair
-                                                                                                .fromSerializer(
-                                                                                                                new GenericJackson2JsonRedisSerializer(
-                                                                                                                                redisObjectMapper()))))
-                                .withCacheConfiguration("videoListCache",
-                                                RedisCacheConfiguration.defaultCacheConfig()
-                                                                .entryTtl(Duration.ofMinutes(15))
-                                                                .serializeValuesWith(
-                                                                                RedisSerializationContext.SerializationPair
-                                                                                                .fromSerializer(
-                                                                                                                new GenericJackson2JsonRedisSerializer(
-                                                                                                                                redisObjectMapper()))))
-                                .withCacheConfiguration("users",
-                                                RedisCacheConfiguration.defaultCacheConfig()
-                                                                .entryTtl(Duration.ofMinutes(5))
-                                                                .serializeValuesWith(
-                                                                                RedisSerializationContext.SerializationPair
-                                                                                                .fromSerializer(
-                                                                                                                new GenericJackson2JsonRedisSerializer(
-                                                                                                                                redisObjectMapper()))))
-                                .withCacheConfiguration("dashboard",
-                                                RedisCacheConfiguration.defaultCacheConfig()
-                                                                .entryTtl(Duration.ofMinutes(1))
-                                                                .serializeValuesWith(
-                                                                                RedisSerializationContext.SerializationPair
-                                                                                                .fromSerializer(
-                                                                                                                new GenericJackson2JsonRedisSerializer(
-                                                                                                                                redisObjectMapper()))))
+                                .withCacheConfiguration(VIDEO_CACHE, cacheConfig.entryTtl(Duration.ofMinutes(60)))
+                                .withCacheConfiguration(VIDEO_LIST_CACHE, cacheConfig.entryTtl(Duration.ofMinutes(15)))
+                                .withCacheConfiguration(USERS_CACHE, cacheConfig.entryTtl(Duration.ofMinutes(5)))
+                                .withCacheConfiguration(DASHBOARD_CACHE, cacheConfig.entryTtl(Duration.ofMinutes(1)))
                                 .build();
-        }
-
-        private ObjectMapper redisObjectMapper() {
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.registerModule(new JavaTimeModule());
-                mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-
-                mapper.activateDefaultTyping(
-                                LaissezFaireSubTypeValidator.instance,
-                                ObjectMapper.DefaultTyping.NON_FINAL,
-                                JsonTypeInfo.As.PROPERTY);
-
-                return mapper;
+                // Ghi và xóa cache trong transaction chỉ thực hiện sau khi commit
+                redisCacheManager.setTransactionAware(transactionAware);
+                // Không phải bean nên phải tự khởi tạo các cache đã khai báo
+                redisCacheManager.afterPropertiesSet();
+                return redisCacheManager;
         }
 }
@@ -0,0 +1,61 @@
+package com.loopy.footballvideoprocessor.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Định dạng mã hóa giá trị cache trên Redis. Mã định dạng được ghi vào byte đầu
+ * tiên của giá trị nên có thể đổi định dạng mà vẫn đọc được các giá trị cũ.
+ */
+public enum CacheValueFormat {
+
+    JSON((byte) 1) {
+        @Override
+        JsonFactory createFactory() {
+            return new JsonFactory();
+        }
+    },
+
+    /**
+     * Smile nhớ lại tên thuộc tính và các chuỗi ngắn đã ghi, nên tên class do
+     * default typing ghi vào mỗi object chỉ tốn vài byte từ lần thứ hai trở đi
+     */
+    SMILE((byte) 2) {
+        @Override
+        JsonFactory createFactory() {
+            return SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .build();
+        }
+    },
+
+    CBOR((byte) 3) {
+        @Override
+        JsonFactory createFactory() {
+            return new CBORFactory();
+        }
+    };
+
+    private final byte id;
+
+    CacheValueFormat(byte id) {
+        this.id = id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    abstract JsonFactory createFactory();
+
+    static CacheValueFormat fromId(byte id) {
+        for (CacheValueFormat format : values()) {
+            if (format.id == id) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
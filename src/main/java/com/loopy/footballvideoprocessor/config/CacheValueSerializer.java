@@ -0,0 +1,160 @@
+package com.loopy.footballvideoprocessor.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Serializer cho giá trị cache trên Redis. Mỗi giá trị bắt đầu bằng hai byte
+ * header: mã định dạng (CacheValueFormat) và cờ nén. Giá trị lớn hơn ngưỡng được
+ * nén bằng LZ4, khi đó header được nối thêm kích thước gốc (4 byte).
+ * <p>
+ * Giá trị JSON không có header do GenericJackson2JsonRedisSerializer ghi trước
+ * đây vẫn đọc được, nên có thể đổi định dạng khi các instance đang chạy dùng
+ * chung cache.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int HEADER_SIZE = 2;
+    private static final int LENGTH_SIZE = 4;
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte LZ4_COMPRESSED = 1;
+
+    // Giới hạn kích thước sau giải nén để giá trị hỏng không làm cấp phát quá lớn
+    private static final int MAX_DECOMPRESSED_SIZE = 64 * 1024 * 1024;
+
+    private final CacheValueFormat format;
+    private final int compressionThreshold;
+    private final Map<CacheValueFormat, ObjectMapper> mappers = new EnumMap<>(CacheValueFormat.class);
+    private final ObjectMapper legacyJsonMapper;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    /**
+     * @param format               Định dạng dùng khi ghi
+     * @param compressionThreshold Nén các giá trị lớn hơn số byte này, âm để
+     *                             không nén
+     */
+    public CacheValueSerializer(CacheValueFormat format, int compressionThreshold) {
+        this.format = format;
+        this.compressionThreshold = compressionThreshold;
+        for (CacheValueFormat each : CacheValueFormat.values()) {
+            mappers.put(each, createObjectMapper(each.createFactory()));
+        }
+        this.legacyJsonMapper = mappers.get(CacheValueFormat.JSON);
+
+        LZ4Factory lz4 = LZ4Factory.fastestInstance();
+        this.compressor = lz4.fastCompressor();
+        // Giải nén theo độ dài dữ liệu nén và không ghi quá kích thước gốc đã lưu,
+        // để giá trị hỏng trên Redis chỉ gây lỗi đọc thay vì đọc vượt mảng
+        this.decompressor = lz4.safeDecompressor();
+    }
+
+    /**
+     * Tạo ObjectMapper cho giá trị cache. Default typing ghi tên class vào các
+     * object để đọc lại đúng kiểu mà không cần biết trước kiểu của giá trị.
+     * 
+     * @param factory JsonFactory của định dạng
+     * @return ObjectMapper
+     */
+    public static ObjectMapper createObjectMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        mapper.activateDefaultTyping(
+                LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+
+        return mapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+
+        byte[] payload;
+        try {
+            payload = mappers.get(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+
+        if (compressionThreshold < 0 || payload.length <= compressionThreshold) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+            buffer.put(format.getId()).put(UNCOMPRESSED).put(payload);
+            return buffer.array();
+        }
+
+        int headerSize = HEADER_SIZE + LENGTH_SIZE;
+        byte[] compressed = new byte[headerSize + compressor.maxCompressedLength(payload.length)];
+        int compressedLength = compressor.compress(payload, 0, payload.length, compressed, headerSize);
+        ByteBuffer.wrap(compressed).put(format.getId()).put(LZ4_COMPRESSED).putInt(payload.length);
+        return Arrays.copyOf(compressed, headerSize + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            // Giá trị JSON cũ không có header, luôn bắt đầu bằng '{' hoặc '['
+            if (bytes[0] == '{' || bytes[0] == '[') {
+                return legacyJsonMapper.readValue(bytes, Object.class);
+            }
+
+            CacheValueFormat valueFormat = CacheValueFormat.fromId(bytes[0]);
+            if (valueFormat == null || bytes.length < HEADER_SIZE) {
+                throw new SerializationException("Unknown cache value format: " + bytes[0]);
+            }
+
+            ObjectMapper mapper = mappers.get(valueFormat);
+            if (bytes[1] == UNCOMPRESSED) {
+                return mapper.readValue(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE, Object.class);
+            }
+            if (bytes[1] != LZ4_COMPRESSED || bytes.length < HEADER_SIZE + LENGTH_SIZE) {
+                throw new SerializationException("Unknown cache value compression: " + bytes[1]);
+            }
+
+            int length = ByteBuffer.wrap(bytes, HEADER_SIZE, LENGTH_SIZE).getInt();
+            if (length < 0 || length > MAX_DECOMPRESSED_SIZE) {
+                throw new SerializationException("Invalid decompressed cache value size: " + length);
+            }
+            byte[] payload = new byte[length];
+            int offset = HEADER_SIZE + LENGTH_SIZE;
+            int decompressed = decompressor.decompress(bytes, offset, bytes.length - offset, payload, 0, length);
+            if (decompressed != length) {
+                throw new SerializationException(
+                        "Decompressed cache value size " + decompressed + " does not match stored size " + length);
+            }
+            return mapper.readValue(payload, Object.class);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // LZ4 báo lỗi bằng LZ4Exception khi dữ liệu nén bị hỏng
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+}
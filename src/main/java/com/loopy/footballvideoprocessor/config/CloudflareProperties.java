@@ -1,15 +1,23 @@
 package com.loopy.footballvideoprocessor.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
 import lombok.Data;
 
 @Component
 @ConfigurationProperties(prefix = "cloudflare")
+@Validated
 @Data
 public class CloudflareProperties {
 
+    @Valid
     private R2 r2;
 
     @Data
@@ -19,5 +27,55 @@ public class CloudflareProperties {
         private String endpoint;
         private String region = "auto";
         private String bucketName;
+        @Valid
+        private Multipart multipart = new Multipart();
+        private PresignedUrlCache presignedUrlCache = new PresignedUrlCache();
+    }
+
+    /**
+     * Cấu hình upload multipart dạng streaming lên R2
+     */
+    @Data
+    public static class Multipart {
+        // Giới hạn của R2/S3 cho các part không phải part cuối
+        public static final DataSize MIN_PART_SIZE = DataSize.ofMegabytes(5);
+
+        // Kích thước mỗi part (R2/S3 yêu cầu tối thiểu 5MB, trừ part cuối)
+        private DataSize partSize = DataSize.ofMegabytes(16);
+        // Số part được upload song song cho mỗi file
+        private int concurrency = 4;
+        // Tổng số thread upload part dùng chung cho toàn bộ node
+        private int maxThreads = 16;
+        // Kích thước tối đa của một object được upload qua streaming
+        private DataSize maxObjectSize = DataSize.ofGigabytes(20);
+        // Thời hạn của presigned URL cho từng part khi client upload trực tiếp
+        private Duration presignedPartExpiration = Duration.ofHours(1);
+        // Số presigned URL part tối đa trong một response của phiên upload
+        private int presignedPartBatchSize = 100;
+        // Thời hạn của một phiên upload trực tiếp trước khi bị hủy
+        private Duration sessionExpiration = Duration.ofHours(24);
+
+        @AssertTrue(message = "cloudflare.r2.multipart.part-size phải từ 5MB trở lên")
+        public boolean isPartSizeAboveMinimum() {
+            return partSize != null && partSize.compareTo(MIN_PART_SIZE) >= 0;
+        }
+
+        // Mỗi part được đọc vào một mảng byte nên không thể vượt quá giới hạn của int
+        @AssertTrue(message = "cloudflare.r2.multipart.part-size phải nhỏ hơn 2GB")
+        public boolean isPartSizeWithinBuffer() {
+            return partSize == null || partSize.toBytes() <= Integer.MAX_VALUE - 8;
+        }
+    }
+
+    /**
+     * Cấu hình cache presigned URL dùng để xem và tải xuống video
+     */
+    @Data
+    public static class PresignedUrlCache {
+        private boolean enabled = true;
+        // Số URL tối đa được giữ trên mỗi instance
+        private long maximumSize = 10_000;
+        // URL được dùng lại trong tỷ lệ này của thời hạn, sau đó được ký lại
+        private double reuseRatio = 0.5;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,341 @@
+package com.loopy.footballvideoprocessor.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache hai tầng: L1 là Caffeine trong bộ nhớ của từng instance, L2 là Redis
+ * dùng chung. Đọc đi qua L1 rồi tới L2; ghi và xóa cập nhật L2, L1 của instance
+ * hiện tại, rồi báo cho các instance khác xóa L1 qua TwoTierCacheManager.
+ * Thông báo từ instance khác chỉ xóa L1, trừ khi L2 vẫn đang giữ đúng giá trị
+ * mà chính instance này vừa tải từ nguồn dữ liệu và ghi lên.
+ * <p>
+ * Mỗi lần xóa tăng bộ đếm invalidations trước và sau khi xóa L2. Một lần đọc
+ * thấy bộ đếm thay đổi trong lúc nó tải dữ liệu sẽ tự bỏ giá trị vừa ghi, vì
+ * giá trị đó có thể được đọc trước khi dữ liệu thay đổi nhưng ghi vào cache sau
+ * lần xóa.
+ */
+public class TwoTierCache implements Cache {
+
+    // Thời gian nhớ các giá trị instance này đã tải và ghi lên L2, phải dài hơn
+    // độ trễ của thông báo xóa qua Redis pub/sub
+    private static final Duration REMOTE_WRITE_RETENTION = Duration.ofMinutes(1);
+    private static final long MAX_REMOTE_WRITES = 10_000;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final TwoTierCacheManager cacheManager;
+    private final AtomicLong invalidations = new AtomicLong();
+    // Các lần tải đang chạy, để request cùng key chờ chung mà không giữ khóa của Caffeine
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> remoteWrites = Caffeine.newBuilder()
+            .maximumSize(MAX_REMOTE_WRITES)
+            .expireAfterWrite(REMOTE_WRITE_RETENTION)
+            .build();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+            TwoTierCacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.cacheManager = cacheManager;
+        this.localHits = counter(meterRegistry, "l1", "hit");
+        this.localMisses = counter(meterRegistry, "l1", "miss");
+        this.remoteHits = counter(meterRegistry, "l2", "hit");
+        this.remoteMisses = counter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = toLocalKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        long generation = invalidations.get();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            local.put(localKey, wrapper.get());
+            if (invalidations.get() != generation) {
+                local.asMap().remove(localKey, wrapper.get());
+            }
+        } else {
+            remoteMisses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = toLocalKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return (T) value;
+        }
+        localMisses.increment();
+
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(localKey, pending);
+        if (existing != null) {
+            // Một request khác trên instance này đang tải cùng key: chờ kết quả của nó
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        // Tải ngoài khóa compute của Caffeine để lần tải chậm không chặn các key khác
+        try {
+            value = load(key, localKey, valueLoader);
+            pending.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(localKey, pending);
+        }
+    }
+
+    private <T> Object load(Object key, String localKey, Callable<T> valueLoader) {
+        long generation = invalidations.get();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            Object value = wrapper.get();
+            local.put(localKey, value);
+            if (invalidations.get() != generation) {
+                local.asMap().remove(localKey, value);
+            }
+            return value;
+        }
+        remoteMisses.increment();
+
+        T result;
+        try {
+            result = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (result == null) {
+            return null;
+        }
+
+        remote.put(key, result);
+        remoteWrites.put(localKey, result);
+        local.put(localKey, result);
+        // Có lần xóa xảy ra trong lúc tải: trả giá trị cho request này nhưng không giữ lại
+        if (invalidations.get() != generation) {
+            local.asMap().remove(localKey, result);
+            remoteWrites.asMap().remove(localKey, result);
+            remote.evict(key);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = toLocalKey(key);
+        invalidations.incrementAndGet();
+        remoteWrites.invalidate(localKey);
+        remote.put(key, value);
+        invalidations.incrementAndGet();
+        if (value != null) {
+            local.put(localKey, value);
+        } else {
+            local.invalidate(localKey);
+        }
+        cacheManager.publishEvict(name, localKey, false);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String localKey = toLocalKey(key);
+        ValueWrapper[] existing = new ValueWrapper[1];
+        remoteWrites.invalidate(localKey);
+        evictBothTiers(() -> local.invalidate(localKey), () -> existing[0] = remote.putIfAbsent(key, value));
+        cacheManager.publishEvict(name, localKey, false);
+        return existing[0];
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = toLocalKey(key);
+        remoteWrites.invalidate(localKey);
+        evictBothTiers(() -> local.invalidate(localKey), () -> remote.evict(key));
+        cacheManager.publishEvict(name, localKey, false);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String localKey = toLocalKey(key);
+        boolean[] evicted = new boolean[1];
+        remoteWrites.invalidate(localKey);
+        evictBothTiers(() -> local.invalidate(localKey), () -> evicted[0] = remote.evictIfPresent(key));
+        cacheManager.publishEvict(name, localKey, false);
+        return evicted[0];
+    }
+
+    @Override
+    public void clear() {
+        remoteWrites.invalidateAll();
+        evictBothTiers(local::invalidateAll, remote::clear);
+        cacheManager.publishEvict(name, null, false);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean[] invalidated = new boolean[1];
+        remoteWrites.invalidateAll();
+        evictBothTiers(local::invalidateAll, () -> invalidated[0] = remote.invalidate());
+        cacheManager.publishEvict(name, null, false);
+        return invalidated[0];
+    }
+
+    /**
+     * Xóa mọi khóa bắt đầu bằng prefix trên cả hai tầng. L2 được xóa bằng SCAN
+     * theo pattern nên chỉ dùng cho các nhóm khóa nhỏ như danh sách video của
+     * một người dùng.
+     * 
+     * @param prefix Prefix của khóa, không chứa ký tự đại diện của Redis
+     */
+    public void evictByPrefix(String prefix) {
+        remoteWrites.invalidateAll(keysWithPrefix(remoteWrites, prefix));
+        evictBothTiers(() -> evictLocalByPrefix(prefix), () -> evictRemoteByPrefix(prefix));
+        cacheManager.publishEvict(name, prefix, true);
+    }
+
+    /**
+     * Xóa một khóa (hoặc toàn bộ nếu key null) trên L1 của instance này, khi
+     * nhận thông báo từ instance khác. L2 thuộc về instance đã gửi thông báo nên
+     * không bị xóa lại, để giá trị instance đó vừa ghi bằng put không bị mất.
+     * Ngoại lệ duy nhất là giá trị chính instance này đã tải từ nguồn dữ liệu và
+     * ghi lên L2: nó có thể được đọc trước khi dữ liệu thay đổi và ghi lên sau
+     * lần xóa L2 của instance kia, nên được rút lại nếu L2 vẫn giữ đúng giá trị đó.
+     */
+    void evictLocal(String key, boolean prefix) {
+        invalidations.incrementAndGet();
+        List<String> written;
+        if (key == null) {
+            local.invalidateAll();
+            written = List.copyOf(remoteWrites.asMap().keySet());
+        } else if (prefix) {
+            evictLocalByPrefix(key);
+            written = keysWithPrefix(remoteWrites, key);
+        } else {
+            local.invalidate(key);
+            written = List.of(key);
+        }
+        written.forEach(this::retractRemoteWrite);
+    }
+
+    private void retractRemoteWrite(String key) {
+        Object written = remoteWrites.asMap().remove(key);
+        if (written == null) {
+            return;
+        }
+        ValueWrapper current = remote.get(key);
+        if (current != null && written.equals(current.get())) {
+            remote.evict(key);
+        }
+    }
+
+    /**
+     * Xóa L1, L2 rồi xóa L1 thêm một lần: giá trị cũ có thể được một request
+     * khác đọc từ L2 và ghi lên L1 ngay trước khi L2 bị xóa
+     */
+    private void evictBothTiers(Runnable localEviction, Runnable remoteEviction) {
+        invalidations.incrementAndGet();
+        localEviction.run();
+        remoteEviction.run();
+        invalidations.incrementAndGet();
+        localEviction.run();
+    }
+
+    private void evictLocalByPrefix(String prefix) {
+        local.invalidateAll(keysWithPrefix(local, prefix));
+    }
+
+    private static List<String> keysWithPrefix(com.github.benmanes.caffeine.cache.Cache<String, Object> cache,
+            String prefix) {
+        return cache.asMap().keySet().stream()
+                .filter(key -> key.startsWith(prefix))
+                .toList();
+    }
+
+    private void evictRemoteByPrefix(String prefix) {
+        if (remote instanceof RedisCache redisCache) {
+            redisCache.clear(prefix + "*");
+        } else {
+            remote.clear();
+        }
+    }
+
+    long localSize() {
+        return local.estimatedSize();
+    }
+
+    // Redis cũng chuyển khóa thành chuỗi, dùng cùng dạng cho L1 để thông báo xóa khớp nhau
+    private static String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Số lần đọc cache theo tầng")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,141 @@
+package com.loopy.footballvideoprocessor.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * CacheManager bọc RedisCacheManager, thêm một tầng Caffeine trước mỗi cache
+ * Redis. Thông báo xóa được phát qua Redis pub/sub để L1 của các instance khác
+ * không giữ dữ liệu cũ; nếu thông báo bị mất, dữ liệu cũ trên L1 cũng chỉ tồn
+ * tại tối đa bằng TTL của L1.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final Duration localTtl;
+    private final long localMaximumSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Cache> transactionAwareCaches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry, String channel, Duration localTtl, long localMaximumSize) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.localTtl = localTtl;
+        this.localMaximumSize = localMaximumSize;
+    }
+
+    /**
+     * Trả về cache hai tầng, bọc trong TransactionAwareCacheDecorator để ghi và
+     * xóa trong một transaction chỉ được thực hiện sau khi commit
+     */
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = transactionAwareCaches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache remote = redisCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return transactionAwareCaches.computeIfAbsent(name, n -> new TransactionAwareCacheDecorator(
+                caches.computeIfAbsent(n, k -> createCache(k, remote))));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /**
+     * Báo các instance khác xóa một khóa khỏi L1
+     * 
+     * @param cacheName Tên cache
+     * @param key       Khóa cần xóa, null để xóa toàn bộ cache
+     * @param prefix    key là prefix, xóa mọi khóa bắt đầu bằng nó
+     */
+    void publishEvict(String cacheName, String key, boolean prefix) {
+        try {
+            redisTemplate.convertAndSend(channel,
+                    objectMapper.writeValueAsString(new CacheEviction(instanceId, cacheName, key, prefix)));
+        } catch (Exception e) {
+            log.warn("Không phát được thông báo xóa cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            CacheEviction eviction = objectMapper.readValue(message.getBody(), CacheEviction.class);
+            if (instanceId.equals(eviction.getOrigin())) {
+                return;
+            }
+
+            TwoTierCache cache = caches.get(eviction.getCacheName());
+            if (cache != null) {
+                cache.evictLocal(eviction.getKey(), eviction.isPrefix());
+            }
+        } catch (IOException e) {
+            log.warn("Bỏ qua thông báo xóa cache không hợp lệ: {}", e.getMessage());
+        }
+    }
+
+    private TwoTierCache createCache(String name, Cache remote) {
+        TwoTierCache cache = new TwoTierCache(name, Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .build(), remote, this, meterRegistry);
+
+        Gauge.builder("cache.tier.local.size", cache, TwoTierCache::localSize)
+                .description("Số entry đang có trên L1")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+
+    /**
+     * Thông báo xóa cache gửi giữa các instance
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CacheEviction {
+        private String origin;
+        private String cacheName;
+        private String key;
+        private boolean prefix;
+    }
+}
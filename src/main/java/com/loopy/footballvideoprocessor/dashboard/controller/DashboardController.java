@@ -7,7 +7,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,6 +18,7 @@ import com.loopy.footballvideoprocessor.common.dto.ApiResponse;
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
 import com.loopy.footballvideoprocessor.dashboard.dto.DashboardSummary;
 import com.loopy.footballvideoprocessor.dashboard.dto.UserStats;
+import com.loopy.footballvideoprocessor.dashboard.dto.VideoReprocessRequest;
 import com.loopy.footballvideoprocessor.dashboard.dto.VideoStats;
 import com.loopy.footballvideoprocessor.dashboard.service.DashboardService;
 import com.loopy.footballvideoprocessor.user.dto.UserDTO;
@@ -23,6 +26,7 @@ import com.loopy.footballvideoprocessor.video.dto.VideoDto;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -112,4 +116,20 @@ public class DashboardController {
         dashboardService.deleteVideo(id);
         return ResponseEntity.ok(ApiResponse.success("Đã xóa video thành công", null));
     }
+
+    @PostMapping("/videos/reprocess")
+    @Operation(summary = "Xử lý lại nhiều video", description = "Gửi lại một danh sách video vào hàng đợi xử lý với độ ưu tiên cao")
+    public ResponseEntity<ApiResponse<Integer>> reprocessVideos(@Valid @RequestBody VideoReprocessRequest request) {
+        log.debug("REST request để xử lý lại {} video", request.getVideoIds().size());
+        int reprocessed = dashboardService.reprocessVideos(request.getVideoIds());
+        return ResponseEntity.ok(ApiResponse.success("Đã gửi yêu cầu xử lý lại " + reprocessed + " video", reprocessed));
+    }
+
+    @PostMapping("/videos/{id}/reprocess")
+    @Operation(summary = "Xử lý lại video", description = "Gửi lại video vào hàng đợi xử lý với độ ưu tiên cao")
+    public ResponseEntity<ApiResponse<VideoDto>> reprocessVideo(@PathVariable UUID id) {
+        log.debug("REST request để xử lý lại video với id: {}", id);
+        return ResponseEntity.ok(
+                ApiResponse.success("Đã gửi yêu cầu xử lý lại video", dashboardService.reprocessVideo(id)));
+    }
 }
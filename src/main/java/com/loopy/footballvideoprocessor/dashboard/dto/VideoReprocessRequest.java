@@ -0,0 +1,25 @@
+package com.loopy.footballvideoprocessor.dashboard.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO yêu cầu xử lý lại nhiều video
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoReprocessRequest {
+
+    @NotEmpty(message = "Danh sách video không được để trống")
+    @Size(max = 1000, message = "Chỉ được xử lý lại tối đa 1000 video mỗi lần")
+    private List<UUID> videoIds;
+}
@@ -32,8 +32,9 @@ public class DashboardStats {
     @Column(name = "id", updatable = false, nullable = false)
     private UUID id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "user_id", nullable = false)
+    // NULL với dòng chứa bộ đếm toàn hệ thống
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
     private User user;
 
     @Column(name = "total_videos", nullable = false)
@@ -48,6 +49,18 @@ public class DashboardStats {
     @Column(name = "total_storage_used", nullable = false)
     private Long totalStorageUsed = 0L;
 
+    @Column(name = "pending_videos", nullable = false)
+    private Integer pendingVideos = 0;
+
+    @Column(name = "processing_videos", nullable = false)
+    private Integer processingVideos = 0;
+
+    @Column(name = "completed_videos", nullable = false)
+    private Integer completedVideos = 0;
+
+    @Column(name = "error_videos", nullable = false)
+    private Integer errorVideos = 0;
+
     @Column(name = "last_updated", nullable = false)
     private LocalDateTime lastUpdated = LocalDateTime.now();
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.loopy.footballvideoprocessor.dashboard.model;
+
+import com.loopy.footballvideoprocessor.video.model.Video;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+import lombok.Data;
+
+/**
+ * Thay đổi cần cộng vào các bộ đếm của dashboard_stats
+ */
+@Data
+public class StatsDelta {
+    private int totalVideos;
+    private int uploadedVideos;
+    private int youtubeVideos;
+    private long storageUsed;
+    private int pendingVideos;
+    private int processingVideos;
+    private int completedVideos;
+    private int errorVideos;
+
+    /**
+     * Thay đổi khi thêm (sign = 1) hoặc xóa (sign = -1) một video
+     */
+    public static StatsDelta ofVideo(Video video, int sign) {
+        StatsDelta delta = new StatsDelta();
+        delta.totalVideos = sign;
+        if (video.getVideoType() == VideoType.YOUTUBE) {
+            delta.youtubeVideos = sign;
+        } else {
+            delta.uploadedVideos = sign;
+        }
+        delta.storageUsed = video.getFileSize() != null ? sign * video.getFileSize() : 0L;
+        delta.addStatus(video.getStatus(), sign);
+        return delta;
+    }
+
+    /**
+     * Thay đổi khi video chuyển trạng thái
+     */
+    public static StatsDelta ofStatusChange(VideoStatus oldStatus, VideoStatus newStatus) {
+        StatsDelta delta = new StatsDelta();
+        delta.addStatus(oldStatus, -1);
+        delta.addStatus(newStatus, 1);
+        return delta;
+    }
+
+    /**
+     * Cộng dồn một thay đổi khác vào thay đổi này
+     */
+    public StatsDelta add(StatsDelta other) {
+        totalVideos += other.totalVideos;
+        uploadedVideos += other.uploadedVideos;
+        youtubeVideos += other.youtubeVideos;
+        storageUsed += other.storageUsed;
+        pendingVideos += other.pendingVideos;
+        processingVideos += other.processingVideos;
+        completedVideos += other.completedVideos;
+        errorVideos += other.errorVideos;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return totalVideos == 0 && uploadedVideos == 0 && youtubeVideos == 0 && storageUsed == 0
+                && pendingVideos == 0 && processingVideos == 0 && completedVideos == 0 && errorVideos == 0;
+    }
+
+    private void addStatus(VideoStatus status, int sign) {
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case PENDING -> pendingVideos += sign;
+            case PROCESSING -> processingVideos += sign;
+            case COMPLETED -> completedVideos += sign;
+            case ERROR -> errorVideos += sign;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.loopy.footballvideoprocessor.dashboard.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Repository;
+
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+
+import jakarta.persistence.EntityManager;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Các truy vấn tổng hợp cho Admin Dashboard. Bộ đếm video được đọc từ
+ * dashboard_stats (được cập nhật dần bởi DashboardStatsService), chỉ số video
+ * xử lý xong gần đây vẫn được tính trực tiếp qua chỉ mục (status, updated_at).
+ */
+@Repository
+@RequiredArgsConstructor
+public class DashboardQueryRepository {
+
+    private static final String COUNTERS_QUERY = """
+            WITH user_counts AS (
+              SELECT COUNT(*) AS total_users,
+                     COUNT(*) FILTER (WHERE enabled) AS active_users,
+                     COUNT(*) FILTER (WHERE created_at > :since) AS new_users
+              FROM users
+            ),
+            video_counts AS (
+              SELECT total_videos, total_uploaded_videos AS uploaded_videos,
+                     total_storage_used
+              FROM dashboard_stats
+              WHERE user_id IS NULL
+            ),
+            processed_counts AS (
+              SELECT COUNT(*) AS processed_videos
+              FROM videos
+              WHERE status = 'COMPLETED' AND updated_at > :since
+            )
+            SELECT u.total_users, u.active_users, u.new_users,
+                   v.total_videos, v.uploaded_videos, p.processed_videos, v.total_storage_used
+            FROM user_counts u
+            CROSS JOIN processed_counts p
+            LEFT JOIN video_counts v ON TRUE
+            """;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Lấy toàn bộ bộ đếm của dashboard trong một lần truy vấn
+     * 
+     * @param since Mốc thời gian cho các bộ đếm "gần đây"
+     * @return Các bộ đếm
+     */
+    public Counters getCounters(LocalDateTime since) {
+        Object[] row = (Object[]) entityManager.createNativeQuery(COUNTERS_QUERY)
+                .setParameter("since", since)
+                .getSingleResult();
+
+        return Counters.builder()
+                .totalUsers(toLong(row[0]))
+                .activeUsers(toLong(row[1]))
+                .newUsers(toLong(row[2]))
+                .totalVideos(toLong(row[3]))
+                .uploadedVideos(toLong(row[4]))
+                .processedVideos(toLong(row[5]))
+                .totalStorageUsed(toLong(row[6]))
+                .build();
+    }
+
+    /**
+     * Đếm số video theo từng trạng thái
+     * 
+     * @return Map từ tên trạng thái sang số video
+     */
+    public Map<String, Long> countVideosByStatus() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                SELECT pending_videos, processing_videos, completed_videos, error_videos
+                FROM dashboard_stats
+                WHERE user_id IS NULL
+                """)
+                .getResultList();
+
+        Map<String, Long> result = new HashMap<>();
+        if (!rows.isEmpty()) {
+            Object[] row = rows.get(0);
+            result.put(VideoStatus.PENDING.name(), toLong(row[0]));
+            result.put(VideoStatus.PROCESSING.name(), toLong(row[1]));
+            result.put(VideoStatus.COMPLETED.name(), toLong(row[2]));
+            result.put(VideoStatus.ERROR.name(), toLong(row[3]));
+        }
+        return result;
+    }
+
+    /**
+     * Lấy số video và tổng dung lượng của từng người dùng trong danh sách
+     * 
+     * @param userIds Danh sách ID người dùng
+     * @return Map từ ID người dùng sang thống kê
+     */
+    public Map<UUID, UserVideoUsage> getVideoUsageByUsers(Collection<UUID> userIds) {
+        Map<UUID, UserVideoUsage> result = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                SELECT user_id, total_videos, total_storage_used
+                FROM dashboard_stats
+                WHERE user_id IN (:userIds)
+                """)
+                .setParameter("userIds", userIds)
+                .getResultList();
+
+        for (Object[] row : rows) {
+            result.put((UUID) row[0], new UserVideoUsage(toLong(row[1]), toLong(row[2])));
+        }
+        return result;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Các bộ đếm tổng quan của dashboard
+     */
+    @Data
+    @Builder
+    public static class Counters {
+        private long totalUsers;
+        private long activeUsers;
+        private long newUsers;
+        private long totalVideos;
+        private long uploadedVideos;
+        private long processedVideos;
+        private long totalStorageUsed;
+    }
+
+    /**
+     * Số video và dung lượng lưu trữ của một người dùng
+     */
+    @Data
+    public static class UserVideoUsage {
+        private final long videoCount;
+        private final long storageUsed;
+    }
+}
@@ -1,12 +1,18 @@
 package com.loopy.footballvideoprocessor.dashboard.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.loopy.footballvideoprocessor.dashboard.model.DashboardStats;
+import com.loopy.footballvideoprocessor.dashboard.model.StatsDelta;
 import com.loopy.footballvideoprocessor.user.model.User;
 
 @Repository
@@ -15,4 +21,175 @@ public interface DashboardStatsRepository extends JpaRepository<DashboardStats,
     Optional<DashboardStats> findByUser(User user);
 
     boolean existsByUser(User user);
-}
\ No newline at end of file
+
+    @Query("SELECT s FROM DashboardStats s WHERE s.user IS NULL")
+    Optional<DashboardStats> findGlobal();
+
+    @Query("SELECT s FROM DashboardStats s WHERE s.user.id = :userId")
+    Optional<DashboardStats> findByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT s FROM DashboardStats s WHERE s.user.id IN :userIds")
+    List<DashboardStats> findAllByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    /**
+     * Cộng thay đổi vào bộ đếm của người dùng, tạo dòng mới nếu chưa có
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO dashboard_stats (user_id, total_videos, total_uploaded_videos, total_youtube_videos,
+              total_storage_used, pending_videos, processing_videos, completed_videos, error_videos, last_updated)
+            VALUES (:userId, :#{#delta.totalVideos}, :#{#delta.uploadedVideos}, :#{#delta.youtubeVideos},
+              :#{#delta.storageUsed}, :#{#delta.pendingVideos}, :#{#delta.processingVideos},
+              :#{#delta.completedVideos}, :#{#delta.errorVideos}, CURRENT_TIMESTAMP)
+            ON CONFLICT (user_id) DO UPDATE SET
+              total_videos = dashboard_stats.total_videos + EXCLUDED.total_videos,
+              total_uploaded_videos = dashboard_stats.total_uploaded_videos + EXCLUDED.total_uploaded_videos,
+              total_youtube_videos = dashboard_stats.total_youtube_videos + EXCLUDED.total_youtube_videos,
+              total_storage_used = dashboard_stats.total_storage_used + EXCLUDED.total_storage_used,
+              pending_videos = dashboard_stats.pending_videos + EXCLUDED.pending_videos,
+              processing_videos = dashboard_stats.processing_videos + EXCLUDED.processing_videos,
+              completed_videos = dashboard_stats.completed_videos + EXCLUDED.completed_videos,
+              error_videos = dashboard_stats.error_videos + EXCLUDED.error_videos,
+              last_updated = CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int applyUserDelta(@Param("userId") UUID userId, @Param("delta") StatsDelta delta);
+
+    /**
+     * Cộng thay đổi vào bộ đếm toàn hệ thống
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE dashboard_stats SET
+              total_videos = total_videos + :#{#delta.totalVideos},
+              total_uploaded_videos = total_uploaded_videos + :#{#delta.uploadedVideos},
+              total_youtube_videos = total_youtube_videos + :#{#delta.youtubeVideos},
+              total_storage_used = total_storage_used + :#{#delta.storageUsed},
+              pending_videos = pending_videos + :#{#delta.pendingVideos},
+              processing_videos = processing_videos + :#{#delta.processingVideos},
+              completed_videos = completed_videos + :#{#delta.completedVideos},
+              error_videos = error_videos + :#{#delta.errorVideos},
+              last_updated = CURRENT_TIMESTAMP
+            WHERE user_id IS NULL
+            """, nativeQuery = true)
+    int applyGlobalDelta(@Param("delta") StatsDelta delta);
+
+    /**
+     * Trừ bộ đếm của một người dùng khỏi bộ đếm toàn hệ thống (khi xóa người dùng)
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE dashboard_stats g SET
+              total_videos = g.total_videos - u.total_videos,
+              total_uploaded_videos = g.total_uploaded_videos - u.total_uploaded_videos,
+              total_youtube_videos = g.total_youtube_videos - u.total_youtube_videos,
+              total_storage_used = g.total_storage_used - u.total_storage_used,
+              pending_videos = g.pending_videos - u.pending_videos,
+              processing_videos = g.processing_videos - u.processing_videos,
+              completed_videos = g.completed_videos - u.completed_videos,
+              error_videos = g.error_videos - u.error_videos,
+              last_updated = CURRENT_TIMESTAMP
+            FROM dashboard_stats u
+            WHERE g.user_id IS NULL AND u.user_id = :userId
+            """, nativeQuery = true)
+    int subtractUserFromGlobal(@Param("userId") UUID userId);
+
+    /**
+     * Khóa bảng trước khi đối soát để các thay đổi đang được cộng dồn (kể cả dòng
+     * mới của người dùng chưa có bộ đếm) không bị ghi đè bởi giá trị tính từ
+     * snapshot. Chế độ SHARE ROW EXCLUSIVE chờ các transaction đang ghi commit và
+     * chặn transaction ghi mới tới khi đối soát commit; đọc không bị chặn.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE dashboard_stats IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForReconcile();
+
+    /**
+     * Tính lại bộ đếm của mọi người dùng từ bảng videos, chỉ ghi các dòng bị lệch
+     * 
+     * @return Số dòng đã được sửa
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO dashboard_stats (user_id, total_videos, total_uploaded_videos, total_youtube_videos,
+              total_storage_used, pending_videos, processing_videos, completed_videos, error_videos, last_updated)
+            SELECT u.id,
+                   COUNT(v.id),
+                   COUNT(v.id) FILTER (WHERE v.video_type = 'UPLOADED'),
+                   COUNT(v.id) FILTER (WHERE v.video_type = 'YOUTUBE'),
+                   COALESCE(SUM(v.file_size), 0),
+                   COUNT(v.id) FILTER (WHERE v.status = 'PENDING'),
+                   COUNT(v.id) FILTER (WHERE v.status = 'PROCESSING'),
+                   COUNT(v.id) FILTER (WHERE v.status = 'COMPLETED'),
+                   COUNT(v.id) FILTER (WHERE v.status = 'ERROR'),
+                   CURRENT_TIMESTAMP
+            FROM users u LEFT JOIN videos v ON v.user_id = u.id
+            GROUP BY u.id
+            ON CONFLICT (user_id) DO UPDATE SET
+              total_videos = EXCLUDED.total_videos,
+              total_uploaded_videos = EXCLUDED.total_uploaded_videos,
+              total_youtube_videos = EXCLUDED.total_youtube_videos,
+              total_storage_used = EXCLUDED.total_storage_used,
+              pending_videos = EXCLUDED.pending_videos,
+              processing_videos = EXCLUDED.processing_videos,
+              completed_videos = EXCLUDED.completed_videos,
+              error_videos = EXCLUDED.error_videos,
+              last_updated = CURRENT_TIMESTAMP
+            WHERE (dashboard_stats.total_videos, dashboard_stats.total_uploaded_videos,
+                   dashboard_stats.total_youtube_videos, dashboard_stats.total_storage_used,
+                   dashboard_stats.pending_videos, dashboard_stats.processing_videos,
+                   dashboard_stats.completed_videos, dashboard_stats.error_videos)
+              IS DISTINCT FROM
+                  (EXCLUDED.total_videos, EXCLUDED.total_uploaded_videos, EXCLUDED.total_youtube_videos,
+                   EXCLUDED.total_storage_used, EXCLUDED.pending_videos, EXCLUDED.processing_videos,
+                   EXCLUDED.completed_videos, EXCLUDED.error_videos)
+            """, nativeQuery = true)
+    int reconcileUserStats();
+
+    /**
+     * Tạo dòng bộ đếm toàn hệ thống nếu chưa có
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO dashboard_stats (user_id, last_updated)
+            SELECT NULL, CURRENT_TIMESTAMP
+            WHERE NOT EXISTS (SELECT 1 FROM dashboard_stats WHERE user_id IS NULL)
+            """, nativeQuery = true)
+    int createGlobalIfMissing();
+
+    /**
+     * Tính lại bộ đếm toàn hệ thống từ bảng videos, chỉ ghi khi bị lệch
+     * 
+     * @return Số dòng đã được sửa
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE dashboard_stats s SET
+              total_videos = a.total_videos,
+              total_uploaded_videos = a.uploaded_videos,
+              total_youtube_videos = a.youtube_videos,
+              total_storage_used = a.storage_used,
+              pending_videos = a.pending_videos,
+              processing_videos = a.processing_videos,
+              completed_videos = a.completed_videos,
+              error_videos = a.error_videos,
+              last_updated = CURRENT_TIMESTAMP
+            FROM (
+              SELECT COUNT(*) AS total_videos,
+                     COUNT(*) FILTER (WHERE video_type = 'UPLOADED') AS uploaded_videos,
+                     COUNT(*) FILTER (WHERE video_type = 'YOUTUBE') AS youtube_videos,
+                     COALESCE(SUM(file_size), 0) AS storage_used,
+                     COUNT(*) FILTER (WHERE status = 'PENDING') AS pending_videos,
+                     COUNT(*) FILTER (WHERE status = 'PROCESSING') AS processing_videos,
+                     COUNT(*) FILTER (WHERE status = 'COMPLETED') AS completed_videos,
+                     COUNT(*) FILTER (WHERE status = 'ERROR') AS error_videos
+              FROM videos
+            ) a
+            WHERE s.user_id IS NULL
+              AND (s.total_videos, s.total_uploaded_videos, s.total_youtube_videos, s.total_storage_used,
+                   s.pending_videos, s.processing_videos, s.completed_videos, s.error_videos)
+                IS DISTINCT FROM
+                  (a.total_videos, a.uploaded_videos, a.youtube_videos, a.storage_used,
+                   a.pending_videos, a.processing_videos, a.completed_videos, a.error_videos)
+            """, nativeQuery = true)
+    int reconcileGlobalStats();
+}
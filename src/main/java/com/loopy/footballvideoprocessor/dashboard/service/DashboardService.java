@@ -1,5 +1,6 @@
 package com.loopy.footballvideoprocessor.dashboard.service;
 
+import java.util.List;
 import java.util.UUID;
 
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
@@ -91,4 +92,20 @@ public interface DashboardService {
      * @param id ID của video
      */
     void deleteVideo(UUID id);
+
+    /**
+     * Xử lý lại video với độ ưu tiên cao
+     * 
+     * @param id ID của video
+     * @return Thông tin video
+     */
+    VideoDto reprocessVideo(UUID id);
+
+    /**
+     * Xử lý lại nhiều video với độ ưu tiên cao
+     * 
+     * @param ids Danh sách ID video
+     * @return Số video đã được gửi xử lý lại
+     */
+    int reprocessVideos(List<UUID> ids);
 }
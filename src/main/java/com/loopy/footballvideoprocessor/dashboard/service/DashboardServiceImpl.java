@@ -8,18 +8,17 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
 import com.loopy.footballvideoprocessor.common.exception.ResourceNotFoundException;
+import com.loopy.footballvideoprocessor.config.CacheConfig;
 import com.loopy.footballvideoprocessor.dashboard.dto.DashboardSummary;
 import com.loopy.footballvideoprocessor.dashboard.dto.UserStats;
 import com.loopy.footballvideoprocessor.dashboard.dto.VideoStats;
+import com.loopy.footballvideoprocessor.dashboard.repository.DashboardQueryRepository;
 import com.loopy.footballvideoprocessor.dashboard.repository.DashboardStatsRepository;
 import com.loopy.footballvideoprocessor.user.dto.UserDTO;
 import com.loopy.footballvideoprocessor.user.dto.UserUpdateDTO;
@@ -32,7 +31,7 @@ import com.loopy.footballvideoprocessor.video.dto.VideoDto;
 import com.loopy.footballvideoprocessor.video.mapper.VideoMapper;
 import com.loopy.footballvideoprocessor.video.model.Video;
 import com.loopy.footballvideoprocessor.video.model.VideoStatus;
-import com.loopy.footballvideoprocessor.video.model.VideoType;
+import com.loopy.footballvideoprocessor.video.repository.VideoQueryRepository;
 import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
 import com.loopy.footballvideoprocessor.video.service.VideoService;
 
@@ -52,57 +51,42 @@ public class DashboardServiceImpl implements DashboardService {
         private final UserRepository userRepository;
         private final RoleRepository roleRepository;
         private final VideoRepository videoRepository;
+        private final VideoQueryRepository videoQueryRepository;
         private final DashboardStatsRepository dashboardStatsRepository;
+        private final DashboardQueryRepository dashboardQueryRepository;
         private final UserService userService;
         private final VideoService videoService;
         private final VideoMapper videoMapper;
         private final EntityManager entityManager;
 
         @Override
+        // Tổng quan dùng chung cho mọi admin, hết hạn sau TTL ngắn của cache dashboard
+        @Cacheable(cacheNames = CacheConfig.DASHBOARD_CACHE, key = "'summary'", sync = true)
         @Transactional(readOnly = true)
         public DashboardSummary getDashboardSummary() {
                 log.debug("Lấy thông tin tổng quan cho Admin Dashboard");
 
-                // Lấy tổng số người dùng
-                long totalUsers = userRepository.count();
-
-                // Lấy số người dùng mới trong 30 ngày qua
+                // Lấy các bộ đếm tổng quan trong một lần truy vấn
                 LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-                long newUsersLast30Days = userRepository.findAll().stream()
-                                .filter(user -> user.getCreatedAt().isAfter(thirtyDaysAgo))
-                                .count();
-
-                // Lấy tổng số video
-                long totalVideos = videoRepository.count();
-
-                // Lấy số video được xử lý trong 30 ngày qua
-                long processedVideosLast30Days = videoRepository.findAll().stream()
-                                .filter(video -> video.getStatus() == VideoStatus.COMPLETED)
-                                .filter(video -> video.getUpdatedAt().isAfter(thirtyDaysAgo))
-                                .count();
-
-                // Lấy tổng dung lượng lưu trữ đã sử dụng
-                long totalStorageUsed = videoRepository.findAll().stream()
-                                .filter(video -> video.getFileSize() != null)
-                                .mapToLong(Video::getFileSize)
-                                .sum();
+                DashboardQueryRepository.Counters counters = dashboardQueryRepository.getCounters(thirtyDaysAgo);
+                Map<String, Long> statusCounts = dashboardQueryRepository.countVideosByStatus();
 
                 // Lấy thống kê người dùng
-                UserStats userStats = getUserStats();
+                UserStats userStats = buildUserStats(counters);
 
                 // Lấy thống kê video
-                VideoStats videoStats = getVideoStats();
+                VideoStats videoStats = buildVideoStats(counters, statusCounts);
 
                 // Lấy danh sách người dùng mới nhất
-                List<UserStats.UserSummary> recentUsers = userRepository
-                                .findAll(PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt")))
-                                .stream()
-                                .map(this::mapToUserSummary)
+                List<User> latestUsers = userRepository.findTop5ByOrderByCreatedAtDesc();
+                Map<UUID, DashboardQueryRepository.UserVideoUsage> usageByUser = dashboardQueryRepository
+                                .getVideoUsageByUsers(latestUsers.stream().map(User::getId).toList());
+                List<UserStats.UserSummary> recentUsers = latestUsers.stream()
+                                .map(user -> mapToUserSummary(user, usageByUser.get(user.getId())))
                                 .collect(Collectors.toList());
 
                 // Lấy danh sách video mới nhất
-                List<VideoStats.VideoSummary> recentVideos = videoRepository
-                                .findAll(PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt")))
+                List<VideoStats.VideoSummary> recentVideos = videoRepository.findTop5ByOrderByCreatedAtDesc()
                                 .stream()
                                 .map(this::mapToVideoSummary)
                                 .collect(Collectors.toList());
@@ -110,15 +94,16 @@ public class DashboardServiceImpl implements DashboardService {
                 // Lấy phân phối trạng thái video
                 Map<String, Integer> videoStatusDistribution = new HashMap<>();
                 for (VideoStatus status : VideoStatus.values()) {
-                        videoStatusDistribution.put(status.name(), videoRepository.findAllByStatus(status).size());
+                        videoStatusDistribution.put(status.name(),
+                                        statusCounts.getOrDefault(status.name(), 0L).intValue());
                 }
 
                 return DashboardSummary.builder()
-                                .totalUsers(totalUsers)
-                                .newUsersLast30Days(newUsersLast30Days)
-                                .totalVideos(totalVideos)
-                                .processedVideosLast30Days(processedVideosLast30Days)
-                                .totalStorageUsed(totalStorageUsed)
+                                .totalUsers(counters.getTotalUsers())
+                                .newUsersLast30Days(counters.getNewUsers())
+                                .totalVideos(counters.getTotalVideos())
+                                .processedVideosLast30Days(counters.getProcessedVideos())
+                                .totalStorageUsed(counters.getTotalStorageUsed())
                                 .userStats(userStats)
                                 .videoStats(videoStats)
                                 .recentUsers(recentUsers)
@@ -131,76 +116,15 @@ public class DashboardServiceImpl implements DashboardService {
         @Transactional(readOnly = true)
         public UserStats getUserStats() {
                 log.debug("Lấy thống kê người dùng");
-
-                // Tổng số người dùng
-                long totalUsers = userRepository.count();
-
-                // Số người dùng đang hoạt động và chưa kích hoạt
-                long activeUsers = userRepository.findAll().stream().filter(User::getEnabled).count();
-                long inactiveUsers = totalUsers - activeUsers;
-
-                // Phân phối người dùng theo vai trò
-                List<UserStats.RoleDistribution> roleDistribution = new ArrayList<>();
-
-                CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-                CriteriaQuery<Tuple> query = cb.createTupleQuery();
-                Root<Role> role = query.from(Role.class);
-
-                query.multiselect(
-                                role.get("name").alias("roleName"),
-                                cb.count(role).alias("count"));
-                query.groupBy(role.get("name"));
-
-                List<Tuple> results = entityManager.createQuery(query).getResultList();
-
-                for (Tuple result : results) {
-                        String roleName = result.get("roleName", String.class);
-                        Long count = result.get("count", Long.class);
-
-                        roleDistribution.add(UserStats.RoleDistribution.builder()
-                                        .roleName(roleName)
-                                        .count(count)
-                                        .build());
-                }
-
-                return UserStats.builder()
-                                .totalUsers(totalUsers)
-                                .activeUsers(activeUsers)
-                                .inactiveUsers(inactiveUsers)
-                                .roleDistribution(roleDistribution)
-                                .build();
+                return buildUserStats(dashboardQueryRepository.getCounters(LocalDateTime.now().minusDays(30)));
         }
 
         @Override
         @Transactional(readOnly = true)
         public VideoStats getVideoStats() {
                 log.debug("Lấy thống kê video");
-
-                // Tổng số video
-                long totalVideos = videoRepository.count();
-
-                // Số video theo loại
-                long uploadedVideos = videoRepository.findAll().stream()
-                                .filter(video -> video.getVideoType() == VideoType.UPLOADED)
-                                .count();
-                long youtubeVideos = totalVideos - uploadedVideos;
-
-                // Phân phối video theo trạng thái
-                List<VideoStats.StatusDistribution> statusDistribution = new ArrayList<>();
-                for (VideoStatus status : VideoStatus.values()) {
-                        long count = videoRepository.findAllByStatus(status).size();
-                        statusDistribution.add(VideoStats.StatusDistribution.builder()
-                                        .status(status.name())
-                                        .count(count)
-                                        .build());
-                }
-
-                return VideoStats.builder()
-                                .totalVideos(totalVideos)
-                                .uploadedVideos(uploadedVideos)
-                                .youtubeVideos(youtubeVideos)
-                                .statusDistribution(statusDistribution)
-                                .build();
+                return buildVideoStats(dashboardQueryRepository.getCounters(LocalDateTime.now().minusDays(30)),
+                                dashboardQueryRepository.countVideosByStatus());
         }
 
         @Override
@@ -252,20 +176,17 @@ public class DashboardServiceImpl implements DashboardService {
         public PagedResponse<VideoDto> getVideos(int page, int size) {
                 log.debug("Lấy danh sách video phân trang cho Admin Dashboard, trang: {}, kích thước: {}", page, size);
 
-                Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-                Page<Video> videos = videoRepository.findAll(pageable);
-
-                List<VideoDto> videoDtos = videos.getContent().stream()
-                                .map(videoMapper::toDto)
-                                .collect(Collectors.toList());
+                List<VideoDto> videos = videoQueryRepository.findAll(VideoQueryRepository.pageOffset(page, size), size);
+                long totalElements = videoRepository.count();
+                int totalPages = size > 0 ? (int) Math.ceil((double) totalElements / size) : 0;
 
                 return new PagedResponse<>(
-                                videoDtos,
-                                videos.getNumber(),
-                                videos.getSize(),
-                                videos.getTotalElements(),
-                                videos.getTotalPages(),
-                                videos.isLast());
+                                videos,
+                                page,
+                                size,
+                                totalElements,
+                                totalPages,
+                                page + 1 >= totalPages);
         }
 
         @Override
@@ -286,19 +207,95 @@ public class DashboardServiceImpl implements DashboardService {
                 videoService.deleteVideo(id);
         }
 
+        @Override
+        @Transactional
+        public VideoDto reprocessVideo(UUID id) {
+                log.debug("Xử lý lại video với id: {}", id);
+                return videoService.reprocessVideo(id);
+        }
+
+        @Override
+        @Transactional
+        public int reprocessVideos(List<UUID> ids) {
+                log.debug("Xử lý lại {} video", ids.size());
+                return videoService.reprocessVideos(ids);
+        }
+
         /**
-         * Map User entity sang UserSummary DTO
+         * Tạo thống kê người dùng từ các bộ đếm
          */
-        private UserStats.UserSummary mapToUserSummary(User user) {
-                // Lấy số lượng video của người dùng
-                long videoCount = videoRepository.countByUser(user);
-
-                // Lấy dung lượng lưu trữ đã sử dụng
-                Long storageUsed = videoRepository.sumFileSizeByUser(user);
-                if (storageUsed == null) {
-                        storageUsed = 0L;
+        private UserStats buildUserStats(DashboardQueryRepository.Counters counters) {
+                // Số người dùng đang hoạt động và chưa kích hoạt
+                long totalUsers = counters.getTotalUsers();
+                long activeUsers = counters.getActiveUsers();
+                long inactiveUsers = totalUsers - activeUsers;
+
+                // Phân phối người dùng theo vai trò
+                List<UserStats.RoleDistribution> roleDistribution = new ArrayList<>();
+
+                CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+                CriteriaQuery<Tuple> query = cb.createTupleQuery();
+                Root<Role> role = query.from(Role.class);
+
+                query.multiselect(
+                                role.get("name").alias("roleName"),
+                                cb.count(role).alias("count"));
+                query.groupBy(role.get("name"));
+
+                List<Tuple> results = entityManager.createQuery(query).getResultList();
+
+                for (Tuple result : results) {
+                        String roleName = result.get("roleName", String.class);
+                        Long count = result.get("count", Long.class);
+
+                        roleDistribution.add(UserStats.RoleDistribution.builder()
+                                        .roleName(roleName)
+                                        .count(count)
+                                        .build());
                 }
 
+                return UserStats.builder()
+                                .totalUsers(totalUsers)
+                                .activeUsers(activeUsers)
+                                .inactiveUsers(inactiveUsers)
+                                .roleDistribution(roleDistribution)
+                                .build();
+        }
+
+        /**
+         * Tạo thống kê video từ các bộ đếm và phân phối trạng thái
+         */
+        private VideoStats buildVideoStats(DashboardQueryRepository.Counters counters, Map<String, Long> statusCounts) {
+                // Số video theo loại
+                long totalVideos = counters.getTotalVideos();
+                long uploadedVideos = counters.getUploadedVideos();
+                long youtubeVideos = totalVideos - uploadedVideos;
+
+                // Phân phối video theo trạng thái
+                List<VideoStats.StatusDistribution> statusDistribution = new ArrayList<>();
+                for (VideoStatus status : VideoStatus.values()) {
+                        statusDistribution.add(VideoStats.StatusDistribution.builder()
+                                        .status(status.name())
+                                        .count(statusCounts.getOrDefault(status.name(), 0L))
+                                        .build());
+                }
+
+                return VideoStats.builder()
+                                .totalVideos(totalVideos)
+                                .uploadedVideos(uploadedVideos)
+                                .youtubeVideos(youtubeVideos)
+                                .statusDistribution(statusDistribution)
+                                .build();
+        }
+
+        /**
+         * Map User entity sang UserSummary DTO
+         */
+        private UserStats.UserSummary mapToUserSummary(User user, DashboardQueryRepository.UserVideoUsage usage) {
+                // Lấy số lượng video và dung lượng lưu trữ đã sử dụng
+                long videoCount = usage != null ? usage.getVideoCount() : 0L;
+                long storageUsed = usage != null ? usage.getStorageUsed() : 0L;
+
                 // Lấy danh sách vai trò
                 List<String> roles = user.getRoles().stream()
                                 .map(Role::getName)
@@ -0,0 +1,80 @@
+package com.loopy.footballvideoprocessor.dashboard.service;
+
+import java.util.Map;
+import java.util.UUID;
+
+import com.loopy.footballvideoprocessor.dashboard.model.StatsDelta;
+import com.loopy.footballvideoprocessor.video.model.Video;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+/**
+ * Service cập nhật các bộ đếm trong dashboard_stats. Các phương thức ghi phải
+ * được gọi trong cùng transaction với thay đổi của video để bộ đếm luôn khớp.
+ */
+public interface DashboardStatsService {
+
+    /**
+     * Cập nhật bộ đếm khi một video được tạo
+     * 
+     * @param video Video vừa được lưu
+     */
+    void onVideoCreated(Video video);
+
+    /**
+     * Cập nhật bộ đếm khi một video bị xóa
+     * 
+     * @param video Video bị xóa
+     */
+    void onVideoDeleted(Video video);
+
+    /**
+     * Cập nhật bộ đếm khi một video chuyển trạng thái
+     * 
+     * @param video     Video
+     * @param oldStatus Trạng thái cũ
+     * @param newStatus Trạng thái mới
+     */
+    void onVideoStatusChanged(Video video, VideoStatus oldStatus, VideoStatus newStatus);
+
+    /**
+     * Cộng một thay đổi vào bộ đếm của người dùng và bộ đếm toàn hệ thống
+     * 
+     * @param userId ID người dùng
+     * @param delta  Thay đổi
+     */
+    void applyDelta(UUID userId, StatsDelta delta);
+
+    /**
+     * Cộng thay đổi của nhiều người dùng. Dòng của người dùng được cập nhật theo
+     * thứ tự user_id tăng dần, dòng toàn hệ thống được cập nhật một lần ở cuối
+     * với tổng các thay đổi, để các transaction ghi đồng thời luôn khóa theo cùng
+     * một thứ tự.
+     * 
+     * @param deltas Thay đổi theo ID người dùng
+     */
+    void applyDeltas(Map<UUID, StatsDelta> deltas);
+
+    /**
+     * Trừ bộ đếm của người dùng khỏi bộ đếm toàn hệ thống trước khi xóa người dùng
+     * 
+     * @param userId ID người dùng
+     */
+    void onUserDeleted(UUID userId);
+
+    /**
+     * Đếm số video của người dùng từ bộ đếm, không quét bảng videos
+     * 
+     * @param userId    ID người dùng
+     * @param videoType Loại video, null để đếm tất cả
+     * @return Số video
+     */
+    long countVideos(UUID userId, VideoType videoType);
+
+    /**
+     * Tính lại toàn bộ bộ đếm từ bảng videos để sửa sai lệch
+     * 
+     * @return Số dòng đã được sửa
+     */
+    int reconcile();
+}
@@ -0,0 +1,121 @@
+package com.loopy.footballvideoprocessor.dashboard.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.loopy.footballvideoprocessor.dashboard.model.StatsDelta;
+import com.loopy.footballvideoprocessor.dashboard.repository.DashboardStatsRepository;
+import com.loopy.footballvideoprocessor.video.model.Video;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardStatsServiceImpl implements DashboardStatsService {
+
+    private final DashboardStatsRepository dashboardStatsRepository;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVideoCreated(Video video) {
+        applyDelta(video.getUser().getId(), StatsDelta.ofVideo(video, 1));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVideoDeleted(Video video) {
+        applyDelta(video.getUser().getId(), StatsDelta.ofVideo(video, -1));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVideoStatusChanged(Video video, VideoStatus oldStatus, VideoStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        applyDelta(video.getUser().getId(), StatsDelta.ofStatusChange(oldStatus, newStatus));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDelta(UUID userId, StatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        dashboardStatsRepository.applyUserDelta(userId, delta);
+        applyGlobalDelta(delta);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDeltas(Map<UUID, StatsDelta> deltas) {
+        StatsDelta total = new StatsDelta();
+        new TreeMap<>(deltas).forEach((userId, delta) -> {
+            if (!delta.isEmpty()) {
+                dashboardStatsRepository.applyUserDelta(userId, delta);
+                total.add(delta);
+            }
+        });
+        if (!total.isEmpty()) {
+            applyGlobalDelta(total);
+        }
+    }
+
+    private void applyGlobalDelta(StatsDelta delta) {
+        if (dashboardStatsRepository.applyGlobalDelta(delta) == 0) {
+            // Dòng toàn hệ thống bị mất, lần đối soát tiếp theo sẽ tạo lại
+            log.warn("Không tìm thấy dòng bộ đếm toàn hệ thống trong dashboard_stats");
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUserDeleted(UUID userId) {
+        dashboardStatsRepository.subtractUserFromGlobal(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countVideos(UUID userId, VideoType videoType) {
+        return dashboardStatsRepository.findByUserId(userId)
+                .map(stats -> {
+                    if (videoType == VideoType.UPLOADED) {
+                        return stats.getTotalUploadedVideos();
+                    }
+                    if (videoType == VideoType.YOUTUBE) {
+                        return stats.getTotalYoutubeVideos();
+                    }
+                    return stats.getTotalVideos();
+                })
+                .orElse(0)
+                .longValue();
+    }
+
+    @Override
+    @Scheduled(cron = "${app.dashboard.stats.reconcile-cron:0 0 * * * *}")
+    @Transactional
+    public int reconcile() {
+        // Transaction ghi video đã cộng thay đổi phải commit trước khi đối soát đọc
+        // bảng videos; transaction đến sau chờ tới khi đối soát commit rồi cộng tiếp
+        dashboardStatsRepository.lockForReconcile();
+        dashboardStatsRepository.createGlobalIfMissing();
+        int fixed = dashboardStatsRepository.reconcileUserStats() + dashboardStatsRepository.reconcileGlobalStats();
+
+        if (fixed > 0) {
+            log.warn("Đã sửa {} dòng bộ đếm bị lệch trong dashboard_stats", fixed);
+        } else {
+            log.debug("Bộ đếm dashboard_stats không bị lệch");
+        }
+        return fixed;
+    }
+}
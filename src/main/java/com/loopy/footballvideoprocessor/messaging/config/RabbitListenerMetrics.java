@@ -0,0 +1,128 @@
+package com.loopy.footballvideoprocessor.messaging.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Metrics về mức độ sử dụng consumer của listener video result, dùng để quyết
+ * định tăng/giảm concurrency khi video-result-queue bị dồn:
+ * <ul>
+ * <li>rabbitmq.listener.consumers.active: số consumer đang chạy</li>
+ * <li>rabbitmq.listener.consumers.busy: số consumer đang xử lý message</li>
+ * <li>rabbitmq.listener.utilization: busy / active</li>
+ * <li>rabbitmq.listener.busy.time: tổng thời gian xử lý (giây)</li>
+ * <li>rabbitmq.queue.messages: số message đang chờ trong queue</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class RabbitListenerMetrics implements MeterBinder {
+
+    public static final String VIDEO_RESULT_LISTENER_ID = "videoResultListener";
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final AtomicInteger busyConsumers = new AtomicInteger();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    @Value("${rabbitmq.queue.video-result}")
+    private String videoResultQueue;
+
+    public RabbitListenerMetrics(RabbitListenerEndpointRegistry listenerRegistry, @Lazy AmqpAdmin amqpAdmin) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+    }
+
+    /**
+     * Advice đo thời gian listener thực sự xử lý message (không tính thời gian
+     * chờ nhận message)
+     */
+    public MethodInterceptor busyTrackingAdvice() {
+        return invocation -> {
+            busyConsumers.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                busyNanos.addAndGet(System.nanoTime() - start);
+                busyConsumers.decrementAndGet();
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rabbitmq.listener.consumers.active", this, RabbitListenerMetrics::activeConsumers)
+                .tag("listener", VIDEO_RESULT_LISTENER_ID)
+                .description("Số consumer đang chạy")
+                .register(registry);
+
+        Gauge.builder("rabbitmq.listener.consumers.busy", busyConsumers, AtomicInteger::get)
+                .tag("listener", VIDEO_RESULT_LISTENER_ID)
+                .description("Số consumer đang xử lý message")
+                .register(registry);
+
+        Gauge.builder("rabbitmq.listener.utilization", this, RabbitListenerMetrics::utilization)
+                .tag("listener", VIDEO_RESULT_LISTENER_ID)
+                .description("Tỉ lệ consumer đang bận trên tổng số consumer")
+                .register(registry);
+
+        FunctionCounter.builder("rabbitmq.listener.busy.time", this, RabbitListenerMetrics::busySeconds)
+                .tag("listener", VIDEO_RESULT_LISTENER_ID)
+                .baseUnit("seconds")
+                .description("Tổng thời gian consumer xử lý message")
+                .register(registry);
+
+        Gauge.builder("rabbitmq.queue.messages", this, RabbitListenerMetrics::queueDepth)
+                .tag("queue", videoResultQueue)
+                .description("Số message đang chờ trong queue")
+                .register(registry);
+    }
+
+    private double busySeconds() {
+        return busyNanos.get() / 1_000_000_000d;
+    }
+
+    private double activeConsumers() {
+        AbstractMessageListenerContainer container = getContainer();
+        if (container instanceof SimpleMessageListenerContainer simpleContainer) {
+            return simpleContainer.getActiveConsumerCount();
+        }
+        return container != null && container.isRunning() ? 1 : 0;
+    }
+
+    private double utilization() {
+        double active = activeConsumers();
+        return active > 0 ? Math.min(1.0, busyConsumers.get() / active) : 0.0;
+    }
+
+    private double queueDepth() {
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(videoResultQueue);
+            return info != null ? info.getMessageCount() : Double.NaN;
+        } catch (Exception e) {
+            log.debug("Không lấy được thông tin queue {}: {}", videoResultQueue, e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    private AbstractMessageListenerContainer getContainer() {
+        return (AbstractMessageListenerContainer) listenerRegistry.getListenerContainer(VIDEO_RESULT_LISTENER_ID);
+    }
+}
@@ -1,26 +1,50 @@
 package com.loopy.footballvideoprocessor.messaging.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
 
 @Configuration
+@Slf4j
 public class RabbitMQConfig {
 
+    // Số mức ưu tiên của video processing queue, giữ nhỏ vì mỗi mức là một
+    // hàng đợi con bên trong RabbitMQ
+    public static final int VIDEO_PROCESSING_MAX_PRIORITY = 5;
+
+    public static final String DEAD_LETTER_QUEUE = "dead.letter.queue";
+
+    private static final Pattern RETRY_QUEUE_SUFFIX = Pattern.compile("\\.retry\\.\\d+$");
+
     @Value("${rabbitmq.exchange.video-processing}")
     private String videoProcessingExchange;
 
     @Value("${rabbitmq.queue.video-processing}")
     private String videoProcessingQueue;
 
+    @Value("${rabbitmq.queue.video-processing-legacy:}")
+    private String legacyVideoProcessingQueue;
+
     @Value("${rabbitmq.queue.video-result}")
     private String videoResultQueue;
 
@@ -30,34 +54,141 @@ public class RabbitMQConfig {
     @Value("${rabbitmq.routing-key.video-result}")
     private String videoResultRoutingKey;
 
+    @Value("${rabbitmq.queue.parking-lot}")
+    private String parkingLotQueue;
+
+    @Value("${rabbitmq.queue.video-packaging}")
+    private String videoPackagingQueue;
+
+    @Value("${rabbitmq.queue.video-packaging-result}")
+    private String videoPackagingResultQueue;
+
+    @Value("${rabbitmq.routing-key.video-packaging}")
+    private String videoPackagingRoutingKey;
+
+    @Value("${rabbitmq.routing-key.video-packaging-result}")
+    private String videoPackagingResultRoutingKey;
+
+    @Value("${rabbitmq.retry.delays:10s,1m,5m}")
+    private List<Duration> retryDelays;
+
+    @Value("${rabbitmq.listener.video-result.concurrency:2}")
+    private int videoResultConcurrency;
+
+    @Value("${rabbitmq.listener.video-result.max-concurrency:8}")
+    private int videoResultMaxConcurrency;
+
+    @Value("${rabbitmq.listener.video-result.prefetch:250}")
+    private int videoResultPrefetch;
+
+    @Value("${rabbitmq.listener.video-result.batch-size:100}")
+    private int videoResultBatchSize;
+
+    @Value("${rabbitmq.listener.video-result.receive-timeout:500}")
+    private long videoResultReceiveTimeout;
+
+    @Value("${rabbitmq.listener.video-result.virtual-threads:false}")
+    private boolean videoResultVirtualThreads;
+
     // Tạo Exchange cho video processing
     @Bean
     public DirectExchange videoProcessingExchange() {
         return new DirectExchange(videoProcessingExchange);
     }
 
-    // Tạo Queue cho video processing
+    // Tạo Queue cho video processing, message có priority cao được giao trước.
+    // RabbitMQ không cho đổi tham số của queue đã tồn tại (PRECONDITION_FAILED),
+    // nên queue có priority phải dùng tên khác với queue cũ không có priority.
     @Bean
     public Queue videoProcessingQueue() {
         return QueueBuilder.durable(videoProcessingQueue)
+                .maxPriority(VIDEO_PROCESSING_MAX_PRIORITY)
                 .withArgument("x-dead-letter-exchange", "")
-                .withArgument("x-dead-letter-routing-key", "dead.letter.queue")
+                .withArgument("x-dead-letter-routing-key", DEAD_LETTER_QUEUE)
                 .build();
     }
 
+    // Queue video processing cũ (không có priority) được khai báo lại đúng tham
+    // số cũ nhưng không bind với exchange: không nhận message mới, worker tiếp
+    // tục consume cho tới khi hết rồi bỏ cấu hình rabbitmq.queue.video-processing-legacy
+    @Bean
+    public Declarables legacyVideoProcessingQueue() {
+        if (legacyVideoProcessingQueue.isBlank() || legacyVideoProcessingQueue.equals(videoProcessingQueue)) {
+            return new Declarables();
+        }
+        return new Declarables(QueueBuilder.durable(legacyVideoProcessingQueue)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", DEAD_LETTER_QUEUE)
+                .build());
+    }
+
     // Tạo Queue cho video result
     @Bean
     public Queue videoResultQueue() {
         return QueueBuilder.durable(videoResultQueue)
                 .withArgument("x-dead-letter-exchange", "")
-                .withArgument("x-dead-letter-routing-key", "dead.letter.queue")
+                .withArgument("x-dead-letter-routing-key", DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    // Queue yêu cầu đóng gói HLS/DASH cho packager
+    @Bean
+    public Queue videoPackagingQueue() {
+        return QueueBuilder.durable(videoPackagingQueue)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    // Queue kết quả đóng gói từ packager
+    @Bean
+    public Queue videoPackagingResultQueue() {
+        return QueueBuilder.durable(videoPackagingResultQueue)
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", DEAD_LETTER_QUEUE)
                 .build();
     }
 
     // Tạo Dead Letter Queue
     @Bean
     public Queue deadLetterQueue() {
-        return QueueBuilder.durable("dead.letter.queue").build();
+        return QueueBuilder.durable(DEAD_LETTER_QUEUE).build();
+    }
+
+    // Các queue chờ thử lại video processing, mỗi tầng có TTL riêng (tăng dần).
+    // Khi hết hạn, message được dead-letter trở lại exchange video processing.
+    @Bean
+    public Declarables videoProcessingRetryQueues() {
+        List<Declarable> queues = new ArrayList<>();
+        for (int tier = 1; tier <= retryDelays.size(); tier++) {
+            queues.add(QueueBuilder.durable(retryQueueName(videoProcessingQueue, tier))
+                    .ttl((int) retryDelays.get(tier - 1).toMillis())
+                    .deadLetterExchange(videoProcessingExchange)
+                    .deadLetterRoutingKey(videoProcessingRoutingKey)
+                    .build());
+        }
+        return new Declarables(queues);
+    }
+
+    // Queue chứa các message đã hết số lần thử lại, chờ admin phát lại
+    @Bean
+    public Queue parkingLotQueue() {
+        return QueueBuilder.durable(parkingLotQueue).build();
+    }
+
+    /**
+     * Tên queue chờ thử lại của một tầng (bắt đầu từ 1)
+     */
+    public static String retryQueueName(String queue, int tier) {
+        return queue + ".retry." + tier;
+    }
+
+    /**
+     * Tên queue gốc của một queue chờ thử lại, giữ nguyên nếu không phải queue
+     * chờ thử lại
+     */
+    public static String baseQueueName(String queue) {
+        return RETRY_QUEUE_SUFFIX.matcher(queue).replaceFirst("");
     }
 
     // Binding video processing queue với exchange
@@ -78,17 +209,82 @@ public class RabbitMQConfig {
                 .with(videoResultRoutingKey);
     }
 
+    // Binding các queue đóng gói với exchange video processing
+    @Bean
+    public Binding videoPackagingBinding() {
+        return BindingBuilder
+                .bind(videoPackagingQueue())
+                .to(videoProcessingExchange())
+                .with(videoPackagingRoutingKey);
+    }
+
+    @Bean
+    public Binding videoPackagingResultBinding() {
+        return BindingBuilder
+                .bind(videoPackagingResultQueue())
+                .to(videoProcessingExchange())
+                .with(videoPackagingResultRoutingKey);
+    }
+
     // Cấu hình message converter để chuyển đổi object thành JSON
     @Bean
     public Jackson2JsonMessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
+    // Container nhận từng video result (khi tắt chế độ nhận theo lô)
+    @Bean
+    public SimpleRabbitListenerContainerFactory videoResultContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            RabbitListenerMetrics listenerMetrics) {
+        return createVideoResultContainerFactory(configurer, connectionFactory, listenerMetrics);
+    }
+
+    // Container nhận video result theo lô: giao lô khi đủ batch-size message
+    // hoặc khi không có message mới trong receive-timeout ms
+    @Bean
+    public SimpleRabbitListenerContainerFactory videoResultBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            RabbitListenerMetrics listenerMetrics) {
+        SimpleRabbitListenerContainerFactory factory = createVideoResultContainerFactory(configurer,
+                connectionFactory, listenerMetrics);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(videoResultBatchSize);
+        factory.setReceiveTimeout(videoResultReceiveTimeout);
+        // Prefetch phải đủ lớn để một consumer gom được cả lô
+        factory.setPrefetchCount(Math.max(videoResultPrefetch, videoResultBatchSize));
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory createVideoResultContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            RabbitListenerMetrics listenerMetrics) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setConcurrentConsumers(videoResultConcurrency);
+        factory.setMaxConcurrentConsumers(Math.max(videoResultConcurrency, videoResultMaxConcurrency));
+        factory.setPrefetchCount(videoResultPrefetch);
+        factory.setAdviceChain(listenerMetrics.busyTrackingAdvice());
+
+        if (videoResultVirtualThreads) {
+            if (Runtime.version().feature() >= 21) {
+                factory.setTaskExecutor(new VirtualThreadTaskExecutor("video-result-"));
+            } else {
+                log.warn("Virtual thread cần Java 21 trở lên, listener video result dùng thread thường");
+            }
+        }
+        return factory;
+    }
+
     // Cấu hình RabbitTemplate để gửi message
     @Bean
     public RabbitTemplate rabbitTemplate(final ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        // Message không route được sẽ bị trả về thay vì bị bỏ im lặng
+        rabbitTemplate.setMandatory(true);
         return rabbitTemplate;
     }
 }
@@ -0,0 +1,31 @@
+package com.loopy.footballvideoprocessor.messaging.consumer;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+import com.loopy.footballvideoprocessor.messaging.config.RabbitMQConfig;
+import com.loopy.footballvideoprocessor.messaging.service.MessageRetryService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhận các message bị dead-letter (worker reject hoặc xử lý lỗi) và chuyển sang
+ * pipeline thử lại. Nếu không gửi được sang queue thử lại, message được trả về
+ * dead letter queue để nhận lại sau.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterConsumer {
+
+    private final MessageRetryService messageRetryService;
+
+    @RabbitListener(queues = RabbitMQConfig.DEAD_LETTER_QUEUE)
+    public void receiveDeadLetter(Message message) {
+        log.debug("Nhận message bị dead-letter từ queue: {}",
+                message.getMessageProperties().<String>getHeader("x-first-death-queue"));
+        messageRetryService.handleDeadLetter(message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.loopy.footballvideoprocessor.messaging.consumer;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhận kết quả đóng gói HLS/DASH từ packager
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VideoPackagingConsumer {
+
+    private final VideoPackagingResultWriter videoPackagingResultWriter;
+
+    @RabbitListener(queues = "${rabbitmq.queue.video-packaging-result}")
+    public void receivePackagingResult(VideoProcessingMessage message) {
+        log.debug("Nhận kết quả đóng gói video với videoId: {}, status: {}",
+                message.getVideoId(), message.getStatus());
+
+        try {
+            videoPackagingResultWriter.write(message);
+        } catch (Exception e) {
+            log.error("Lỗi khi xử lý kết quả đóng gói video {}: {}", message.getVideoId(), e.getMessage(), e);
+        }
+    }
+}
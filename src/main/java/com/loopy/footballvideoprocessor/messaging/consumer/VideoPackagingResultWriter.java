@@ -0,0 +1,84 @@
+package com.loopy.footballvideoprocessor.messaging.consumer;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.video.model.PackagingStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.service.VideoCacheSupport;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ghi kết quả đóng gói HLS/DASH từ packager vào cơ sở dữ liệu. Đường dẫn
+ * manifest chỉ được ghi khi đóng gói thành công, cache của video được xóa sau
+ * khi transaction commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VideoPackagingResultWriter {
+
+    private static final String UPDATE_PACKAGING_QUERY = """
+            UPDATE videos
+            SET packaging_status = :packagingStatus,
+                hls_manifest_path = COALESCE(:hlsManifestPath, hls_manifest_path),
+                dash_manifest_path = COALESCE(:dashManifestPath, dash_manifest_path),
+                updated_at = CURRENT_TIMESTAMP
+            WHERE id = :id
+            RETURNING user_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final VideoCacheSupport videoCacheSupport;
+
+    /**
+     * Áp dụng kết quả đóng gói của một video
+     * 
+     * @param message Message kết quả từ packager; status COMPLETED là thành công,
+     *                ERROR là lỗi, các trạng thái khác là tiến độ và bị bỏ qua
+     * @return true nếu video được cập nhật
+     */
+    @Transactional
+    public boolean write(VideoProcessingMessage message) {
+        if (message.getVideoId() == null || message.getStatus() == null) {
+            log.warn("Bỏ qua message kết quả đóng gói không hợp lệ: {}", message);
+            return false;
+        }
+
+        PackagingStatus packagingStatus = toPackagingStatus(message.getStatus());
+        if (packagingStatus == null) {
+            return false;
+        }
+        boolean completed = packagingStatus == PackagingStatus.COMPLETED;
+
+        List<UUID> owners = jdbcTemplate.queryForList(UPDATE_PACKAGING_QUERY, new MapSqlParameterSource()
+                .addValue("id", message.getVideoId())
+                .addValue("packagingStatus", packagingStatus.name())
+                .addValue("hlsManifestPath", completed ? message.getHlsManifestPath() : null)
+                .addValue("dashManifestPath", completed ? message.getDashManifestPath() : null), UUID.class);
+        if (owners.isEmpty()) {
+            log.warn("Bỏ qua kết quả đóng gói của video không tồn tại: {}", message.getVideoId());
+            return false;
+        }
+
+        videoCacheSupport.evictVideo(owners.get(0), message.getVideoId());
+        log.info("Cập nhật trạng thái đóng gói video {}: {}", message.getVideoId(), packagingStatus);
+        return true;
+    }
+
+    private static PackagingStatus toPackagingStatus(VideoStatus status) {
+        return switch (status) {
+            case COMPLETED -> PackagingStatus.COMPLETED;
+            case ERROR -> PackagingStatus.ERROR;
+            default -> null;
+        };
+    }
+}
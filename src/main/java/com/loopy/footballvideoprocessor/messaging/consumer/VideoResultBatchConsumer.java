@@ -0,0 +1,47 @@
+package com.loopy.footballvideoprocessor.messaging.consumer;
+
+import java.util.List;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.loopy.footballvideoprocessor.messaging.config.RabbitListenerMetrics;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhận kết quả xử lý video theo lô: container gom tối đa batch-size message
+ * hoặc chờ receive-timeout rồi giao cả lô, các cập nhật của cùng một video được
+ * gộp lại trước khi ghi xuống cơ sở dữ liệu.
+ */
+@Service
+@ConditionalOnProperty(name = "rabbitmq.listener.video-result.batch-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class VideoResultBatchConsumer {
+
+    private final VideoResultWriter videoResultWriter;
+
+    @RabbitListener(id = RabbitListenerMetrics.VIDEO_RESULT_LISTENER_ID, queues = "${rabbitmq.queue.video-result}",
+            containerFactory = "videoResultBatchContainerFactory")
+    public void receiveVideoResults(List<VideoProcessingMessage> messages) {
+        log.debug("Nhận {} kết quả xử lý video", messages.size());
+
+        try {
+            videoResultWriter.write(messages);
+        } catch (Exception e) {
+            // Ghi lại từng message để một message lỗi không làm mất cả lô
+            log.error("Lỗi khi ghi lô kết quả xử lý video, chuyển sang ghi từng message: {}", e.getMessage(), e);
+            for (VideoProcessingMessage message : messages) {
+                try {
+                    videoResultWriter.write(List.of(message));
+                } catch (Exception ex) {
+                    log.error("Lỗi khi xử lý kết quả video {}: {}", message.getVideoId(), ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+}
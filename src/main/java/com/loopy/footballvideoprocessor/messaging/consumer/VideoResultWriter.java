@@ -0,0 +1,284 @@
+package com.loopy.footballvideoprocessor.messaging.consumer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.loopy.footballvideoprocessor.dashboard.model.StatsDelta;
+import com.loopy.footballvideoprocessor.dashboard.service.DashboardStatsService;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.messaging.model.ProcessingStage;
+import com.loopy.footballvideoprocessor.messaging.service.OutboxService;
+import com.loopy.footballvideoprocessor.video.dto.ProcessingEvent;
+import com.loopy.footballvideoprocessor.video.model.PackagingStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.service.PlaybackTokenProvider;
+import com.loopy.footballvideoprocessor.video.service.ProcessingEventBroadcaster;
+import com.loopy.footballvideoprocessor.video.service.VideoCacheSupport;
+import com.loopy.footballvideoprocessor.video.service.VideoManifestService;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ghi kết quả xử lý video từ worker vào cơ sở dữ liệu. Các message của cùng
+ * một video được gộp lại (message có timestamp mới nhất thắng), message cũ hơn
+ * kết quả đã áp dụng bị bỏ qua, sau đó toàn bộ được ghi bằng JDBC batch trong
+ * một transaction: tiến độ mới nhất được lưu trên videos, đồng thời một dòng
+ * lịch sử được thêm vào video_processing_status. Cache của các video bị ảnh
+ * hưởng được xóa sau khi transaction commit. Video vừa chuyển sang COMPLETED
+ * được gửi tiếp sang công đoạn đóng gói HLS/DASH qua outbox.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VideoResultWriter {
+
+    private static final String LOCK_VIDEOS_QUERY = """
+            SELECT id, user_id, status, last_result_at
+            FROM videos
+            WHERE id IN (:ids)
+            ORDER BY id
+            FOR UPDATE
+            """;
+
+    private static final String UPDATE_VIDEO_QUERY = """
+            UPDATE videos
+            SET status = :status,
+                processed_path = COALESCE(:processedPath, processed_path),
+                last_result_at = COALESCE(:timestamp, last_result_at),
+                progress = COALESCE(:progress, progress),
+                status_message = :message,
+                status_updated_at = :statusUpdatedAt,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE id = :id
+            """;
+
+    // Manifest cũ bị bỏ cho tới khi lần đóng gói mới hoàn thành
+    private static final String MARK_PACKAGING_QUERY = """
+            UPDATE videos
+            SET packaging_status = :packagingStatus,
+                hls_manifest_path = NULL,
+                dash_manifest_path = NULL
+            WHERE id = :id
+            """;
+
+    private static final String INSERT_STATUS_QUERY = """
+            INSERT INTO video_processing_status (video_id, status, progress, message)
+            VALUES (:videoId, :status, :progress, :message)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DashboardStatsService dashboardStatsService;
+    private final ProcessingEventBroadcaster processingEventBroadcaster;
+    private final VideoCacheSupport videoCacheSupport;
+    private final OutboxService outboxService;
+
+    @Value("${app.video.packaging.enabled:true}")
+    private boolean packagingEnabled;
+
+    @Value("${app.video.packaging.dash-enabled:false}")
+    private boolean dashEnabled;
+
+    @Value("${app.video.packaging.segment-duration:6}")
+    private int segmentDuration;
+
+    /**
+     * Áp dụng một lô kết quả xử lý video
+     * 
+     * @param messages Các message theo thứ tự nhận được
+     * @return Số video đã được cập nhật
+     */
+    @Transactional
+    public int write(List<VideoProcessingMessage> messages) {
+        Map<UUID, VideoProcessingMessage> latest = coalesce(messages);
+        if (latest.isEmpty()) {
+            return 0;
+        }
+
+        // Khóa các video liên quan để việc so sánh timestamp và bộ đếm không bị
+        // ảnh hưởng bởi consumer khác; khóa theo thứ tự id để hai consumer có lô
+        // giao nhau không chờ lẫn nhau
+        Map<UUID, LockedVideo> videos = new HashMap<>();
+        jdbcTemplate.query(LOCK_VIDEOS_QUERY, new MapSqlParameterSource("ids", latest.keySet()), rs -> {
+            Timestamp lastResultAt = rs.getTimestamp("last_result_at");
+            UUID id = rs.getObject("id", UUID.class);
+            videos.put(id, new LockedVideo(
+                    rs.getObject("user_id", UUID.class),
+                    VideoStatus.valueOf(rs.getString("status")),
+                    lastResultAt != null ? lastResultAt.toLocalDateTime() : null));
+        });
+
+        List<SqlParameterSource> updates = new ArrayList<>();
+        List<SqlParameterSource> inserts = new ArrayList<>();
+        Map<UUID, StatsDelta> deltas = new TreeMap<>();
+        List<ProcessingEvent> events = new ArrayList<>();
+        List<SqlParameterSource> packagings = new ArrayList<>();
+        Set<UUID> owners = new HashSet<>();
+
+        for (VideoProcessingMessage message : latest.values()) {
+            LockedVideo video = videos.get(message.getVideoId());
+            if (video == null) {
+                log.warn("Bỏ qua kết quả xử lý của video không tồn tại: {}", message.getVideoId());
+                continue;
+            }
+            if (isOutdated(message.getTimestamp(), video.getLastResultAt())) {
+                log.debug("Bỏ qua kết quả xử lý cũ của video {}: {} <= {}",
+                        message.getVideoId(), message.getTimestamp(), video.getLastResultAt());
+                continue;
+            }
+
+            // Snapshot SSE đọc status_updated_at để bỏ các sự kiện không mới hơn nó,
+            // nên cột này phải cùng mốc thời gian với sự kiện được phát, không phải
+            // giờ của cơ sở dữ liệu
+            LocalDateTime eventTime = message.getTimestamp() != null ? message.getTimestamp() : LocalDateTime.now();
+            updates.add(new MapSqlParameterSource()
+                    .addValue("id", message.getVideoId())
+                    .addValue("status", message.getStatus().name())
+                    .addValue("processedPath", message.getOutputPath())
+                    .addValue("timestamp", message.getTimestamp())
+                    .addValue("statusUpdatedAt", eventTime)
+                    .addValue("progress", message.getProgress())
+                    .addValue("message", message.getMessage()));
+            inserts.add(new MapSqlParameterSource()
+                    .addValue("videoId", message.getVideoId())
+                    .addValue("status", message.getStatus().name())
+                    .addValue("progress", message.getProgress())
+                    .addValue("message", message.getMessage()));
+            events.add(ProcessingEvent.builder()
+                    .videoId(message.getVideoId())
+                    .userId(video.getUserId())
+                    .status(message.getStatus())
+                    .progress(message.getProgress())
+                    .message(message.getMessage())
+                    .timestamp(eventTime)
+                    .build());
+
+            videoCacheSupport.evictVideoProgress(video.getUserId(), message.getVideoId());
+            owners.add(video.getUserId());
+            if (video.getStatus() != message.getStatus()) {
+                deltas.computeIfAbsent(video.getUserId(), id -> new StatsDelta())
+                        .add(StatsDelta.ofStatusChange(video.getStatus(), message.getStatus()));
+
+                if (packagingEnabled && message.getStatus() == VideoStatus.COMPLETED) {
+                    requestPackaging(message, video.getUserId());
+                    packagings.add(new MapSqlParameterSource()
+                            .addValue("id", message.getVideoId())
+                            .addValue("packagingStatus", PackagingStatus.PENDING.name()));
+                }
+            }
+        }
+
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_VIDEO_QUERY, updates.toArray(SqlParameterSource[]::new));
+        jdbcTemplate.batchUpdate(INSERT_STATUS_QUERY, inserts.toArray(SqlParameterSource[]::new));
+        if (!packagings.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_PACKAGING_QUERY, packagings.toArray(SqlParameterSource[]::new));
+        }
+        dashboardStatsService.applyDeltas(deltas);
+        // Danh sách video cũng chứa tiến độ nên bị xóa với mọi kết quả, mỗi người dùng một lần cho cả lô
+        owners.forEach(videoCacheSupport::evictVideoLists);
+        publishAfterCommit(events);
+
+        log.debug("Đã ghi {} kết quả xử lý video từ {} message", updates.size(), messages.size());
+        return updates.size();
+    }
+
+    /**
+     * Gửi yêu cầu đóng gói HLS/DASH cho video vừa xử lý xong qua outbox, trong
+     * cùng transaction với kết quả xử lý
+     */
+    private void requestPackaging(VideoProcessingMessage result, UUID userId) {
+        UUID videoId = result.getVideoId();
+        String processedPath = result.getOutputPath() != null ? result.getOutputPath()
+                : PlaybackTokenProvider.processedPrefix(userId) + videoId + ".mp4";
+
+        outboxService.enqueue(VideoProcessingMessage.builder()
+                .videoId(videoId)
+                .userId(userId)
+                .stage(ProcessingStage.PACKAGE)
+                .videoPath(processedPath)
+                .outputPath(VideoManifestService.segmentPrefix(userId, videoId))
+                .hlsManifestPath(VideoManifestService.hlsManifestPath(userId, videoId))
+                .dashManifestPath(dashEnabled ? VideoManifestService.dashManifestPath(userId, videoId) : null)
+                .segmentDuration(segmentDuration)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Gộp các message theo video, giữ lại message mới nhất. Message không có
+     * timestamp được coi là mới hơn các message nhận trước nó.
+     */
+    private Map<UUID, VideoProcessingMessage> coalesce(List<VideoProcessingMessage> messages) {
+        Map<UUID, VideoProcessingMessage> latest = new LinkedHashMap<>();
+        for (VideoProcessingMessage message : messages) {
+            if (message.getVideoId() == null || message.getStatus() == null) {
+                log.warn("Bỏ qua message kết quả xử lý không hợp lệ: {}", message);
+                continue;
+            }
+
+            // Message đầu vào còn được gửi lại sang hàng đợi retry và ghi log nên
+            // chỉ được gộp vào bản sao, không sửa trực tiếp
+            VideoProcessingMessage current = latest.get(message.getVideoId());
+            if (current == null) {
+                latest.put(message.getVideoId(), message);
+            } else if (!isOutdated(message.getTimestamp(), current.getTimestamp())) {
+                // Giữ lại đường dẫn kết quả nếu message mới hơn không mang theo
+                latest.put(message.getVideoId(), message.getOutputPath() != null ? message
+                        : message.toBuilder().outputPath(current.getOutputPath()).build());
+            } else if (current.getOutputPath() == null && message.getOutputPath() != null) {
+                latest.put(message.getVideoId(), current.toBuilder().outputPath(message.getOutputPath()).build());
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Phát sự kiện tiến độ sau khi transaction commit để client không nhận
+     * được trạng thái chưa được lưu
+     */
+    private void publishAfterCommit(List<ProcessingEvent> events) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                events.forEach(processingEventBroadcaster::publish);
+            }
+        });
+    }
+
+    private boolean isOutdated(LocalDateTime timestamp, LocalDateTime appliedAt) {
+        return timestamp != null && appliedAt != null && !timestamp.isAfter(appliedAt);
+    }
+
+    /**
+     * Trạng thái hiện tại của video đã bị khóa
+     */
+    @Data
+    private static class LockedVideo {
+        private final UUID userId;
+        private final VideoStatus status;
+        private final LocalDateTime lastResultAt;
+    }
+}
@@ -0,0 +1,45 @@
+package com.loopy.footballvideoprocessor.messaging.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.loopy.footballvideoprocessor.common.dto.ApiResponse;
+import com.loopy.footballvideoprocessor.messaging.dto.ParkingLotStatus;
+import com.loopy.footballvideoprocessor.messaging.service.MessageRetryService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@RequestMapping("/admin/messaging")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Messaging", description = "API quản lý message xử lý video bị lỗi")
+@Slf4j
+public class MessagingAdminController {
+
+    private final MessageRetryService messageRetryService;
+
+    @GetMapping("/parking-lot")
+    @Operation(summary = "Lấy thông tin parking lot", description = "Lấy số message đã hết lượt thử lại đang chờ xử lý")
+    public ResponseEntity<ApiResponse<ParkingLotStatus>> getParkingLotStatus() {
+        log.debug("REST request để lấy thông tin parking lot");
+        return ResponseEntity.ok(ApiResponse.success(messageRetryService.getParkingLotStatus()));
+    }
+
+    @PostMapping("/parking-lot/replay")
+    @Operation(summary = "Phát lại message", description = "Phát lại các message trong parking lot về queue gốc")
+    public ResponseEntity<ApiResponse<Integer>> replayParkedMessages(
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("REST request để phát lại tối đa {} message từ parking lot", limit);
+        int replayed = messageRetryService.replayParkedMessages(limit);
+        return ResponseEntity.ok(ApiResponse.success("Đã phát lại " + replayed + " message", replayed));
+    }
+}
@@ -0,0 +1,15 @@
+package com.loopy.footballvideoprocessor.messaging.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkingLotStatus {
+    private String queue;
+    private long messageCount;
+}
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import com.loopy.footballvideoprocessor.messaging.model.ProcessingStage;
 import com.loopy.footballvideoprocessor.video.model.VideoStatus;
 
 import lombok.AllArgsConstructor;
@@ -12,7 +13,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class VideoProcessingMessage implements Serializable {
@@ -25,6 +26,17 @@ public class VideoProcessingMessage implements Serializable {
     private String cloudStorageKey;
     private String outputPath;
 
+    // Công đoạn của message; message từ worker cũ không có trường này là PROCESS
+    @Builder.Default
+    private ProcessingStage stage = ProcessingStage.PROCESS;
+
+    // Công đoạn PACKAGE: videoPath là file MP4 đã xử lý, outputPath là thư mục
+    // chứa segment; packager ghi manifest vào các đường dẫn dưới đây và trả lại
+    // chúng trong message kết quả. dashManifestPath null nếu không đóng gói DASH.
+    private String hlsManifestPath;
+    private String dashManifestPath;
+    private Integer segmentDuration;
+
     // Thêm trường cho video YouTube
     private String youtubeUrl;
     private String youtubeVideoId;
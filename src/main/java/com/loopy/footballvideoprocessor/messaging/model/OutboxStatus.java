@@ -0,0 +1,6 @@
+package com.loopy.footballvideoprocessor.messaging.model;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT
+}
@@ -0,0 +1,16 @@
+package com.loopy.footballvideoprocessor.messaging.model;
+
+/**
+ * Công đoạn mà message xử lý video yêu cầu hoặc báo kết quả.
+ */
+public enum ProcessingStage {
+    /**
+     * Phân tích video và tạo file MP4 đã xử lý.
+     */
+    PROCESS,
+
+    /**
+     * Đóng gói file MP4 đã xử lý thành HLS (và DASH nếu được bật).
+     */
+    PACKAGE
+}
@@ -1,22 +1,50 @@
 package com.loopy.footballvideoprocessor.messaging.producer;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.loopy.footballvideoprocessor.common.exception.MessagingException;
+import com.loopy.footballvideoprocessor.messaging.config.RabbitMQConfig;
 import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.messaging.model.ProcessingStage;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Gửi message xử lý video lên RabbitMQ. Các phương thức async trả về future
+ * hoàn thành khi broker xác nhận message (publisher confirm); số message đang
+ * chờ xác nhận bị giới hạn để không giữ quá nhiều message trong bộ nhớ khi
+ * broker chậm.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class VideoProcessingProducer {
 
+    private static final int NORMAL_PRIORITY = 0;
+    private static final int HIGH_PRIORITY = RabbitMQConfig.VIDEO_PROCESSING_MAX_PRIORITY;
+
     private final RabbitTemplate rabbitTemplate;
+    private final Semaphore inFlightPermits;
+    private final int maxInFlight;
+    private final Duration bufferTimeout;
+    private final Timer confirmLatency;
+    private final Counter nackCounter;
+    private final Counter returnedCounter;
 
     @Value("${rabbitmq.exchange.video-processing}")
     private String videoProcessingExchange;
@@ -24,20 +52,159 @@ public class VideoProcessingProducer {
     @Value("${rabbitmq.routing-key.video-processing}")
     private String videoProcessingRoutingKey;
 
+    @Value("${rabbitmq.routing-key.video-packaging}")
+    private String videoPackagingRoutingKey;
+
+    public VideoProcessingProducer(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+            @Value("${rabbitmq.publisher.max-in-flight:1000}") int maxInFlight,
+            @Value("${rabbitmq.publisher.buffer-timeout:5s}") Duration bufferTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.bufferTimeout = bufferTimeout;
+
+        this.confirmLatency = Timer.builder("rabbitmq.publisher.confirm.latency")
+                .description("Thời gian từ lúc gửi đến lúc broker xác nhận message")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.nackCounter = Counter.builder("rabbitmq.publisher.nacks")
+                .description("Số message bị broker từ chối")
+                .register(meterRegistry);
+        this.returnedCounter = Counter.builder("rabbitmq.publisher.returns")
+                .description("Số message bị trả về do không route được")
+                .register(meterRegistry);
+        Gauge.builder("rabbitmq.publisher.in-flight", this, VideoProcessingProducer::getInFlightCount)
+                .description("Số message đang chờ broker xác nhận")
+                .register(meterRegistry);
+    }
+
     public void sendVideoProcessingMessage(VideoProcessingMessage message) {
         try {
-            if (message.getYoutubeUrl() != null) {
-                log.info("Gửi YouTube video processing message với videoId: {}, youtubeUrl: {}",
-                        message.getVideoId(), message.getYoutubeUrl());
+            logSend(message);
+            rabbitTemplate.convertAndSend(videoProcessingExchange, routingKey(message), message,
+                    priorityPostProcessor(message));
+            log.info("Message đã được gửi tới broker");
+        } catch (AmqpException e) {
+            log.error("Lỗi khi gửi video processing message: {}", e.getMessage(), e);
+            throw new MessagingException("Không thể gửi message xử lý video", e);
+        }
+    }
+
+    /**
+     * Gửi message không chờ broker. Nếu số message đang chờ xác nhận đã đạt giới
+     * hạn, phương thức chờ tối đa buffer-timeout để có chỗ trống.
+     * 
+     * @param message Message cần gửi
+     * @return Future hoàn thành khi broker xác nhận, thất bại với
+     *         MessagingException nếu message bị từ chối hoặc bị trả về
+     */
+    public CompletableFuture<Void> sendAsync(VideoProcessingMessage message) {
+        acquirePermit();
+        return publish(message);
+    }
+
+    /**
+     * Gửi một lô message liên tiếp trên cùng một channel rồi mới chờ xác nhận,
+     * dùng cho các thao tác hàng loạt như xử lý lại nhiều video
+     * 
+     * @param messages Các message cần gửi
+     * @return Future của từng message, theo đúng thứ tự
+     */
+    public List<CompletableFuture<Void>> sendBatch(List<VideoProcessingMessage> messages) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(messages.size());
+        rabbitTemplate.invoke(operations -> {
+            for (VideoProcessingMessage message : messages) {
+                try {
+                    acquirePermit();
+                } catch (MessagingException e) {
+                    futures.add(CompletableFuture.failedFuture(e));
+                    continue;
+                }
+                futures.add(publish(message));
+            }
+            return null;
+        });
+        return futures;
+    }
+
+    /**
+     * Số message đang chờ broker xác nhận
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    private CompletableFuture<Void> publish(VideoProcessingMessage message) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        CorrelationData correlationData = new CorrelationData();
+        long start = System.nanoTime();
+
+        correlationData.getFuture().whenComplete((confirm, ex) -> {
+            inFlightPermits.release();
+            confirmLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (ex != null) {
+                result.completeExceptionally(new MessagingException("Không nhận được xác nhận từ broker", ex));
+            } else if (!confirm.isAck()) {
+                nackCounter.increment();
+                result.completeExceptionally(new MessagingException(
+                        "Broker từ chối message xử lý video " + message.getVideoId() + ": " + confirm.getReason()));
+            } else if (correlationData.getReturned() != null) {
+                returnedCounter.increment();
+                result.completeExceptionally(new MessagingException(
+                        "Message xử lý video " + message.getVideoId() + " không được route: "
+                                + correlationData.getReturned().getReplyText()));
             } else {
-                log.info("Gửi video processing message với videoId: {}", message.getVideoId());
+                result.complete(null);
             }
+        });
 
-            rabbitTemplate.convertAndSend(videoProcessingExchange, videoProcessingRoutingKey, message);
-            log.info("Message đã được gửi thành công");
+        try {
+            logSend(message);
+            rabbitTemplate.convertAndSend(videoProcessingExchange, routingKey(message), message,
+                    priorityPostProcessor(message), correlationData);
         } catch (AmqpException e) {
+            // Không có confirm nào sẽ đến, trả lại chỗ trống ngay
+            inFlightPermits.release();
             log.error("Lỗi khi gửi video processing message: {}", e.getMessage(), e);
-            throw new MessagingException("Không thể gửi message xử lý video", e);
+            result.completeExceptionally(new MessagingException("Không thể gửi message xử lý video", e));
+        }
+        return result;
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!inFlightPermits.tryAcquire(bufferTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Quá nhiều message đang chờ broker xác nhận");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Bị ngắt khi chờ gửi message xử lý video", e);
+        }
+    }
+
+    // Yêu cầu đóng gói được gửi tới queue của packager, không qua queue xử lý
+    private String routingKey(VideoProcessingMessage message) {
+        return message.getStage() == ProcessingStage.PACKAGE ? videoPackagingRoutingKey : videoProcessingRoutingKey;
+    }
+
+    private MessagePostProcessor priorityPostProcessor(VideoProcessingMessage message) {
+        int priority = message.isHighPriority() ? HIGH_PRIORITY : NORMAL_PRIORITY;
+        return amqpMessage -> {
+            amqpMessage.getMessageProperties().setPriority(priority);
+            return amqpMessage;
+        };
+    }
+
+    private void logSend(VideoProcessingMessage message) {
+        if (message.getStage() == ProcessingStage.PACKAGE) {
+            log.info("Gửi yêu cầu đóng gói HLS/DASH với videoId: {}", message.getVideoId());
+        } else if (message.getYoutubeUrl() != null) {
+            log.info("Gửi YouTube video processing message với videoId: {}, youtubeUrl: {}",
+                    message.getVideoId(), message.getYoutubeUrl());
+        } else {
+            log.info("Gửi video processing message với videoId: {}, highPriority: {}",
+                    message.getVideoId(), message.isHighPriority());
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.loopy.footballvideoprocessor.messaging.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.loopy.footballvideoprocessor.messaging.model.OutboxMessage;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, UUID> {
+
+    /**
+     * Khóa một lô message đến hạn gửi. SKIP LOCKED cho phép nhiều instance chạy
+     * relay song song mà không gửi trùng.
+     */
+    @Query(value = """
+            SELECT * FROM outbox_messages
+            WHERE status = 'PENDING' AND available_at <= CURRENT_TIMESTAMP
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxMessage> lockNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = com.loopy.footballvideoprocessor.messaging.model.OutboxStatus.SENT AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
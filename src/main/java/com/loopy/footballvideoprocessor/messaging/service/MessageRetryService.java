@@ -0,0 +1,35 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import org.springframework.amqp.core.Message;
+
+import com.loopy.footballvideoprocessor.messaging.dto.ParkingLotStatus;
+
+/**
+ * Service xử lý các message bị dead-letter: thử lại với độ trễ tăng dần qua
+ * các queue chờ, hết số lần thử thì chuyển vào parking lot.
+ */
+public interface MessageRetryService {
+
+    /**
+     * Xử lý một message bị dead-letter
+     * 
+     * @param message Message nhận từ dead letter queue
+     */
+    void handleDeadLetter(Message message);
+
+    /**
+     * Lấy thông tin parking lot
+     * 
+     * @return Thông tin parking lot
+     */
+    ParkingLotStatus getParkingLotStatus();
+
+    /**
+     * Phát lại các message trong parking lot về queue gốc với số lần thử lại
+     * được đặt lại từ đầu
+     * 
+     * @param limit Số message tối đa được phát lại
+     * @return Số message đã phát lại
+     */
+    int replayParkedMessages(int limit);
+}
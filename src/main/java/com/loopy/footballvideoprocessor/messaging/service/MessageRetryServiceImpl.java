@@ -0,0 +1,229 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.messaging.config.RabbitMQConfig;
+import com.loopy.footballvideoprocessor.messaging.dto.ParkingLotStatus;
+import com.rabbitmq.client.GetResponse;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageRetryServiceImpl implements MessageRetryService {
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+    public static final String PARKED_REASON_HEADER = "x-parked-reason";
+    public static final String PARKED_AT_HEADER = "x-parked-at";
+
+    private static final String FIRST_DEATH_QUEUE_HEADER = "x-first-death-queue";
+    private static final String FIRST_DEATH_REASON_HEADER = "x-first-death-reason";
+    private static final String FIRST_DEATH_EXCHANGE_HEADER = "x-first-death-exchange";
+    private static final String LAST_DEATH_QUEUE_HEADER = "x-last-death-queue";
+    private static final String LAST_DEATH_REASON_HEADER = "x-last-death-reason";
+    private static final String LAST_DEATH_EXCHANGE_HEADER = "x-last-death-exchange";
+    private static final String DEATH_HEADER = "x-death";
+
+    // Dùng khi message không có trường maxRetries
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final ObjectMapper objectMapper;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    @Value("${rabbitmq.queue.video-processing}")
+    private String videoProcessingQueue;
+
+    @Value("${rabbitmq.queue.video-processing-legacy:}")
+    private String legacyVideoProcessingQueue;
+
+    @Value("${rabbitmq.queue.parking-lot}")
+    private String parkingLotQueue;
+
+    @Value("${rabbitmq.retry.delays:10s,1m,5m}")
+    private List<Duration> retryDelays;
+
+    @Override
+    public void handleDeadLetter(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String originalQueue = getOriginalQueue(properties);
+        String reason = getDeathReason(properties);
+
+        // Chỉ message xử lý video được thử lại, các message khác chờ admin xem xét.
+        // Message từ queue cũ không có priority được thử lại qua queue mới
+        if (!videoProcessingQueue.equals(originalQueue)
+                && (legacyVideoProcessingQueue == null || !legacyVideoProcessingQueue.equals(originalQueue))) {
+            park(message, originalQueue, "Message từ queue " + originalQueue + " không được thử lại tự động");
+            return;
+        }
+
+        int retryCount = getRetryCount(message);
+        int maxRetries = readIntField(message.getBody(), "maxRetries", DEFAULT_MAX_RETRIES);
+
+        if (retryCount >= maxRetries) {
+            park(message, originalQueue, "Đã thử lại " + retryCount + "/" + maxRetries + " lần, lý do cuối: " + reason);
+            return;
+        }
+
+        // Tầng chờ tăng theo số lần thử, dừng ở tầng cuối cùng
+        int tier = Math.min(retryCount + 1, retryDelays.size());
+        String retryQueue = RabbitMQConfig.retryQueueName(videoProcessingQueue, tier);
+
+        Message retryMessage = prepareForRepublish(message, retryCount + 1)
+                .setHeader(ORIGINAL_QUEUE_HEADER, originalQueue)
+                .build();
+        rabbitTemplate.send("", retryQueue, retryMessage);
+
+        log.warn("Message xử lý video bị lỗi ({}), thử lại lần {}/{} sau {}",
+                reason, retryCount + 1, maxRetries, retryDelays.get(tier - 1));
+    }
+
+    @Override
+    public ParkingLotStatus getParkingLotStatus() {
+        QueueInformation info = amqpAdmin.getQueueInfo(parkingLotQueue);
+        return ParkingLotStatus.builder()
+                .queue(parkingLotQueue)
+                .messageCount(info != null ? info.getMessageCount() : 0)
+                .build();
+    }
+
+    @Override
+    public int replayParkedMessages(int limit) {
+        if (limit <= 0) {
+            throw new BadRequestException("Số message phát lại phải lớn hơn 0");
+        }
+
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            while (count < limit) {
+                // Lấy với ack thủ công: nếu gửi lại thất bại, message vẫn nằm trong parking lot
+                GetResponse response = channel.basicGet(parkingLotQueue, false);
+                if (response == null) {
+                    break;
+                }
+
+                MessageProperties properties = propertiesConverter.toMessageProperties(
+                        response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+                Message parked = new Message(response.getBody(), properties);
+                String originalQueue = getOriginalQueue(properties);
+
+                Message replay = prepareForRepublish(parked, 0)
+                        .removeHeader(ORIGINAL_QUEUE_HEADER)
+                        .removeHeader(PARKED_REASON_HEADER)
+                        .removeHeader(PARKED_AT_HEADER)
+                        .build();
+
+                channel.basicPublish("", originalQueue, false,
+                        propertiesConverter.fromMessageProperties(replay.getMessageProperties(),
+                                StandardCharsets.UTF_8.name()),
+                        replay.getBody());
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                count++;
+            }
+            return count;
+        });
+
+        log.info("Đã phát lại {} message từ parking lot {}", replayed, parkingLotQueue);
+        return replayed != null ? replayed : 0;
+    }
+
+    private void park(Message message, String originalQueue, String reason) {
+        Message parked = prepareForRepublish(message, getRetryCount(message))
+                .setHeader(ORIGINAL_QUEUE_HEADER, originalQueue)
+                .setHeader(PARKED_REASON_HEADER, reason)
+                .setHeader(PARKED_AT_HEADER, LocalDateTime.now().toString())
+                .build();
+        rabbitTemplate.send("", parkingLotQueue, parked);
+
+        log.error("Chuyển message vào parking lot {}: {}", parkingLotQueue, reason);
+    }
+
+    /**
+     * Sao chép message để gửi lại: bỏ các header dead-letter do RabbitMQ thêm vào
+     * và cập nhật số lần thử lại ở cả header lẫn nội dung message
+     */
+    private MessageBuilder prepareForRepublish(Message message, int retryCount) {
+        return MessageBuilder.withBody(writeIntField(message.getBody(), "retryCount", retryCount))
+                .copyProperties(message.getMessageProperties())
+                .removeHeader(DEATH_HEADER)
+                .removeHeader(FIRST_DEATH_QUEUE_HEADER)
+                .removeHeader(FIRST_DEATH_REASON_HEADER)
+                .removeHeader(FIRST_DEATH_EXCHANGE_HEADER)
+                .removeHeader(LAST_DEATH_QUEUE_HEADER)
+                .removeHeader(LAST_DEATH_REASON_HEADER)
+                .removeHeader(LAST_DEATH_EXCHANGE_HEADER)
+                .setHeader(RETRY_COUNT_HEADER, retryCount);
+    }
+
+    /**
+     * Queue gốc của message. Sau khi hết hạn ở tầng chờ, RabbitMQ ghi
+     * x-first-death-queue là queue chờ thử lại nên header do service gắn khi gửi
+     * vào tầng chờ được ưu tiên
+     */
+    private String getOriginalQueue(MessageProperties properties) {
+        String queue = properties.getHeader(ORIGINAL_QUEUE_HEADER);
+        if (queue == null) {
+            queue = properties.getHeader(FIRST_DEATH_QUEUE_HEADER);
+        }
+        return queue != null ? RabbitMQConfig.baseQueueName(queue) : videoProcessingQueue;
+    }
+
+    private String getDeathReason(MessageProperties properties) {
+        String reason = properties.getHeader(LAST_DEATH_REASON_HEADER);
+        return reason != null ? reason : properties.getHeader(FIRST_DEATH_REASON_HEADER);
+    }
+
+    private int getRetryCount(Message message) {
+        Object header = message.getMessageProperties().getHeader(RETRY_COUNT_HEADER);
+        if (header instanceof Number number) {
+            return number.intValue();
+        }
+        return readIntField(message.getBody(), "retryCount", 0);
+    }
+
+    private int readIntField(byte[] body, String field, int defaultValue) {
+        try {
+            JsonNode node = objectMapper.readTree(body).get(field);
+            return node != null && node.canConvertToInt() ? node.asInt() : defaultValue;
+        } catch (IOException e) {
+            return defaultValue;
+        }
+    }
+
+    private byte[] writeIntField(byte[] body, String field, int value) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (root instanceof ObjectNode objectNode) {
+                objectNode.put(field, value);
+                return objectMapper.writeValueAsBytes(objectNode);
+            }
+            return body;
+        } catch (IOException e) {
+            // Nội dung không phải JSON, giữ nguyên và chỉ dựa vào header
+            return body;
+        }
+    }
+}
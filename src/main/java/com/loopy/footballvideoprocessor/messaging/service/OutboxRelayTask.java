@@ -0,0 +1,148 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.messaging.model.OutboxMessage;
+import com.loopy.footballvideoprocessor.messaging.model.OutboxStatus;
+import com.loopy.footballvideoprocessor.messaging.producer.VideoProcessingProducer;
+import com.loopy.footballvideoprocessor.messaging.repository.OutboxMessageRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Định kỳ gửi các message trong outbox lên RabbitMQ theo lô. Mỗi message chỉ
+ * được đánh dấu SENT khi broker đã xác nhận (publisher confirm) và message
+ * không bị trả về do không route được. Message gửi lỗi được thử lại với độ trễ
+ * tăng dần, không bao giờ bị bỏ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelayTask {
+
+    // Độ trễ tối đa giữa hai lần thử gửi lại một message
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final VideoProcessingProducer videoProcessingProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.confirm-timeout:10s}")
+    private Duration confirmTimeout;
+
+    @Value("${app.outbox.retention:P7D}")
+    private Duration retention;
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval:PT1S}")
+    public void relay() {
+        // Gửi liên tục khi còn lô đầy, dừng khi outbox đã hết message đến hạn
+        int relayed;
+        do {
+            Integer count = transactionTemplate.execute(status -> relayBatch());
+            relayed = count != null ? count : 0;
+        } while (relayed == batchSize);
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 30 * * * *}")
+    public void deleteSentMessages() {
+        Integer deleted = transactionTemplate.execute(status -> outboxMessageRepository
+                .deleteSentBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Đã xóa {} message đã gửi khỏi outbox", deleted);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = outboxMessageRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxMessage> published = new ArrayList<>();
+        List<VideoProcessingMessage> messages = new ArrayList<>();
+        for (OutboxMessage outboxMessage : batch) {
+            try {
+                messages.add(objectMapper.readValue(outboxMessage.getPayload(), VideoProcessingMessage.class));
+                published.add(outboxMessage);
+            } catch (Exception e) {
+                markFailed(outboxMessage, "Không đọc được nội dung message: " + e.getMessage());
+            }
+        }
+
+        // Gửi cả lô trước rồi mới chờ xác nhận để các confirm về song song
+        List<CompletableFuture<Void>> confirms;
+        try {
+            confirms = videoProcessingProducer.sendBatch(messages);
+        } catch (RuntimeException e) {
+            // Không kết nối được broker: ghi nhận lần thử để các message chờ theo
+            // độ trễ thay vì bị gửi lại ở lần quét kế tiếp, và dừng quét lô sau
+            published.forEach(outboxMessage -> markFailed(outboxMessage, e.getMessage()));
+            outboxMessageRepository.saveAll(batch);
+            log.warn("Relay outbox: không gửi được lô {} message, sẽ thử lại sau", published.size());
+            return 0;
+        }
+
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        int sent = 0;
+        for (int i = 0; i < published.size(); i++) {
+            OutboxMessage outboxMessage = published.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                confirms.get(i).get(remaining, TimeUnit.NANOSECONDS);
+
+                outboxMessage.setStatus(OutboxStatus.SENT);
+                outboxMessage.setSentAt(LocalDateTime.now());
+                outboxMessage.setLastError(null);
+                sent++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                markFailed(outboxMessage, "Bị ngắt khi chờ xác nhận từ broker");
+            } catch (ExecutionException e) {
+                markFailed(outboxMessage, e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                markFailed(outboxMessage, "Không nhận được xác nhận từ broker sau " + confirmTimeout);
+            }
+        }
+
+        outboxMessageRepository.saveAll(batch);
+
+        if (sent < batch.size()) {
+            log.warn("Relay outbox: gửi thành công {}/{} message, các message lỗi sẽ được thử lại",
+                    sent, batch.size());
+        } else {
+            log.debug("Relay outbox: đã gửi {} message", sent);
+        }
+        return batch.size();
+    }
+
+    private void markFailed(OutboxMessage outboxMessage, String error) {
+        int attempts = outboxMessage.getAttempts() + 1;
+        // Độ trễ tăng gấp đôi sau mỗi lần lỗi: 2s, 4s, 8s... tối đa MAX_BACKOFF
+        long backoffSeconds = Math.min(MAX_BACKOFF.getSeconds(), 1L << Math.min(attempts, 20));
+
+        outboxMessage.setAttempts(attempts);
+        outboxMessage.setLastError(error);
+        outboxMessage.setAvailableAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+
+        log.error("Không gửi được message outbox {} (lần {}): {}", outboxMessage.getId(), attempts, error);
+    }
+}
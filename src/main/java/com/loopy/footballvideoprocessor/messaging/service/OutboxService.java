@@ -0,0 +1,19 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+
+/**
+ * Service ghi message xử lý video vào outbox. Message được lưu trong cùng
+ * transaction với thay đổi của video và được OutboxRelayTask gửi lên RabbitMQ
+ * sau khi transaction commit.
+ */
+public interface OutboxService {
+
+    /**
+     * Ghi message xử lý video vào outbox, phải được gọi trong một transaction
+     * đang hoạt động
+     * 
+     * @param message Message cần gửi
+     */
+    void enqueue(VideoProcessingMessage message);
+}
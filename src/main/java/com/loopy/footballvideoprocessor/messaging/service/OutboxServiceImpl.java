@@ -0,0 +1,46 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loopy.footballvideoprocessor.common.exception.MessagingException;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.messaging.model.OutboxMessage;
+import com.loopy.footballvideoprocessor.messaging.repository.OutboxMessageRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(VideoProcessingMessage message) {
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setVideoId(message.getVideoId());
+        outboxMessage.setPayload(toJson(message));
+        outboxMessage.setAvailableAt(LocalDateTime.now());
+        outboxMessageRepository.save(outboxMessage);
+
+        log.debug("Đã ghi message xử lý video {} vào outbox", message.getVideoId());
+    }
+
+    private String toJson(VideoProcessingMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new MessagingException("Không thể chuyển message xử lý video sang JSON", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.loopy.footballvideoprocessor.security;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.loopy.footballvideoprocessor.user.model.User;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Principal của người dùng đã xác thực. Mang sẵn ID và vai trò lấy từ JWT để
+ * các kiểm tra quyền sở hữu chỉ cần so sánh ID, không phải truy vấn bảng users
+ * ở mỗi request.
+ */
+@Data
+public class AuthenticatedUser implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    // Có thể null với token cũ được tạo trước khi JWT mang claim uid
+    private final UUID id;
+    private final String username;
+    @ToString.Exclude
+    private final String password;
+    private final boolean enabled;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    /**
+     * Tạo principal từ entity User, dùng khi đăng nhập và làm mới token
+     */
+    public static AuthenticatedUser from(User user) {
+        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getName()))
+                .toList();
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(),
+                Boolean.TRUE.equals(user.getEnabled()), authorities);
+    }
+
+    /**
+     * Lấy principal của request hiện tại
+     * 
+     * @return Principal, hoặc null nếu chưa đăng nhập
+     */
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return null;
+    }
+
+    public boolean isAdmin() {
+        return authorities.stream().anyMatch(authority -> ROLE_ADMIN.equals(authority.getAuthority()));
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+}
@@ -17,6 +17,11 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.DispatcherTypeRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -24,6 +29,7 @@ import org.springframework.web.filter.CorsFilter;
 import com.loopy.footballvideoprocessor.security.jwt.JwtAuthenticationFilter;
 import com.loopy.footballvideoprocessor.security.jwt.JwtTokenProvider;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -35,6 +41,13 @@ public class SecurityConfig {
     private final JwtTokenProvider tokenProvider;
     private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
 
+    // Chỉ các endpoint SSE tiến độ xử lý dùng async dispatch
+    private static final RequestMatcher SSE_ASYNC_DISPATCH = new AndRequestMatcher(
+            new DispatcherTypeRequestMatcher(DispatcherType.ASYNC),
+            new OrRequestMatcher(
+                    AntPathRequestMatcher.antMatcher("/videos/processing-events"),
+                    AntPathRequestMatcher.antMatcher("/videos/*/processing-events")));
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter(tokenProvider);
@@ -59,9 +72,13 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> {
                     auth
+                            // Lượt dispatch bất đồng bộ của SSE đã được xác thực ở request ban đầu
+                            .requestMatchers(SSE_ASYNC_DISPATCH).permitAll()
                             .requestMatchers("/auth/**").permitAll()
                             .requestMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                             .requestMatchers("/actuator/**").permitAll()
+                            // Reverse proxy gọi kèm playback token thay cho JWT
+                            .requestMatchers("/videos/playback/authorize").permitAll()
                             .requestMatchers("/api/videos/test/**").permitAll()
                             .anyRequest().authenticated();
                     log.info("Cấu hình requestMatchers đã được thiết lập");
@@ -27,10 +27,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                if (tokenProvider.validateToken(jwt)) {
-                    String username = tokenProvider.getUsernameFromToken(jwt);
-
-                    Authentication authentication = tokenProvider.getAuthentication(jwt);
+                // Token chỉ được parse một lần; principal được dựng từ claim của JWT,
+                // không truy vấn bảng users
+                Authentication authentication = tokenProvider.authenticate(jwt);
+                if (authentication != null) {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 } else {
                     // Nếu JWT không hợp lệ, xóa SecurityContext để đảm bảo không có xác thực nào
@@ -13,4 +13,7 @@ public class JwtProperties {
     private String secret;
     private long expiration;
     private long refreshExpiration;
+
+    // Số token đã xác thực tối đa được giữ trong cache
+    private long tokenCacheSize = 10_000;
 }
@@ -1,9 +1,13 @@
 package com.loopy.footballvideoprocessor.security.jwt;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import javax.crypto.SecretKey;
@@ -12,37 +16,72 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
-import lombok.RequiredArgsConstructor;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Tạo và xác thực JWT. Khóa ký và JwtParser được dựng một lần khi khởi tạo;
+ * mỗi token chỉ được parse và kiểm tra chữ ký một lần, Authentication dựng từ
+ * token hợp lệ được cache (giới hạn số lượng) cho tới thời điểm token hết hạn.
+ * Trạng thái thu hồi vẫn được kiểm tra ở mỗi request, kể cả khi trúng cache.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtTokenProvider {
 
+    // Claim chứa ID người dùng, để không phải tra bảng users theo username
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String TOKEN_TYPE_CLAIM = "type";
+    private static final String ACCESS_TOKEN_TYPE = "access";
+    private static final String REFRESH_TOKEN_TYPE = "refresh";
+    // Claim chứa family của phiên đăng nhập, dùng để thu hồi cả phiên
+    private static final String FAMILY_CLAIM = "fam";
+
     private final JwtProperties jwtProperties;
+    private final TokenRevocationService tokenRevocationService;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
-    public JwtProperties getJwtProperties() {
-        return jwtProperties;
+    public JwtTokenProvider(JwtProperties jwtProperties, TokenRevocationService tokenRevocationService) {
+        this.jwtProperties = jwtProperties;
+        this.tokenRevocationService = tokenRevocationService;
+        this.signingKey = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getTokenCacheSize())
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtProperties getJwtProperties() {
+        return jwtProperties;
     }
 
-    public String generateToken(Authentication authentication) {
+    /**
+     * Tạo access token
+     * 
+     * @param authentication Người dùng đã xác thực
+     * @param familyId       Family của phiên đăng nhập
+     * @return Access token
+     */
+    public String generateToken(Authentication authentication, String familyId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtProperties.getExpiration());
 
@@ -51,49 +90,96 @@ public class JwtTokenProvider {
                 .collect(Collectors.joining(","));
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(authentication.getName())
+                .claim(USER_ID_CLAIM, getUserId(authentication))
+                .claim(FAMILY_CLAIM, familyId)
+                .claim(TOKEN_TYPE_CLAIM, ACCESS_TOKEN_TYPE)
                 .claim("roles", authorities)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String generateRefreshToken(Authentication authentication) {
+    /**
+     * Tạo refresh token
+     * 
+     * @param authentication Người dùng đã xác thực
+     * @param familyId       Family của phiên đăng nhập
+     * @param tokenId        jti của refresh token
+     * @return Refresh token
+     */
+    public String generateRefreshToken(Authentication authentication, String familyId, String tokenId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtProperties.getRefreshExpiration());
 
         return Jwts.builder()
+                .id(tokenId)
                 .subject(authentication.getName())
-                .claim("type", "refresh")
+                .claim(USER_ID_CLAIM, getUserId(authentication))
+                .claim(FAMILY_CLAIM, familyId)
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Xác thực access token và dựng Authentication tương ứng. Kết quả được cache
+     * nên các request tiếp theo với cùng token không phải kiểm tra chữ ký lại.
+     * 
+     * @param token JWT lấy từ header Authorization
+     * @return Authentication, hoặc null nếu token không hợp lệ, đã bị thu hồi
+     *         hoặc không phải access token
+     */
+    public Authentication authenticate(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.getExpiresAt().isAfter(Instant.now())) {
+            return tokenRevocationService.isRevoked(cached.getTokenId(), cached.getFamilyId()) ? null
+                    : cached.getAuthentication();
+        }
+
+        Claims claims = parseToken(token);
+        if (claims == null) {
+            return null;
+        }
+        if (!isAccessToken(claims)) {
+            // Refresh token, hoặc token của mục đích khác (có aud, ví dụ playback token)
+            log.warn("Chỉ access token mới được dùng để xác thực request");
+            return null;
+        }
+
+        if (tokenRevocationService.isRevoked(claims.getId(), getFamilyId(claims))) {
+            log.warn("JWT đã bị thu hồi");
+            return null;
+        }
+
+        Authentication authentication = toAuthentication(claims, token);
+        verifiedTokens.put(token, new VerifiedToken(authentication, claims.getId(), getFamilyId(claims),
+                claims.getExpiration().toInstant()));
+        return authentication;
+    }
+
+    /**
+     * Parse và kiểm tra chữ ký, thời hạn của token
+     * 
+     * @param token JWT
+     * @return Claims của token, hoặc null nếu token không hợp lệ
+     */
+    public Claims parseToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            // Kiểm tra thời gian hết hạn
-            Date now = new Date();
-            if (claims.getExpiration().before(now)) {
-                log.error("JWT đã hết hạn");
-                return false;
-            }
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
 
-            // Kiểm tra thời gian token được tạo
-            if (claims.getIssuedAt() == null || claims.getIssuedAt().after(now)) {
+            // Thời gian hết hạn đã được JwtParser kiểm tra, chỉ còn thời gian token được tạo
+            if (claims.getExpiration() == null || claims.getIssuedAt() == null
+                    || claims.getIssuedAt().after(new Date())) {
                 log.error("JWT có thời gian không hợp lệ");
-                return false;
+                return null;
             }
 
-            return true;
+            return claims;
         } catch (SignatureException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -105,35 +191,87 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty");
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Kiểm tra access token giống như khi xác thực request: chữ ký, thời hạn,
+     * loại token và trạng thái thu hồi
+     * 
+     * @param token JWT
+     * @return true nếu token dùng được để xác thực request
+     */
+    public boolean validateToken(String token) {
+        return authenticate(token) != null;
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private boolean isAccessToken(Claims claims) {
+        Set<String> audience = claims.getAudience();
+        return (audience == null || audience.isEmpty())
+                && ACCESS_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
+    }
 
-        return claims.getSubject();
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
     }
 
-    public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public String getFamilyId(Claims claims) {
+        return claims.get(FAMILY_CLAIM, String.class);
+    }
 
+    private Authentication toAuthentication(Claims claims, String token) {
+        // Refresh token không mang claim roles
         String rolesStr = claims.get("roles", String.class);
+        Collection<? extends GrantedAuthority> authorities = rolesStr == null ? List.of()
+                : Arrays.stream(rolesStr.split(","))
+                        .filter(auth -> !auth.trim().isEmpty())
+                        .map(role -> new SimpleGrantedAuthority(role.trim()))
+                        .collect(Collectors.toList());
 
-        Collection<? extends GrantedAuthority> authorities = Arrays.stream(rolesStr.split(","))
-                .filter(auth -> !auth.trim().isEmpty())
-                .map(role -> new SimpleGrantedAuthority(role.trim()))
-                .collect(Collectors.toList());
-
-        UserDetails principal = new User(claims.getSubject(), "", authorities);
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        AuthenticatedUser principal = new AuthenticatedUser(userId != null ? UUID.fromString(userId) : null,
+                claims.getSubject(), "", true, authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
+
+    private String getUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user && user.getId() != null) {
+            return user.getId().toString();
+        }
+        return null;
+    }
+
+    /**
+     * Authentication đã dựng từ một token hợp lệ
+     */
+    @Data
+    private static class VerifiedToken {
+        private final Authentication authentication;
+        private final String tokenId;
+        private final String familyId;
+        private final Instant expiresAt;
+    }
+
+    /**
+     * Mỗi entry trong cache hết hạn đúng lúc token hết hạn
+     */
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remaining = value.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+            return Math.max(0L, remaining) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package com.loopy.footballvideoprocessor.security.service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Quản lý việc thu hồi JWT và xoay vòng refresh token. Mỗi lần đăng nhập tạo
+ * một "family" refresh token; mỗi lần làm mới, refresh token cũ bị thay bằng
+ * token mới cùng family. Dùng lại một refresh token đã bị thay thế được coi là
+ * token bị lộ và cả family bị thu hồi.
+ */
+public interface TokenRevocationService {
+
+    /**
+     * Kiểm tra token hoặc family của nó đã bị thu hồi chưa. Trường hợp thường gặp
+     * (chưa bị thu hồi) được trả lời bằng Bloom filter trong bộ nhớ.
+     * 
+     * @param tokenId  jti của token, có thể null với token cũ
+     * @param familyId Family của token, có thể null với token cũ
+     * @return true nếu token đã bị thu hồi
+     */
+    boolean isRevoked(String tokenId, String familyId);
+
+    /**
+     * Thu hồi một token cho tới khi nó hết hạn
+     * 
+     * @param tokenId   jti của token
+     * @param expiresAt Thời điểm token hết hạn
+     */
+    void revoke(String tokenId, Instant expiresAt);
+
+    /**
+     * Thu hồi toàn bộ access token và refresh token của một family
+     * 
+     * @param familyId Family cần thu hồi
+     */
+    void revokeFamily(String familyId);
+
+    /**
+     * Ghi nhận refresh token đầu tiên của một family mới
+     * 
+     * @param familyId Family mới
+     * @param tokenId  jti của refresh token
+     * @param ttl      Thời gian sống của refresh token
+     */
+    void startFamily(String familyId, String tokenId, Duration ttl);
+
+    /**
+     * Thay refresh token hiện tại của family bằng token mới. Thao tác là
+     * nguyên tử nên hai request dùng cùng một refresh token chỉ có một request
+     * thành công.
+     * 
+     * @param familyId       Family của refresh token
+     * @param currentTokenId jti của refresh token được gửi lên
+     * @param newTokenId     jti của refresh token mới
+     * @param ttl            Thời gian sống của refresh token mới
+     * @return ROTATED nếu đã thay thành công, REUSED nếu refresh token được gửi
+     *         lên không còn là token hiện tại của family (bị dùng lại),
+     *         UNKNOWN_FAMILY nếu family không còn trên Redis (đã hết hạn hoặc đã
+     *         đăng xuất)
+     */
+    RotationResult rotate(String familyId, String currentTokenId, String newTokenId, Duration ttl);
+
+    /**
+     * Kết quả xoay vòng refresh token
+     */
+    enum RotationResult {
+        ROTATED,
+        REUSED,
+        UNKNOWN_FAMILY
+    }
+}
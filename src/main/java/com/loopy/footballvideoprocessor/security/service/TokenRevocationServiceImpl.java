@@ -0,0 +1,221 @@
+package com.loopy.footballvideoprocessor.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Danh sách token bị thu hồi được lưu trên Redis (khóa theo jti hoặc family,
+ * TTL bằng thời gian sống còn lại của token). Mỗi instance giữ một Bloom
+ * filter của các ID bị thu hồi, được đồng bộ qua Redis pub/sub và dựng lại
+ * định kỳ để loại bỏ các ID đã hết hạn; chỉ khi Bloom filter báo có thể đã bị
+ * thu hồi mới cần hỏi Redis.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService, MessageListener {
+
+    private static final String REVOKED_KEY_PREFIX = "auth:revoked:";
+    private static final String FAMILY_KEY_PREFIX = "auth:refresh-family:";
+
+    // Chỉ thay refresh token hiện tại nếu nó đúng là token được gửi lên; trả về
+    // -1 khi family không còn để phân biệt với token bị dùng lại
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if not current then
+              return -1
+            end
+            if current == ARGV[1] then
+              redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+              return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.auth.revocation.channel:auth-revocations}")
+    private String channel;
+
+    @Value("${app.auth.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    @Value("${app.auth.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.auth.jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    private volatile RevocationBloomFilter bloomFilter;
+
+    // Đã nạp được các ID bị thu hồi từ Redis ít nhất một lần. Trước đó Bloom
+    // filter chưa đầy đủ nên mọi lần kiểm tra đều phải hỏi Redis
+    private volatile boolean bloomFilterLoaded;
+
+    // Giữ khi thêm ID vào bộ lọc và khi đổi sang bộ lọc mới, để không ID nào
+    // chỉ rơi vào bộ lọc cũ sắp bị bỏ
+    private final Object filterLock = new Object();
+
+    // Các ID nhận được trong lúc đang dựng lại Bloom filter, chỉ truy cập khi giữ filterLock
+    private Set<String> pendingIds;
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new RevocationBloomFilter(expectedRevocations, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        rebuildBloomFilter();
+    }
+
+    /**
+     * Thử nạp lại Bloom filter cho tới khi lần nạp đầu tiên thành công, thay vì
+     * chờ tới lần dựng lại định kỳ tiếp theo
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation.initial-load-retry-interval:PT30S}",
+            initialDelayString = "${app.auth.revocation.initial-load-retry-interval:PT30S}")
+    public void retryInitialLoad() {
+        if (!bloomFilterLoaded) {
+            rebuildBloomFilter();
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId, String familyId) {
+        return isRevoked(tokenId) || isRevoked(familyId);
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+        Duration ttl = Duration.between(Instant.now(), expiresAt);
+        if (tokenId == null || ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        addRevoked(tokenId, ttl);
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        if (familyId == null) {
+            return;
+        }
+        try {
+            redisTemplate.delete(FAMILY_KEY_PREFIX + familyId);
+        } catch (Exception e) {
+            log.error("Không xóa được refresh token family {} trên Redis: {}", familyId, e.getMessage());
+        }
+        // Access token của family sống ngắn hơn refresh token, nên TTL này đủ để
+        // chặn mọi token còn hiệu lực của family
+        addRevoked(familyId, Duration.ofMillis(refreshExpiration));
+    }
+
+    @Override
+    public void startFamily(String familyId, String tokenId, Duration ttl) {
+        redisTemplate.opsForValue().set(FAMILY_KEY_PREFIX + familyId, tokenId, ttl);
+    }
+
+    @Override
+    public RotationResult rotate(String familyId, String currentTokenId, String newTokenId, Duration ttl) {
+        Long rotated = redisTemplate.execute(ROTATE_SCRIPT, List.of(FAMILY_KEY_PREFIX + familyId),
+                currentTokenId, newTokenId, String.valueOf(ttl.toMillis()));
+        if (rotated == null || rotated < 0) {
+            return RotationResult.UNKNOWN_FAMILY;
+        }
+        return rotated == 1L ? RotationResult.ROTATED : RotationResult.REUSED;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        markRevoked(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Dựng lại Bloom filter từ các khóa còn trên Redis để loại bỏ các ID đã hết
+     * hạn, tránh tỷ lệ false positive tăng dần theo thời gian
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation.rebuild-interval:PT1H}",
+            initialDelayString = "${app.auth.revocation.rebuild-interval:PT1H}")
+    public void rebuildBloomFilter() {
+        RevocationBloomFilter rebuilt = new RevocationBloomFilter(expectedRevocations, falsePositiveRate);
+        Set<String> pending = new HashSet<>();
+        synchronized (filterLock) {
+            pendingIds = pending;
+        }
+        int count = 0;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(REVOKED_KEY_PREFIX + "*").count(1000).build())) {
+            while (keys.hasNext()) {
+                rebuilt.put(keys.next().substring(REVOKED_KEY_PREFIX.length()));
+                count++;
+            }
+        } catch (Exception e) {
+            log.error("Không dựng lại được Bloom filter thu hồi token, giữ bộ lọc hiện tại: {}", e.getMessage());
+            synchronized (filterLock) {
+                pendingIds = null;
+            }
+            return;
+        }
+
+        // Các ID đến trong lúc quét được chép sang bộ lọc mới trước khi đổi; sau
+        // khi đổi, ID mới được thêm thẳng vào bộ lọc mới
+        synchronized (filterLock) {
+            pending.forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+            pendingIds = null;
+        }
+        bloomFilterLoaded = true;
+        log.debug("Đã dựng lại Bloom filter thu hồi token với {} ID", count);
+    }
+
+    private boolean isRevoked(String id) {
+        if (id == null || (bloomFilterLoaded && !bloomFilter.mightContain(id))) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_KEY_PREFIX + id));
+        } catch (Exception e) {
+            // Bloom filter đã báo có thể bị thu hồi hoặc chưa được nạp, từ chối để an toàn
+            log.error("Không kiểm tra được trạng thái thu hồi của token {}: {}", id, e.getMessage());
+            return true;
+        }
+    }
+
+    private void addRevoked(String id, Duration ttl) {
+        markRevoked(id);
+        try {
+            redisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + id, "1", ttl);
+            redisTemplate.convertAndSend(channel, id);
+        } catch (Exception e) {
+            log.error("Không lưu được token bị thu hồi {} lên Redis: {}", id, e.getMessage());
+        }
+    }
+
+    private void markRevoked(String id) {
+        synchronized (filterLock) {
+            bloomFilter.put(id);
+            if (pendingIds != null) {
+                pendingIds.add(id);
+            }
+        }
+    }
+}
@@ -1,15 +1,12 @@
 package com.loopy.footballvideoprocessor.security.service;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
 import com.loopy.footballvideoprocessor.user.model.User;
 import com.loopy.footballvideoprocessor.user.repository.UserRepository;
 
@@ -31,18 +28,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             throw new UsernameNotFoundException("User is disabled: " + username);
         }
 
-        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList());
-
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                user.getEnabled(),
-                true,
-                true,
-                true,
-                authorities
-        );
+        // Principal mang ID người dùng để đưa vào JWT
+        return AuthenticatedUser.from(user);
     }
 }
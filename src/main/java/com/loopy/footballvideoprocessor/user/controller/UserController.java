@@ -41,7 +41,7 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @userService.getCurrentUser().getId().equals(#id)")
+    @PreAuthorize("hasRole('ADMIN') or #id.equals(principal.id)")
     public ResponseEntity<ApiResponse<UserDTO>> getUserById(@PathVariable UUID id) {
         UserDTO user = userService.getUserById(id);
         return ResponseEntity.ok(ApiResponse.success(user));
@@ -56,7 +56,7 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @userService.getCurrentUser().getId().equals(#id)")
+    @PreAuthorize("hasRole('ADMIN') or #id.equals(principal.id)")
     public ResponseEntity<ApiResponse<UserDTO>> updateUser(
             @PathVariable UUID id,
             @Valid @RequestBody UserUpdateDTO userUpdateDTO) {
@@ -1,5 +1,6 @@
 package com.loopy.footballvideoprocessor.user.repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,4 +19,6 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    List<User> findTop5ByOrderByCreatedAtDesc();
 }
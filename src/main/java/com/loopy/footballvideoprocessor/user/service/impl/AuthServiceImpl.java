@@ -1,7 +1,9 @@
 package com.loopy.footballvideoprocessor.user.service.impl;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -12,7 +14,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
 import com.loopy.footballvideoprocessor.security.jwt.JwtTokenProvider;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService.RotationResult;
 import com.loopy.footballvideoprocessor.user.dto.LoginRequest;
 import com.loopy.footballvideoprocessor.user.dto.SignupRequest;
 import com.loopy.footballvideoprocessor.user.dto.TokenResponse;
@@ -24,6 +29,7 @@ import com.loopy.footballvideoprocessor.user.repository.UserRepository;
 import com.loopy.footballvideoprocessor.user.service.AuthService;
 import com.loopy.footballvideoprocessor.user.service.UserService;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +44,7 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final UserService userService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     public TokenResponse login(LoginRequest loginRequest) {
@@ -48,15 +55,10 @@ public class AuthServiceImpl implements AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        String accessToken = tokenProvider.generateToken(authentication);
-        String refreshToken = tokenProvider.generateRefreshToken(authentication);
-
         User user = userRepository.findByUsername(loginRequest.getUsername())
                 .orElseThrow(() -> new BadRequestException("Người dùng không tồn tại"));
 
-        UserDTO userDTO = userService.mapToDTO(user);
-
-        return new TokenResponse(accessToken, refreshToken, tokenProvider.getJwtProperties().getExpiration(), userDTO);
+        return issueTokens(authentication, UUID.randomUUID().toString(), userService.mapToDTO(user));
     }
 
     @Override
@@ -96,12 +98,7 @@ public class AuthServiceImpl implements AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        String accessToken = tokenProvider.generateToken(authentication);
-        String refreshToken = tokenProvider.generateRefreshToken(authentication);
-
-        UserDTO userDTO = userService.mapToDTO(savedUser);
-
-        return new TokenResponse(accessToken, refreshToken, tokenProvider.getJwtProperties().getExpiration(), userDTO);
+        return issueTokens(authentication, UUID.randomUUID().toString(), userService.mapToDTO(savedUser));
     }
 
     @Override
@@ -111,14 +108,21 @@ public class AuthServiceImpl implements AuthService {
                 throw new BadRequestException("Refresh token không được để trống");
             }
 
-            if (!tokenProvider.validateToken(refreshToken)) {
+            Claims claims = tokenProvider.parseToken(refreshToken);
+            if (claims == null || !tokenProvider.isRefreshToken(claims)) {
                 log.warn("Cố gắng làm mới với token không hợp lệ: {}", maskToken(refreshToken));
                 throw new BadRequestException("Refresh token không hợp lệ hoặc đã hết hạn");
             }
 
-            String username = tokenProvider.getUsernameFromToken(refreshToken);
+            String username = claims.getSubject();
             log.debug("Xử lý làm mới token cho người dùng: {}", username);
 
+            String familyId = tokenProvider.getFamilyId(claims);
+            if (tokenRevocationService.isRevoked(claims.getId(), familyId)) {
+                log.warn("Cố gắng làm mới với token đã bị thu hồi của người dùng: {}", username);
+                throw new BadRequestException("Refresh token không hợp lệ hoặc đã hết hạn");
+            }
+
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> {
                         log.warn("Cố gắng làm mới token cho người dùng không tồn tại: {}", username);
@@ -130,15 +134,38 @@ public class AuthServiceImpl implements AuthService {
                 throw new BadRequestException("Tài khoản đã bị vô hiệu hóa");
             }
 
-            // Tạo authentication object mới
-            Authentication authentication = tokenProvider.getAuthentication(refreshToken);
+            // Tạo authentication từ người dùng vừa tải, vì refresh token không mang vai trò
+            AuthenticatedUser principal = AuthenticatedUser.from(user);
+            Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null,
+                    principal.getAuthorities());
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            // Tạo token mới
-            String newAccessToken = tokenProvider.generateToken(authentication);
-            String newRefreshToken = tokenProvider.generateRefreshToken(authentication);
-
             UserDTO userDTO = userService.mapToDTO(user);
+
+            // Token cũ không có family: bắt đầu family mới
+            if (familyId == null || claims.getId() == null) {
+                log.info("Làm mới token thành công cho người dùng: {}", username);
+                return issueTokens(authentication, UUID.randomUUID().toString(), userDTO);
+            }
+
+            // Xoay vòng refresh token: token cũ chỉ dùng được một lần
+            String newRefreshTokenId = UUID.randomUUID().toString();
+            RotationResult rotation = tokenRevocationService.rotate(familyId, claims.getId(), newRefreshTokenId,
+                    refreshTokenTtl());
+            if (rotation == RotationResult.REUSED) {
+                // Token đã bị thay thế mà vẫn được dùng lại: coi như bị lộ, thu hồi cả phiên
+                log.warn("Phát hiện refresh token bị dùng lại, thu hồi phiên của người dùng: {}", username);
+                tokenRevocationService.revokeFamily(familyId);
+                throw new BadRequestException("Refresh token không hợp lệ hoặc đã hết hạn");
+            }
+            if (rotation == RotationResult.UNKNOWN_FAMILY) {
+                // Family đã hết hạn hoặc mất trên Redis: không phải dấu hiệu bị lộ, chỉ cần đăng nhập lại
+                log.warn("Refresh token thuộc phiên không còn tồn tại của người dùng: {}", username);
+                throw new BadRequestException("Refresh token không hợp lệ hoặc đã hết hạn");
+            }
+
+            String newAccessToken = tokenProvider.generateToken(authentication, familyId);
+            String newRefreshToken = tokenProvider.generateRefreshToken(authentication, familyId, newRefreshTokenId);
             log.info("Làm mới token thành công cho người dùng: {}", username);
 
             return new TokenResponse(newAccessToken, newRefreshToken, tokenProvider.getJwtProperties().getExpiration(),
@@ -161,10 +188,36 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public void logout(String refreshToken) {
-        // Ở đây có thể thêm xử lý blacklist token nếu cần
+        Claims claims = tokenProvider.parseToken(refreshToken);
+        if (claims != null) {
+            // Thu hồi cả family để access token của phiên này cũng hết hiệu lực
+            String familyId = tokenProvider.getFamilyId(claims);
+            if (familyId != null) {
+                tokenRevocationService.revokeFamily(familyId);
+            } else if (claims.getId() != null) {
+                tokenRevocationService.revoke(claims.getId(), claims.getExpiration().toInstant());
+            }
+        }
         SecurityContextHolder.clearContext();
     }
 
+    /**
+     * Tạo cặp access token và refresh token cho một family mới
+     */
+    private TokenResponse issueTokens(Authentication authentication, String familyId, UserDTO userDTO) {
+        String refreshTokenId = UUID.randomUUID().toString();
+        tokenRevocationService.startFamily(familyId, refreshTokenId, refreshTokenTtl());
+
+        String accessToken = tokenProvider.generateToken(authentication, familyId);
+        String refreshToken = tokenProvider.generateRefreshToken(authentication, familyId, refreshTokenId);
+
+        return new TokenResponse(accessToken, refreshToken, tokenProvider.getJwtProperties().getExpiration(), userDTO);
+    }
+
+    private Duration refreshTokenTtl() {
+        return Duration.ofMillis(tokenProvider.getJwtProperties().getRefreshExpiration());
+    }
+
     @Override
     public boolean validateToken(String token) {
         return tokenProvider.validateToken(token);
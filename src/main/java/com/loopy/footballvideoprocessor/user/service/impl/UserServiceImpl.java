@@ -1,8 +1,11 @@
 package com.loopy.footballvideoprocessor.user.service.impl;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,11 +17,16 @@ import org.springframework.transaction.annotation.Transactional;
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
 import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
 import com.loopy.footballvideoprocessor.common.exception.ResourceNotFoundException;
+import com.loopy.footballvideoprocessor.config.CacheConfig;
+import com.loopy.footballvideoprocessor.dashboard.service.DashboardStatsService;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
 import com.loopy.footballvideoprocessor.user.dto.UserDTO;
 import com.loopy.footballvideoprocessor.user.dto.UserUpdateDTO;
 import com.loopy.footballvideoprocessor.user.model.User;
 import com.loopy.footballvideoprocessor.user.repository.UserRepository;
 import com.loopy.footballvideoprocessor.user.service.UserService;
+import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
+import com.loopy.footballvideoprocessor.video.service.VideoCacheSupport;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,6 +35,9 @@ import lombok.RequiredArgsConstructor;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final VideoRepository videoRepository;
+    private final VideoCacheSupport videoCacheSupport;
 
     @Override
     @Transactional
@@ -44,6 +55,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#username", sync = true)
     @Transactional(readOnly = true)
     public UserDTO getUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
@@ -67,6 +79,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#result.username")
     @Transactional
     public UserDTO updateUser(UUID id, User userDetails) {
         User user = userRepository.findById(id)
@@ -83,6 +96,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#result.username")
     @Transactional
     public UserDTO updateUser(UUID id, UserUpdateDTO userUpdateDTO) {
         User user = userRepository.findById(id)
@@ -102,11 +116,18 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    // Xóa người dùng hiếm khi xảy ra, không cần tra username để xóa đúng một khóa
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
     @Transactional
     public void deleteUser(UUID id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id.toString()));
+        // Video và dòng thống kê của người dùng bị xóa theo ON DELETE CASCADE,
+        // cache của các video đó phải được xóa riêng
+        List<UUID> videoIds = videoRepository.findIdsByUserId(user.getId());
+        dashboardStatsService.onUserDeleted(user.getId());
         userRepository.delete(user);
+        videoCacheSupport.evictOwner(user.getId(), videoIds);
     }
 
     @Override
@@ -131,6 +152,11 @@ public class UserServiceImpl implements UserService {
             throw new BadRequestException("Không có người dùng nào đang đăng nhập");
         }
 
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal && principal.getId() != null) {
+            return userRepository.findById(principal.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("User", "id", principal.getId().toString()));
+        }
+
         return userRepository.findByUsername(authentication.getName())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", authentication.getName()));
     }
@@ -1,5 +1,8 @@
 package com.loopy.footballvideoprocessor.video.controller;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
 import java.util.UUID;
 
@@ -17,10 +20,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.loopy.footballvideoprocessor.common.dto.ApiResponse;
+import com.loopy.footballvideoprocessor.common.dto.CursorPagedResponse;
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
+import com.loopy.footballvideoprocessor.video.dto.PresignedUrlResponse;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionRequest;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionResponse;
 import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.dto.VideoStreamUploadRequest;
 import com.loopy.footballvideoprocessor.video.dto.VideoUploadRequest;
 import com.loopy.footballvideoprocessor.video.dto.YoutubeVideoRequest;
 import com.loopy.footballvideoprocessor.video.model.VideoStatus;
@@ -32,6 +41,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -80,6 +90,24 @@ public class VideoController {
         return ResponseEntity.ok(videoService.getVideosByType(VideoType.YOUTUBE, page, size));
     }
 
+    @Operation(summary = "Lấy danh sách video của người dùng theo cursor")
+    @Parameters({
+            @Parameter(name = "cursor", description = "Cursor nextCursor của trang trước, bỏ trống cho trang đầu"),
+            @Parameter(name = "size", description = "Kích thước trang (tối đa 100)", example = "20"),
+            @Parameter(name = "type", description = "Loại video, bỏ trống để lấy tất cả"),
+            @Parameter(name = "includeTotal", description = "Có trả về tổng số video không", example = "false")
+    })
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CursorPagedResponse<VideoDto>> getVideosByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "type", required = false) VideoType type,
+            @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        return ResponseEntity.ok(videoService.getVideosByCursor(type, cursor, size, includeTotal));
+    }
+
     @Operation(summary = "Lấy thông tin video theo ID")
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
@@ -100,6 +128,61 @@ public class VideoController {
                 HttpStatus.CREATED);
     }
 
+    @Operation(summary = "Tải lên video mới dạng streaming", description = "Body của request là nội dung video, "
+            + "được stream trực tiếp lên bộ lưu trữ theo từng part mà không lưu tạm trên server")
+    @PostMapping(value = "/stream", consumes = { MediaType.APPLICATION_OCTET_STREAM_VALUE, "video/*" })
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<VideoDto>> uploadVideoStream(
+            @Valid @ModelAttribute VideoStreamUploadRequest videoStreamUploadRequest,
+            HttpServletRequest request) throws IOException {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        VideoDto uploadedVideo = videoService.uploadVideoStream(videoStreamUploadRequest, request.getInputStream(),
+                request.getContentType());
+        return new ResponseEntity<>(ApiResponse.success("Video đã được tải lên thành công", uploadedVideo),
+                HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Tạo phiên upload trực tiếp lên bộ lưu trữ", description = "Trả về presigned URL cho "
+            + "từng part, client upload trực tiếp lên R2 rồi gọi endpoint hoàn tất")
+    @PostMapping("/upload-sessions")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> createUploadSession(
+            @Valid @RequestBody UploadSessionRequest uploadSessionRequest) {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        UploadSessionResponse session = videoService.createUploadSession(uploadSessionRequest);
+        return new ResponseEntity<>(ApiResponse.success("Phiên upload đã được tạo thành công", session),
+                HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Lấy trạng thái phiên upload", description = "Trả về các part đã upload và presigned URL "
+            + "mới cho các part còn thiếu, dùng để tiếp tục upload bị gián đoạn")
+    @GetMapping("/upload-sessions/{sessionId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getUploadSession(@PathVariable UUID sessionId) {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        return ResponseEntity.ok(ApiResponse.success(videoService.getUploadSession(sessionId)));
+    }
+
+    @Operation(summary = "Hoàn tất phiên upload", description = "Ghép các part trên bộ lưu trữ, tạo video và "
+            + "gửi yêu cầu xử lý")
+    @PostMapping("/upload-sessions/{sessionId}/complete")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<VideoDto>> completeUploadSession(@PathVariable UUID sessionId) {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        VideoDto uploadedVideo = videoService.completeUploadSession(sessionId);
+        return new ResponseEntity<>(ApiResponse.success("Video đã được tải lên thành công", uploadedVideo),
+                HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Hủy phiên upload")
+    @DeleteMapping("/upload-sessions/{sessionId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ApiResponse<Void>> abortUploadSession(@PathVariable UUID sessionId) {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        videoService.abortUploadSession(sessionId);
+        return ResponseEntity.ok(ApiResponse.success("Phiên upload đã được hủy", null));
+    }
+
     @Operation(summary = "Thêm video YouTube")
     @PostMapping("/youtube")
     @PreAuthorize("hasRole('USER')")
@@ -134,7 +217,7 @@ public class VideoController {
     @Operation(summary = "Tạo URL tạm thời để truy cập thumbnail của video")
     @GetMapping("/{id}/thumbnail-url")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ApiResponse<String>> generateThumbnailPresignedUrl(
+    public ResponseEntity<ApiResponse<PresignedUrlResponse>> generateThumbnailPresignedUrl(
             @PathVariable UUID id,
             @RequestParam(name = "expirationInMinutes", defaultValue = "15") int expirationInMinutes) {
 
@@ -155,11 +238,15 @@ public class VideoController {
                     .body(ApiResponse.error("Video chưa có thumbnail"));
         }
 
-        // Tạo presigned URL cho thumbnail
-        String presignedUrl = r2StorageService.generatePresignedUrl(thumbnailPath, expirationInMinutes);
+        // Tạo presigned URL cho thumbnail; URL có thể được dùng lại từ cache và thời
+        // hạn được làm tròn lên nên thời điểm hết hạn lấy theo URL
+        R2StorageService.PresignedUrl presignedUrl = r2StorageService.getPresignedUrl(thumbnailPath,
+                expirationInMinutes);
+        PresignedUrlResponse response = new PresignedUrlResponse(presignedUrl.getUrl(),
+                LocalDateTime.ofInstant(presignedUrl.getExpiresAt(), ZoneId.systemDefault()));
 
         return ResponseEntity
-                .ok(ApiResponse.success("URL tạm thời cho thumbnail đã được tạo thành công", presignedUrl));
+                .ok(ApiResponse.success("URL tạm thời cho thumbnail đã được tạo thành công", response));
     }
 
     @Operation(summary = "Lấy thông tin trạng thái xử lý video")
@@ -190,4 +277,20 @@ public class VideoController {
 
         return ResponseEntity.ok(ApiResponse.success("Thông tin trạng thái xử lý video", processingStatus));
     }
+
+    @Operation(summary = "Nhận tiến độ xử lý video qua Server-Sent Events")
+    @GetMapping(value = "/{id}/processing-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public SseEmitter subscribeProcessingEvents(@PathVariable UUID id) {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        return videoService.subscribeProcessingEvents(id);
+    }
+
+    @Operation(summary = "Nhận tiến độ xử lý tất cả video của người dùng qua Server-Sent Events")
+    @GetMapping(value = "/processing-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public SseEmitter subscribeAllProcessingEvents() {
+        // Để GlobalExceptionHandler xử lý các ngoại lệ
+        return videoService.subscribeAllProcessingEvents();
+    }
 }
@@ -1,28 +1,47 @@
 package com.loopy.footballvideoprocessor.video.controller;
 
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.loopy.footballvideoprocessor.common.dto.ApiResponse;
+import com.loopy.footballvideoprocessor.video.dto.PresignedUrlResponse;
 import com.loopy.footballvideoprocessor.video.dto.VideoDto;
 import com.loopy.footballvideoprocessor.video.model.VideoType;
+import com.loopy.footballvideoprocessor.video.service.PlaybackTokenProvider;
 import com.loopy.footballvideoprocessor.video.service.R2StorageService;
+import com.loopy.footballvideoprocessor.video.service.VideoContentStreamer;
+import com.loopy.footballvideoprocessor.video.service.VideoManifestService;
 import com.loopy.footballvideoprocessor.video.service.VideoService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,6 +54,23 @@ public class VideoStreamController {
 
         private final VideoService videoService;
         private final R2StorageService r2StorageService;
+        private final PlaybackTokenProvider playbackTokenProvider;
+        private final VideoContentStreamer videoContentStreamer;
+        private final VideoManifestService videoManifestService;
+
+        @Value("${app.video.playback.cookie-name:playback_token}")
+        private String playbackCookieName;
+
+        @Value("${app.video.playback.cookie-domain:}")
+        private String playbackCookieDomain;
+
+        // Đường dẫn trên reverse proxy/CDN ánh xạ tới khóa object trong R2
+        @Value("${app.video.playback.path-prefix:/media/}")
+        private String playbackPathPrefix;
+
+        // Origin của reverse proxy/CDN, để trống nếu cùng origin với API
+        @Value("${app.video.playback.base-url:}")
+        private String playbackBaseUrl;
 
         /**
          * Lấy URL phát video với caching
@@ -61,11 +97,13 @@ public class VideoStreamController {
 
                 // Cấu hình thời gian hết hạn presigned URL
                 int expirationMinutes = 120; // 2 giờ
-                String presignedUrl = r2StorageService.generatePresignedUrl(videoPath, expirationMinutes);
+                // URL có thể được dùng lại từ cache nên thời điểm hết hạn lấy theo URL
+                R2StorageService.PresignedUrl presignedUrl = r2StorageService.getPresignedUrl(videoPath,
+                                expirationMinutes);
 
                 Map<String, String> response = Map.of(
-                                "url", presignedUrl,
-                                "expiresAt", LocalDateTime.now().plusMinutes(expirationMinutes).toString(),
+                                "url", presignedUrl.getUrl(),
+                                "expiresAt", toLocalDateTime(presignedUrl).toString(),
                                 "videoType", video.getVideoType().toString(),
                                 "title", video.getTitle());
 
@@ -81,9 +119,9 @@ public class VideoStreamController {
         @GetMapping("/{id}/download/original")
         @PreAuthorize("hasRole('USER')")
         @Operation(summary = "Lấy URL tải xuống video gốc", description = "Trả về URL để tải xuống video gốc")
-        public ResponseEntity<ApiResponse<String>> getOriginalVideoDownloadUrl(
+        public ResponseEntity<ApiResponse<PresignedUrlResponse>> getOriginalVideoDownloadUrl(
                         @Parameter(description = "ID của video") @PathVariable UUID id,
-                        @Parameter(description = "Thời gian hết hạn (phút)") @RequestParam(defaultValue = "30") int expirationMinutes) {
+                        @Parameter(description = "Thời gian hết hạn tối thiểu (phút), được làm tròn lên") @RequestParam(defaultValue = "30") int expirationMinutes) {
 
                 log.debug("Lấy URL tải xuống video gốc, ID: {}", id);
 
@@ -98,10 +136,10 @@ public class VideoStreamController {
                 }
 
                 // Tạo presigned URL cho download (với Content-Disposition: attachment)
-                String downloadUrl = r2StorageService.generateDownloadUrl(video.getFilePath(), expirationMinutes,
-                                "video_" + video.getId() + "_original");
+                R2StorageService.PresignedUrl downloadUrl = r2StorageService.getDownloadUrl(video.getFilePath(),
+                                expirationMinutes, "video_" + video.getId() + "_original");
 
-                return ResponseEntity.ok(ApiResponse.success("URL tải xuống video gốc", downloadUrl));
+                return ResponseEntity.ok(ApiResponse.success("URL tải xuống video gốc", toResponse(downloadUrl)));
         }
 
         /**
@@ -110,9 +148,9 @@ public class VideoStreamController {
         @GetMapping("/{id}/download/processed")
         @PreAuthorize("hasRole('USER')")
         @Operation(summary = "Lấy URL tải xuống video đã xử lý", description = "Trả về URL để tải xuống video đã xử lý")
-        public ResponseEntity<ApiResponse<String>> getProcessedVideoDownloadUrl(
+        public ResponseEntity<ApiResponse<PresignedUrlResponse>> getProcessedVideoDownloadUrl(
                         @Parameter(description = "ID của video") @PathVariable UUID id,
-                        @Parameter(description = "Thời gian hết hạn (phút)") @RequestParam(defaultValue = "30") int expirationMinutes) {
+                        @Parameter(description = "Thời gian hết hạn tối thiểu (phút), được làm tròn lên") @RequestParam(defaultValue = "30") int expirationMinutes) {
 
                 log.debug("Lấy URL tải xuống video đã xử lý, ID: {}", id);
 
@@ -127,10 +165,87 @@ public class VideoStreamController {
                 }
 
                 // Tạo presigned URL cho download (với Content-Disposition: attachment)
-                String downloadUrl = r2StorageService.generateDownloadUrl(video.getProcessedPath(), expirationMinutes,
-                                "video_" + video.getId() + "_processed");
+                R2StorageService.PresignedUrl downloadUrl = r2StorageService.getDownloadUrl(video.getProcessedPath(),
+                                expirationMinutes, "video_" + video.getId() + "_processed");
 
-                return ResponseEntity.ok(ApiResponse.success("URL tải xuống video đã xử lý", downloadUrl));
+                return ResponseEntity.ok(ApiResponse.success("URL tải xuống video đã xử lý", toResponse(downloadUrl)));
+        }
+
+        /**
+         * Phát nội dung video qua API cho các môi trường không mở R2 trực tiếp. Hỗ
+         * trợ Range, If-Range và ETag để player tua video; dữ liệu được chuyển
+         * tiếp từ R2 theo từng đoạn, không buffer toàn bộ file.
+         * 
+         * @param id ID của video
+         */
+        @GetMapping("/{id}/content")
+        @PreAuthorize("hasRole('USER')")
+        @Operation(summary = "Phát nội dung video qua API", description = "Proxy nội dung video từ R2, hỗ trợ Range/If-Range/ETag")
+        public void getVideoContent(
+                        @Parameter(description = "ID của video") @PathVariable UUID id,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+                VideoDto video = videoService.getVideo(id);
+                String videoPath = video.getProcessedPath() != null
+                                ? video.getProcessedPath()
+                                : video.getFilePath();
+
+                if (videoPath == null) {
+                        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                        return;
+                }
+
+                videoContentStreamer.stream(videoPath, request, response);
+        }
+
+        /**
+         * Lấy playlist HLS của video đã đóng gói. Segment trong playlist là
+         * presigned URL tới R2; playlist con được trỏ về lại endpoint này.
+         * 
+         * @param id       ID của video
+         * @param playlist Khóa playlist con, bỏ trống để lấy master playlist
+         * @return Nội dung playlist
+         */
+        @GetMapping(value = "/{id}/hls", produces = "application/vnd.apple.mpegurl")
+        @PreAuthorize("hasRole('USER')")
+        @Operation(summary = "Lấy playlist HLS", description = "Trả về playlist HLS với presigned URL cho từng segment")
+        public ResponseEntity<String> getHlsPlaylist(
+                        @Parameter(description = "ID của video") @PathVariable UUID id,
+                        @Parameter(description = "Playlist con") @RequestParam(required = false) String playlist) {
+
+                VideoDto video = videoService.getVideo(id);
+                if (video.getHlsManifestPath() == null) {
+                        return ResponseEntity.notFound().build();
+                }
+
+                String manifest = videoManifestService.getHlsPlaylist(video.getHlsManifestPath(),
+                                VideoManifestService.segmentPrefix(video.getUserId(), video.getId()), playlist);
+                // URL đã ký nằm trong nội dung nên player phải hỏi lại server mỗi lần tải
+                return ResponseEntity.ok()
+                                .cacheControl(CacheControl.noCache().cachePrivate())
+                                .body(manifest);
+        }
+
+        /**
+         * Lấy manifest DASH của video đã đóng gói
+         * 
+         * @param id ID của video
+         * @return Nội dung manifest
+         */
+        @GetMapping(value = "/{id}/dash", produces = "application/dash+xml")
+        @PreAuthorize("hasRole('USER')")
+        @Operation(summary = "Lấy manifest DASH", description = "Trả về manifest DASH với presigned URL cho từng segment")
+        public ResponseEntity<String> getDashManifest(
+                        @Parameter(description = "ID của video") @PathVariable UUID id) {
+
+                VideoDto video = videoService.getVideo(id);
+                if (video.getDashManifestPath() == null) {
+                        return ResponseEntity.notFound().build();
+                }
+
+                return ResponseEntity.ok()
+                                .cacheControl(CacheControl.noCache().cachePrivate())
+                                .body(videoManifestService.getDashManifest(video.getDashManifestPath()));
         }
 
         /**
@@ -158,14 +273,134 @@ public class VideoStreamController {
 
                 // Cấu hình thời gian hết hạn presigned URL
                 int expirationMinutes = 120; // 2 giờ
-                String presignedUrl = r2StorageService.generatePresignedUrl(videoPath, expirationMinutes);
+                R2StorageService.PresignedUrl presignedUrl = r2StorageService.getPresignedUrl(videoPath,
+                                expirationMinutes);
 
                 Map<String, String> response = Map.of(
-                                "url", presignedUrl,
-                                "expiresAt", LocalDateTime.now().plusMinutes(expirationMinutes).toString());
+                                "url", presignedUrl.getUrl(),
+                                "expiresAt", toLocalDateTime(presignedUrl).toString());
 
                 return ResponseEntity.ok()
                                 .cacheControl(CacheControl.noCache())
                                 .body(response);
         }
-}
\ No newline at end of file
+
+        /**
+         * Cấp playback token cho chế độ phát qua reverse proxy/CDN. Token cho phép
+         * đọc mọi video đã xử lý của chủ sở hữu (processed/{userId}/) tới khi hết
+         * hạn, nên player tua video mà không cần xin presigned URL mới cho từng
+         * object. Token được trả về trong body và trong cookie HttpOnly.
+         * 
+         * @param id ID của video
+         * @return URL phát qua proxy, token và thời gian hết hạn
+         */
+        @GetMapping("/{id}/stream/token")
+        @PreAuthorize("hasRole('USER')")
+        @Operation(summary = "Lấy playback token", description = "Cấp token ngắn hạn cho phép reverse proxy/CDN phục vụ các video đã xử lý của chủ sở hữu")
+        public ResponseEntity<Map<String, String>> getPlaybackToken(
+                        @Parameter(description = "ID của video") @PathVariable UUID id) {
+
+                log.debug("Cấp playback token cho video ID: {}", id);
+
+                VideoDto video = videoService.getVideo(id);
+                String prefix = PlaybackTokenProvider.processedPrefix(video.getUserId());
+                if (video.getProcessedPath() == null || !video.getProcessedPath().startsWith(prefix)) {
+                        return ResponseEntity.notFound().build();
+                }
+
+                PlaybackTokenProvider.PlaybackToken playbackToken = playbackTokenProvider.issue(video.getUserId());
+                Duration maxAge = Duration.between(Instant.now(), playbackToken.getExpiresAt());
+
+                ResponseCookie.ResponseCookieBuilder cookie = ResponseCookie
+                                .from(playbackCookieName, playbackToken.getToken())
+                                .path(playbackPathPrefix)
+                                .maxAge(maxAge)
+                                .httpOnly(true)
+                                .secure(true)
+                                .sameSite("Lax");
+                if (StringUtils.hasText(playbackCookieDomain)) {
+                        cookie.domain(playbackCookieDomain);
+                }
+
+                Map<String, String> response = Map.of(
+                                "url", playbackBaseUrl + playbackPathPrefix + video.getProcessedPath(),
+                                "token", playbackToken.getToken(),
+                                "prefix", playbackToken.getPrefix(),
+                                "expiresAt", LocalDateTime.ofInstant(playbackToken.getExpiresAt(), ZoneId.systemDefault())
+                                                .toString());
+
+                return ResponseEntity.ok()
+                                .cacheControl(CacheControl.noStore())
+                                .header(HttpHeaders.SET_COOKIE, cookie.build().toString())
+                                .body(response);
+        }
+
+        /**
+         * Endpoint xác thực cho reverse proxy (nginx auth_request) hoặc CDN. Không
+         * truy vấn cơ sở dữ liệu: chỉ kiểm tra chữ ký, thời hạn của playback token
+         * và đường dẫn được yêu cầu nằm dưới prefix của token. Kết quả trả về
+         * Cache-Control theo thời hạn còn lại để proxy cache lại và không gọi lại
+         * API ở mỗi lần tua.
+         * 
+         * @param tokenParam  Token trong query string, dùng khi player không gửi cookie
+         * @param originalUri Đường dẫn gốc mà proxy nhận được (X-Original-URI)
+         * @return 204 nếu được phép, 401 nếu token không hợp lệ, 403 nếu đường dẫn
+         *         nằm ngoài prefix
+         */
+        @GetMapping("/playback/authorize")
+        @Operation(summary = "Xác thực playback token", description = "Dùng cho auth_request của reverse proxy, không yêu cầu JWT")
+        public ResponseEntity<Void> authorizePlayback(
+                        @CookieValue(name = "${app.video.playback.cookie-name:playback_token}", required = false) String tokenCookie,
+                        @RequestParam(name = "token", required = false) String tokenParam,
+                        @RequestHeader(name = "X-Playback-Token", required = false) String tokenHeader,
+                        @RequestHeader(name = "X-Original-URI", required = false) String originalUri) {
+
+                String token = StringUtils.hasText(tokenHeader) ? tokenHeader
+                                : StringUtils.hasText(tokenParam) ? tokenParam : tokenCookie;
+                if (!StringUtils.hasText(token)) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }
+
+                PlaybackTokenProvider.PlaybackToken playbackToken = playbackTokenProvider.verify(token);
+                if (playbackToken == null) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }
+
+                String objectKey = toObjectKey(originalUri);
+                if (objectKey == null || !playbackToken.covers(objectKey)) {
+                        log.debug("Playback token không cho phép đọc {}", originalUri);
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                }
+
+                long remainingSeconds = Duration.between(Instant.now(), playbackToken.getExpiresAt()).getSeconds();
+                return ResponseEntity.noContent()
+                                .cacheControl(CacheControl.maxAge(Math.max(0L, remainingSeconds), TimeUnit.SECONDS))
+                                .build();
+        }
+
+        /**
+         * Chuyển đường dẫn trên proxy thành khóa object: bỏ query string, giải mã
+         * URL và bỏ path-prefix
+         */
+        private String toObjectKey(String originalUri) {
+                if (!StringUtils.hasText(originalUri)) {
+                        return null;
+                }
+                int queryStart = originalUri.indexOf('?');
+                String path = queryStart >= 0 ? originalUri.substring(0, queryStart) : originalUri;
+                try {
+                        path = URLDecoder.decode(path, StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                        return null;
+                }
+                return path.startsWith(playbackPathPrefix) ? path.substring(playbackPathPrefix.length()) : null;
+        }
+
+        private static LocalDateTime toLocalDateTime(R2StorageService.PresignedUrl presignedUrl) {
+                return LocalDateTime.ofInstant(presignedUrl.getExpiresAt(), ZoneId.systemDefault());
+        }
+
+        private static PresignedUrlResponse toResponse(R2StorageService.PresignedUrl presignedUrl) {
+                return new PresignedUrlResponse(presignedUrl.getUrl(), toLocalDateTime(presignedUrl));
+        }
+}
@@ -0,0 +1,22 @@
+package com.loopy.footballvideoprocessor.video.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Presigned URL trả cho client cùng thời điểm hết hạn thực tế. URL có thể được
+ * dùng lại từ cache và thời hạn được làm tròn lên, nên thời điểm này có thể khác
+ * thời hạn client yêu cầu.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUrlResponse {
+    private String url;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,27 @@
+package com.loopy.footballvideoprocessor.video.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sự kiện tiến độ xử lý video được đẩy tới client qua SSE
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingEvent {
+    private UUID videoId;
+    private UUID userId;
+    private VideoStatus status;
+    private Integer progress;
+    private String message;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,35 @@
+package com.loopy.footballvideoprocessor.video.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Yêu cầu tạo phiên upload trực tiếp từ client lên R2
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    private String description;
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    private String contentType;
+
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    private Long fileSize;
+
+    @Builder.Default
+    private Boolean isDownloadable = true;
+}
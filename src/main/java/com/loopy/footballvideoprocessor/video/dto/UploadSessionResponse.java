@@ -0,0 +1,66 @@
+package com.loopy.footballvideoprocessor.video.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import com.loopy.footballvideoprocessor.video.model.UploadSessionStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Thông tin phiên upload: các part đã upload xong và presigned URL cho các
+ * part còn lại. Client PUT từng part lên URL tương ứng rồi gọi endpoint hoàn
+ * tất.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private UUID sessionId;
+    private String objectKey;
+    private UploadSessionStatus status;
+    private long fileSize;
+    private long partSize;
+    private int partCount;
+    private LocalDateTime expiresAt;
+
+    // Các part đã có trên R2 (dùng khi resume)
+    private List<UploadedPart> completedParts;
+
+    // Presigned URL cho một lô các part chưa upload (tối đa presigned-part-batch-size),
+    // lấy lại phiên sau khi upload xong lô này để nhận các URL tiếp theo
+    private List<PresignedPart> partUrls;
+
+    // Video được tạo khi phiên upload hoàn tất
+    private UUID videoId;
+
+    /**
+     * Part đã được upload lên R2
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UploadedPart {
+        private int partNumber;
+        private String eTag;
+        private long size;
+    }
+
+    /**
+     * Presigned URL để upload một part
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PresignedPart {
+        private int partNumber;
+        private String url;
+    }
+}
@@ -0,0 +1,55 @@
+package com.loopy.footballvideoprocessor.video.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Vị trí trong danh sách video sắp xếp theo (createdAt, id) giảm dần. Được mã
+ * hóa base64 để client chỉ coi đó là chuỗi không cần hiểu.
+ */
+@Data
+@AllArgsConstructor
+public class VideoCursor {
+
+    // Vị trí trước video đầu tiên, dùng cho trang đầu
+    public static final VideoCursor START = new VideoCursor(LocalDateTime.of(9999, 12, 31, 0, 0),
+            new UUID(-1L, -1L));
+
+    private final LocalDateTime createdAt;
+    private final UUID id;
+
+    public static VideoCursor of(VideoDto video) {
+        return new VideoCursor(video.getCreatedAt(), video.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã cursor, trả về START nếu cursor rỗng
+     */
+    public static VideoCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new VideoCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Cursor không hợp lệ");
+        }
+    }
+}
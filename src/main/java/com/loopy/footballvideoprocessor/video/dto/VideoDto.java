@@ -3,6 +3,7 @@ package com.loopy.footballvideoprocessor.video.dto;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import com.loopy.footballvideoprocessor.video.model.PackagingStatus;
 import com.loopy.footballvideoprocessor.video.model.VideoStatus;
 import com.loopy.footballvideoprocessor.video.model.VideoType;
 
@@ -29,6 +30,9 @@ public class VideoDto {
     private Integer duration;
     private String thumbnailPath;
     private String processedPath;
+    private PackagingStatus packagingStatus;
+    private String hlsManifestPath;
+    private String dashManifestPath;
 
     // Fields for YOUTUBE videos
     private String youtubeUrl;
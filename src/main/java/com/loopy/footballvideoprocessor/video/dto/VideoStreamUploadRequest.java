@@ -0,0 +1,28 @@
+package com.loopy.footballvideoprocessor.video.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Thông tin video khi upload dạng streaming: nội dung video nằm trong body
+ * của request, các thông tin còn lại được truyền qua query parameter.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VideoStreamUploadRequest {
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    private String description;
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    @Builder.Default
+    private Boolean isDownloadable = true;
+}
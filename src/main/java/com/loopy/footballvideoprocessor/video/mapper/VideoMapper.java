@@ -1,24 +1,17 @@
 package com.loopy.footballvideoprocessor.video.mapper;
 
-import java.util.Optional;
-
 import org.springframework.stereotype.Component;
 
 import com.loopy.footballvideoprocessor.video.dto.VideoDto;
 import com.loopy.footballvideoprocessor.video.model.Video;
-import com.loopy.footballvideoprocessor.video.model.VideoProcessingStatusEntity;
 
 @Component
 public class VideoMapper {
 
     /**
-     * Chuyển đổi từ entity Video sang DTO.
-     * QUAN TRỌNG: Yêu cầu collection 'processingStatuses' phải được khởi tạo
-     * (loaded)
-     * trước khi gọi phương thức này để tránh LazyInitializationException.
+     * Chuyển đổi từ entity Video sang DTO
      * 
-     * @param video Entity Video từ cơ sở dữ liệu (với processingStatuses đã được
-     *              load)
+     * @param video Entity Video từ cơ sở dữ liệu
      * @return VideoDto
      */
     public VideoDto toDto(Video video) {
@@ -38,27 +31,14 @@ public class VideoMapper {
         dto.setDuration(video.getDuration());
         dto.setThumbnailPath(video.getThumbnailPath());
         dto.setProcessedPath(video.getProcessedPath());
+        dto.setPackagingStatus(video.getPackagingStatus());
+        dto.setHlsManifestPath(video.getHlsManifestPath());
+        dto.setDashManifestPath(video.getDashManifestPath());
         dto.setYoutubeUrl(video.getYoutubeUrl());
         dto.setYoutubeVideoId(video.getYoutubeVideoId());
         dto.setIsDownloadable(video.getIsDownloadable());
         dto.setStatus(video.getStatus());
-
-        // Mặc định progress là 0
-        dto.setProgress(0);
-
-        // Xử lý an toàn lazy loading cho processingStatuses - ĐÃ BỎ TRY-CATCH
-        // Yêu cầu collection phải được khởi tạo trước khi gọi mapper.
-        // try {
-        if (video.getProcessingStatuses() != null && !video.getProcessingStatuses().isEmpty()) {
-            Optional<VideoProcessingStatusEntity> latestStatus = video.getProcessingStatuses().stream()
-                    .sorted((s1, s2) -> s2.getCreatedAt().compareTo(s1.getCreatedAt()))
-                    .findFirst();
-
-            latestStatus.ifPresent(status -> dto.setProgress(status.getProgress()));
-        }
-        // } catch (Exception e) {
-        // Bỏ qua lỗi lazy loading và giữ nguyên progress mặc định - ĐÃ BỎ
-        // }
+        dto.setProgress(video.getProgress() != null ? video.getProgress() : 0);
 
         dto.setCreatedAt(video.getCreatedAt());
         dto.setUpdatedAt(video.getUpdatedAt());
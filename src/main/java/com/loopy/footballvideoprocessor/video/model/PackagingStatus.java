@@ -0,0 +1,21 @@
+package com.loopy.footballvideoprocessor.video.model;
+
+/**
+ * Trạng thái đóng gói HLS/DASH của video đã xử lý.
+ */
+public enum PackagingStatus {
+    /**
+     * Yêu cầu đóng gói đã được gửi, chờ packager hoàn thành.
+     */
+    PENDING,
+
+    /**
+     * Manifest và segment đã sẵn sàng trong R2.
+     */
+    COMPLETED,
+
+    /**
+     * Packager báo lỗi; video vẫn phát được dưới dạng MP4.
+     */
+    ERROR
+}
@@ -0,0 +1,27 @@
+package com.loopy.footballvideoprocessor.video.model;
+
+/**
+ * Trạng thái của một phiên upload trực tiếp lên R2.
+ */
+public enum UploadSessionStatus {
+    /**
+     * Client đang upload các part.
+     */
+    IN_PROGRESS,
+
+    /**
+     * Một request đang hoàn tất phiên upload, các request hoàn tất khác bị từ
+     * chối.
+     */
+    COMPLETING,
+
+    /**
+     * Object đã được ghép hoàn chỉnh và video đã được tạo.
+     */
+    COMPLETED,
+
+    /**
+     * Phiên upload đã bị hủy hoặc hết hạn.
+     */
+    ABORTED
+}
@@ -70,6 +70,17 @@ public class Video {
     @Column(name = "processed_path")
     private String processedPath;
 
+    // Đóng gói HLS/DASH, null nếu video chưa từng được đóng gói
+    @Enumerated(EnumType.STRING)
+    @Column(name = "packaging_status", length = 20)
+    private PackagingStatus packagingStatus;
+
+    @Column(name = "hls_manifest_path")
+    private String hlsManifestPath;
+
+    @Column(name = "dash_manifest_path")
+    private String dashManifestPath;
+
     // Fields for YOUTUBE videos
     @Column(name = "youtube_url")
     private String youtubeUrl;
@@ -84,6 +95,16 @@ public class Video {
     @Column(name = "is_downloadable", nullable = false)
     private Boolean isDownloadable = true;
 
+    // Tiến độ xử lý mới nhất, được cập nhật cùng transaction với lịch sử trạng thái
+    @Column(name = "progress", nullable = false)
+    private Integer progress = 0;
+
+    @Column(name = "status_message", columnDefinition = "TEXT")
+    private String statusMessage;
+
+    @Column(name = "status_updated_at")
+    private LocalDateTime statusUpdatedAt;
+
     @Type(JsonBinaryType.class)
     @Column(name = "metadata", columnDefinition = "jsonb")
     private String metadata;
@@ -0,0 +1,31 @@
+package com.loopy.footballvideoprocessor.video.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.loopy.footballvideoprocessor.video.model.UploadSession;
+import com.loopy.footballvideoprocessor.video.model.UploadSessionStatus;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    List<UploadSession> findAllByStatusInAndExpiresAtBefore(List<UploadSessionStatus> statuses, LocalDateTime time);
+
+    /**
+     * Chuyển trạng thái phiên upload nếu nó vẫn đang ở trạng thái mong đợi. Chỉ
+     * một request đồng thời nhận được 1 dòng được cập nhật.
+     * 
+     * @return Số dòng được cập nhật (0 hoặc 1)
+     */
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = :status, s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id AND s.status = :expected")
+    int updateStatus(@Param("id") UUID id, @Param("expected") UploadSessionStatus expected,
+            @Param("status") UploadSessionStatus status);
+}
@@ -1,10 +1,14 @@
 package com.loopy.footballvideoprocessor.video.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.loopy.footballvideoprocessor.video.model.Video;
@@ -21,4 +25,43 @@ public interface VideoProcessingStatusRepository extends JpaRepository<VideoProc
     Optional<VideoProcessingStatusEntity> findFirstByVideoOrderByCreatedAtDesc(Video video);
 
     List<VideoProcessingStatusEntity> findAllByStatus(VideoStatus status);
+
+    /**
+     * Xóa tối đa limit dòng tiến độ trung gian (PROCESSING) tạo trước mốc thời
+     * gian, giữ lại các dòng chuyển trạng thái và dòng mới nhất của mỗi video
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM video_processing_status
+            WHERE id IN (
+              SELECT s.id FROM video_processing_status s
+              WHERE s.status = 'PROCESSING'
+                AND s.created_at < :before
+                AND EXISTS (
+                  SELECT 1 FROM video_processing_status n
+                  WHERE n.video_id = s.video_id AND n.created_at > s.created_at
+                )
+              LIMIT :limit
+            )
+            """, nativeQuery = true)
+    int compactProgressBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * Xóa tối đa limit dòng lịch sử tạo trước mốc thời gian, giữ lại dòng mới
+     * nhất của mỗi video
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM video_processing_status
+            WHERE id IN (
+              SELECT s.id FROM video_processing_status s
+              WHERE s.created_at < :before
+                AND EXISTS (
+                  SELECT 1 FROM video_processing_status n
+                  WHERE n.video_id = s.video_id AND n.created_at > s.created_at
+                )
+              LIMIT :limit
+            )
+            """, nativeQuery = true)
+    int deleteHistoryBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.loopy.footballvideoprocessor.video.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Repository;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.PackagingStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Các truy vấn danh sách video trả thẳng về VideoDto. Tên người dùng được lấy
+ * trong cùng câu truy vấn (JOIN users), tiến độ xử lý đọc từ cột progress của
+ * videos, nên mỗi trang chỉ tốn một truy vấn thay vì tải entity Video, User,
+ * roles và lịch sử trạng thái.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VideoQueryRepository {
+
+    private static final String SELECT_VIDEO_DTO = """
+            SELECT v.id, v.user_id, u.username, v.title, v.description, v.video_type,
+                   v.file_path, v.file_size, v.duration, v.thumbnail_path, v.processed_path,
+                   v.youtube_url, v.youtube_video_id, v.is_downloadable, v.status,
+                   v.progress, v.created_at, v.updated_at,
+                   v.packaging_status, v.hls_manifest_path, v.dash_manifest_path
+            FROM videos v
+            JOIN users u ON u.id = v.user_id
+            """;
+
+    private static final String ORDER_BY_NEWEST = " ORDER BY v.created_at DESC, v.id DESC";
+
+    private final EntityManager entityManager;
+
+    /**
+     * Lấy một trang video của người dùng, mới nhất trước
+     * 
+     * @param userId    ID người dùng
+     * @param videoType Loại video, null để lấy tất cả
+     * @param offset    Vị trí bắt đầu
+     * @param limit     Số video tối đa
+     * @return Danh sách video
+     */
+    public List<VideoDto> findByUser(UUID userId, VideoType videoType, long offset, int limit) {
+        Query query = entityManager.createNativeQuery(SELECT_VIDEO_DTO
+                + " WHERE v.user_id = :userId" + typeFilter(videoType)
+                + ORDER_BY_NEWEST + " OFFSET :offset LIMIT :limit")
+                .setParameter("userId", userId)
+                .setParameter("offset", offset)
+                .setParameter("limit", limit);
+        return getResultList(setType(query, videoType));
+    }
+
+    /**
+     * Lấy các video của người dùng đứng sau cursor (createdAt, id), mới nhất trước
+     * 
+     * @param userId    ID người dùng
+     * @param videoType Loại video, null để lấy tất cả
+     * @param createdAt Thời điểm tạo của video cuối trang trước
+     * @param id        ID của video cuối trang trước
+     * @param limit     Số video tối đa
+     * @return Danh sách video
+     */
+    public List<VideoDto> findByUserAfter(UUID userId, VideoType videoType, LocalDateTime createdAt, UUID id,
+            int limit) {
+        Query query = entityManager.createNativeQuery(SELECT_VIDEO_DTO
+                + " WHERE v.user_id = :userId" + typeFilter(videoType)
+                + " AND (v.created_at, v.id) < (:createdAt, :id)"
+                + ORDER_BY_NEWEST + " LIMIT :limit")
+                .setParameter("userId", userId)
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", id)
+                .setParameter("limit", limit);
+        return getResultList(setType(query, videoType));
+    }
+
+    /**
+     * Lấy một trang video của toàn hệ thống, mới nhất trước
+     * 
+     * @param offset Vị trí bắt đầu
+     * @param limit  Số video tối đa
+     * @return Danh sách video
+     */
+    public List<VideoDto> findAll(long offset, int limit) {
+        Query query = entityManager.createNativeQuery(SELECT_VIDEO_DTO
+                + ORDER_BY_NEWEST + " OFFSET :offset LIMIT :limit")
+                .setParameter("offset", offset)
+                .setParameter("limit", limit);
+        return getResultList(query);
+    }
+
+    /**
+     * Tính vị trí bắt đầu của một trang theo kiểu long để page * size không bị
+     * tràn int rồi thành số âm trong OFFSET
+     * 
+     * @param page Số trang, bắt đầu từ 0
+     * @param size Kích thước trang
+     * @return Vị trí bắt đầu
+     * @throws BadRequestException nếu số trang âm hoặc kích thước trang không dương
+     */
+    public static long pageOffset(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("Số trang không được âm");
+        }
+        if (size <= 0) {
+            throw new BadRequestException("Kích thước trang phải lớn hơn 0");
+        }
+        return (long) page * size;
+    }
+
+    private static String typeFilter(VideoType videoType) {
+        return videoType != null ? " AND v.video_type = :videoType" : "";
+    }
+
+    private static Query setType(Query query, VideoType videoType) {
+        return videoType != null ? query.setParameter("videoType", videoType.name()) : query;
+    }
+
+    private static List<VideoDto> getResultList(Query query) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        // Dùng ArrayList để danh sách lưu trong cache Redis deserialize lại được
+        return rows.stream().map(VideoQueryRepository::toDto).collect(Collectors.toList());
+    }
+
+    private static VideoDto toDto(Object[] row) {
+        return VideoDto.builder()
+                .id((UUID) row[0])
+                .userId((UUID) row[1])
+                .username((String) row[2])
+                .title((String) row[3])
+                .description((String) row[4])
+                .videoType(VideoType.valueOf((String) row[5]))
+                .filePath((String) row[6])
+                .fileSize(row[7] != null ? ((Number) row[7]).longValue() : null)
+                .duration(row[8] != null ? ((Number) row[8]).intValue() : null)
+                .thumbnailPath((String) row[9])
+                .processedPath((String) row[10])
+                .youtubeUrl((String) row[11])
+                .youtubeVideoId((String) row[12])
+                .isDownloadable((Boolean) row[13])
+                .status(VideoStatus.valueOf((String) row[14]))
+                .progress(((Number) row[15]).intValue())
+                .createdAt(toLocalDateTime(row[16]))
+                .updatedAt(toLocalDateTime(row[17]))
+                .packagingStatus(row[18] != null ? PackagingStatus.valueOf((String) row[18]) : null)
+                .hlsManifestPath((String) row[19])
+                .dashManifestPath((String) row[20])
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -1,15 +1,18 @@
 package com.loopy.footballvideoprocessor.video.repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.loopy.footballvideoprocessor.user.model.User;
+import com.loopy.footballvideoprocessor.video.dto.ProcessingEvent;
 import com.loopy.footballvideoprocessor.video.model.Video;
 import com.loopy.footballvideoprocessor.video.model.VideoStatus;
 import com.loopy.footballvideoprocessor.video.model.VideoType;
@@ -36,4 +39,20 @@ public interface VideoRepository extends JpaRepository<Video, UUID> {
     
     @Query("SELECT SUM(v.fileSize) FROM Video v WHERE v.user = :user")
     Long sumFileSizeByUser(User user);
+
+    List<Video> findTop5ByOrderByCreatedAtDesc();
+
+    @Query("SELECT v.id FROM Video v WHERE v.user.id = :userId")
+    List<UUID> findIdsByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Đọc trạng thái xử lý hiện tại của video. Trả về DTO thay vì entity nên luôn
+     * đọc lại từ cơ sở dữ liệu, kể cả khi video đã có trong persistence context.
+     */
+    @Query("""
+            SELECT new com.loopy.footballvideoprocessor.video.dto.ProcessingEvent(
+              v.id, v.user.id, v.status, v.progress, v.statusMessage, v.statusUpdatedAt)
+            FROM Video v WHERE v.id = :id
+            """)
+    Optional<ProcessingEvent> findProcessingSnapshot(@Param("id") UUID id);
 }
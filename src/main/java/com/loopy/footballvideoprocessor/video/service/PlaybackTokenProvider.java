@@ -0,0 +1,178 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tạo và xác thực playback token. Một token cho phép đọc mọi object dưới
+ * processed/{userId}/ tới khi hết hạn, nên reverse proxy hoặc CDN phục vụ byte
+ * range trực tiếp từ R2 mà không cần presigned URL riêng cho từng object.
+ * <p>
+ * Token là JWT ký bằng khóa riêng (app.video.playback.secret, bắt buộc khác
+ * khóa của access token), chỉ dùng cho phát video: access token không được
+ * chấp nhận ở đây và ngược lại. Token hợp lệ
+ * được cache tới khi hết hạn để endpoint xác thực của proxy chỉ kiểm tra chữ ký
+ * một lần cho mỗi token.
+ */
+@Component
+@Slf4j
+public class PlaybackTokenProvider {
+
+    private static final String AUDIENCE = "playback";
+    private static final String PREFIX_CLAIM = "pfx";
+    private static final String PROCESSED_PREFIX = "processed/";
+
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final Duration ttl;
+    private final Cache<String, PlaybackToken> verifiedTokens;
+
+    public PlaybackTokenProvider(
+            @Value("${app.video.playback.secret}") String secret,
+            @Value("${app.auth.jwt.secret}") String accessTokenSecret,
+            @Value("${app.video.playback.ttl:10m}") Duration ttl,
+            @Value("${app.video.playback.token-cache-size:10000}") long tokenCacheSize) {
+        if (secret.equals(accessTokenSecret)) {
+            // Cùng khóa thì một playback token lộ ra từ proxy/CDN cũng ký hợp lệ như access token
+            throw new IllegalStateException(
+                    "app.video.playback.secret phải khác app.auth.jwt.secret");
+        }
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .requireAudience(AUDIENCE)
+                .build();
+        this.ttl = ttl;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfter(new PlaybackTokenExpiry())
+                .build();
+    }
+
+    /**
+     * Prefix object của video đã xử lý thuộc về một người dùng
+     * 
+     * @param userId ID người dùng
+     * @return processed/{userId}/
+     */
+    public static String processedPrefix(UUID userId) {
+        return PROCESSED_PREFIX + userId + "/";
+    }
+
+    /**
+     * Tạo playback token cho các video đã xử lý của một người dùng
+     * 
+     * @param userId ID chủ sở hữu các video
+     * @return Token, prefix được phép và thời điểm hết hạn
+     */
+    public PlaybackToken issue(UUID userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        String prefix = processedPrefix(userId);
+
+        String token = Jwts.builder()
+                .subject(userId.toString())
+                .audience().add(AUDIENCE).and()
+                .claim(PREFIX_CLAIM, prefix)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(expiresAt))
+                .signWith(signingKey)
+                .compact();
+
+        log.debug("Tạo playback token cho prefix {}, hết hạn lúc {}", prefix, expiresAt);
+        return new PlaybackToken(token, prefix, expiresAt);
+    }
+
+    /**
+     * Xác thực playback token
+     * 
+     * @param token Playback token
+     * @return Prefix được phép và thời điểm hết hạn, hoặc null nếu token không
+     *         hợp lệ hoặc đã hết hạn
+     */
+    public PlaybackToken verify(String token) {
+        PlaybackToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            return cached.getExpiresAt().isAfter(Instant.now()) ? cached : null;
+        }
+
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            String prefix = claims.get(PREFIX_CLAIM, String.class);
+            if (prefix == null || !prefix.startsWith(PROCESSED_PREFIX) || claims.getExpiration() == null) {
+                log.warn("Playback token thiếu prefix hoặc thời hạn");
+                return null;
+            }
+
+            PlaybackToken verified = new PlaybackToken(token, prefix, claims.getExpiration().toInstant());
+            verifiedTokens.put(token, verified);
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Playback token không hợp lệ: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Playback token và phạm vi object mà nó cho phép đọc
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PlaybackToken {
+        private final String token;
+        private final String prefix;
+        private final Instant expiresAt;
+
+        /**
+         * Kiểm tra token có cho phép đọc object hay không
+         * 
+         * @param objectKey Khóa object trong R2, đã được chuẩn hóa
+         * @return true nếu object nằm dưới prefix của token
+         */
+        public boolean covers(String objectKey) {
+            return objectKey.startsWith(prefix) && !objectKey.contains("..");
+        }
+    }
+
+    /**
+     * Mỗi entry trong cache hết hạn đúng lúc token hết hạn
+     */
+    private static class PlaybackTokenExpiry implements Expiry<String, PlaybackToken> {
+
+        @Override
+        public long expireAfterCreate(String key, PlaybackToken value, long currentTime) {
+            return Math.max(0L, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, PlaybackToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, PlaybackToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loopy.footballvideoprocessor.video.dto.ProcessingEvent;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Phát sự kiện tiến độ xử lý video tới các kết nối SSE đang mở. Mỗi instance
+ * giữ một bộ đăng ký duy nhất theo video và theo người dùng; sự kiện được phát
+ * qua Redis pub/sub để client kết nối tới instance nào cũng nhận được, kể cả
+ * khi kết quả được consumer trên instance khác ghi nhận.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessingEventBroadcaster implements MessageListener {
+
+    private static final String EVENT_NAME = "progress";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, Set<SseEmitter>> videoSubscribers = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<SseEmitter>> userSubscribers = new ConcurrentHashMap<>();
+    // Sự kiện chờ gửi sau snapshot của các kết nối video vừa đăng ký
+    private final Map<SseEmitter, List<ProcessingEvent>> pendingSnapshots = new ConcurrentHashMap<>();
+
+    @Value("${app.video.processing.events.channel:video-processing-events}")
+    private String channel;
+
+    @Value("${app.video.processing.events.timeout:30m}")
+    private Duration timeout;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        Gauge.builder("video.processing.events.subscribers", this, ProcessingEventBroadcaster::getSubscriberCount)
+                .description("Số kết nối SSE đang nhận tiến độ xử lý video")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đăng ký nhận sự kiện của một video. Kết nối được đăng ký trước khi đọc
+     * trạng thái hiện tại; sự kiện đến trong lúc đó được giữ lại rồi gửi sau
+     * snapshot, bỏ qua các sự kiện không mới hơn snapshot, để client không mất
+     * sự kiện nào phát ra giữa lúc đọc trạng thái và lúc đăng ký.
+     * 
+     * @param videoId        ID của video
+     * @param snapshotLoader Đọc trạng thái hiện tại, được gửi ngay khi kết nối
+     * @return SseEmitter của kết nối
+     */
+    public SseEmitter subscribeVideo(UUID videoId, Supplier<ProcessingEvent> snapshotLoader) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        List<ProcessingEvent> buffered = new ArrayList<>();
+        pendingSnapshots.put(emitter, buffered);
+        register(videoSubscribers, videoId, emitter);
+
+        ProcessingEvent snapshot;
+        try {
+            snapshot = snapshotLoader.get();
+        } catch (RuntimeException e) {
+            remove(videoSubscribers, videoId, emitter);
+            throw e;
+        }
+
+        synchronized (buffered) {
+            boolean finished = send(videoSubscribers, videoId, emitter, snapshot)
+                    && isFinished(snapshot.getStatus());
+            for (ProcessingEvent event : buffered) {
+                if (!finished && isNewer(event, snapshot) && send(videoSubscribers, videoId, emitter, event)) {
+                    finished = isFinished(event.getStatus());
+                }
+            }
+            // Từ đây sự kiện được gửi thẳng; bỏ đăng ký sau cùng để không vượt lên
+            // trước các sự kiện đang được gửi từ bộ đệm
+            pendingSnapshots.remove(emitter);
+            if (finished) {
+                emitter.complete();
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Đăng ký nhận sự kiện của tất cả video thuộc một người dùng
+     * 
+     * @param userId ID người dùng
+     * @return SseEmitter của kết nối
+     */
+    public SseEmitter subscribeUser(UUID userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(userSubscribers, userId, emitter);
+        return emitter;
+    }
+
+    /**
+     * Phát sự kiện tới mọi instance qua Redis. Nếu Redis không khả dụng, sự kiện
+     * vẫn được gửi tới các kết nối trên instance hiện tại.
+     * 
+     * @param event Sự kiện tiến độ
+     */
+    public void publish(ProcessingEvent event) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            log.warn("Không phát được sự kiện tiến độ của video {} qua Redis: {}", event.getVideoId(), e.getMessage());
+            deliver(event);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            deliver(objectMapper.readValue(message.getBody(), ProcessingEvent.class));
+        } catch (IOException e) {
+            log.warn("Bỏ qua sự kiện tiến độ không hợp lệ: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gửi comment định kỳ để proxy không đóng các kết nối đang chờ và để phát
+     * hiện sớm client đã ngắt kết nối
+     */
+    @Scheduled(fixedDelayString = "${app.video.processing.events.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        heartbeat(videoSubscribers);
+        heartbeat(userSubscribers);
+    }
+
+    public int getSubscriberCount() {
+        return videoSubscribers.values().stream().mapToInt(Set::size).sum()
+                + userSubscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void deliver(ProcessingEvent event) {
+        boolean finished = isFinished(event.getStatus());
+
+        Set<SseEmitter> videoEmitters = videoSubscribers.get(event.getVideoId());
+        if (videoEmitters != null) {
+            for (SseEmitter emitter : videoEmitters) {
+                if (buffer(emitter, event)) {
+                    continue;
+                }
+                if (send(videoSubscribers, event.getVideoId(), emitter, event) && finished) {
+                    // Video đã xử lý xong, không còn sự kiện nào để chờ
+                    emitter.complete();
+                }
+            }
+        }
+
+        Set<SseEmitter> userEmitters = userSubscribers.get(event.getUserId());
+        if (userEmitters != null) {
+            for (SseEmitter emitter : userEmitters) {
+                send(userSubscribers, event.getUserId(), emitter, event);
+            }
+        }
+    }
+
+    private void register(Map<UUID, Set<SseEmitter>> subscribers, UUID key, SseEmitter emitter) {
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        Runnable remove = () -> remove(subscribers, key, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+    }
+
+    /**
+     * Giữ lại sự kiện nếu kết nối chưa nhận snapshot
+     * 
+     * @return true nếu sự kiện đã được giữ lại
+     */
+    private boolean buffer(SseEmitter emitter, ProcessingEvent event) {
+        List<ProcessingEvent> buffered = pendingSnapshots.get(emitter);
+        if (buffered == null) {
+            return false;
+        }
+        synchronized (buffered) {
+            if (pendingSnapshots.get(emitter) != buffered) {
+                // Snapshot vừa được gửi xong trong lúc chờ khóa
+                return false;
+            }
+            buffered.add(event);
+            return true;
+        }
+    }
+
+    private boolean send(Map<UUID, Set<SseEmitter>> subscribers, UUID key, SseEmitter emitter,
+            ProcessingEvent event) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client đã ngắt kết nối
+            remove(subscribers, key, emitter);
+            return false;
+        }
+    }
+
+    private void heartbeat(Map<UUID, Set<SseEmitter>> subscribers) {
+        subscribers.forEach((key, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(subscribers, key, emitter);
+                }
+            }
+        });
+    }
+
+    private void remove(Map<UUID, Set<SseEmitter>> subscribers, UUID key, SseEmitter emitter) {
+        pendingSnapshots.remove(emitter);
+        subscribers.computeIfPresent(key, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    /**
+     * Timestamp của snapshot là status_updated_at, được VideoResultWriter ghi
+     * bằng đúng timestamp của sự kiện đã phát nên hai giá trị so sánh được
+     */
+    private boolean isNewer(ProcessingEvent event, ProcessingEvent snapshot) {
+        return event.getTimestamp() == null || snapshot.getTimestamp() == null
+                || event.getTimestamp().isAfter(snapshot.getTimestamp());
+    }
+
+    private boolean isFinished(VideoStatus status) {
+        return status == VideoStatus.COMPLETED || status == VideoStatus.ERROR;
+    }
+}
@@ -0,0 +1,65 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.loopy.footballvideoprocessor.video.repository.VideoProcessingStatusRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dọn lịch sử trạng thái xử lý video. Tiến độ hiện tại đã được lưu trên
+ * videos nên video_processing_status chỉ dùng để kiểm tra: các dòng tiến độ
+ * trung gian được gộp sau compact-after, toàn bộ lịch sử được xóa sau
+ * retention, riêng dòng mới nhất của mỗi video luôn được giữ lại. Việc xóa
+ * chia thành nhiều lô nhỏ, mỗi lô một transaction, để không khóa bảng lâu.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessingStatusRetentionTask {
+
+    private final VideoProcessingStatusRepository processingStatusRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.video.processing.status-history.compact-after:P1D}")
+    private Duration compactAfter;
+
+    @Value("${app.video.processing.status-history.retention:P90D}")
+    private Duration retention;
+
+    @Value("${app.video.processing.status-history.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${app.video.processing.status-history.cleanup-cron:0 15 3 * * *}")
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int compacted = deleteInBatches(() -> processingStatusRepository
+                .compactProgressBefore(now.minus(compactAfter), batchSize));
+        int deleted = deleteInBatches(() -> processingStatusRepository
+                .deleteHistoryBefore(now.minus(retention), batchSize));
+
+        if (compacted > 0 || deleted > 0) {
+            log.info("Đã dọn lịch sử trạng thái xử lý: gộp {} dòng tiến độ, xóa {} dòng quá hạn", compacted, deleted);
+        }
+    }
+
+    private int deleteInBatches(IntSupplier deleteBatch) {
+        int total = 0;
+        int deleted;
+        do {
+            Integer count = transactionTemplate.execute(status -> deleteBatch.getAsInt());
+            deleted = count != null ? count : 0;
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+}
@@ -4,15 +4,32 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.common.exception.ResourceNotFoundException;
 import com.loopy.footballvideoprocessor.common.exception.StorageException;
 import com.loopy.footballvideoprocessor.config.CloudflareProperties;
 
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
@@ -20,54 +37,112 @@ import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 @Service
 @Slf4j
 public class R2StorageService {
 
+    // Thời hạn presigned URL được làm tròn lên một trong các mức này (phút), để
+    // thời hạn tùy ý do client gửi lên không tạo ra vô số khóa trong cache. Mức
+    // cuối là giới hạn 7 ngày của SigV4.
+    private static final int[] EXPIRATION_BUCKETS_MINUTES = { 5, 15, 30, 60, 120, 240, 720, 1440, 10080 };
+
     private final S3Client s3Client;
     private final S3Presigner s3Presigner;
     private final String bucketName;
     private final CloudflareProperties cloudflareProperties;
+    private final Executor uploadExecutor;
+    // Presigned URL đã ký, null nếu tắt cache
+    private final Cache<PresignKey, PresignedUrl> presignedUrls;
+
+    @Autowired
+    public R2StorageService(CloudflareProperties cloudflareProperties,
+            @Qualifier("r2UploadExecutor") Executor uploadExecutor) {
+        this(cloudflareProperties, uploadExecutor, createS3Client(requireR2(cloudflareProperties)),
+                createS3Presigner(requireR2(cloudflareProperties)));
+    }
 
-    public R2StorageService(CloudflareProperties cloudflareProperties) {
+    /**
+     * Dùng trong test để thay S3 client bằng mock
+     */
+    R2StorageService(CloudflareProperties cloudflareProperties, Executor uploadExecutor, S3Client s3Client,
+            S3Presigner s3Presigner) {
         this.cloudflareProperties = cloudflareProperties;
+        this.uploadExecutor = uploadExecutor;
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+
+        CloudflareProperties.R2 r2Props = requireR2(cloudflareProperties);
+        this.bucketName = r2Props.getBucketName();
+        if (this.bucketName == null || this.bucketName.trim().isEmpty()) {
+            throw new IllegalStateException("Cloudflare R2 bucket name (cloudflare.r2.bucket-name) is not configured.");
+        }
 
+        CloudflareProperties.PresignedUrlCache urlCache = r2Props.getPresignedUrlCache();
+        this.presignedUrls = urlCache.isEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(urlCache.getMaximumSize())
+                        .expireAfter(new PresignReuseWindow(urlCache.getReuseRatio()))
+                        .build()
+                : null;
+
+        log.info("R2StorageService initialized with bucket: {}", this.bucketName);
+    }
+
+    private static CloudflareProperties.R2 requireR2(CloudflareProperties cloudflareProperties) {
         CloudflareProperties.R2 r2Props = cloudflareProperties.getR2();
         if (r2Props == null) {
             throw new IllegalStateException("Cloudflare R2 properties (cloudflare.r2) are not configured.");
         }
+        return r2Props;
+    }
 
-        AwsBasicCredentials credentials = AwsBasicCredentials.create(
+    private static StaticCredentialsProvider credentialsProvider(CloudflareProperties.R2 r2Props) {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(
                 r2Props.getAccessKey(),
-                r2Props.getSecretKey());
-        StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(credentials);
+                r2Props.getSecretKey()));
+    }
 
-        this.s3Client = S3Client.builder()
+    private static S3Client createS3Client(CloudflareProperties.R2 r2Props) {
+        return S3Client.builder()
                 .region(Region.of(r2Props.getRegion()))
                 .endpointOverride(URI.create(r2Props.getEndpoint()))
-                .credentialsProvider(credentialsProvider)
+                .credentialsProvider(credentialsProvider(r2Props))
                 .build();
+    }
 
-        this.s3Presigner = S3Presigner.builder()
+    private static S3Presigner createS3Presigner(CloudflareProperties.R2 r2Props) {
+        return S3Presigner.builder()
                 .region(Region.of(r2Props.getRegion()))
                 .endpointOverride(URI.create(r2Props.getEndpoint()))
-                .credentialsProvider(credentialsProvider)
+                .credentialsProvider(credentialsProvider(r2Props))
                 .build();
-
-        this.bucketName = r2Props.getBucketName();
-        if (this.bucketName == null || this.bucketName.trim().isEmpty()) {
-            throw new IllegalStateException("Cloudflare R2 bucket name (cloudflare.r2.bucket-name) is not configured.");
-        }
-        log.info("R2StorageService initialized with bucket: {}", this.bucketName);
     }
 
     /**
@@ -101,6 +176,104 @@ public class R2StorageService {
         }
     }
 
+    /**
+     * Upload video lên R2 bằng cách đọc trực tiếp từ stream (ví dụ body của
+     * request) và gửi lên dưới dạng multipart upload. Các part được upload song
+     * song, số part đang chạy cho mỗi file bị giới hạn bởi
+     * cloudflare.r2.multipart.concurrency. Nếu có lỗi, multipart upload sẽ bị
+     * hủy để R2 không giữ lại các part dở dang.
+     * 
+     * @param inputStream      Nội dung video
+     * @param contentType      Content type
+     * @param originalFileName Tên file gốc
+     * @param userId           User ID
+     * @return Key và kích thước của file trong R2
+     */
+    public UploadedObject uploadVideoStream(InputStream inputStream, String contentType, String originalFileName,
+            UUID userId) {
+        String key = generateVideoKey(originalFileName, userId);
+
+        CloudflareProperties.Multipart multipart = cloudflareProperties.getR2().getMultipart();
+        // Giới hạn kích thước part đã được kiểm tra khi bind CloudflareProperties
+        int partSize = Math.toIntExact(multipart.getPartSize().toBytes());
+        long maxObjectSize = multipart.getMaxObjectSize().toBytes();
+
+        String uploadId = createMultipartUpload(key, contentType, Map.of(
+                "original-name", originalFileName != null ? originalFileName : key,
+                "user-id", userId.toString()));
+
+        Semaphore inFlight = new Semaphore(multipart.getConcurrency());
+        List<CompletableFuture<CompletedPart>> futures = new ArrayList<>();
+        long totalBytes = 0;
+        int partNumber = 1;
+
+        try {
+            while (true) {
+                // Chờ slot trống trước khi đọc part tiếp theo để giới hạn bộ nhớ sử dụng
+                inFlight.acquire();
+                byte[] buffer;
+                try {
+                    buffer = inputStream.readNBytes(partSize);
+                } catch (IOException e) {
+                    inFlight.release();
+                    throw e;
+                }
+
+                if (buffer.length == 0) {
+                    inFlight.release();
+                    break;
+                }
+
+                totalBytes += buffer.length;
+                if (totalBytes > maxObjectSize) {
+                    inFlight.release();
+                    throw new BadRequestException("Kích thước file vượt quá giới hạn cho phép");
+                }
+
+                // Dừng sớm nếu một part trước đó đã lỗi
+                futures.stream().filter(CompletableFuture::isCompletedExceptionally).findFirst()
+                        .ifPresent(CompletableFuture::join);
+
+                final int currentPart = partNumber++;
+                final byte[] partData = buffer;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return uploadPart(key, uploadId, currentPart, partData);
+                    } finally {
+                        inFlight.release();
+                    }
+                }, uploadExecutor));
+
+                if (buffer.length < partSize) {
+                    break;
+                }
+            }
+
+            if (futures.isEmpty()) {
+                throw new BadRequestException("Nội dung video rỗng");
+            }
+
+            List<CompletedPart> parts = futures.stream().map(CompletableFuture::join).toList();
+            completeMultipartUpload(key, uploadId, parts);
+
+            log.info("Uploaded file to R2 via multipart stream: {}, {} parts, {} bytes", key, parts.size(),
+                    totalBytes);
+            return new UploadedObject(key, totalBytes);
+        } catch (BadRequestException | StorageException e) {
+            // StorageException đến từ completeMultipartUpload
+            abortMultipartUpload(key, uploadId, futures);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(key, uploadId, futures);
+            throw new StorageException("Upload file lên bộ lưu trữ bị gián đoạn", e);
+        } catch (IOException | S3Exception | CompletionException e) {
+            log.error("Failed to upload file to R2 via multipart stream: {}", key, e);
+            abortMultipartUpload(key, uploadId, futures);
+            throw new StorageException("Không thể tải file lên bộ lưu trữ", e);
+        }
+    }
+
     /**
      * Upload processed video to R2
      * 
@@ -189,6 +362,52 @@ public class R2StorageService {
         }
     }
 
+    /**
+     * Tải một đoạn byte của file từ R2 (ranged GET)
+     * 
+     * @param key     File key in R2
+     * @param start   Byte đầu tiên
+     * @param end     Byte cuối cùng (bao gồm)
+     * @param eTag    ETag mà object phải khớp, null để bỏ qua; R2 trả về 412 nếu
+     *                object đã bị thay thế
+     * @return Stream của đoạn byte, người gọi phải đóng
+     */
+    public ResponseInputStream<GetObjectResponse> downloadFile(String key, long start, long end, String eTag) {
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .range("bytes=" + start + "-" + end)
+                    .ifMatch(eTag)
+                    .build();
+
+            return s3Client.getObject(request);
+        } catch (S3Exception e) {
+            log.error("Failed to download range {}-{} of file from R2: {}", start, end, key, e);
+            throw new StorageException("Không thể tải file từ bộ lưu trữ: " + key, e);
+        }
+    }
+
+    /**
+     * Lấy metadata của object trong R2 (kích thước, ETag, thời gian sửa đổi)
+     * 
+     * @param key File key in R2
+     * @return Metadata của object
+     */
+    public HeadObjectResponse headFile(String key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            throw new ResourceNotFoundException("File", "key", key);
+        } catch (S3Exception e) {
+            log.error("Failed to get object metadata from R2: {}", key, e);
+            throw new StorageException("Không thể lấy thông tin file từ bộ lưu trữ: " + key, e);
+        }
+    }
+
     /**
      * Delete file from R2
      * 
@@ -202,6 +421,7 @@ public class R2StorageService {
                     .build();
 
             s3Client.deleteObject(request);
+            evictPresignedUrls(key);
             log.info("Deleted file from R2: {}", key);
         } catch (S3Exception e) {
             log.error("Failed to delete file from R2: {}", key, e);
@@ -209,6 +429,58 @@ public class R2StorageService {
         }
     }
 
+    /**
+     * Xóa mọi object có khóa bắt đầu bằng prefix, ví dụ thư mục segment HLS/DASH
+     * của một video. Object được liệt kê và xóa theo từng trang tối đa 1000 khóa.
+     * 
+     * @param prefix Prefix khóa trong R2, phải kết thúc bằng "/"
+     * @return Số object đã xóa
+     */
+    public int deleteByPrefix(String prefix) {
+        if (prefix == null || !prefix.endsWith("/")) {
+            throw new BadRequestException("Prefix không hợp lệ: " + prefix);
+        }
+
+        try {
+            int deleted = 0;
+            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                    .bucket(this.bucketName)
+                    .prefix(prefix)
+                    .build();
+            for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(listRequest)) {
+                if (page.contents().isEmpty()) {
+                    continue;
+                }
+                List<ObjectIdentifier> objects = page.contents().stream()
+                        .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                        .toList();
+                s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(this.bucketName)
+                        .delete(Delete.builder().objects(objects).quiet(true).build())
+                        .build());
+                deleted += objects.size();
+            }
+
+            if (presignedUrls != null) {
+                presignedUrls.asMap().keySet().removeIf(presignKey -> presignKey.getObjectKey().startsWith(prefix));
+            }
+            log.info("Deleted {} files from R2 with prefix: {}", deleted, prefix);
+            return deleted;
+        } catch (S3Exception e) {
+            log.error("Failed to delete files from R2 with prefix: {}", prefix, e);
+            throw new StorageException("Không thể xóa các file khỏi bộ lưu trữ: " + prefix, e);
+        }
+    }
+
+    /**
+     * Xóa các presigned URL đã cache của một object
+     */
+    private void evictPresignedUrls(String key) {
+        if (presignedUrls != null) {
+            presignedUrls.asMap().keySet().removeIf(presignKey -> presignKey.getObjectKey().equals(key));
+        }
+    }
+
     /**
      * Generate a presigned URL for accessing the file
      * 
@@ -217,27 +489,228 @@ public class R2StorageService {
      * @return Presigned URL
      */
     public String generatePresignedUrl(String key, int expirationInMinutes) {
+        return getPresignedUrl(key, expirationInMinutes).getUrl();
+    }
+
+    /**
+     * Lấy presigned URL để xem file. URL đã ký được dùng lại cho các request sau
+     * tới khi thời hạn còn lại của nó xuống dưới ngưỡng cấu hình.
+     * 
+     * @param key                 Khóa file trong R2
+     * @param expirationInMinutes Thời hạn tối thiểu của URL khi được ký (phút),
+     *                            được làm tròn lên mức gần nhất
+     * @return URL và thời điểm hết hạn thực tế
+     */
+    public PresignedUrl getPresignedUrl(String key, int expirationInMinutes) {
+        return getOrSign(new PresignKey(key, null, expirationBucket(expirationInMinutes)));
+    }
+
+    /**
+     * Ký presigned URL mới mỗi lần gọi, không qua cache dùng lại. Dùng cho URL
+     * mà client giữ suốt thời hạn, như segment trong manifest VOD: URL lấy từ
+     * cache có thể chỉ còn một phần thời hạn.
+     * 
+     * @param key        Khóa file trong R2
+     * @param expiration Thời hạn của URL, làm tròn lên phút và tối đa 7 ngày
+     * @return URL và thời điểm hết hạn thực tế
+     */
+    public PresignedUrl signPresignedUrl(String key, Duration expiration) {
+        long minutes = Math.max(1L, (expiration.toSeconds() + 59) / 60);
+        int maxMinutes = EXPIRATION_BUCKETS_MINUTES[EXPIRATION_BUCKETS_MINUTES.length - 1];
+        return presign(new PresignKey(key, null, (int) Math.min(minutes, maxMinutes)));
+    }
+
+    /**
+     * Làm tròn thời hạn được yêu cầu lên mức gần nhất trong
+     * EXPIRATION_BUCKETS_MINUTES, tối đa bằng mức cuối
+     * 
+     * @param expirationInMinutes Thời hạn được yêu cầu (phút)
+     * @return Thời hạn dùng để ký (phút)
+     */
+    static int expirationBucket(int expirationInMinutes) {
+        for (int bucket : EXPIRATION_BUCKETS_MINUTES) {
+            if (expirationInMinutes <= bucket) {
+                return bucket;
+            }
+        }
+        return EXPIRATION_BUCKETS_MINUTES[EXPIRATION_BUCKETS_MINUTES.length - 1];
+    }
+
+    /**
+     * Khởi tạo multipart upload trên R2
+     * 
+     * @param key         File key in R2
+     * @param contentType Content type
+     * @param metadata    Metadata của object
+     * @return Upload ID
+     */
+    public String createMultipartUpload(String key, String contentType, Map<String, String> metadata) {
         try {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
                     .bucket(this.bucketName)
                     .key(key)
+                    .contentType(contentType)
+                    .cacheControl("max-age=86400, private") // Cache 1 ngày, chỉ client cache
+                    .metadata(metadata)
                     .build();
 
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofMinutes(expirationInMinutes))
-                    .getObjectRequest(getObjectRequest)
+            return s3Client.createMultipartUpload(request).uploadId();
+        } catch (S3Exception e) {
+            log.error("Failed to create multipart upload on R2: {}", key, e);
+            throw new StorageException("Không thể khởi tạo upload lên bộ lưu trữ", e);
+        }
+    }
+
+    /**
+     * Hoàn tất multipart upload trên R2
+     * 
+     * @param key      File key in R2
+     * @param uploadId Upload ID
+     * @param parts    Danh sách part đã upload
+     */
+    public void completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts) {
+        try {
+            CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
                     .build();
 
-            PresignedGetObjectRequest presignedRequest = s3Presigner.presignGetObject(presignRequest);
+            s3Client.completeMultipartUpload(request);
+        } catch (S3Exception e) {
+            log.error("Failed to complete multipart upload on R2: {}", key, e);
+            throw new StorageException("Không thể hoàn tất upload lên bộ lưu trữ", e);
+        }
+    }
+
+    /**
+     * Hủy multipart upload trên R2, giải phóng các part đã upload
+     * 
+     * @param key      File key in R2
+     * @param uploadId Upload ID
+     */
+    public void abortMultipartUpload(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            log.info("Aborted multipart upload on R2: {}", key);
+        } catch (S3Exception e) {
+            // Không ném lỗi để không che lỗi gốc, R2 sẽ dọn part dở dang theo lifecycle
+            log.error("Failed to abort multipart upload on R2: {}", key, e);
+        }
+    }
+
+    /**
+     * Tạo presigned URL để client upload trực tiếp một part của multipart upload
+     * 
+     * @param key        File key in R2
+     * @param uploadId   Upload ID
+     * @param partNumber Số thứ tự part (bắt đầu từ 1)
+     * @param expiration Thời hạn của URL
+     * @return Presigned URL
+     */
+    public String generatePresignedUploadPartUrl(String key, String uploadId, int partNumber, Duration expiration) {
+        try {
+            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .build();
+
+            UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                    .signatureDuration(expiration)
+                    .uploadPartRequest(uploadPartRequest)
+                    .build();
+
+            return s3Presigner.presignUploadPart(presignRequest).url().toString();
+        } catch (S3Exception e) {
+            log.error("Failed to generate presigned upload part URL for file: {}", key, e);
+            throw new StorageException("Không thể tạo URL upload cho file: " + key, e);
+        }
+    }
 
-            log.info("Generated presigned URL for file: {}, expires in {} minutes", key, expirationInMinutes);
-            return presignedRequest.url().toString();
+    /**
+     * Lấy danh sách các part đã upload của một multipart upload
+     * 
+     * @param key      File key in R2
+     * @param uploadId Upload ID
+     * @return Danh sách part, sắp xếp theo số thứ tự
+     */
+    public List<Part> listParts(String key, String uploadId) {
+        try {
+            ListPartsRequest request = ListPartsRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build();
+
+            List<Part> parts = new ArrayList<>();
+            s3Client.listPartsPaginator(request).parts().forEach(parts::add);
+            parts.sort((p1, p2) -> Integer.compare(p1.partNumber(), p2.partNumber()));
+            return parts;
+        } catch (S3Exception e) {
+            log.error("Failed to list parts of multipart upload on R2: {}", key, e);
+            throw new StorageException("Không thể lấy thông tin upload từ bộ lưu trữ: " + key, e);
+        }
+    }
+
+    /**
+     * Lấy kích thước của object trong R2
+     * 
+     * @param key File key in R2
+     * @return Kích thước (byte)
+     */
+    public long getObjectSize(String key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(this.bucketName)
+                    .key(key)
+                    .build())
+                    .contentLength();
         } catch (S3Exception e) {
-            log.error("Failed to generate presigned URL for file: {}", key, e);
-            throw new StorageException("Không thể tạo URL tạm thời cho file: " + key, e);
+            log.error("Failed to get object metadata from R2: {}", key, e);
+            throw new StorageException("Không thể lấy thông tin file từ bộ lưu trữ: " + key, e);
         }
     }
 
+    /**
+     * Tạo key cho video gốc của người dùng
+     * 
+     * @param originalFileName Tên file gốc
+     * @param userId           User ID
+     * @return File key in R2
+     */
+    public String generateVideoKey(String originalFileName, UUID userId) {
+        return "videos/" + userId + "/" + generateFileName(originalFileName, userId);
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] data) {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(this.bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) data.length)
+                .build();
+
+        UploadPartResponse response = s3Client.uploadPart(request, RequestBody.fromBytes(data));
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build();
+    }
+
+    private void abortMultipartUpload(String key, String uploadId, List<CompletableFuture<CompletedPart>> futures) {
+        // Chờ các part đang chạy kết thúc để abort không bị part mới ghi đè
+        futures.forEach(future -> future.exceptionally(e -> null).join());
+        abortMultipartUpload(key, uploadId);
+    }
+
     /**
      * Generate a unique file name for storage
      * 
@@ -262,27 +735,116 @@ public class R2StorageService {
      * @return URL presigned có header buộc tải xuống
      */
     public String generateDownloadUrl(String key, int expirationInMinutes, String filename) {
+        return getDownloadUrl(key, expirationInMinutes, filename).getUrl();
+    }
+
+    /**
+     * Lấy presigned URL để tải xuống file, dùng lại URL đã ký như
+     * {@link #getPresignedUrl(String, int)}
+     * 
+     * @param key                 Khóa file trong R2
+     * @param expirationInMinutes Thời hạn tối thiểu của URL khi được ký (phút),
+     *                            được làm tròn lên mức gần nhất
+     * @param filename            Tên file khi tải xuống
+     * @return URL và thời điểm hết hạn thực tế
+     */
+    public PresignedUrl getDownloadUrl(String key, int expirationInMinutes, String filename) {
+        return getOrSign(new PresignKey(key, "attachment; filename=\"" + filename + "\"",
+                expirationBucket(expirationInMinutes)));
+    }
+
+    private PresignedUrl getOrSign(PresignKey presignKey) {
+        if (presignedUrls == null) {
+            return presign(presignKey);
+        }
+        // Các request đồng thời cùng khóa chờ chung một lần ký
+        return presignedUrls.get(presignKey, this::presign);
+    }
+
+    /**
+     * Ký presigned URL cho GetObject bằng SigV4
+     */
+    private PresignedUrl presign(PresignKey presignKey) {
         try {
-            // Tạo request với header Content-Disposition để buộc browser tải xuống
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            GetObjectRequest.Builder getObjectRequest = GetObjectRequest.builder()
                     .bucket(this.bucketName)
-                    .key(key)
-                    .responseContentDisposition("attachment; filename=\"" + filename + "\"")
-                    .build();
+                    .key(presignKey.getObjectKey());
+            if (presignKey.getDisposition() != null) {
+                // Header Content-Disposition để buộc browser tải xuống
+                getObjectRequest.responseContentDisposition(presignKey.getDisposition());
+            }
 
             GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofMinutes(expirationInMinutes))
-                    .getObjectRequest(getObjectRequest)
+                    .signatureDuration(Duration.ofMinutes(presignKey.getExpirationMinutes()))
+                    .getObjectRequest(getObjectRequest.build())
                     .build();
 
             PresignedGetObjectRequest presignedRequest = s3Presigner.presignGetObject(presignRequest);
 
-            log.info("Generated download URL for file: {}, filename: {}, expires in {} minutes",
-                    key, filename, expirationInMinutes);
-            return presignedRequest.url().toString();
+            log.debug("Generated presigned URL for file: {}, disposition: {}, expires in {} minutes",
+                    presignKey.getObjectKey(), presignKey.getDisposition(), presignKey.getExpirationMinutes());
+            return new PresignedUrl(presignedRequest.url().toString(), presignedRequest.expiration());
         } catch (S3Exception e) {
-            log.error("Failed to generate download URL for file: {}", key, e);
-            throw new StorageException("Không thể tạo URL tải xuống cho file: " + key, e);
+            log.error("Failed to generate presigned URL for file: {}", presignKey.getObjectKey(), e);
+            throw new StorageException("Không thể tạo URL tạm thời cho file: " + presignKey.getObjectKey(), e);
+        }
+    }
+
+    /**
+     * Presigned URL đã ký và thời điểm hết hạn của nó
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PresignedUrl {
+        private final String url;
+        private final Instant expiresAt;
+    }
+
+    /**
+     * Khóa của presigned URL trong cache: object, Content-Disposition (null khi
+     * xem trực tiếp) và thời hạn đã làm tròn
+     */
+    @Data
+    private static class PresignKey {
+        private final String objectKey;
+        private final String disposition;
+        private final int expirationMinutes;
+    }
+
+    /**
+     * Entry chỉ được dùng lại trong một phần thời hạn của URL, phần còn lại dành
+     * cho client sử dụng URL
+     */
+    @AllArgsConstructor
+    private static class PresignReuseWindow implements Expiry<PresignKey, PresignedUrl> {
+
+        private final double reuseRatio;
+
+        @Override
+        public long expireAfterCreate(PresignKey key, PresignedUrl value, long currentTime) {
+            long remaining = Duration.between(Instant.now(), value.getExpiresAt()).toNanos();
+            long reuse = (long) (Duration.ofMinutes(key.getExpirationMinutes()).toNanos() * reuseRatio);
+            return Math.max(0L, Math.min(reuse, remaining));
+        }
+
+        @Override
+        public long expireAfterUpdate(PresignKey key, PresignedUrl value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
         }
+
+        @Override
+        public long expireAfterRead(PresignKey key, PresignedUrl value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Kết quả upload: key và kích thước thực tế của object trong R2
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class UploadedObject {
+        private final String key;
+        private final long size;
     }
-}
\ No newline at end of file
+}
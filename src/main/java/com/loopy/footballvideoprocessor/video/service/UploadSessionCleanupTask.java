@@ -0,0 +1,47 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.loopy.footballvideoprocessor.video.model.UploadSession;
+import com.loopy.footballvideoprocessor.video.model.UploadSessionStatus;
+import com.loopy.footballvideoprocessor.video.repository.UploadSessionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Định kỳ hủy các phiên upload trực tiếp đã hết hạn để R2 không giữ lại các
+ * part dở dang
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UploadSessionCleanupTask {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final R2StorageService r2StorageService;
+
+    @Scheduled(fixedDelayString = "${cloudflare.r2.multipart.cleanup-interval:PT1H}")
+    @Transactional
+    public void abortExpiredSessions() {
+        // Phiên COMPLETING quá hạn là phiên mà request hoàn tất đã dừng giữa chừng
+        List<UploadSession> expiredSessions = uploadSessionRepository.findAllByStatusInAndExpiresAtBefore(
+                List.of(UploadSessionStatus.IN_PROGRESS, UploadSessionStatus.COMPLETING), LocalDateTime.now());
+
+        if (expiredSessions.isEmpty()) {
+            return;
+        }
+
+        log.info("Hủy {} phiên upload đã hết hạn", expiredSessions.size());
+        for (UploadSession session : expiredSessions) {
+            r2StorageService.abortMultipartUpload(session.getObjectKey(), session.getUploadId());
+            session.setStatus(UploadSessionStatus.ABORTED);
+        }
+        uploadSessionRepository.saveAll(expiredSessions);
+    }
+}
@@ -0,0 +1,192 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.loopy.footballvideoprocessor.config.CacheConfig;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Khóa và thao tác xóa cho videoCache và videoListCache. Khóa danh sách chứa
+ * thế hệ danh sách của chủ sở hữu, một bộ đếm trên Redis được tăng mỗi khi video
+ * của người đó thay đổi: các trang cũ không bao giờ được đọc lại và tự hết hạn
+ * theo TTL, nên không phải quét Redis để xóa chúng. Được dùng trong SpEL của các
+ * annotation cache qua tên bean videoCacheSupport.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VideoCacheSupport {
+
+    private static final String KEY_SEPARATOR = ":";
+    // Không đặt TTL: nếu bộ đếm bị xóa rồi đếm lại từ đầu, các trang cũ cùng thế
+    // hệ còn trong cache sẽ được đọc lại
+    private static final String LIST_GENERATION_KEY_PREFIX = "cache:video-list-generation:";
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Danh sách video chỉ được cache khi principal mang ID người dùng; token cũ
+     * không có claim uid luôn đọc từ cơ sở dữ liệu
+     */
+    public boolean isCacheable() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        return principal != null && principal.getId() != null;
+    }
+
+    /**
+     * Video đơn lẻ chỉ được cache cho chủ sở hữu. Admin có thể xem video của
+     * người khác nên luôn đọc từ cơ sở dữ liệu, nhờ vậy khóa luôn là ID chủ sở hữu.
+     */
+    public boolean isVideoCacheable() {
+        return isCacheable() && !AuthenticatedUser.current().isAdmin();
+    }
+
+    /**
+     * Khóa của một video trong videoCache
+     * 
+     * @param videoId ID của video
+     * @return ownerId:videoId
+     */
+    public String videoKey(UUID videoId) {
+        return videoKey(currentUserId(), videoId);
+    }
+
+    /**
+     * Khóa của một trang danh sách video trong videoListCache
+     * 
+     * @param parts Các tham số của truy vấn
+     * @return ownerId:thế hệ:part1:part2...
+     */
+    public String listKey(Object... parts) {
+        UUID ownerId = currentUserId();
+        return ownerId + KEY_SEPARATOR + listGeneration(ownerId) + KEY_SEPARATOR + Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining(KEY_SEPARATOR));
+    }
+
+    /**
+     * Xóa video và các danh sách video của chủ sở hữu khỏi cache sau khi
+     * transaction hiện tại commit
+     * 
+     * @param ownerId ID chủ sở hữu video
+     * @param videoId ID của video
+     */
+    public void evictVideo(UUID ownerId, UUID videoId) {
+        afterCommit(() -> {
+            evict(CacheConfig.VIDEO_CACHE, cache -> cache.evictIfPresent(videoKey(ownerId, videoId)));
+            nextListGeneration(ownerId);
+        });
+    }
+
+    /**
+     * Bỏ các danh sách video của người dùng khỏi cache sau khi transaction hiện
+     * tại commit, bằng cách chuyển sang thế hệ danh sách mới
+     * 
+     * @param ownerId ID chủ sở hữu video
+     */
+    public void evictVideoLists(UUID ownerId) {
+        afterCommit(() -> nextListGeneration(ownerId));
+    }
+
+    /**
+     * Xóa mọi video và danh sách video của một người dùng bị xóa khỏi cache sau
+     * khi transaction hiện tại commit
+     * 
+     * @param ownerId  ID người dùng
+     * @param videoIds ID các video của người dùng
+     */
+    public void evictOwner(UUID ownerId, Collection<UUID> videoIds) {
+        afterCommit(() -> {
+            evict(CacheConfig.VIDEO_CACHE,
+                    cache -> videoIds.forEach(videoId -> cache.evictIfPresent(videoKey(ownerId, videoId))));
+            nextListGeneration(ownerId);
+        });
+    }
+
+    /**
+     * Xóa video khỏi videoCache khi kết quả xử lý thay đổi, sau khi transaction
+     * hiện tại commit. Danh sách video của chủ sở hữu được xóa riêng bằng
+     * evictVideoLists, một lần cho cả lô kết quả thay vì một lần cho mỗi video.
+     * 
+     * @param ownerId ID chủ sở hữu video
+     * @param videoId ID của video
+     */
+    public void evictVideoProgress(UUID ownerId, UUID videoId) {
+        afterCommit(() -> evict(CacheConfig.VIDEO_CACHE, cache -> cache.evictIfPresent(videoKey(ownerId, videoId))));
+    }
+
+    private static String videoKey(UUID ownerId, UUID videoId) {
+        return ownerId + KEY_SEPARATOR + videoId;
+    }
+
+    private String listGeneration(UUID ownerId) {
+        try {
+            String generation = redisTemplate.opsForValue().get(LIST_GENERATION_KEY_PREFIX + ownerId);
+            return generation != null ? generation : "0";
+        } catch (RuntimeException e) {
+            // Không biết thế hệ hiện tại thì không được đọc trang đã cache; khóa
+            // ngẫu nhiên không bao giờ trùng và giá trị ghi vào sẽ tự hết hạn
+            log.warn("Không đọc được thế hệ danh sách video của người dùng {}: {}", ownerId, e.getMessage());
+            return "x" + UUID.randomUUID();
+        }
+    }
+
+    private void nextListGeneration(UUID ownerId) {
+        try {
+            redisTemplate.opsForValue().increment(LIST_GENERATION_KEY_PREFIX + ownerId);
+        } catch (RuntimeException e) {
+            // Không làm hỏng request vì cache, danh sách cũ chỉ tồn tại tới khi hết TTL
+            log.warn("Không tăng được thế hệ danh sách video của người dùng {}: {}", ownerId, e.getMessage());
+        }
+    }
+
+    private UUID currentUserId() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        return principal != null ? principal.getId() : null;
+    }
+
+    private void evict(String cacheName, Consumer<Cache> eviction) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        try {
+            eviction.accept(cache);
+        } catch (RuntimeException e) {
+            // Không làm hỏng request vì cache, dữ liệu cũ chỉ tồn tại tới khi hết TTL
+            log.warn("Không xóa được cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Xóa cache sau khi commit, nếu xóa trước thì request đọc đồng thời có thể
+     * nạp lại dữ liệu cũ vào cache trước khi thay đổi được commit
+     */
+    private void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
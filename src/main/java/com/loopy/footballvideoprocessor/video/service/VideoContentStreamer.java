@@ -0,0 +1,333 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * Proxy nội dung video từ R2 tới client cho các môi trường không mở R2 trực
+ * tiếp. Hỗ trợ Range, If-Range và ETag (If-None-Match) cho một khoảng byte.
+ * <ul>
+ * <li>Dữ liệu được đọc từ R2 bằng các ranged GET tối đa fetch-size byte và
+ * chép thẳng ra response qua một buffer cố định lấy từ pool, không buffer toàn
+ * bộ object. Khi bật VideoSegmentCache, dữ liệu được đọc qua cache segment trên
+ * đĩa và chỉ các segment chưa có mới được tải từ R2</li>
+ * <li>Ghi ra servlet output là blocking: khi client chậm, lần ghi chờ socket
+ * rảnh và stream từ R2 ngừng được đọc, nên bộ nhớ dùng cho mỗi stream không
+ * vượt quá một buffer. Client không nhận dữ liệu sẽ bị Tomcat ngắt theo timeout
+ * ghi</li>
+ * <li>Số stream đồng thời trên mỗi instance bị giới hạn bằng semaphore; request
+ * không lấy được chỗ trong acquire-timeout nhận 503 kèm Retry-After</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class VideoContentStreamer {
+
+    private static final String BYTES_UNIT = "bytes";
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final String DEFAULT_CONTENT_TYPE = "video/mp4";
+
+    private final R2StorageService r2StorageService;
+    private final VideoSegmentCache segmentCache;
+    private final Semaphore streamPermits;
+    private final BlockingQueue<byte[]> bufferPool;
+    private final int bufferSize;
+    private final long fetchSize;
+    private final Duration acquireTimeout;
+    // Metadata của object, tránh một lần HEAD tới R2 ở mỗi lần tua. Object bị
+    // thay thế được phát hiện nhờ If-Match trong ranged GET
+    private final Cache<String, ObjectInfo> objectInfos;
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final Counter rejectedStreams;
+
+    public VideoContentStreamer(R2StorageService r2StorageService, VideoSegmentCache segmentCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.video.proxy.max-concurrent-streams:64}") int maxConcurrentStreams,
+            @Value("${app.video.proxy.acquire-timeout:2s}") Duration acquireTimeout,
+            @Value("${app.video.proxy.buffer-size:64KB}") DataSize bufferSize,
+            @Value("${app.video.proxy.fetch-size:8MB}") DataSize fetchSize,
+            @Value("${app.video.proxy.metadata-ttl:1m}") Duration metadataTtl) {
+        this.r2StorageService = r2StorageService;
+        this.segmentCache = segmentCache;
+        this.streamPermits = new Semaphore(maxConcurrentStreams, true);
+        // Mỗi stream đang chạy giữ đúng một buffer nên pool không cần lớn hơn số permit
+        this.bufferPool = new ArrayBlockingQueue<>(maxConcurrentStreams);
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.fetchSize = fetchSize.toBytes();
+        this.acquireTimeout = acquireTimeout;
+        this.objectInfos = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(metadataTtl)
+                .build();
+
+        Gauge.builder("video.proxy.streams.active", activeStreams, AtomicInteger::get)
+                .description("Số stream nội dung video đang được proxy từ R2")
+                .register(meterRegistry);
+        this.rejectedStreams = Counter.builder("video.proxy.streams.rejected")
+                .description("Số request proxy video bị từ chối vì vượt giới hạn stream đồng thời")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ghi nội dung object (hoặc khoảng byte được yêu cầu) ra response. Request
+     * HEAD chỉ nhận header, không đọc dữ liệu từ R2 và không chiếm chỗ stream.
+     * 
+     * @param key      Khóa object trong R2
+     * @param request  Request, dùng để đọc Range, If-Range và If-None-Match
+     * @param response Response
+     * @throws IOException Nếu không ghi được ra client
+     */
+    public void stream(String key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ObjectInfo info = objectInfos.get(key, this::loadObjectInfo);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        response.setHeader(HttpHeaders.ETAG, info.getETag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, info.getLastModified().toEpochMilli());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=3600");
+        // Content-Type lấy từ metadata do client upload đặt; nosniff và inline để
+        // browser không đoán lại kiểu nội dung và hiển thị nó như trang của API
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (eTagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), info.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = info.getLength() - 1;
+        HttpRange range = requestedRange(request, info);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(info.getLength());
+                end = range.getRangeEnd(info.getLength());
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + info.getLength());
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            // @GetMapping cũng nhận HEAD, Spring không bỏ body nên phải dừng trước khi chép
+            writeContentHeaders(response, info, range != null, start, end);
+            return;
+        }
+
+        if (!acquirePermit()) {
+            rejectedStreams.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        byte[] buffer = borrowBuffer();
+        activeStreams.incrementAndGet();
+        try {
+            writeContentHeaders(response, info, range != null, start, end);
+            if (info.getLength() == 0) {
+                return;
+            }
+
+            OutputStream out = response.getOutputStream();
+            if (segmentCache.isEnabled()) {
+                segmentCache.copy(key, info.getETag(), info.getLength(), start, end, out, buffer);
+            } else {
+                for (long from = start; from <= end; from += fetchSize) {
+                    copyRange(key, info, from, Math.min(end, from + fetchSize - 1), out, buffer);
+                }
+            }
+            out.flush();
+        } catch (StorageException e) {
+            // Object có thể đã bị thay thế (ETag không khớp), đọc lại metadata ở lần sau
+            objectInfos.invalidate(key);
+            if (!response.isCommitted()) {
+                // Bỏ các header đã đặt để GlobalExceptionHandler trả lỗi như bình thường
+                response.reset();
+                throw e;
+            }
+            log.warn("Dừng proxy video {} giữa chừng: {}", key, e.getMessage());
+        } catch (IOException e) {
+            // Client ngắt kết nối khi tua hoặc đóng player là bình thường
+            log.debug("Client ngắt kết nối khi proxy video {}: {}", key, e.getMessage());
+        } finally {
+            activeStreams.decrementAndGet();
+            bufferPool.offer(buffer);
+            streamPermits.release();
+        }
+    }
+
+    private void writeContentHeaders(HttpServletResponse response, ObjectInfo info, boolean partial, long start,
+            long end) {
+        response.setContentType(info.getContentType());
+        response.setContentLengthLong(end - start + 1);
+        if (partial) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    BYTES_UNIT + " " + start + "-" + end + "/" + info.getLength());
+        }
+    }
+
+    private ObjectInfo loadObjectInfo(String key) {
+        HeadObjectResponse head = r2StorageService.headFile(key);
+        return new ObjectInfo(head.contentLength(), head.eTag(), head.lastModified(),
+                safeContentType(head.contentType()));
+    }
+
+    /**
+     * Content-Type của object do client đặt khi upload nên chỉ được trả lại nếu
+     * là video/*; kiểu khác (ví dụ text/html) được thay bằng
+     * application/octet-stream để không bị browser thực thi
+     */
+    static String safeContentType(String contentType) {
+        if (!StringUtils.hasText(contentType)) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if ("video".equals(mediaType.getType()) && !mediaType.isWildcardSubtype()) {
+                // Bỏ các tham số, chỉ giữ type/subtype đã được parse
+                return mediaType.getType() + "/" + mediaType.getSubtype();
+            }
+        } catch (InvalidMediaTypeException e) {
+            log.debug("Content-Type không hợp lệ trong metadata: {}", contentType);
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    /**
+     * Chép một khoảng byte từ R2 ra response. Khi ghi lỗi, stream từ R2 bị hủy
+     * thay vì đọc hết phần còn lại để trả kết nối về pool.
+     */
+    private void copyRange(String key, ObjectInfo info, long from, long to, OutputStream out, byte[] buffer)
+            throws IOException {
+        ResponseInputStream<GetObjectResponse> in = r2StorageService.downloadFile(key, from, to, info.getETag());
+        boolean completed = false;
+        try {
+            long remaining = to - from + 1;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+            if (remaining > 0) {
+                throw new IOException("R2 trả về thiếu " + remaining + " byte của " + key);
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                in.abort();
+            }
+            in.close();
+        }
+    }
+
+    /**
+     * Range chỉ được áp dụng khi If-Range (nếu có) còn khớp với object; nhiều
+     * khoảng byte trong một request không được hỗ trợ và được trả về toàn bộ
+     * object như khi không có Range
+     */
+    private HttpRange requestedRange(HttpServletRequest request, ObjectInfo info) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(rangeHeader) || !ifRangeMatches(request, info)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            // Range sai cú pháp được bỏ qua theo RFC 9110
+            return null;
+        }
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, ObjectInfo info) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (!StringUtils.hasText(ifRange)) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range chỉ dùng so sánh mạnh, ETag yếu không bao giờ khớp
+            return ifRange.equals(info.getETag());
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate == info.getLastModified().getEpochSecond() * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (!StringUtils.hasText(ifNoneMatch) || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return streamPermits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private byte[] borrowBuffer() {
+        byte[] buffer = bufferPool.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    /**
+     * Metadata của object trong R2
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class ObjectInfo {
+        private final long length;
+        private final String eTag;
+        private final Instant lastModified;
+        private final String contentType;
+    }
+}
@@ -0,0 +1,307 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * Phục vụ manifest HLS/DASH do packager ghi vào R2 cạnh file MP4 đã xử lý.
+ * <ul>
+ * <li>Quy ước đường dẫn: manifest tại processed/{userId}/{videoId}.m3u8 (và
+ * .mpd), segment và playlist con dưới processed/{userId}/{videoId}/</li>
+ * <li>Manifest trong R2 chỉ chứa đường dẫn tương đối; khi trả cho client, mỗi
+ * segment được thay bằng presigned URL ký mới, không qua cache dùng lại của
+ * R2StorageService: player chỉ tải playlist VOD một lần nên URL phải còn hạn
+ * tới hết video. Thời hạn bằng độ dài playlist cộng segment-url-expiration.
+ * Playlist con của HLS được trỏ về lại endpoint này để cũng được ký</li>
+ * <li>BaseURL của DASH được cộng dồn theo cây MPD → Period → AdaptationSet →
+ * Representation để tính đường dẫn segment, rồi bị bỏ khỏi manifest trả về vì
+ * URL đã ký là tuyệt đối</li>
+ * <li>Nội dung gốc của manifest được cache ngắn hạn trong bộ nhớ, tránh một lần
+ * GET tới R2 mỗi khi player tải lại playlist</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class VideoManifestService {
+
+    public static final String HLS_EXTENSION = ".m3u8";
+    public static final String DASH_EXTENSION = ".mpd";
+
+    private static final Pattern HLS_URI_ATTRIBUTE = Pattern.compile("URI=\"([^\"]*)\"");
+    private static final Pattern DASH_URL_ATTRIBUTE = Pattern.compile("\\b(media|initialization|sourceURL)=\"([^\"]*)\"");
+    private static final Pattern HLS_SEGMENT_DURATION = Pattern.compile("^#EXTINF:\\s*([0-9.]+)");
+    private static final Pattern DASH_PRESENTATION_DURATION = Pattern.compile(
+            "\\bmediaPresentationDuration=\"([^\"]*)\"");
+    // Comment, phần tử BaseURL (cả khoảng trắng theo sau để không để lại dòng
+    // trống khi bỏ nó), hoặc một thẻ mở/đóng/tự đóng
+    private static final Pattern DASH_TOKEN = Pattern.compile(
+            "<!--.*?-->|<((?:[\\w.-]+:)?BaseURL)\\b[^>]*>([^<]*)</\\1>\\s*|<(/?)[\\w:.-]+([^>]*?)(/?)>",
+            Pattern.DOTALL);
+
+    private final R2StorageService r2StorageService;
+    private final Duration segmentUrlExpiration;
+    private final Cache<String, String> manifests;
+
+    public VideoManifestService(R2StorageService r2StorageService,
+            @Value("${app.video.packaging.segment-url-expiration:2h}") Duration segmentUrlExpiration,
+            @Value("${app.video.packaging.manifest-cache-ttl:30s}") Duration manifestCacheTtl) {
+        this.r2StorageService = r2StorageService;
+        this.segmentUrlExpiration = segmentUrlExpiration;
+        this.manifests = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(manifestCacheTtl)
+                .build();
+    }
+
+    /**
+     * Thư mục chứa segment và playlist con của một video
+     * 
+     * @return processed/{userId}/{videoId}/
+     */
+    public static String segmentPrefix(UUID userId, UUID videoId) {
+        return PlaybackTokenProvider.processedPrefix(userId) + videoId + "/";
+    }
+
+    /**
+     * @return processed/{userId}/{videoId}.m3u8
+     */
+    public static String hlsManifestPath(UUID userId, UUID videoId) {
+        return PlaybackTokenProvider.processedPrefix(userId) + videoId + HLS_EXTENSION;
+    }
+
+    /**
+     * @return processed/{userId}/{videoId}.mpd
+     */
+    public static String dashManifestPath(UUID userId, UUID videoId) {
+        return PlaybackTokenProvider.processedPrefix(userId) + videoId + DASH_EXTENSION;
+    }
+
+    /**
+     * Lấy playlist HLS với các segment đã được ký
+     * 
+     * @param manifestPath Master playlist của video
+     * @param segmentDir   Thư mục segment của video
+     * @param playlist     Playlist con được yêu cầu, null để lấy master playlist
+     * @return Nội dung playlist
+     */
+    public String getHlsPlaylist(String manifestPath, String segmentDir, String playlist) {
+        String key = manifestPath;
+        if (playlist != null) {
+            if (!playlist.startsWith(segmentDir) || !playlist.endsWith(HLS_EXTENSION) || playlist.contains("..")) {
+                throw new BadRequestException("Playlist không hợp lệ: " + playlist);
+            }
+            key = playlist;
+        }
+
+        String base = key;
+        String[] lines = load(key).split("\r?\n");
+        Duration expiration = segmentUrlExpiration.plus(hlsDuration(lines));
+        StringBuilder result = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                result.append(line);
+            } else if (trimmed.startsWith("#")) {
+                // Thẻ như EXT-X-KEY, EXT-X-MAP, EXT-X-MEDIA trỏ tới tài nguyên qua URI="..."
+                result.append(replaceAll(HLS_URI_ATTRIBUTE, line, 1,
+                        uri -> resolveHls(base, uri, expiration)));
+            } else {
+                result.append(resolveHls(base, trimmed, expiration));
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Lấy manifest DASH với các segment đã được ký. Packager phải ghi manifest
+     * dạng SegmentList hoặc SegmentBase vì URL theo SegmentTemplate ($Number$)
+     * không thể ký trước; các giá trị dạng template được giữ nguyên.
+     * 
+     * @param manifestPath Manifest của video
+     * @return Nội dung manifest, không còn phần tử BaseURL
+     */
+    public String getDashManifest(String manifestPath) {
+        String manifest = load(manifestPath);
+        Duration expiration = segmentUrlExpiration.plus(dashDuration(manifestPath, manifest));
+
+        // Mỗi phần tử đang mở giữ BaseURL hiệu lực cho các phần tử con của nó
+        Deque<DashLevel> levels = new ArrayDeque<>();
+        levels.push(new DashLevel(manifestPath));
+        Matcher matcher = DASH_TOKEN.matcher(manifest);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String replaced = matcher.group();
+            DashLevel level = levels.peek();
+            if (matcher.group(1) != null) {
+                // Các BaseURL cùng cấp là nguồn thay thế cho nhau, chỉ dùng cái đầu tiên
+                if (!level.baseUrlSeen) {
+                    level.base = resolveReference(level.base, unescapeXml(matcher.group(2).trim()));
+                    level.baseUrlSeen = true;
+                }
+                replaced = "";
+            } else if (matcher.group(3) != null) {
+                // Thuộc tính URL của thẻ được giải theo BaseURL của phần tử cha
+                String base = level.base;
+                int attributesStart = matcher.start(4) - matcher.start();
+                int attributesEnd = matcher.end(4) - matcher.start();
+                replaced = replaced.substring(0, attributesStart)
+                        + replaceAll(DASH_URL_ATTRIBUTE, matcher.group(4), 2, value -> value.contains("$") ? value
+                                : escapeXml(sign(resolveReference(base, unescapeXml(value)), expiration)))
+                        + replaced.substring(attributesEnd);
+                if (!matcher.group(3).isEmpty()) {
+                    if (levels.size() > 1) {
+                        levels.pop();
+                    }
+                } else if (matcher.group(5).isEmpty()) {
+                    levels.push(new DashLevel(base));
+                }
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replaced));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private String resolveHls(String base, String uri, Duration expiration) {
+        String key = resolveReference(base, uri);
+        if (!isAbsolute(key) && key.endsWith(HLS_EXTENSION)) {
+            // Playlist con được phục vụ lại qua endpoint HLS (đường dẫn tương đối)
+            return "hls?playlist=" + URLEncoder.encode(key, StandardCharsets.UTF_8);
+        }
+        return sign(key, expiration);
+    }
+
+    /**
+     * Ghép đường dẫn tương đối vào thư mục của base như trình duyệt giải URL
+     * tương đối. Trong R2 không cho phép đi lên thư mục cha.
+     */
+    private static String resolveReference(String base, String uri) {
+        if (isAbsolute(uri)) {
+            return uri;
+        }
+        if (!isAbsolute(base) && uri.contains("..")) {
+            throw new StorageException("Manifest chứa đường dẫn không hợp lệ: " + uri);
+        }
+        return directoryOf(base) + uri;
+    }
+
+    private String sign(String key, Duration expiration) {
+        if (isAbsolute(key)) {
+            return key;
+        }
+        return r2StorageService.signPresignedUrl(key, expiration).getUrl();
+    }
+
+    /**
+     * Tổng độ dài các segment của playlist HLS, bằng 0 với master playlist
+     */
+    private static Duration hlsDuration(String[] lines) {
+        double seconds = 0;
+        for (String line : lines) {
+            Matcher matcher = HLS_SEGMENT_DURATION.matcher(line.trim());
+            if (matcher.find()) {
+                try {
+                    seconds += Double.parseDouble(matcher.group(1));
+                } catch (NumberFormatException e) {
+                    // Bỏ qua giá trị hỏng, segment đó vẫn được ký
+                }
+            }
+        }
+        return Duration.ofMillis((long) Math.ceil(seconds * 1000));
+    }
+
+    /**
+     * Độ dài video theo mediaPresentationDuration của MPD, bằng 0 nếu thiếu hoặc
+     * không đọc được
+     */
+    private static Duration dashDuration(String manifestPath, String manifest) {
+        Matcher matcher = DASH_PRESENTATION_DURATION.matcher(manifest);
+        if (!matcher.find()) {
+            return Duration.ZERO;
+        }
+        try {
+            return Duration.parse(matcher.group(1));
+        } catch (DateTimeParseException e) {
+            log.warn("Không đọc được mediaPresentationDuration {} của manifest {}", matcher.group(1), manifestPath);
+            return Duration.ZERO;
+        }
+    }
+
+    private String load(String key) {
+        return manifests.get(key, this::download);
+    }
+
+    private String download(String key) {
+        try (ResponseInputStream<GetObjectResponse> in = r2StorageService.downloadFile(key)) {
+            String manifest = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            log.debug("Đã tải manifest {} ({} ký tự)", key, manifest.length());
+            return manifest;
+        } catch (IOException e) {
+            throw new StorageException("Không thể đọc manifest: " + key, e);
+        }
+    }
+
+    private static String replaceAll(Pattern pattern, String input, int group, UnaryOperator<String> replacer) {
+        Matcher matcher = pattern.matcher(input);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String replaced = input.substring(matcher.start(), matcher.start(group))
+                    + replacer.apply(matcher.group(group))
+                    + input.substring(matcher.end(group), matcher.end());
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replaced));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String directoryOf(String key) {
+        return key.substring(0, key.lastIndexOf('/') + 1);
+    }
+
+    private static boolean isAbsolute(String uri) {
+        return uri.contains("://") || uri.startsWith("data:");
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;");
+    }
+
+    private static String unescapeXml(String value) {
+        return value.replace("&amp;", "&");
+    }
+
+    /**
+     * Một phần tử đang mở trong MPD và BaseURL hiệu lực bên trong nó
+     */
+    private static class DashLevel {
+
+        private String base;
+        private boolean baseUrlSeen;
+
+        DashLevel(String base) {
+            this.base = base;
+        }
+    }
+}
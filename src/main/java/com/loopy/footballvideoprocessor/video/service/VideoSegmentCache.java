@@ -0,0 +1,282 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * Cache trên đĩa của từng instance cho các đoạn byte video đọc từ R2. Object
+ * được chia thành các segment kích thước cố định, mỗi segment là một file được
+ * đọc bằng FileChannel theo vị trí vào buffer của request, nên dữ liệu nằm
+ * trong page cache của hệ điều hành thay vì heap. File chỉ được mở trong lúc
+ * chép, không giữ vùng map lâu dài, nên segment bị loại giải phóng đĩa ngay.
+ * <ul>
+ * <li>Tổng kích thước segment bị giới hạn bởi max-disk-size; segment ít được
+ * dùng bị loại trước và file của nó bị xóa</li>
+ * <li>Khóa segment gồm ETag của object nên object bị thay thế không bao giờ đọc
+ * phải segment cũ</li>
+ * <li>Các request cùng lúc trượt cache của một segment chờ chung một lần GET
+ * tới R2, thực hiện trên thread của request đầu tiên; request chờ quá
+ * load-timeout nhận lỗi thay vì giữ thread và permit stream mãi</li>
+ * </ul>
+ * Index chỉ nằm trong bộ nhớ nên thư mục cache được dọn khi khởi động.
+ */
+@Component
+@Slf4j
+public class VideoSegmentCache {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final R2StorageService r2StorageService;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration loadTimeout;
+    private final AsyncCache<SegmentKey, Segment> segments;
+
+    public VideoSegmentCache(R2StorageService r2StorageService, MeterRegistry meterRegistry,
+            @Value("${app.video.segment-cache.enabled:false}") boolean enabled,
+            @Value("${app.video.segment-cache.directory:${java.io.tmpdir}/football-video-segments}") Path directory,
+            @Value("${app.video.segment-cache.segment-size:4MB}") DataSize segmentSize,
+            @Value("${app.video.segment-cache.max-disk-size:10GB}") DataSize maxDiskSize,
+            @Value("${app.video.segment-cache.load-timeout:30s}") Duration loadTimeout) throws IOException {
+        this.r2StorageService = r2StorageService;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.loadTimeout = loadTimeout;
+        this.segments = Caffeine.newBuilder()
+                .maximumWeight(maxDiskSize.toBytes())
+                .<SegmentKey, Segment>weigher((key, segment) -> segment.getLength())
+                .removalListener((SegmentKey key, Segment segment, RemovalCause cause) -> delete(segment))
+                .recordStats()
+                .buildAsync();
+
+        if (enabled) {
+            prepareDirectory();
+            CaffeineCacheMetrics.monitor(meterRegistry, segments.synchronous(), "videoSegmentCache");
+            log.info("Cache segment video tại {}, segment {}, tối đa {}", directory, segmentSize, maxDiskSize);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ghi khoảng byte [start, end] của object ra output, đọc qua cache segment
+     * 
+     * @param key          Khóa object trong R2
+     * @param eTag         ETag hiện tại của object
+     * @param objectLength Kích thước object
+     * @param start        Byte đầu tiên
+     * @param end          Byte cuối cùng (bao gồm)
+     * @param out          Output của response
+     * @param buffer       Buffer dùng để chép từ file segment ra output
+     * @throws IOException Nếu không ghi được ra client
+     */
+    public void copy(String key, String eTag, long objectLength, long start, long end, OutputStream out,
+            byte[] buffer) throws IOException {
+        long position = start;
+        boolean reloaded = false;
+        while (position <= end) {
+            long index = position / segmentSize;
+            SegmentKey segmentKey = new SegmentKey(key, eTag, index);
+            Segment segment = getSegment(segmentKey, objectLength);
+
+            long segmentStart = index * segmentSize;
+            int offset = (int) (position - segmentStart);
+            int length = (int) (Math.min(end, segmentStart + segment.getLength() - 1) - position + 1);
+
+            try {
+                copySegment(segment, offset, length, out, buffer);
+            } catch (NoSuchFileException e) {
+                // Segment bị loại và xóa file ngay trước khi mở: tải lại một lần
+                if (reloaded) {
+                    throw new StorageException("Không đọc được segment " + index + " của file: " + key, e);
+                }
+                segments.synchronous().invalidate(segmentKey);
+                reloaded = true;
+                continue;
+            }
+            reloaded = false;
+            position += length;
+        }
+    }
+
+    /**
+     * Chép [offset, offset + length) của file segment ra output bằng các lần
+     * đọc theo vị trí. File bị xóa trong lúc đang mở vẫn đọc tiếp được; đĩa được
+     * giải phóng khi channel đóng ở cuối lần chép này.
+     */
+    private void copySegment(Segment segment, int offset, int length, OutputStream out, byte[] buffer)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.getFile(), StandardOpenOption.READ)) {
+            ByteBuffer target = ByteBuffer.wrap(buffer);
+            long filePosition = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                target.clear().limit((int) Math.min(buffer.length, remaining));
+                int read = channel.read(target, filePosition);
+                if (read == -1) {
+                    throw new StorageException("File segment ngắn hơn dự kiến: " + segment.getFile());
+                }
+                out.write(buffer, 0, read);
+                filePosition += read;
+                remaining -= read;
+            }
+        }
+    }
+
+    private Segment getSegment(SegmentKey segmentKey, long objectLength) {
+        CompletableFuture<Segment> loading = new CompletableFuture<>();
+        CompletableFuture<Segment> existing = segments.asMap().putIfAbsent(segmentKey, loading);
+        if (existing == null) {
+            // Request đầu tiên tự tải segment; request khác chờ trên cùng future.
+            // Future lỗi được Caffeine tự xóa khỏi cache
+            try {
+                loading.complete(load(segmentKey, objectLength));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+            }
+            existing = loading;
+        }
+
+        try {
+            return existing.get(loadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new StorageException("Không thể cache segment " + segmentKey.getIndex() + " của file: "
+                    + segmentKey.getObjectKey(), e.getCause());
+        } catch (TimeoutException e) {
+            // Lần tải vẫn tiếp tục trên thread của request đầu tiên, chỉ request này bỏ cuộc
+            throw new StorageException("Hết thời gian chờ tải segment " + segmentKey.getIndex() + " của file: "
+                    + segmentKey.getObjectKey(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Bị ngắt khi chờ tải segment " + segmentKey.getIndex() + " của file: "
+                    + segmentKey.getObjectKey(), e);
+        }
+    }
+
+    /**
+     * Tải segment từ R2 vào một file mới
+     */
+    private Segment load(SegmentKey segmentKey, long objectLength) {
+        long start = segmentKey.getIndex() * segmentSize;
+        long end = Math.min(objectLength, start + segmentSize) - 1;
+        int length = (int) (end - start + 1);
+        Path file = directory.resolve(UUID.randomUUID() + SEGMENT_SUFFIX);
+
+        try (ResponseInputStream<GetObjectResponse> in = r2StorageService.downloadFile(segmentKey.getObjectKey(),
+                start, end, segmentKey.getETag());
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            byte[] chunk = new byte[Math.min(length, 64 * 1024)];
+            int remaining = length;
+            int read;
+            while (remaining > 0 && (read = in.read(chunk, 0, Math.min(chunk.length, remaining))) != -1) {
+                ByteBuffer data = ByteBuffer.wrap(chunk, 0, read);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                remaining -= read;
+            }
+            if (remaining > 0) {
+                throw new IOException("R2 trả về thiếu " + remaining + " byte");
+            }
+
+            log.debug("Đã cache segment {} của {} ({} byte)", segmentKey.getIndex(), segmentKey.getObjectKey(),
+                    length);
+            return new Segment(file, length);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new StorageException("Không thể cache segment " + segmentKey.getIndex() + " của file: "
+                    + segmentKey.getObjectKey(), e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Xóa file của segment bị loại khỏi cache. Request đang chép segment vẫn đọc
+     * tiếp được qua channel đã mở; request mở file sau đó sẽ tải lại segment.
+     */
+    private void delete(Segment segment) {
+        if (segment != null) {
+            deleteQuietly(segment.getFile());
+        }
+    }
+
+    private void prepareDirectory() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(VideoSegmentCache::deleteQuietly);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Không xóa được file segment {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Khóa của segment: object, phiên bản (ETag) và thứ tự segment
+     */
+    @Data
+    private static class SegmentKey {
+        private final String objectKey;
+        private final String eTag;
+        private final long index;
+    }
+
+    /**
+     * Segment đã được ghi ra đĩa
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Segment {
+        private final Path file;
+        private final int length;
+    }
+}
@@ -1,10 +1,18 @@
 package com.loopy.footballvideoprocessor.video.service;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.loopy.footballvideoprocessor.common.dto.CursorPagedResponse;
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionRequest;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionResponse;
 import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.dto.VideoStreamUploadRequest;
 import com.loopy.footballvideoprocessor.video.dto.VideoUploadRequest;
 import com.loopy.footballvideoprocessor.video.dto.YoutubeVideoRequest;
 import com.loopy.footballvideoprocessor.video.model.VideoType;
@@ -30,6 +38,18 @@ public interface VideoService {
      */
     PagedResponse<VideoDto> getVideosByType(VideoType videoType, int page, int size);
 
+    /**
+     * Lấy danh sách video của người dùng hiện tại theo cursor, mới nhất trước
+     * 
+     * @param videoType    Loại video, null để lấy tất cả
+     * @param cursor       Cursor nhận từ trang trước, null cho trang đầu
+     * @param size         Kích thước trang
+     * @param includeTotal Có trả về tổng số video không
+     * @return Danh sách video
+     */
+    CursorPagedResponse<VideoDto> getVideosByCursor(VideoType videoType, String cursor, int size,
+            boolean includeTotal);
+
     /**
      * Lấy thông tin video
      * 
@@ -46,6 +66,51 @@ public interface VideoService {
      */
     VideoDto uploadVideo(VideoUploadRequest videoUploadRequest);
 
+    /**
+     * Tải lên video mới bằng cách stream trực tiếp body của request lên R2
+     * (multipart upload), không lưu tạm file trên đĩa
+     * 
+     * @param request     Thông tin video tải lên
+     * @param content     Nội dung video
+     * @param contentType Content type của video
+     * @return Thông tin video đã tải lên
+     */
+    VideoDto uploadVideoStream(VideoStreamUploadRequest request, InputStream content, String contentType);
+
+    /**
+     * Tạo phiên upload trực tiếp lên R2: khởi tạo multipart upload và trả về
+     * presigned URL cho từng part
+     * 
+     * @param uploadSessionRequest Thông tin video sẽ upload
+     * @return Thông tin phiên upload
+     */
+    UploadSessionResponse createUploadSession(UploadSessionRequest uploadSessionRequest);
+
+    /**
+     * Lấy trạng thái phiên upload để resume: các part đã upload xong và
+     * presigned URL mới cho các part còn thiếu
+     * 
+     * @param sessionId ID của phiên upload
+     * @return Thông tin phiên upload
+     */
+    UploadSessionResponse getUploadSession(UUID sessionId);
+
+    /**
+     * Hoàn tất phiên upload: ghép các part trên R2, tạo video và gửi message xử
+     * lý
+     * 
+     * @param sessionId ID của phiên upload
+     * @return Thông tin video đã tạo
+     */
+    VideoDto completeUploadSession(UUID sessionId);
+
+    /**
+     * Hủy phiên upload và xóa các part đã upload trên R2
+     * 
+     * @param sessionId ID của phiên upload
+     */
+    void abortUploadSession(UUID sessionId);
+
     /**
      * Thêm video YouTube
      * 
@@ -70,6 +135,23 @@ public interface VideoService {
      */
     void deleteVideo(UUID id);
 
+    /**
+     * Gửi lại video vào hàng đợi xử lý với độ ưu tiên cao
+     * 
+     * @param id ID của video
+     * @return Thông tin video
+     */
+    VideoDto reprocessVideo(UUID id);
+
+    /**
+     * Gửi lại nhiều video vào hàng đợi xử lý với độ ưu tiên cao, bỏ qua các
+     * video đang chờ hoặc đang được xử lý
+     * 
+     * @param ids Danh sách ID video
+     * @return Số video đã được gửi xử lý lại
+     */
+    int reprocessVideos(List<UUID> ids);
+
     /**
      * Lấy thông tin trạng thái xử lý gần nhất của video
      * 
@@ -77,4 +159,21 @@ public interface VideoService {
      * @return Thông tin trạng thái xử lý
      */
     Map<String, Object> getLatestProcessingStatus(UUID id);
+
+    /**
+     * Mở kết nối SSE nhận tiến độ xử lý của một video. Trạng thái hiện tại được
+     * gửi ngay khi kết nối, kết nối tự đóng khi video xử lý xong.
+     * 
+     * @param id ID của video
+     * @return SseEmitter của kết nối
+     */
+    SseEmitter subscribeProcessingEvents(UUID id);
+
+    /**
+     * Mở kết nối SSE nhận tiến độ xử lý của tất cả video thuộc người dùng hiện
+     * tại
+     * 
+     * @return SseEmitter của kết nối
+     */
+    SseEmitter subscribeAllProcessingEvents();
 }
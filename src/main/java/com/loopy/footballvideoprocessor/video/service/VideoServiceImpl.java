@@ -1,81 +1,157 @@
 package com.loopy.footballvideoprocessor.video.service;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.loopy.footballvideoprocessor.common.dto.CursorPagedResponse;
 import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
 import com.loopy.footballvideoprocessor.common.exception.ResourceNotFoundException;
+import com.loopy.footballvideoprocessor.config.CacheConfig;
+import com.loopy.footballvideoprocessor.config.CloudflareProperties;
+import com.loopy.footballvideoprocessor.dashboard.service.DashboardStatsService;
 import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
-import com.loopy.footballvideoprocessor.messaging.producer.VideoProcessingProducer;
+import com.loopy.footballvideoprocessor.messaging.service.OutboxService;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
 import com.loopy.footballvideoprocessor.user.model.User;
 import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.video.dto.ProcessingEvent;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionRequest;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionResponse;
+import com.loopy.footballvideoprocessor.video.dto.VideoCursor;
 import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.dto.VideoStreamUploadRequest;
 import com.loopy.footballvideoprocessor.video.dto.VideoUploadRequest;
 import com.loopy.footballvideoprocessor.video.dto.YoutubeVideoRequest;
 import com.loopy.footballvideoprocessor.video.mapper.VideoMapper;
+import com.loopy.footballvideoprocessor.video.model.UploadSession;
+import com.loopy.footballvideoprocessor.video.model.UploadSessionStatus;
 import com.loopy.footballvideoprocessor.video.model.Video;
-import com.loopy.footballvideoprocessor.video.model.VideoProcessingStatusEntity;
 import com.loopy.footballvideoprocessor.video.model.VideoStatus;
 import com.loopy.footballvideoprocessor.video.model.VideoType;
-import com.loopy.footballvideoprocessor.video.repository.VideoProcessingStatusRepository;
+import com.loopy.footballvideoprocessor.video.repository.UploadSessionRepository;
+import com.loopy.footballvideoprocessor.video.repository.VideoQueryRepository;
 import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.Part;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VideoServiceImpl implements VideoService {
 
+    // Số part tối đa của một multipart upload trên R2/S3
+    private static final long MAX_UPLOAD_PARTS = 10_000;
+
+    // Kích thước trang tối đa khi phân trang theo cursor
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final VideoRepository videoRepository;
     private final R2StorageService r2StorageService;
     private final VideoMapper videoMapper;
     private final UserRepository userRepository;
-    private final VideoProcessingProducer videoProcessingProducer;
-    private final VideoProcessingStatusRepository processingStatusRepository;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final CloudflareProperties cloudflareProperties;
+    private final DashboardStatsService dashboardStatsService;
+    private final VideoQueryRepository videoQueryRepository;
+    private final ProcessingEventBroadcaster processingEventBroadcaster;
+    private final VideoCacheSupport videoCacheSupport;
+
+    // Video tải lên không lớn hơn ngưỡng này (clip ngắn) được xử lý ưu tiên
+    @Value("${app.video.processing.high-priority-max-size:50MB}")
+    private DataSize highPriorityMaxSize;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.VIDEO_LIST_CACHE, key = "@videoCacheSupport.listKey('all', #page, #size)",
+            condition = "@videoCacheSupport.isCacheable()", sync = true)
     @Transactional(readOnly = true)
     public PagedResponse<VideoDto> getAllVideos(int page, int size) {
         log.debug("Lấy tất cả video, trang: {}, kích thước: {}", page, size);
 
         User currentUser = getCurrentUser();
-        Pageable pageable = PageRequest.of(page, size);
 
-        Page<Video> videos = videoRepository.findAllByUser(currentUser, pageable);
+        List<VideoDto> videos = videoQueryRepository.findByUser(currentUser.getId(), null,
+                VideoQueryRepository.pageOffset(page, size), size);
 
-        return createPagedResponse(videos);
+        return createPagedResponse(videos, page, size, videoRepository.countByUser(currentUser));
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.VIDEO_LIST_CACHE,
+            key = "@videoCacheSupport.listKey('type', #videoType, #page, #size)",
+            condition = "@videoCacheSupport.isCacheable()", sync = true)
     @Transactional(readOnly = true)
     public PagedResponse<VideoDto> getVideosByType(VideoType videoType, int page, int size) {
         log.debug("Lấy video theo loại: {}, trang: {}, kích thước: {}", videoType, page, size);
 
         User currentUser = getCurrentUser();
-        Pageable pageable = PageRequest.of(page, size);
 
-        Page<Video> videos = videoRepository.findAllByUserAndVideoType(currentUser, videoType, pageable);
+        List<VideoDto> videos = videoQueryRepository.findByUser(currentUser.getId(), videoType,
+                VideoQueryRepository.pageOffset(page, size), size);
+
+        return createPagedResponse(videos, page, size,
+                videoRepository.countByUserAndVideoType(currentUser, videoType));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.VIDEO_LIST_CACHE,
+            key = "@videoCacheSupport.listKey('cursor', #videoType, #cursor, #size, #includeTotal)",
+            condition = "@videoCacheSupport.isCacheable()", sync = true)
+    @Transactional(readOnly = true)
+    public CursorPagedResponse<VideoDto> getVideosByCursor(VideoType videoType, String cursor, int size,
+            boolean includeTotal) {
+        log.debug("Lấy video theo cursor, loại: {}, kích thước: {}", videoType, size);
+
+        if (size <= 0 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BadRequestException("Kích thước trang phải từ 1 đến " + MAX_CURSOR_PAGE_SIZE);
+        }
+
+        UUID currentUserId = getCurrentUserId();
+        VideoCursor position = VideoCursor.decode(cursor);
+
+        // Lấy thêm một video để biết còn trang sau hay không
+        List<VideoDto> videos = videoQueryRepository.findByUserAfter(currentUserId, videoType,
+                position.getCreatedAt(), position.getId(), size + 1);
+
+        boolean hasNext = videos.size() > size;
+        List<VideoDto> page = hasNext ? new ArrayList<>(videos.subList(0, size)) : videos;
 
-        return createPagedResponse(videos);
+        return CursorPagedResponse.<VideoDto>builder()
+                .content(page)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? VideoCursor.of(page.get(page.size() - 1)).encode() : null)
+                // Tổng số lấy từ bộ đếm dashboard_stats thay vì COUNT(*)
+                .totalElements(includeTotal ? dashboardStatsService.countVideos(currentUserId, videoType) : null)
+                .build();
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.VIDEO_CACHE, key = "@videoCacheSupport.videoKey(#id)",
+            condition = "@videoCacheSupport.isVideoCacheable()", sync = true)
     @Transactional(readOnly = true)
     public VideoDto getVideo(UUID id) {
         log.debug("Lấy thông tin video với id: {}", id);
@@ -94,27 +170,178 @@ public class VideoServiceImpl implements VideoService {
         User currentUser = getCurrentUser();
         String videoKey = r2StorageService.uploadVideo(videoUploadRequest.getFile(), currentUser.getId());
 
-        Video video = new Video();
-        video.setUser(currentUser);
-        video.setTitle(videoUploadRequest.getTitle());
-        video.setDescription(videoUploadRequest.getDescription());
-        video.setVideoType(VideoType.UPLOADED);
-        video.setFilePath(videoKey);
-        video.setFileSize(videoUploadRequest.getFile().getSize());
-        video.setIsDownloadable(videoUploadRequest.getIsDownloadable());
-        video.setStatus(VideoStatus.PENDING);
+        Video savedVideo = createUploadedVideo(currentUser, videoUploadRequest.getTitle(),
+                videoUploadRequest.getDescription(), videoKey, videoUploadRequest.getFile().getSize(),
+                videoUploadRequest.getIsDownloadable());
 
-        Video savedVideo = videoRepository.save(video);
+        return videoMapper.toDto(savedVideo);
+    }
 
-        // Đăng ký gửi message sau khi transaction commit
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                sendVideoProcessingMessage(savedVideo, videoKey);
+    @Override
+    public VideoDto uploadVideoStream(VideoStreamUploadRequest request, InputStream content, String contentType) {
+        log.debug("Tải lên video mới dạng streaming: {}", request.getTitle());
+
+        User currentUser = getCurrentUser();
+
+        // Upload lên R2 nằm ngoài transaction để không giữ kết nối DB trong suốt quá
+        // trình upload file lớn
+        R2StorageService.UploadedObject uploaded = r2StorageService.uploadVideoStream(content, contentType,
+                request.getFileName(), currentUser.getId());
+
+        // DTO được tạo trong transaction vì người dùng là proxy lazy; sau commit không
+        // còn bước nào có thể lỗi nên file chỉ bị xóa khi video chưa được lưu
+        VideoDto video;
+        try {
+            video = transactionTemplate.execute(status -> videoMapper.toDto(createUploadedVideo(currentUser,
+                    request.getTitle(), request.getDescription(), uploaded.getKey(), uploaded.getSize(),
+                    request.getIsDownloadable())));
+        } catch (RuntimeException e) {
+            // Không lưu được video thì xóa file đã upload để tránh file mồ côi trên R2
+            log.error("Không thể lưu video sau khi upload, xóa file trên R2: {}", uploaded.getKey());
+            r2StorageService.deleteFile(uploaded.getKey());
+            throw e;
+        }
+        return video;
+    }
+
+    @Override
+    @Transactional
+    public UploadSessionResponse createUploadSession(UploadSessionRequest uploadSessionRequest) {
+        log.debug("Tạo phiên upload trực tiếp: {}", uploadSessionRequest.getTitle());
+
+        User currentUser = getCurrentUser();
+        CloudflareProperties.Multipart multipart = cloudflareProperties.getR2().getMultipart();
+
+        long fileSize = uploadSessionRequest.getFileSize();
+        if (fileSize > multipart.getMaxObjectSize().toBytes()) {
+            throw new BadRequestException("Kích thước file vượt quá giới hạn cho phép");
+        }
+
+        // R2 giới hạn 10000 part cho mỗi upload, tăng kích thước part nếu file quá lớn
+        long partSize = Math.max(multipart.getPartSize().toBytes(),
+                (fileSize + MAX_UPLOAD_PARTS - 1) / MAX_UPLOAD_PARTS);
+        int partCount = (int) ((fileSize + partSize - 1) / partSize);
+
+        String objectKey = r2StorageService.generateVideoKey(uploadSessionRequest.getFileName(), currentUser.getId());
+        String uploadId = r2StorageService.createMultipartUpload(objectKey, uploadSessionRequest.getContentType(),
+                Map.of("original-name", uploadSessionRequest.getFileName(),
+                        "user-id", currentUser.getId().toString()));
+
+        UploadSession session = new UploadSession();
+        session.setUser(currentUser);
+        session.setUploadId(uploadId);
+        session.setObjectKey(objectKey);
+        session.setTitle(uploadSessionRequest.getTitle());
+        session.setDescription(uploadSessionRequest.getDescription());
+        session.setFileName(uploadSessionRequest.getFileName());
+        session.setContentType(uploadSessionRequest.getContentType());
+        session.setFileSize(fileSize);
+        session.setPartSize(partSize);
+        session.setPartCount(partCount);
+        session.setIsDownloadable(uploadSessionRequest.getIsDownloadable());
+        session.setStatus(UploadSessionStatus.IN_PROGRESS);
+        session.setExpiresAt(LocalDateTime.now().plus(multipart.getSessionExpiration()));
+
+        UploadSession savedSession = uploadSessionRepository.save(session);
+
+        return createUploadSessionResponse(savedSession, List.of());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UploadSessionResponse getUploadSession(UUID sessionId) {
+        log.debug("Lấy thông tin phiên upload: {}", sessionId);
+
+        UploadSession session = getUploadSessionOrThrow(sessionId);
+        if (session.getStatus() != UploadSessionStatus.IN_PROGRESS) {
+            return createUploadSessionResponse(session, List.of());
+        }
+
+        List<Part> uploadedParts = r2StorageService.listParts(session.getObjectKey(), session.getUploadId());
+        return createUploadSessionResponse(session, uploadedParts);
+    }
+
+    @Override
+    public VideoDto completeUploadSession(UUID sessionId) {
+        log.debug("Hoàn tất phiên upload: {}", sessionId);
+
+        User currentUser = getCurrentUser();
+        UploadSession session = getUploadSessionOrThrow(sessionId);
+        checkUploadSessionInProgress(session);
+
+        // Nhận phiên trước khi làm gì trên R2 để hai request hoàn tất đồng thời
+        // không cùng tạo video cho một object
+        claimUploadSession(session);
+        try {
+            return completeClaimedUploadSession(currentUser, session);
+        } catch (RuntimeException e) {
+            // Phiên chưa bị từ chối thì trả lại IN_PROGRESS để client có thể thử lại
+            if (session.getStatus() == UploadSessionStatus.COMPLETING) {
+                transactionTemplate.executeWithoutResult(status -> uploadSessionRepository.updateStatus(
+                        session.getId(), UploadSessionStatus.COMPLETING, UploadSessionStatus.IN_PROGRESS));
+                session.setStatus(UploadSessionStatus.IN_PROGRESS);
             }
+            throw e;
+        }
+    }
+
+    private VideoDto completeClaimedUploadSession(User currentUser, UploadSession session) {
+        // Lấy danh sách part từ R2 thay vì tin vào ETag do client gửi lên
+        List<Part> uploadedParts = r2StorageService.listParts(session.getObjectKey(), session.getUploadId());
+        if (uploadedParts.size() < session.getPartCount()) {
+            throw new BadRequestException(String.format("Chưa upload đủ các part: %d/%d",
+                    uploadedParts.size(), session.getPartCount()));
+        }
+
+        // Kích thước thực tế phải khớp với kích thước đã khai báo khi tạo phiên,
+        // nếu không client có thể khai báo file nhỏ rồi upload file lớn hơn nhiều
+        String invalidParts = validateUploadedParts(session, uploadedParts);
+        if (invalidParts != null) {
+            rejectUploadSession(session, false);
+            throw new BadRequestException(invalidParts);
+        }
+
+        List<CompletedPart> completedParts = uploadedParts.stream()
+                .map(part -> CompletedPart.builder()
+                        .partNumber(part.partNumber())
+                        .eTag(part.eTag())
+                        .build())
+                .toList();
+        r2StorageService.completeMultipartUpload(session.getObjectKey(), session.getUploadId(), completedParts);
+        long fileSize = r2StorageService.getObjectSize(session.getObjectKey());
+        if (fileSize != session.getFileSize()
+                || fileSize > cloudflareProperties.getR2().getMultipart().getMaxObjectSize().toBytes()) {
+            rejectUploadSession(session, true);
+            throw new BadRequestException(String.format("Kích thước file không khớp: %d/%d byte",
+                    fileSize, session.getFileSize()));
+        }
+
+        // DTO được tạo trong transaction vì người dùng là proxy lazy
+        return transactionTemplate.execute(status -> {
+            Video video = createUploadedVideo(currentUser, session.getTitle(), session.getDescription(),
+                    session.getObjectKey(), fileSize, session.getIsDownloadable());
+
+            session.setStatus(UploadSessionStatus.COMPLETED);
+            session.setVideoId(video.getId());
+            uploadSessionRepository.save(session);
+            return videoMapper.toDto(video);
         });
+    }
 
-        return videoMapper.toDto(savedVideo);
+    @Override
+    @Transactional
+    public void abortUploadSession(UUID sessionId) {
+        log.debug("Hủy phiên upload: {}", sessionId);
+
+        UploadSession session = getUploadSessionOrThrow(sessionId);
+        checkUploadSessionInProgress(session);
+
+        // Không hủy phiên mà một request khác đang hoàn tất
+        if (uploadSessionRepository.updateStatus(session.getId(), UploadSessionStatus.IN_PROGRESS,
+                UploadSessionStatus.ABORTED) != 1) {
+            throw new BadRequestException("Phiên upload đang được hoàn tất hoặc đã kết thúc");
+        }
+        r2StorageService.abortMultipartUpload(session.getObjectKey(), session.getUploadId());
     }
 
     @Override
@@ -135,14 +362,12 @@ public class VideoServiceImpl implements VideoService {
         video.setIsDownloadable(youtubeVideoRequest.getIsDownloadable());
 
         Video savedVideo = videoRepository.save(video);
+        dashboardStatsService.onVideoCreated(savedVideo);
+        videoCacheSupport.evictVideoLists(currentUser.getId());
 
-        // Đăng ký gửi message sau khi transaction commit
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                sendYoutubeVideoProcessingMessage(savedVideo);
-            }
-        });
+        // Message được ghi vào outbox cùng transaction, relay sẽ gửi sau khi commit
+        // Chưa biết độ dài video YouTube nên không được ưu tiên
+        sendYoutubeVideoProcessingMessage(savedVideo, false);
 
         return videoMapper.toDto(savedVideo);
     }
@@ -160,6 +385,7 @@ public class VideoServiceImpl implements VideoService {
 
         // Lưu thông tin video vào cơ sở dữ liệu
         Video updatedVideo = videoRepository.save(video);
+        videoCacheSupport.evictVideo(video.getUser().getId(), video.getId());
 
         return videoMapper.toDto(updatedVideo);
     }
@@ -187,7 +413,55 @@ public class VideoServiceImpl implements VideoService {
             r2StorageService.deleteFile(video.getThumbnailPath());
         }
 
+        // Xóa manifest và segment HLS/DASH nếu video đã được gửi đi đóng gói
+        if (video.getPackagingStatus() != null) {
+            UUID ownerId = video.getUser().getId();
+            r2StorageService.deleteFile(VideoManifestService.hlsManifestPath(ownerId, video.getId()));
+            r2StorageService.deleteFile(VideoManifestService.dashManifestPath(ownerId, video.getId()));
+            r2StorageService.deleteByPrefix(VideoManifestService.segmentPrefix(ownerId, video.getId()));
+        }
+
         videoRepository.delete(video);
+        dashboardStatsService.onVideoDeleted(video);
+        videoCacheSupport.evictVideo(video.getUser().getId(), video.getId());
+    }
+
+    @Override
+    @Transactional
+    public VideoDto reprocessVideo(UUID id) {
+        log.debug("Xử lý lại video với id: {}", id);
+
+        Video video = getVideoOrThrow(id);
+        checkVideoOwnership(video);
+
+        if (isInProcessing(video)) {
+            throw new BadRequestException("Video đang chờ hoặc đang được xử lý");
+        }
+
+        Video savedVideo = markForReprocess(video);
+        return videoMapper.toDto(savedVideo);
+    }
+
+    @Override
+    @Transactional
+    public int reprocessVideos(List<UUID> ids) {
+        log.debug("Xử lý lại {} video", ids.size());
+
+        List<Video> videos = videoRepository.findAllById(ids);
+        int reprocessed = 0;
+        for (Video video : videos) {
+            checkVideoOwnership(video);
+            // Bỏ qua video đang chờ hoặc đang xử lý thay vì làm hỏng cả lô
+            if (isInProcessing(video)) {
+                continue;
+            }
+            markForReprocess(video);
+            reprocessed++;
+        }
+
+        // Các message nằm chung một lô trong outbox và được relay gửi theo lô
+        log.info("Đã gửi yêu cầu xử lý lại {}/{} video", reprocessed, ids.size());
+        return reprocessed;
     }
 
     @Override
@@ -199,30 +473,82 @@ public class VideoServiceImpl implements VideoService {
         Video video = getVideoOrThrow(id);
         checkVideoOwnership(video);
 
-        // Tạo map chứa thông tin cơ bản của video
+        // Tiến độ mới nhất được lưu sẵn trên video, không cần đọc lịch sử trạng thái
         Map<String, Object> result = new HashMap<>();
         result.put("videoId", video.getId());
         result.put("status", video.getStatus());
-        result.put("progress", 0); // Mặc định là 0
-        result.put("message", getStatusMessage(video.getStatus()));
-
-        // Tìm thông tin trạng thái xử lý gần nhất
-        Optional<VideoProcessingStatusEntity> latestStatus = processingStatusRepository
-                .findFirstByVideoOrderByCreatedAtDesc(video);
-
-        // Nếu có thông tin trạng thái mới nhất, cập nhật vào result
-        if (latestStatus.isPresent()) {
-            VideoProcessingStatusEntity status = latestStatus.get();
-            result.put("status", status.getStatus());
-            result.put("progress", status.getProgress() != null ? status.getProgress() : 0);
-            result.put("message",
-                    status.getMessage() != null ? status.getMessage() : getStatusMessage(status.getStatus()));
-            result.put("updatedAt", status.getUpdatedAt());
+        result.put("progress", video.getProgress() != null ? video.getProgress() : 0);
+        result.put("message",
+                video.getStatusMessage() != null ? video.getStatusMessage() : getStatusMessage(video.getStatus()));
+        if (video.getStatusUpdatedAt() != null) {
+            result.put("updatedAt", video.getStatusUpdatedAt());
         }
 
         return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeProcessingEvents(UUID id) {
+        log.debug("Mở kết nối nhận tiến độ xử lý của video: {}", id);
+
+        Video video = getVideoOrThrow(id);
+        checkVideoOwnership(video);
+
+        // Trạng thái được đọc lại sau khi kết nối đã đăng ký nhận sự kiện
+        return processingEventBroadcaster.subscribeVideo(video.getId(), () -> {
+            ProcessingEvent snapshot = videoRepository.findProcessingSnapshot(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Video", "id", id));
+            if (snapshot.getMessage() == null) {
+                snapshot.setMessage(getStatusMessage(snapshot.getStatus()));
+            }
+            return snapshot;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeAllProcessingEvents() {
+        UUID currentUserId = getCurrentUserId();
+        log.debug("Mở kết nối nhận tiến độ xử lý của người dùng: {}", currentUserId);
+
+        return processingEventBroadcaster.subscribeUser(currentUserId);
+    }
+
+    /**
+     * Tạo bản ghi video đã tải lên R2 và ghi message xử lý vào outbox trong cùng
+     * transaction. Phải được gọi trong một transaction đang hoạt động.
+     * 
+     * @param user           Chủ sở hữu video
+     * @param title          Tiêu đề
+     * @param description    Mô tả
+     * @param videoKey       Khóa của video trên R2
+     * @param fileSize       Kích thước file
+     * @param isDownloadable Có cho phép tải xuống không
+     * @return Video đã lưu
+     */
+    private Video createUploadedVideo(User user, String title, String description, String videoKey, long fileSize,
+            Boolean isDownloadable) {
+        Video video = new Video();
+        video.setUser(user);
+        video.setTitle(title);
+        video.setDescription(description);
+        video.setVideoType(VideoType.UPLOADED);
+        video.setFilePath(videoKey);
+        video.setFileSize(fileSize);
+        video.setIsDownloadable(isDownloadable);
+        video.setStatus(VideoStatus.PENDING);
+
+        Video savedVideo = videoRepository.save(video);
+        dashboardStatsService.onVideoCreated(savedVideo);
+        videoCacheSupport.evictVideoLists(user.getId());
+
+        // Message được ghi vào outbox cùng transaction, relay sẽ gửi sau khi commit
+        sendVideoProcessingMessage(savedVideo, videoKey, isShortClip(fileSize));
+
+        return savedVideo;
+    }
+
     /**
      * Trả về message tương ứng với trạng thái video
      */
@@ -237,11 +563,19 @@ public class VideoServiceImpl implements VideoService {
     }
 
     /**
-     * Lấy thông tin người dùng hiện tại
+     * Lấy người dùng hiện tại. Với principal mang ID, chỉ trả về tham chiếu tới
+     * User mà không truy vấn bảng users; dữ liệu chỉ được tải khi thực sự đọc
+     * tới thuộc tính khác ID.
      * 
      * @return User
      */
     private User getCurrentUser() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        if (principal != null && principal.getId() != null) {
+            return userRepository.getReferenceById(principal.getId());
+        }
+
+        // Token cũ không có claim uid
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
@@ -249,6 +583,19 @@ public class VideoServiceImpl implements VideoService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
     }
 
+    /**
+     * Lấy ID người dùng hiện tại từ principal
+     * 
+     * @return ID người dùng
+     */
+    private UUID getCurrentUserId() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        if (principal != null && principal.getId() != null) {
+            return principal.getId();
+        }
+        return getCurrentUser().getId();
+    }
+
     /**
      * Kiểm tra người dùng hiện tại có sở hữu video không
      * 
@@ -256,23 +603,197 @@ public class VideoServiceImpl implements VideoService {
      * @throws AccessDeniedException nếu không có quyền
      */
     private void checkVideoOwnership(Video video) {
-        User currentUser = getCurrentUser();
-
-        // Kiểm tra xem người dùng hiện tại có quyền ADMIN không
-        boolean isAdmin = currentUser.getRoles().stream()
-                .anyMatch(role -> "ROLE_ADMIN".equals(role.getName()));
-
         // Nếu là admin thì cho phép truy cập tất cả video
-        if (isAdmin) {
+        if (isAdmin()) {
             return;
         }
 
         // Nếu không phải admin thì chỉ có thể truy cập video của chính mình
-        if (!video.getUser().getId().equals(currentUser.getId())) {
+        if (!video.getUser().getId().equals(getCurrentUserId())) {
             throw new AccessDeniedException("Bạn không có quyền truy cập video này");
         }
     }
 
+    private boolean isInProcessing(Video video) {
+        return video.getStatus() == VideoStatus.PENDING || video.getStatus() == VideoStatus.PROCESSING;
+    }
+
+    /**
+     * Đưa video về trạng thái chờ và ghi message xử lý lại với độ ưu tiên cao
+     * vào outbox
+     */
+    private Video markForReprocess(Video video) {
+        VideoStatus oldStatus = video.getStatus();
+        video.setStatus(VideoStatus.PENDING);
+        video.setProgress(0);
+        video.setStatusMessage(null);
+        video.setStatusUpdatedAt(LocalDateTime.now());
+        Video savedVideo = videoRepository.save(video);
+        dashboardStatsService.onVideoStatusChanged(savedVideo, oldStatus, VideoStatus.PENDING);
+        videoCacheSupport.evictVideo(savedVideo.getUser().getId(), savedVideo.getId());
+
+        // Yêu cầu xử lý lại do admin gửi được ưu tiên, của chủ video thì theo kích thước như khi upload
+        boolean highPriority = isAdmin();
+        if (savedVideo.getVideoType() == VideoType.YOUTUBE) {
+            sendYoutubeVideoProcessingMessage(savedVideo, highPriority);
+        } else {
+            sendVideoProcessingMessage(savedVideo, savedVideo.getFilePath(),
+                    highPriority || (savedVideo.getFileSize() != null && isShortClip(savedVideo.getFileSize())));
+        }
+        return savedVideo;
+    }
+
+    /**
+     * Clip ngắn (không lớn hơn high-priority-max-size) được xử lý trước các
+     * video dài
+     */
+    private boolean isShortClip(long fileSize) {
+        return fileSize <= highPriorityMaxSize.toBytes();
+    }
+
+    private boolean isAdmin() {
+        AuthenticatedUser principal = AuthenticatedUser.current();
+        return principal != null && principal.isAdmin();
+    }
+
+    /**
+     * Lấy phiên upload theo ID và kiểm tra người dùng hiện tại là chủ sở hữu
+     * 
+     * @param sessionId ID của phiên upload
+     * @return UploadSession
+     */
+    private UploadSession getUploadSessionOrThrow(UUID sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("UploadSession", "id", sessionId.toString()));
+
+        if (!session.getUser().getId().equals(getCurrentUserId())) {
+            throw new AccessDeniedException("Bạn không có quyền truy cập phiên upload này");
+        }
+        return session;
+    }
+
+    /**
+     * Kiểm tra phiên upload vẫn đang diễn ra và chưa hết hạn
+     */
+    private void checkUploadSessionInProgress(UploadSession session) {
+        if (session.getStatus() != UploadSessionStatus.IN_PROGRESS) {
+            throw new BadRequestException("Phiên upload đã kết thúc");
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadRequestException("Phiên upload đã hết hạn");
+        }
+    }
+
+    /**
+     * Chuyển phiên từ IN_PROGRESS sang COMPLETING bằng một UPDATE có điều kiện,
+     * chỉ một request hoàn tất đồng thời được tiếp tục
+     */
+    private void claimUploadSession(UploadSession session) {
+        Integer claimed = transactionTemplate.execute(status -> uploadSessionRepository.updateStatus(
+                session.getId(), UploadSessionStatus.IN_PROGRESS, UploadSessionStatus.COMPLETING));
+        if (claimed == null || claimed != 1) {
+            throw new BadRequestException("Phiên upload đang được hoàn tất hoặc đã kết thúc");
+        }
+        session.setStatus(UploadSessionStatus.COMPLETING);
+    }
+
+    /**
+     * Kiểm tra các part đã upload khớp với phiên: đúng số part, đánh số liên tục
+     * từ 1, mọi part trừ part cuối có đúng partSize và tổng kích thước bằng
+     * fileSize đã khai báo
+     * 
+     * @return Lý do không hợp lệ, hoặc null nếu hợp lệ
+     */
+    private String validateUploadedParts(UploadSession session, List<Part> uploadedParts) {
+        int partCount = session.getPartCount();
+        if (uploadedParts.size() != partCount) {
+            return String.format("Số part không khớp: %d/%d", uploadedParts.size(), partCount);
+        }
+
+        long lastPartSize = session.getFileSize() - session.getPartSize() * (partCount - 1);
+        for (int i = 0; i < partCount; i++) {
+            Part part = uploadedParts.get(i);
+            long expectedSize = i == partCount - 1 ? lastPartSize : session.getPartSize();
+            if (part.partNumber() != i + 1) {
+                return "Thiếu part " + (i + 1);
+            }
+            if (part.size() == null || part.size() != expectedSize) {
+                return String.format("Kích thước part %d không khớp: %s/%d byte", part.partNumber(), part.size(),
+                        expectedSize);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hủy phiên upload không hợp lệ: bỏ multipart upload (hoặc xóa object nếu
+     * đã hoàn tất trên R2) và đánh dấu phiên là ABORTED
+     * 
+     * @param session   Phiên upload
+     * @param completed Multipart upload đã được hoàn tất trên R2 hay chưa
+     */
+    private void rejectUploadSession(UploadSession session, boolean completed) {
+        log.warn("Từ chối phiên upload {} vì kích thước không khớp với khai báo", session.getId());
+        if (completed) {
+            r2StorageService.deleteFile(session.getObjectKey());
+        } else {
+            r2StorageService.abortMultipartUpload(session.getObjectKey(), session.getUploadId());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            session.setStatus(UploadSessionStatus.ABORTED);
+            uploadSessionRepository.save(session);
+        });
+    }
+
+    /**
+     * Tạo UploadSessionResponse, kèm presigned URL cho các part chưa upload
+     * 
+     * @param session       Phiên upload
+     * @param uploadedParts Các part đã có trên R2
+     * @return UploadSessionResponse
+     */
+    private UploadSessionResponse createUploadSessionResponse(UploadSession session, List<Part> uploadedParts) {
+        Set<Integer> uploadedPartNumbers = uploadedParts.stream()
+                .map(Part::partNumber)
+                .collect(Collectors.toSet());
+
+        // Chỉ ký một lô part còn thiếu mỗi lần, client lấy lại phiên để nhận lô tiếp theo
+        CloudflareProperties.Multipart multipart = cloudflareProperties.getR2().getMultipart();
+        List<UploadSessionResponse.PresignedPart> partUrls = new ArrayList<>();
+        if (session.getStatus() == UploadSessionStatus.IN_PROGRESS) {
+            for (int partNumber = 1; partNumber <= session.getPartCount()
+                    && partUrls.size() < multipart.getPresignedPartBatchSize(); partNumber++) {
+                if (!uploadedPartNumbers.contains(partNumber)) {
+                    partUrls.add(UploadSessionResponse.PresignedPart.builder()
+                            .partNumber(partNumber)
+                            .url(r2StorageService.generatePresignedUploadPartUrl(session.getObjectKey(),
+                                    session.getUploadId(), partNumber, multipart.getPresignedPartExpiration()))
+                            .build());
+                }
+            }
+        }
+
+        return UploadSessionResponse.builder()
+                .sessionId(session.getId())
+                .objectKey(session.getObjectKey())
+                .status(session.getStatus())
+                .fileSize(session.getFileSize())
+                .partSize(session.getPartSize())
+                .partCount(session.getPartCount())
+                .expiresAt(session.getExpiresAt())
+                .completedParts(uploadedParts.stream()
+                        .map(part -> UploadSessionResponse.UploadedPart.builder()
+                                .partNumber(part.partNumber())
+                                .eTag(part.eTag())
+                                .size(part.size())
+                                .build())
+                        .toList())
+                .partUrls(partUrls)
+                .videoId(session.getVideoId())
+                .build();
+    }
+
     /**
      * Lấy thông tin video theo ID
      * 
@@ -285,28 +806,34 @@ public class VideoServiceImpl implements VideoService {
     }
 
     /**
-     * Tạo PagedResponse từ Page<Video>
+     * Tạo PagedResponse từ một trang VideoDto
      * 
-     * @param videos Page<Video>
+     * @param videos        Video của trang
+     * @param page          Số trang
+     * @param size          Kích thước trang
+     * @param totalElements Tổng số video
      * @return PagedResponse<VideoDto>
      */
-    private PagedResponse<VideoDto> createPagedResponse(Page<Video> videos) {
+    private PagedResponse<VideoDto> createPagedResponse(List<VideoDto> videos, int page, int size,
+            long totalElements) {
+        int totalPages = size > 0 ? (int) Math.ceil((double) totalElements / size) : 0;
         return new PagedResponse<>(
-                videos.getContent().stream().map(videoMapper::toDto).toList(),
-                videos.getNumber(),
-                videos.getSize(),
-                videos.getTotalElements(),
-                videos.getTotalPages(),
-                videos.isLast());
+                videos,
+                page,
+                size,
+                totalElements,
+                totalPages,
+                page + 1 >= totalPages);
     }
 
     /**
-     * Gửi thông báo xử lý video đến RabbitMQ
+     * Ghi thông báo xử lý video vào outbox để gửi đến RabbitMQ
      * 
-     * @param video    Video cần xử lý
-     * @param videoKey Khóa của video trên R2
+     * @param video        Video cần xử lý
+     * @param videoKey     Khóa của video trên R2
+     * @param highPriority Có xử lý ưu tiên không
      */
-    private void sendVideoProcessingMessage(Video video, String videoKey) {
+    private void sendVideoProcessingMessage(Video video, String videoKey, boolean highPriority) {
         VideoProcessingMessage message = VideoProcessingMessage.builder()
                 .videoId(video.getId())
                 .userId(video.getUser().getId())
@@ -316,17 +843,19 @@ public class VideoServiceImpl implements VideoService {
                 .status(VideoStatus.PENDING)
                 .progress(0)
                 .timestamp(LocalDateTime.now())
+                .highPriority(highPriority)
                 .build();
 
-        videoProcessingProducer.sendVideoProcessingMessage(message);
+        outboxService.enqueue(message);
     }
 
     /**
-     * Gửi thông báo xử lý video YouTube đến RabbitMQ
+     * Ghi thông báo xử lý video YouTube vào outbox để gửi đến RabbitMQ
      * 
-     * @param video Video YouTube cần xử lý
+     * @param video        Video YouTube cần xử lý
+     * @param highPriority Có xử lý ưu tiên không
      */
-    private void sendYoutubeVideoProcessingMessage(Video video) {
+    private void sendYoutubeVideoProcessingMessage(Video video, boolean highPriority) {
         VideoProcessingMessage message = VideoProcessingMessage.builder()
                 .videoId(video.getId())
                 .userId(video.getUser().getId())
@@ -336,9 +865,10 @@ public class VideoServiceImpl implements VideoService {
                 .status(VideoStatus.PENDING)
                 .progress(0)
                 .timestamp(LocalDateTime.now())
+                .highPriority(highPriority)
                 .build();
 
-        videoProcessingProducer.sendVideoProcessingMessage(message);
+        outboxService.enqueue(message);
     }
 
     /**
@@ -0,0 +1,6 @@
+-- Kết quả đóng gói HLS/DASH của video đã xử lý. Manifest nằm cạnh file MP4 trong R2,
+-- segment nằm trong thư mục cùng tên với video.
+ALTER TABLE videos
+  ADD COLUMN packaging_status VARCHAR(20),
+  ADD COLUMN hls_manifest_path VARCHAR(255),
+  ADD COLUMN dash_manifest_path VARCHAR(255);
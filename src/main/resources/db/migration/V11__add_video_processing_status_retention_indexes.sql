@@ -0,0 +1,4 @@
+-- Chỉ mục cho tác vụ dọn lịch sử trạng thái: gộp dòng tiến độ (status = 'PROCESSING' AND created_at < ?)
+-- và xóa lịch sử quá hạn (created_at < ?) mà không quét toàn bảng
+CREATE INDEX idx_video_processing_status_status_created_at ON video_processing_status(status, created_at);
+CREATE INDEX idx_video_processing_status_created_at ON video_processing_status(created_at);
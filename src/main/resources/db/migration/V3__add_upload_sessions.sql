@@ -0,0 +1,26 @@
+-- Tạo bảng upload_sessions để lưu các phiên upload trực tiếp từ client lên R2 (presigned multipart)
+CREATE TABLE IF NOT EXISTS upload_sessions (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  user_id UUID NOT NULL,
+  upload_id VARCHAR(1024) NOT NULL,
+  object_key VARCHAR(255) NOT NULL,
+  title VARCHAR(255) NOT NULL,
+  description TEXT,
+  file_name VARCHAR(255),
+  content_type VARCHAR(100),
+  file_size BIGINT NOT NULL,
+  part_size BIGINT NOT NULL,
+  part_count INTEGER NOT NULL,
+  is_downloadable BOOLEAN NOT NULL DEFAULT TRUE,
+  status VARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS',
+  video_id UUID,
+  expires_at TIMESTAMP NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+  FOREIGN KEY (video_id) REFERENCES videos(id) ON DELETE SET NULL
+);
+
+-- Tạo các chỉ mục cho upload_sessions
+CREATE INDEX idx_upload_sessions_user_id ON upload_sessions(user_id);
+CREATE INDEX idx_upload_sessions_status_expires_at ON upload_sessions(status, expires_at);
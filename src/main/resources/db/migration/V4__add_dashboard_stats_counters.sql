@@ -0,0 +1,46 @@
+-- Bổ sung bộ đếm theo trạng thái cho dashboard_stats.
+-- Mỗi người dùng có một dòng riêng, dòng có user_id NULL chứa bộ đếm toàn hệ thống.
+ALTER TABLE dashboard_stats ALTER COLUMN user_id DROP NOT NULL;
+ALTER TABLE dashboard_stats ADD COLUMN pending_videos INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE dashboard_stats ADD COLUMN processing_videos INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE dashboard_stats ADD COLUMN completed_videos INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE dashboard_stats ADD COLUMN error_videos INTEGER NOT NULL DEFAULT 0;
+
+-- Bảng chưa từng được ghi, khởi tạo lại từ dữ liệu hiện có
+DELETE FROM dashboard_stats;
+
+DROP INDEX IF EXISTS idx_dashboard_stats_user_id;
+CREATE UNIQUE INDEX uq_dashboard_stats_user_id ON dashboard_stats(user_id);
+CREATE UNIQUE INDEX uq_dashboard_stats_global ON dashboard_stats((user_id IS NULL)) WHERE user_id IS NULL;
+
+-- Chỉ mục cho truy vấn số video xử lý xong gần đây
+CREATE INDEX idx_videos_status_updated_at ON videos(status, updated_at);
+
+INSERT INTO dashboard_stats (user_id, total_videos, total_uploaded_videos, total_youtube_videos, total_storage_used,
+  pending_videos, processing_videos, completed_videos, error_videos, last_updated)
+SELECT u.id,
+       COUNT(v.id),
+       COUNT(v.id) FILTER (WHERE v.video_type = 'UPLOADED'),
+       COUNT(v.id) FILTER (WHERE v.video_type = 'YOUTUBE'),
+       COALESCE(SUM(v.file_size), 0),
+       COUNT(v.id) FILTER (WHERE v.status = 'PENDING'),
+       COUNT(v.id) FILTER (WHERE v.status = 'PROCESSING'),
+       COUNT(v.id) FILTER (WHERE v.status = 'COMPLETED'),
+       COUNT(v.id) FILTER (WHERE v.status = 'ERROR'),
+       CURRENT_TIMESTAMP
+FROM users u LEFT JOIN videos v ON v.user_id = u.id
+GROUP BY u.id;
+
+INSERT INTO dashboard_stats (user_id, total_videos, total_uploaded_videos, total_youtube_videos, total_storage_used,
+  pending_videos, processing_videos, completed_videos, error_videos, last_updated)
+SELECT NULL,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE video_type = 'UPLOADED'),
+       COUNT(*) FILTER (WHERE video_type = 'YOUTUBE'),
+       COALESCE(SUM(file_size), 0),
+       COUNT(*) FILTER (WHERE status = 'PENDING'),
+       COUNT(*) FILTER (WHERE status = 'PROCESSING'),
+       COUNT(*) FILTER (WHERE status = 'COMPLETED'),
+       COUNT(*) FILTER (WHERE status = 'ERROR'),
+       CURRENT_TIMESTAMP
+FROM videos;
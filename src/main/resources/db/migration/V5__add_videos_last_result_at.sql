@@ -0,0 +1,3 @@
+-- Thời điểm (theo timestamp của worker) của kết quả xử lý mới nhất đã áp dụng,
+-- dùng để bỏ qua các message đến trễ hoặc bị gửi lại
+ALTER TABLE videos ADD COLUMN last_result_at TIMESTAMP;
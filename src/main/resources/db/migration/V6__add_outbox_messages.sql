@@ -0,0 +1,18 @@
+-- Tạo bảng outbox_messages: message xử lý video được ghi cùng transaction với
+-- video, sau đó relay gửi lên RabbitMQ
+CREATE TABLE IF NOT EXISTS outbox_messages (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  video_id UUID,
+  payload JSONB NOT NULL,
+  status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  attempts INTEGER NOT NULL DEFAULT 0,
+  last_error TEXT,
+  available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  sent_at TIMESTAMP,
+  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (video_id) REFERENCES videos(id) ON DELETE CASCADE
+);
+
+-- Relay chỉ quét các message chưa gửi
+CREATE INDEX idx_outbox_messages_pending ON outbox_messages(available_at, created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_messages_sent_at ON outbox_messages(sent_at) WHERE status = 'SENT';
@@ -0,0 +1,6 @@
+-- Chỉ mục cho phân trang theo cursor (created_at, id) trên danh sách video của người dùng
+CREATE INDEX idx_videos_user_created_at_id ON videos(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_videos_user_type_created_at_id ON videos(user_id, video_type, created_at DESC, id DESC);
+
+-- Đã được bao bởi idx_videos_user_type_created_at_id
+DROP INDEX IF EXISTS idx_videos_user_id_video_type;
@@ -0,0 +1,2 @@
+-- Chỉ mục để lấy trạng thái xử lý mới nhất của từng video (LATERAL ... ORDER BY created_at DESC LIMIT 1)
+CREATE INDEX idx_video_processing_status_video_created_at ON video_processing_status(video_id, created_at DESC);
@@ -0,0 +1,17 @@
+-- Lưu tiến độ xử lý mới nhất ngay trên videos để đọc trạng thái chỉ cần tra theo khóa chính.
+-- Bảng video_processing_status chỉ còn giữ lịch sử phục vụ kiểm tra.
+ALTER TABLE videos
+  ADD COLUMN progress INTEGER NOT NULL DEFAULT 0,
+  ADD COLUMN status_message TEXT,
+  ADD COLUMN status_updated_at TIMESTAMP;
+
+UPDATE videos v
+SET progress = COALESCE(s.progress, 0),
+    status_message = s.message,
+    status_updated_at = s.created_at
+FROM (
+  SELECT DISTINCT ON (video_id) video_id, progress, message, created_at
+  FROM video_processing_status
+  ORDER BY video_id, created_at DESC
+) s
+WHERE s.video_id = v.id;
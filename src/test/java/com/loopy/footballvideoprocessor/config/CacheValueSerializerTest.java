@@ -0,0 +1,133 @@
+package com.loopy.footballvideoprocessor.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+/**
+ * Kiểm tra giá trị cache đọc lại đúng ở mọi định dạng, có và không nén, giá trị
+ * JSON cũ không có header vẫn đọc được, còn giá trị hỏng chỉ gây
+ * SerializationException
+ */
+class CacheValueSerializerTest {
+
+	private static final int THRESHOLD = 256;
+
+	@ParameterizedTest
+	@EnumSource(CacheValueFormat.class)
+	void smallValueRoundTripsUncompressed(CacheValueFormat format) {
+		CacheValueSerializer serializer = new CacheValueSerializer(format, THRESHOLD);
+		VideoDto video = video("Trận chung kết");
+
+		byte[] bytes = serializer.serialize(video);
+
+		assertEquals(format.getId(), bytes[0]);
+		assertEquals(0, bytes[1]);
+		assertEquals(video, serializer.deserialize(bytes));
+	}
+
+	@ParameterizedTest
+	@EnumSource(CacheValueFormat.class)
+	void valueOverThresholdRoundTripsCompressed(CacheValueFormat format) {
+		CacheValueSerializer serializer = new CacheValueSerializer(format, THRESHOLD);
+		VideoDto video = video("Trận chung kết ".repeat(100));
+
+		byte[] bytes = serializer.serialize(video);
+		byte[] uncompressed = new CacheValueSerializer(format, -1).serialize(video);
+
+		assertEquals(1, bytes[1]);
+		assertTrue(bytes.length < uncompressed.length);
+		assertEquals(video, serializer.deserialize(bytes));
+	}
+
+	@Test
+	void thresholdIsInclusiveAndNegativeDisablesCompression() {
+		VideoDto video = video("Trận chung kết ".repeat(100));
+		int payloadLength = new CacheValueSerializer(CacheValueFormat.JSON, -1).serialize(video).length - 2;
+
+		assertEquals(0, new CacheValueSerializer(CacheValueFormat.JSON, payloadLength).serialize(video)[1]);
+		assertEquals(1, new CacheValueSerializer(CacheValueFormat.JSON, payloadLength - 1).serialize(video)[1]);
+		assertEquals(0, new CacheValueSerializer(CacheValueFormat.JSON, -1).serialize(video)[1]);
+	}
+
+	@Test
+	void legacyJsonValueWithoutHeaderIsRead() {
+		VideoDto video = video("Trận chung kết");
+		byte[] legacy = new GenericJackson2JsonRedisSerializer(
+				CacheValueSerializer.createObjectMapper(new JsonFactory())).serialize(video);
+
+		assertEquals(video, new CacheValueSerializer(CacheValueFormat.SMILE, THRESHOLD).deserialize(legacy));
+	}
+
+	@Test
+	void emptyValueIsNull() {
+		CacheValueSerializer serializer = new CacheValueSerializer(CacheValueFormat.JSON, THRESHOLD);
+
+		assertEquals(0, serializer.serialize(null).length);
+		assertNull(serializer.deserialize(new byte[0]));
+	}
+
+	@Test
+	void truncatedCompressedValueIsRejected() {
+		CacheValueSerializer serializer = new CacheValueSerializer(CacheValueFormat.JSON, THRESHOLD);
+		byte[] bytes = serializer.serialize(video("Trận chung kết ".repeat(100)));
+
+		assertThrows(SerializationException.class,
+				() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)));
+	}
+
+	@Test
+	void storedLengthLargerThanDataIsRejected() {
+		CacheValueSerializer serializer = new CacheValueSerializer(CacheValueFormat.JSON, THRESHOLD);
+		byte[] bytes = serializer.serialize(video("Trận chung kết ".repeat(100)));
+		// Kích thước gốc nằm ngay sau hai byte header
+		ByteBuffer.wrap(bytes).putInt(2, ByteBuffer.wrap(bytes).getInt(2) + 1024);
+
+		assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+	}
+
+	@Test
+	void unknownFormatOrCompressionIsRejected() {
+		CacheValueSerializer serializer = new CacheValueSerializer(CacheValueFormat.JSON, THRESHOLD);
+		byte[] bytes = serializer.serialize(video("Trận chung kết"));
+
+		byte[] unknownFormat = bytes.clone();
+		unknownFormat[0] = 42;
+		byte[] unknownCompression = bytes.clone();
+		unknownCompression[1] = 7;
+
+		assertThrows(SerializationException.class, () -> serializer.deserialize(unknownFormat));
+		assertThrows(SerializationException.class, () -> serializer.deserialize(unknownCompression));
+	}
+
+	private static VideoDto video(String title) {
+		return VideoDto.builder()
+				.id(UUID.fromString("6c3f2a1e-8a4b-4a9e-9c61-2d1f0b7e5a10"))
+				.userId(UUID.fromString("0f9e8d7c-6b5a-4c3d-8e2f-1a0b9c8d7e6f"))
+				.username("coach")
+				.title(title)
+				.videoType(VideoType.UPLOADED)
+				.status(VideoStatus.COMPLETED)
+				.progress(100)
+				.fileSize(2048L)
+				.createdAt(LocalDateTime.of(2025, 5, 1, 12, 0))
+				.build();
+	}
+}
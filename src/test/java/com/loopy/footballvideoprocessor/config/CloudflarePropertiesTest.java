@@ -0,0 +1,60 @@
+package com.loopy.footballvideoprocessor.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * Kiểm tra kích thước part của multipart upload bị từ chối ngay khi bind cấu
+ * hình nếu R2 không chấp nhận hoặc không đọc được vào một mảng byte
+ */
+class CloudflarePropertiesTest {
+
+	private ValidatorFactory validatorFactory;
+	private CloudflareProperties properties;
+
+	@BeforeEach
+	void setUp() {
+		validatorFactory = Validation.buildDefaultValidatorFactory();
+		properties = new CloudflareProperties();
+		properties.setR2(new CloudflareProperties.R2());
+	}
+
+	@AfterEach
+	void tearDown() {
+		validatorFactory.close();
+	}
+
+	@Test
+	void defaultPartSizeIsValid() {
+		assertTrue(validate().isEmpty());
+	}
+
+	@Test
+	void partSizeBelowR2MinimumIsRejected() {
+		properties.getR2().getMultipart().setPartSize(DataSize.ofMegabytes(4));
+
+		assertEquals(1, validate().size());
+	}
+
+	@Test
+	void partSizeOverflowingIntIsRejected() {
+		properties.getR2().getMultipart().setPartSize(DataSize.ofGigabytes(2));
+
+		assertEquals(1, validate().size());
+	}
+
+	private Set<ConstraintViolation<CloudflareProperties>> validate() {
+		return validatorFactory.getValidator().validate(properties);
+	}
+}
@@ -0,0 +1,221 @@
+package com.loopy.footballvideoprocessor.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Kiểm tra cache hai tầng không giữ lại giá trị cũ khi dữ liệu bị ghi đồng thời
+ * với các request đọc, trên một instance và giữa nhiều instance dùng chung L2.
+ */
+class TwoTierCacheConcurrencyTest {
+
+	private static final String KEY = "owner:video";
+	private static final int ROUNDS = 200;
+	private static final int READERS = 4;
+	private static final int WRITES_PER_ROUND = 20;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newFixedThreadPool(READERS + 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void evictAfterConcurrentWritesNeverLeavesStaleValue() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			AtomicInteger database = new AtomicInteger();
+			Cache remote = new ConcurrentMapCache("videoCache", false);
+			TwoTierCache cache = newCache(remote, mock(TwoTierCacheManager.class));
+
+			runConcurrently(database, List.of(cache), cache);
+
+			assertFresh(database, remote, cache);
+		}
+	}
+
+	@Test
+	void evictOnOneInstanceInvalidatesOtherInstances() throws Exception {
+		for (int round = 0; round < ROUNDS; round++) {
+			AtomicInteger database = new AtomicInteger();
+			Cache remote = new ConcurrentMapCache("videoCache", false);
+			// Thông báo xóa được chuyển bất đồng bộ như Redis pub/sub
+			ExecutorService pubSub = Executors.newSingleThreadExecutor();
+			TwoTierCacheManager writerManager = mock(TwoTierCacheManager.class);
+			TwoTierCache writer = newCache(remote, writerManager);
+			TwoTierCache other = newCache(remote, mock(TwoTierCacheManager.class));
+			doAnswer(invocation -> pubSub.submit(() -> other.evictLocal(invocation.getArgument(1),
+					invocation.getArgument(2))))
+					.when(writerManager).publishEvict(anyString(), any(), anyBoolean());
+
+			try {
+				runConcurrently(database, List.of(writer, other), writer);
+				pubSub.shutdown();
+				assertTrue(pubSub.awaitTermination(10, TimeUnit.SECONDS));
+			} finally {
+				pubSub.shutdownNow();
+			}
+
+			assertFresh(database, remote, writer, other);
+		}
+	}
+
+	@Test
+	void evictByPrefixOnlyRemovesKeysOfThatOwner() {
+		Cache remote = new ConcurrentMapCache("videoListCache", false);
+		TwoTierCache cache = newCache(remote, mock(TwoTierCacheManager.class));
+		cache.put("owner-1:all:0:10", "page of owner 1");
+		cache.put("owner-2:all:0:10", "page of owner 2");
+
+		cache.evictByPrefix("owner-1:");
+
+		assertNull(cache.get("owner-1:all:0:10"));
+		assertEquals("page of owner 2", cache.get("owner-2:all:0:10", String.class));
+	}
+
+	@Test
+	void remoteEvictionAfterPutKeepsWrittenValue() {
+		Cache remote = new ConcurrentMapCache("videoCache", false);
+		TwoTierCache writer = newCache(remote, mock(TwoTierCacheManager.class));
+		TwoTierCache other = newCache(remote, mock(TwoTierCacheManager.class));
+		assertEquals("old", other.get(KEY, () -> "old"));
+
+		writer.put(KEY, "new");
+		other.evictLocal(KEY, false);
+
+		// Thông báo từ put chỉ xóa L1 của instance nhận, giá trị mới trên L2 vẫn còn
+		assertEquals("new", remote.get(KEY).get());
+		assertEquals("new", other.get(KEY, () -> "loaded again"));
+	}
+
+	@Test
+	void staleLoadWrittenAfterRemoteEvictionIsRetracted() {
+		Cache remote = new ConcurrentMapCache("videoCache", false);
+		TwoTierCache writer = newCache(remote, mock(TwoTierCacheManager.class));
+		TwoTierCache other = newCache(remote, mock(TwoTierCacheManager.class));
+
+		// Instance kia đọc dữ liệu cũ trước khi writer xóa L2 nhưng ghi lên L2 sau đó
+		writer.evict(KEY);
+		other.get(KEY, () -> "stale");
+		other.evictLocal(KEY, false);
+
+		assertNull(remote.get(KEY));
+	}
+
+	@Test
+	void slowLoadDoesNotBlockOtherKeysAndIsShared() throws Exception {
+		TwoTierCache cache = newCache(new ConcurrentMapCache("videoCache", false), mock(TwoTierCacheManager.class));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		Callable<String> slowLoader = () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "slow";
+		};
+
+		Future<String> first = executor.submit(() -> cache.get(KEY, slowLoader));
+		assertTrue(loading.await(10, TimeUnit.SECONDS));
+		Future<String> second = executor.submit(() -> cache.get(KEY, slowLoader));
+
+		// Key khác không phải chờ lần tải đang chạy
+		assertEquals("fast", executor.submit(() -> cache.get("other", () -> "fast")).get(10, TimeUnit.SECONDS));
+
+		release.countDown();
+		assertEquals("slow", first.get(10, TimeUnit.SECONDS));
+		assertEquals("slow", second.get(10, TimeUnit.SECONDS));
+		assertEquals(1, loads.get());
+	}
+
+	/**
+	 * Các reader liên tục đọc qua cache trên tất cả instance trong khi writer
+	 * thay đổi dữ liệu rồi xóa cache, giống như service xóa cache sau khi commit
+	 */
+	private void runConcurrently(AtomicInteger database, List<TwoTierCache> readers, TwoTierCache writer)
+			throws Exception {
+		AtomicBoolean writing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int i = 0; i < READERS; i++) {
+			TwoTierCache reader = readers.get(i % readers.size());
+			futures.add(executor.submit(() -> {
+				start.await();
+				while (writing.get()) {
+					reader.get(KEY, () -> slowRead(database));
+				}
+				return null;
+			}));
+		}
+		futures.add(executor.submit(() -> {
+			start.await();
+			for (int i = 0; i < WRITES_PER_ROUND; i++) {
+				database.incrementAndGet();
+				writer.evict(KEY);
+			}
+			writing.set(false);
+			return null;
+		}));
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+
+	// Đọc chậm để lần đọc dễ chồng lên lần ghi
+	private static Integer slowRead(AtomicInteger database) {
+		int value = database.get();
+		LockSupport.parkNanos(1_000);
+		return value;
+	}
+
+	private static void assertFresh(AtomicInteger database, Cache remote, TwoTierCache... caches) {
+		Cache.ValueWrapper remoteValue = remote.get(KEY);
+		if (remoteValue != null) {
+			assertEquals(database.get(), remoteValue.get(), "L2 giữ giá trị cũ");
+		}
+		for (TwoTierCache cache : caches) {
+			assertEquals(database.get(), cache.get(KEY, database::get), "L1 giữ giá trị cũ");
+		}
+	}
+
+	private static TwoTierCache newCache(Cache remote, TwoTierCacheManager cacheManager) {
+		return new TwoTierCache(remote.getName(), Caffeine.newBuilder().build(), remote, cacheManager,
+				new SimpleMeterRegistry());
+	}
+}
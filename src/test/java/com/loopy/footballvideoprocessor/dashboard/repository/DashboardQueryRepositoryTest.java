@@ -0,0 +1,40 @@
+package com.loopy.footballvideoprocessor.dashboard.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Kiểm tra bộ đếm toàn hệ thống đọc từ dashboard_stats coi dòng chưa tồn tại
+ * là 0
+ */
+class DashboardQueryRepositoryTest {
+
+	@Test
+	void missingGlobalStatsRowCountsAsZero() {
+		EntityManager entityManager = mock(EntityManager.class);
+		Query query = mock(Query.class);
+		when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+		when(query.setParameter(anyString(), any())).thenReturn(query);
+		// LEFT JOIN với dashboard_stats trả về NULL khi dòng toàn hệ thống chưa có
+		when(query.getSingleResult()).thenReturn(new Object[] { 5L, 4L, 1L, null, null, 2L, null });
+
+		DashboardQueryRepository.Counters counters = new DashboardQueryRepository(entityManager)
+				.getCounters(LocalDateTime.now().minusDays(30));
+
+		assertEquals(5, counters.getTotalUsers());
+		assertEquals(4, counters.getActiveUsers());
+		assertEquals(0, counters.getTotalVideos());
+		assertEquals(2, counters.getProcessedVideos());
+		assertEquals(0, counters.getTotalStorageUsed());
+	}
+}
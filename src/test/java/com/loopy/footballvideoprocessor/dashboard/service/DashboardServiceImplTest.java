@@ -0,0 +1,62 @@
+package com.loopy.footballvideoprocessor.dashboard.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.loopy.footballvideoprocessor.dashboard.dto.VideoStats;
+import com.loopy.footballvideoprocessor.dashboard.repository.DashboardQueryRepository;
+import com.loopy.footballvideoprocessor.dashboard.repository.DashboardStatsRepository;
+import com.loopy.footballvideoprocessor.user.repository.RoleRepository;
+import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.user.service.UserService;
+import com.loopy.footballvideoprocessor.video.mapper.VideoMapper;
+import com.loopy.footballvideoprocessor.video.repository.VideoQueryRepository;
+import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
+import com.loopy.footballvideoprocessor.video.service.VideoService;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Kiểm tra thống kê dashboard được dựng từ các truy vấn tổng hợp thay vì tải
+ * toàn bộ video
+ */
+class DashboardServiceImplTest {
+
+	@Test
+	void videoStatsAreBuiltFromAggregates() {
+		DashboardQueryRepository queryRepository = mock(DashboardQueryRepository.class);
+		when(queryRepository.getCounters(any(LocalDateTime.class))).thenReturn(DashboardQueryRepository.Counters
+				.builder()
+				.totalVideos(12)
+				.uploadedVideos(9)
+				.build());
+		when(queryRepository.countVideosByStatus()).thenReturn(Map.of("COMPLETED", 7L, "ERROR", 1L));
+
+		VideoStats stats = newService(queryRepository, mock(EntityManager.class)).getVideoStats();
+
+		assertEquals(12, stats.getTotalVideos());
+		assertEquals(9, stats.getUploadedVideos());
+		assertEquals(3, stats.getYoutubeVideos());
+		Map<String, Long> distribution = stats.getStatusDistribution().stream()
+				.collect(Collectors.toMap(VideoStats.StatusDistribution::getStatus,
+						VideoStats.StatusDistribution::getCount));
+		// Trạng thái không có video vẫn xuất hiện với số 0
+		assertEquals(Map.of("PENDING", 0L, "PROCESSING", 0L, "COMPLETED", 7L, "ERROR", 1L), distribution);
+	}
+
+	private static DashboardServiceImpl newService(DashboardQueryRepository queryRepository,
+			EntityManager entityManager) {
+		return new DashboardServiceImpl(mock(UserRepository.class), mock(RoleRepository.class),
+				mock(VideoRepository.class), mock(VideoQueryRepository.class), mock(DashboardStatsRepository.class),
+				queryRepository, mock(UserService.class), mock(VideoService.class), new VideoMapper(),
+				entityManager);
+	}
+}
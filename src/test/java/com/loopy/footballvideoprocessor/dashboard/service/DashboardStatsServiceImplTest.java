@@ -0,0 +1,95 @@
+package com.loopy.footballvideoprocessor.dashboard.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.loopy.footballvideoprocessor.dashboard.model.StatsDelta;
+import com.loopy.footballvideoprocessor.dashboard.repository.DashboardStatsRepository;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+
+/**
+ * Kiểm tra việc cộng thay đổi và đối soát bộ đếm dashboard_stats
+ */
+class DashboardStatsServiceImplTest {
+
+	private DashboardStatsRepository repository;
+	private DashboardStatsServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(DashboardStatsRepository.class);
+		service = new DashboardStatsServiceImpl(repository);
+	}
+
+	@Test
+	void reconcileLocksStatsBeforeRecomputing() {
+		when(repository.reconcileUserStats()).thenReturn(2);
+		when(repository.reconcileGlobalStats()).thenReturn(1);
+
+		assertEquals(3, service.reconcile());
+
+		// Khóa phải lấy trước mọi câu lệnh ghi để thay đổi đồng thời không bị ghi đè
+		InOrder order = inOrder(repository);
+		order.verify(repository).lockForReconcile();
+		order.verify(repository).createGlobalIfMissing();
+		order.verify(repository).reconcileUserStats();
+		order.verify(repository).reconcileGlobalStats();
+	}
+
+	@Test
+	void statusChangeUpdatesUserThenGlobal() {
+		UUID userId = UUID.randomUUID();
+		when(repository.applyGlobalDelta(any(StatsDelta.class))).thenReturn(1);
+
+		service.applyDelta(userId, StatsDelta.ofStatusChange(VideoStatus.PROCESSING, VideoStatus.COMPLETED));
+
+		InOrder order = inOrder(repository);
+		order.verify(repository).applyUserDelta(eq(userId), any(StatsDelta.class));
+		order.verify(repository).applyGlobalDelta(any(StatsDelta.class));
+	}
+
+	@Test
+	void batchDeltasLockUsersInOrderAndGlobalOnce() {
+		UUID first = new UUID(1, 1);
+		UUID second = new UUID(2, 2);
+		Map<UUID, StatsDelta> deltas = new HashMap<>();
+		deltas.put(second, StatsDelta.ofStatusChange(VideoStatus.PROCESSING, VideoStatus.ERROR));
+		deltas.put(first, StatsDelta.ofStatusChange(VideoStatus.PROCESSING, VideoStatus.COMPLETED));
+		when(repository.applyGlobalDelta(any(StatsDelta.class))).thenReturn(1);
+
+		service.applyDeltas(deltas);
+
+		InOrder order = inOrder(repository);
+		order.verify(repository).applyUserDelta(eq(first), any(StatsDelta.class));
+		order.verify(repository).applyUserDelta(eq(second), any(StatsDelta.class));
+		ArgumentCaptor<StatsDelta> global = ArgumentCaptor.forClass(StatsDelta.class);
+		order.verify(repository, times(1)).applyGlobalDelta(global.capture());
+		assertEquals(-2, global.getValue().getProcessingVideos());
+		assertEquals(1, global.getValue().getCompletedVideos());
+		assertEquals(1, global.getValue().getErrorVideos());
+	}
+
+	@Test
+	void emptyDeltaIsNotWritten() {
+		service.applyDelta(UUID.randomUUID(), StatsDelta.ofStatusChange(VideoStatus.PENDING, VideoStatus.PENDING));
+
+		verify(repository, never()).applyUserDelta(any(), any());
+		verify(repository, never()).applyGlobalDelta(any());
+	}
+}
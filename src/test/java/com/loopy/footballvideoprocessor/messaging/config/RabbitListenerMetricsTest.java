@@ -0,0 +1,102 @@
+package com.loopy.footballvideoprocessor.messaging.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Kiểm tra metrics mức độ sử dụng consumer của listener video result
+ */
+class RabbitListenerMetricsTest {
+
+	private static final String QUEUE = "video-result-queue";
+	// Thời gian listener giả lập xử lý một message
+	private static final long LISTENER_MILLIS = 20;
+
+	private SimpleMeterRegistry registry;
+	private AmqpAdmin amqpAdmin;
+	private RabbitListenerMetrics metrics;
+
+	@BeforeEach
+	void setUp() {
+		SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+		when(container.getActiveConsumerCount()).thenReturn(4);
+		RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+		when(listenerRegistry.getListenerContainer(RabbitListenerMetrics.VIDEO_RESULT_LISTENER_ID))
+				.thenReturn(container);
+		amqpAdmin = mock(AmqpAdmin.class);
+
+		metrics = new RabbitListenerMetrics(listenerRegistry, amqpAdmin);
+		ReflectionTestUtils.setField(metrics, "videoResultQueue", QUEUE);
+		registry = new SimpleMeterRegistry();
+		metrics.bindTo(registry);
+	}
+
+	@Test
+	void busyConsumersAreTrackedWhileListenerRuns() throws Throwable {
+		MethodInvocation invocation = mock(MethodInvocation.class);
+		when(invocation.proceed()).thenAnswer(call -> {
+			// Trong lúc xử lý: 1 trên 4 consumer đang bận
+			assertEquals(1.0, gauge("rabbitmq.listener.consumers.busy"));
+			assertEquals(0.25, gauge("rabbitmq.listener.utilization"));
+			Thread.sleep(LISTENER_MILLIS);
+			return null;
+		});
+
+		metrics.busyTrackingAdvice().invoke(invocation);
+
+		assertEquals(4.0, gauge("rabbitmq.listener.consumers.active"));
+		assertEquals(0.0, gauge("rabbitmq.listener.consumers.busy"));
+		assertEquals(0.0, gauge("rabbitmq.listener.utilization"));
+		assertTrue(busySeconds() >= LISTENER_MILLIS / 1000d);
+	}
+
+	@Test
+	void failingListenerStillCountsBusyTimeAndReleasesConsumer() throws Throwable {
+		MethodInvocation invocation = mock(MethodInvocation.class);
+		when(invocation.proceed()).thenAnswer(call -> {
+			Thread.sleep(LISTENER_MILLIS);
+			throw new IllegalStateException("listener lỗi");
+		});
+
+		assertThrows(IllegalStateException.class, () -> metrics.busyTrackingAdvice().invoke(invocation));
+
+		assertEquals(0.0, gauge("rabbitmq.listener.consumers.busy"));
+		assertTrue(busySeconds() >= LISTENER_MILLIS / 1000d);
+	}
+
+	@Test
+	void queueDepthIsReadFromBroker() {
+		when(amqpAdmin.getQueueInfo(QUEUE)).thenReturn(new QueueInformation(QUEUE, 42, 4));
+
+		assertEquals(42.0, registry.get("rabbitmq.queue.messages").tag("queue", QUEUE).gauge().value());
+	}
+
+	@Test
+	void unreachableBrokerReportsNaN() {
+		when(amqpAdmin.getQueueInfo(QUEUE)).thenThrow(new IllegalStateException("mất kết nối"));
+
+		assertTrue(Double.isNaN(registry.get("rabbitmq.queue.messages").gauge().value()));
+	}
+
+	private double gauge(String name) {
+		return registry.get(name).gauge().value();
+	}
+
+	private double busySeconds() {
+		return registry.get("rabbitmq.listener.busy.time").functionCounter().count();
+	}
+}
@@ -0,0 +1,207 @@
+package com.loopy.footballvideoprocessor.messaging.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.loopy.footballvideoprocessor.dashboard.model.StatsDelta;
+import com.loopy.footballvideoprocessor.dashboard.service.DashboardStatsService;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.messaging.model.ProcessingStage;
+import com.loopy.footballvideoprocessor.messaging.service.OutboxService;
+import com.loopy.footballvideoprocessor.video.dto.ProcessingEvent;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.service.ProcessingEventBroadcaster;
+import com.loopy.footballvideoprocessor.video.service.VideoCacheSupport;
+
+/**
+ * Kiểm tra việc gộp kết quả xử lý theo video, bỏ qua kết quả cũ và cộng bộ đếm
+ * theo thứ tự khóa cố định
+ */
+class VideoResultWriterTest {
+
+	private static final LocalDateTime APPLIED_AT = LocalDateTime.of(2025, 5, 1, 10, 0);
+
+	private final UUID firstUser = UUID.randomUUID();
+	private final UUID secondUser = UUID.randomUUID();
+	private final UUID firstVideo = UUID.randomUUID();
+	private final UUID secondVideo = UUID.randomUUID();
+
+	private NamedParameterJdbcTemplate jdbcTemplate;
+	private DashboardStatsService dashboardStatsService;
+	private OutboxService outboxService;
+	private VideoCacheSupport videoCacheSupport;
+	private ProcessingEventBroadcaster processingEventBroadcaster;
+	private VideoResultWriter writer;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+		dashboardStatsService = mock(DashboardStatsService.class);
+		outboxService = mock(OutboxService.class);
+		videoCacheSupport = mock(VideoCacheSupport.class);
+		processingEventBroadcaster = mock(ProcessingEventBroadcaster.class);
+		writer = new VideoResultWriter(jdbcTemplate, dashboardStatsService, processingEventBroadcaster,
+				videoCacheSupport, outboxService);
+		ReflectionTestUtils.setField(writer, "packagingEnabled", true);
+		ReflectionTestUtils.setField(writer, "segmentDuration", 6);
+
+		ResultSet first = lockedRow(firstVideo, firstUser);
+		ResultSet second = lockedRow(secondVideo, secondUser);
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(2);
+			handler.processRow(first);
+			handler.processRow(second);
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void latestResultPerVideoIsAppliedOnce() {
+		int written = writer.write(List.of(
+				result(firstVideo, VideoStatus.PROCESSING, 50, APPLIED_AT.plusSeconds(1)),
+				result(firstVideo, VideoStatus.COMPLETED, 100, APPLIED_AT.plusSeconds(3)),
+				// Tới muộn nhưng cũ hơn message COMPLETED ở trên
+				result(firstVideo, VideoStatus.PROCESSING, 80, APPLIED_AT.plusSeconds(2))));
+
+		assertEquals(1, written);
+		ArgumentCaptor<SqlParameterSource[]> updates = ArgumentCaptor.forClass(SqlParameterSource[].class);
+		// Lần batch đầu tiên là cập nhật bảng videos
+		verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), updates.capture());
+		assertEquals(1, updates.getAllValues().get(0).length);
+		assertEquals(VideoStatus.COMPLETED.name(), updates.getAllValues().get(0)[0].getValue("status"));
+
+		ArgumentCaptor<VideoProcessingMessage> packaging = ArgumentCaptor.forClass(VideoProcessingMessage.class);
+		verify(outboxService).enqueue(packaging.capture());
+		assertEquals(ProcessingStage.PACKAGE, packaging.getValue().getStage());
+	}
+
+	@Test
+	void coalescingMergesOutputPathWithoutModifyingInputMessages() {
+		VideoProcessingMessage withPath = result(firstVideo, VideoStatus.PROCESSING, 90, APPLIED_AT.plusSeconds(1));
+		withPath.setOutputPath("processed/" + firstUser + "/match.mp4");
+		VideoProcessingMessage newest = result(firstVideo, VideoStatus.COMPLETED, 100, APPLIED_AT.plusSeconds(2));
+
+		writer.write(List.of(newest, withPath));
+
+		ArgumentCaptor<SqlParameterSource[]> updates = ArgumentCaptor.forClass(SqlParameterSource[].class);
+		verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), updates.capture());
+		assertEquals(withPath.getOutputPath(), updates.getAllValues().get(0)[0].getValue("processedPath"));
+		// Message gốc còn được gửi lại sang hàng đợi retry nên không được mang đường dẫn nó không có
+		assertNull(newest.getOutputPath());
+		assertEquals(VideoStatus.PROCESSING, withPath.getStatus());
+	}
+
+	@Test
+	void statusUpdatedAtUsesSameTimestampAsPublishedEvent() {
+		LocalDateTime workerTime = APPLIED_AT.plusSeconds(5);
+
+		writer.write(List.of(result(firstVideo, VideoStatus.PROCESSING, 40, workerTime)));
+		TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+
+		// Snapshot SSE so sánh sự kiện với status_updated_at nên hai giá trị phải cùng một mốc
+		ArgumentCaptor<SqlParameterSource[]> updates = ArgumentCaptor.forClass(SqlParameterSource[].class);
+		verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), updates.capture());
+		assertEquals(workerTime, updates.getAllValues().get(0)[0].getValue("statusUpdatedAt"));
+		ArgumentCaptor<ProcessingEvent> event = ArgumentCaptor.forClass(ProcessingEvent.class);
+		verify(processingEventBroadcaster).publish(event.capture());
+		assertEquals(workerTime, event.getValue().getTimestamp());
+	}
+
+	@Test
+	void resultOlderThanAppliedOneIsSkipped() {
+		int written = writer.write(List.of(result(secondVideo, VideoStatus.ERROR, null, APPLIED_AT)));
+
+		assertEquals(0, written);
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+		verify(dashboardStatsService, never()).applyDeltas(any());
+	}
+
+	@Test
+	void progressOnlyResultEvictsCachedListsOncePerOwner() {
+		writer.write(List.of(
+				result(firstVideo, VideoStatus.PROCESSING, 40, APPLIED_AT.plusSeconds(1)),
+				result(secondVideo, VideoStatus.PROCESSING, 60, APPLIED_AT.plusSeconds(1))));
+
+		// Danh sách video chứa tiến độ nên không được giữ lại giá trị cũ
+		verify(videoCacheSupport).evictVideoProgress(firstUser, firstVideo);
+		verify(videoCacheSupport).evictVideoLists(firstUser);
+		verify(videoCacheSupport).evictVideoLists(secondUser);
+		verify(dashboardStatsService).applyDeltas(Map.of());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void videosAreLockedAndCountersUpdatedInIdOrder() {
+		writer.write(List.of(
+				result(secondVideo, VideoStatus.ERROR, null, APPLIED_AT.plusSeconds(1)),
+				result(firstVideo, VideoStatus.COMPLETED, 100, APPLIED_AT.plusSeconds(1))));
+
+		ArgumentCaptor<String> lockQuery = ArgumentCaptor.forClass(String.class);
+		verify(jdbcTemplate).query(lockQuery.capture(), any(SqlParameterSource.class),
+				any(RowCallbackHandler.class));
+		assertTrue(lockQuery.getValue().contains("ORDER BY id"));
+
+		ArgumentCaptor<Map<UUID, StatsDelta>> deltas = ArgumentCaptor.forClass(Map.class);
+		verify(dashboardStatsService).applyDeltas(deltas.capture());
+		List<UUID> expectedOrder = firstUser.compareTo(secondUser) < 0 ? List.of(firstUser, secondUser)
+				: List.of(secondUser, firstUser);
+		assertEquals(expectedOrder, List.copyOf(deltas.getValue().keySet()));
+		assertEquals(1, deltas.getValue().get(firstUser).getCompletedVideos());
+		assertEquals(-1, deltas.getValue().get(secondUser).getProcessingVideos());
+		assertEquals(1, deltas.getValue().get(secondUser).getErrorVideos());
+	}
+
+	private ResultSet lockedRow(UUID videoId, UUID userId) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getObject(eq("id"), eq(UUID.class))).thenReturn(videoId);
+		when(rs.getObject(eq("user_id"), eq(UUID.class))).thenReturn(userId);
+		when(rs.getString("status")).thenReturn(VideoStatus.PROCESSING.name());
+		when(rs.getTimestamp("last_result_at")).thenReturn(Timestamp.valueOf(APPLIED_AT));
+		return rs;
+	}
+
+	private static VideoProcessingMessage result(UUID videoId, VideoStatus status, Integer progress,
+			LocalDateTime timestamp) {
+		return VideoProcessingMessage.builder()
+				.videoId(videoId)
+				.status(status)
+				.progress(progress)
+				.timestamp(timestamp)
+				.build();
+	}
+}
@@ -0,0 +1,112 @@
+package com.loopy.footballvideoprocessor.messaging.producer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.loopy.footballvideoprocessor.common.exception.MessagingException;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Kiểm tra gửi message xử lý video không chờ broker: future hoàn thành theo
+ * publisher confirm và số message chờ xác nhận bị giới hạn
+ */
+class VideoProcessingProducerTest {
+
+	private RabbitTemplate rabbitTemplate;
+	private VideoProcessingProducer producer;
+	private final List<CorrelationData> pendingConfirms = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		rabbitTemplate = mock(RabbitTemplate.class);
+		doAnswer(invocation -> pendingConfirms.add(invocation.getArgument(4))).when(rabbitTemplate)
+				.convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class),
+						any(CorrelationData.class));
+		when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+			RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+			return callback.doInRabbit(rabbitTemplate);
+		});
+
+		producer = new VideoProcessingProducer(rabbitTemplate, new SimpleMeterRegistry(), 2,
+				Duration.ofMillis(10));
+		ReflectionTestUtils.setField(producer, "videoProcessingExchange", "video-processing-exchange");
+		ReflectionTestUtils.setField(producer, "videoProcessingRoutingKey", "video-processing");
+		ReflectionTestUtils.setField(producer, "videoPackagingRoutingKey", "video-packaging");
+	}
+
+	@Test
+	void futureCompletesWhenBrokerAcks() {
+		CompletableFuture<Void> future = producer.sendAsync(message());
+
+		assertEquals(1, producer.getInFlightCount());
+		pendingConfirms.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+
+		assertTrue(future.isDone() && !future.isCompletedExceptionally());
+		assertEquals(0, producer.getInFlightCount());
+	}
+
+	@Test
+	void nackFailsFuture() {
+		CompletableFuture<Void> future = producer.sendAsync(message());
+
+		pendingConfirms.get(0).getFuture().complete(new CorrelationData.Confirm(false, "queue đầy"));
+
+		ExecutionException e = assertThrows(ExecutionException.class, future::get);
+		assertInstanceOf(MessagingException.class, e.getCause());
+		assertEquals(0, producer.getInFlightCount());
+	}
+
+	@Test
+	void sendBlocksNoLongerThanBufferTimeoutWhenInFlightLimitReached() {
+		producer.sendAsync(message());
+		producer.sendAsync(message());
+
+		assertThrows(MessagingException.class, () -> producer.sendAsync(message()));
+
+		// Có confirm về thì lại gửi được
+		pendingConfirms.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+		producer.sendAsync(message());
+		assertEquals(2, producer.getInFlightCount());
+	}
+
+	@Test
+	void batchOverLimitFailsOnlyExcessMessages() {
+		List<CompletableFuture<Void>> futures = producer.sendBatch(List.of(message(), message(), message()));
+
+		assertEquals(3, futures.size());
+		assertEquals(2, pendingConfirms.size());
+		assertTrue(futures.get(2).isCompletedExceptionally());
+		pendingConfirms.forEach(correlation -> correlation.getFuture()
+				.complete(new CorrelationData.Confirm(true, null)));
+		assertTrue(futures.get(0).isDone() && !futures.get(0).isCompletedExceptionally());
+		assertTrue(futures.get(1).isDone() && !futures.get(1).isCompletedExceptionally());
+	}
+
+	private static VideoProcessingMessage message() {
+		return VideoProcessingMessage.builder().videoId(UUID.randomUUID()).build();
+	}
+}
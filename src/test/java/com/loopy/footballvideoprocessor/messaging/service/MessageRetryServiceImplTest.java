@@ -0,0 +1,116 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Kiểm tra message xử lý video đi qua đủ các tầng chờ thử lại trước khi vào
+ * parking lot
+ */
+class MessageRetryServiceImplTest {
+
+	private static final String PROCESSING_QUEUE = "video-processing-priority-queue";
+	private static final String LEGACY_PROCESSING_QUEUE = "video-processing-queue";
+	private static final String PARKING_LOT = "video-processing-parking-lot";
+
+	private RabbitTemplate rabbitTemplate;
+	private MessageRetryServiceImpl retryService;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@BeforeEach
+	void setUp() {
+		rabbitTemplate = mock(RabbitTemplate.class);
+		retryService = new MessageRetryServiceImpl(rabbitTemplate, mock(AmqpAdmin.class), objectMapper);
+		ReflectionTestUtils.setField(retryService, "videoProcessingQueue", PROCESSING_QUEUE);
+		ReflectionTestUtils.setField(retryService, "legacyVideoProcessingQueue", LEGACY_PROCESSING_QUEUE);
+		ReflectionTestUtils.setField(retryService, "parkingLotQueue", PARKING_LOT);
+		ReflectionTestUtils.setField(retryService, "retryDelays",
+				List.of(Duration.ofSeconds(10), Duration.ofMinutes(1), Duration.ofMinutes(5)));
+	}
+
+	@Test
+	void failedMessageWalksThroughEveryTierBeforeParking() throws Exception {
+		// Lần lỗi đầu tiên: bị từ chối ngay trên queue xử lý
+		Message dead = deadLettered(MessageBuilder
+				.withBody("{\"videoId\":\"v1\",\"maxRetries\":3,\"retryCount\":0}".getBytes(StandardCharsets.UTF_8))
+				.build(), PROCESSING_QUEUE);
+
+		List<String> destinations = new ArrayList<>();
+		for (int attempt = 1; attempt <= 4; attempt++) {
+			retryService.handleDeadLetter(dead);
+
+			ArgumentCaptor<String> queue = ArgumentCaptor.forClass(String.class);
+			ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+			verify(rabbitTemplate, times(attempt)).send(eq(""), queue.capture(),
+					sent.capture());
+			destinations.add(queue.getValue());
+
+			// Hết TTL ở tầng chờ, quay lại queue xử lý và lỗi tiếp: RabbitMQ ghi
+			// lần chết đầu tiên là queue chờ thử lại
+			dead = deadLettered(sent.getValue(), queue.getValue());
+		}
+
+		assertEquals(List.of(PROCESSING_QUEUE + ".retry.1", PROCESSING_QUEUE + ".retry.2",
+				PROCESSING_QUEUE + ".retry.3", PARKING_LOT), destinations);
+
+		ArgumentCaptor<Message> parked = ArgumentCaptor.forClass(Message.class);
+		verify(rabbitTemplate).send(eq(""), eq(PARKING_LOT), parked.capture());
+		assertEquals(PROCESSING_QUEUE,
+				parked.getValue().getMessageProperties().getHeader(MessageRetryServiceImpl.ORIGINAL_QUEUE_HEADER));
+		assertEquals(3, objectMapper.readTree(parked.getValue().getBody()).get("retryCount").asInt());
+	}
+
+	@Test
+	void messageFromOtherQueueIsParkedWithoutRetry() {
+		Message dead = deadLettered(MessageBuilder.withBody("{}".getBytes(StandardCharsets.UTF_8)).build(),
+				"video-result-queue");
+
+		retryService.handleDeadLetter(dead);
+
+		verify(rabbitTemplate).send(eq(""), eq(PARKING_LOT), any(Message.class));
+	}
+
+	@Test
+	void messageFromLegacyQueueIsRetriedThroughPriorityQueueTiers() {
+		// Message còn lại trong queue cũ (không có priority) khi chuyển sang queue mới
+		Message dead = deadLettered(MessageBuilder.withBody("{\"videoId\":\"v1\"}".getBytes(StandardCharsets.UTF_8))
+				.build(), LEGACY_PROCESSING_QUEUE);
+
+		retryService.handleDeadLetter(dead);
+
+		verify(rabbitTemplate).send(eq(""), eq(PROCESSING_QUEUE + ".retry.1"), any(Message.class));
+	}
+
+	/**
+	 * Mô phỏng header RabbitMQ thêm vào khi message bị dead-letter lần đầu từ
+	 * queue firstDeathQueue rồi bị consumer của queue xử lý từ chối
+	 */
+	private static Message deadLettered(Message message, String firstDeathQueue) {
+		return MessageBuilder.fromClonedMessage(message)
+				.setHeader("x-first-death-queue", firstDeathQueue)
+				.setHeader("x-first-death-reason", firstDeathQueue.equals(PROCESSING_QUEUE) ? "rejected" : "expired")
+				.setHeader("x-last-death-queue", PROCESSING_QUEUE)
+				.setHeader("x-last-death-reason", "rejected")
+				.build();
+	}
+}
@@ -0,0 +1,113 @@
+package com.loopy.footballvideoprocessor.messaging.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loopy.footballvideoprocessor.common.exception.MessagingException;
+import com.loopy.footballvideoprocessor.messaging.model.OutboxMessage;
+import com.loopy.footballvideoprocessor.messaging.model.OutboxStatus;
+import com.loopy.footballvideoprocessor.messaging.producer.VideoProcessingProducer;
+import com.loopy.footballvideoprocessor.messaging.repository.OutboxMessageRepository;
+
+/**
+ * Kiểm tra relay outbox chỉ đánh dấu SENT khi broker xác nhận và lùi thời điểm
+ * gửi lại khi gửi lỗi
+ */
+class OutboxRelayTaskTest {
+
+	private OutboxMessageRepository repository;
+	private VideoProcessingProducer producer;
+	private OutboxRelayTask relayTask;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(OutboxMessageRepository.class);
+		producer = mock(VideoProcessingProducer.class);
+		relayTask = new OutboxRelayTask(repository, producer,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), new ObjectMapper());
+		ReflectionTestUtils.setField(relayTask, "batchSize", 2);
+		ReflectionTestUtils.setField(relayTask, "confirmTimeout", Duration.ofSeconds(1));
+	}
+
+	@Test
+	void confirmedMessagesAreSentAndNackedOnesBackedOff() {
+		OutboxMessage confirmed = outboxMessage();
+		OutboxMessage nacked = outboxMessage();
+		when(repository.lockNextBatch(anyInt())).thenReturn(List.of(confirmed, nacked), List.of());
+		when(producer.sendBatch(anyList())).thenReturn(List.of(CompletableFuture.completedFuture(null),
+				CompletableFuture.failedFuture(new MessagingException("Broker từ chối message"))));
+
+		relayTask.relay();
+
+		assertEquals(OutboxStatus.SENT, confirmed.getStatus());
+		assertNotNull(confirmed.getSentAt());
+		assertEquals(OutboxStatus.PENDING, nacked.getStatus());
+		assertEquals(1, nacked.getAttempts());
+		assertTrue(nacked.getAvailableAt().isAfter(LocalDateTime.now()));
+	}
+
+	@Test
+	void brokerUnavailableBacksOffWholeBatch() {
+		OutboxMessage first = outboxMessage();
+		OutboxMessage second = outboxMessage();
+		when(repository.lockNextBatch(anyInt())).thenReturn(List.of(first, second));
+		when(producer.sendBatch(anyList())).thenThrow(new AmqpConnectException(new RuntimeException("Connection refused")));
+
+		relayTask.relay();
+
+		for (OutboxMessage message : List.of(first, second)) {
+			assertEquals(OutboxStatus.PENDING, message.getStatus());
+			assertEquals(1, message.getAttempts());
+			assertNotNull(message.getLastError());
+			assertNull(message.getSentAt());
+			assertTrue(message.getAvailableAt().isAfter(LocalDateTime.now()));
+		}
+		verify(repository).saveAll(List.of(first, second));
+		// Lô đầy nhưng broker lỗi: không quét tiếp trong cùng lần relay
+		verify(repository, times(1)).lockNextBatch(anyInt());
+	}
+
+	@Test
+	void repeatedFailuresIncreaseBackoff() {
+		OutboxMessage message = outboxMessage();
+		message.setAttempts(3);
+		when(repository.lockNextBatch(anyInt())).thenReturn(List.of(message), List.of());
+		when(producer.sendBatch(anyList())).thenThrow(new AmqpConnectException(new RuntimeException("Connection refused")));
+
+		relayTask.relay();
+
+		assertEquals(4, message.getAttempts());
+		// Lần lỗi thứ 4: chờ 2^4 = 16 giây
+		assertTrue(message.getAvailableAt().isAfter(LocalDateTime.now().plusSeconds(10)));
+	}
+
+	private static OutboxMessage outboxMessage() {
+		OutboxMessage message = new OutboxMessage();
+		message.setId(UUID.randomUUID());
+		message.setPayload("{\"videoId\":\"" + UUID.randomUUID() + "\"}");
+		message.setAvailableAt(LocalDateTime.now());
+		return message;
+	}
+}
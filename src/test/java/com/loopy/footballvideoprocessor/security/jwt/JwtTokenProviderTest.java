@@ -0,0 +1,133 @@
+package com.loopy.footballvideoprocessor.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Kiểm tra access token được xác thực một lần rồi cache, nhưng trạng thái thu
+ * hồi vẫn được kiểm tra ở mỗi request
+ */
+class JwtTokenProviderTest {
+
+	private static final String SECRET = "test-secret-key-with-at-least-32-bytes!!";
+
+	private final UUID userId = UUID.randomUUID();
+
+	private TokenRevocationService revocationService;
+	private JwtTokenProvider tokenProvider;
+	private Authentication login;
+
+	@BeforeEach
+	void setUp() {
+		revocationService = mock(TokenRevocationService.class);
+		tokenProvider = new JwtTokenProvider(properties(SECRET), revocationService);
+
+		List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, authorities);
+		login = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+	}
+
+	@Test
+	void accessTokenAuthenticatesWithUserIdAndRoles() {
+		String token = tokenProvider.generateToken(login, "family-1");
+
+		Authentication authentication = tokenProvider.authenticate(token);
+
+		assertNotNull(authentication);
+		AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+		assertEquals(userId, principal.getId());
+		assertEquals("coach", principal.getUsername());
+		assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+	}
+
+	@Test
+	void cachedTokenIsStillCheckedForRevocation() {
+		String token = tokenProvider.generateToken(login, "family-1");
+		Authentication first = tokenProvider.authenticate(token);
+
+		assertSame(first, tokenProvider.authenticate(token));
+
+		when(revocationService.isRevoked(any(), any())).thenReturn(true);
+		assertNull(tokenProvider.authenticate(token));
+	}
+
+	@Test
+	void refreshTokenIsNotAcceptedAsRequestCredential() {
+		String refreshToken = tokenProvider.generateRefreshToken(login, "family-1", UUID.randomUUID().toString());
+
+		assertNull(tokenProvider.authenticate(refreshToken));
+		assertNotNull(tokenProvider.parseToken(refreshToken));
+	}
+
+	@Test
+	void tokenSignedWithAnotherKeyIsRejected() {
+		JwtTokenProvider otherProvider = new JwtTokenProvider(properties("another-secret-key-with-32-bytes-or-more"),
+				revocationService);
+		String forged = otherProvider.generateToken(login, "family-1");
+
+		assertNull(tokenProvider.authenticate(forged));
+		assertNull(tokenProvider.authenticate("not-a-jwt"));
+	}
+
+	@Test
+	void tokenWithAudienceIsRejected() {
+		// Token của mục đích khác (ví dụ playback) dù ký cùng khóa cũng không phải access token
+		String token = signedToken()
+				.claim("type", "access")
+				.audience().add("playback").and()
+				.compact();
+
+		assertNull(tokenProvider.authenticate(token));
+	}
+
+	@Test
+	void tokenWithoutAccessTypeIsRejected() {
+		String token = signedToken().compact();
+
+		assertNull(tokenProvider.authenticate(token));
+		assertNull(tokenProvider.authenticate(signedToken().claim("type", "playback").compact()));
+	}
+
+	private JwtBuilder signedToken() {
+		Date now = new Date();
+		return Jwts.builder()
+				.id(UUID.randomUUID().toString())
+				.subject("coach")
+				.claim("uid", userId.toString())
+				.claim("roles", "ROLE_USER")
+				.issuedAt(now)
+				.expiration(new Date(now.getTime() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static JwtProperties properties(String secret) {
+		JwtProperties properties = new JwtProperties();
+		properties.setSecret(secret);
+		properties.setExpiration(60_000);
+		properties.setRefreshExpiration(600_000);
+		return properties;
+	}
+}
@@ -0,0 +1,88 @@
+package com.loopy.footballvideoprocessor.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Kiểm tra Bloom filter thu hồi token không để lọt token đã bị thu hồi: khi
+ * chưa nạp được từ Redis lúc khởi động, và khi ID được thu hồi đúng lúc đang
+ * dựng lại bộ lọc
+ */
+class TokenRevocationServiceImplTest {
+
+	private static final String CHANNEL = "auth-revocations";
+
+	private StringRedisTemplate redisTemplate;
+	private TokenRevocationServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = mock(StringRedisTemplate.class);
+		service = new TokenRevocationServiceImpl(redisTemplate, mock(RedisMessageListenerContainer.class));
+		ReflectionTestUtils.setField(service, "channel", CHANNEL);
+		ReflectionTestUtils.setField(service, "expectedRevocations", 1000L);
+		ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+		ReflectionTestUtils.setField(service, "refreshExpiration", 86_400_000L);
+	}
+
+	@Test
+	void failedInitialLoadChecksRedisUntilRetrySucceeds() {
+		when(redisTemplate.scan(any(ScanOptions.class))).thenThrow(new RedisConnectionFailureException("down"));
+		when(redisTemplate.hasKey("auth:revoked:revoked-before-start")).thenReturn(true);
+
+		service.init();
+
+		// Bộ lọc rỗng không được dùng để cho qua token đã bị thu hồi trước khi khởi động
+		assertTrue(service.isRevoked("revoked-before-start", null));
+
+		Cursor<String> keys = cursor();
+		when(keys.hasNext()).thenReturn(true, false);
+		when(keys.next()).thenReturn("auth:revoked:revoked-before-start");
+		when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+		service.retryInitialLoad();
+
+		assertFalse(service.isRevoked("never-revoked", null));
+		verify(redisTemplate, never()).hasKey("auth:revoked:never-revoked");
+	}
+
+	@Test
+	void revocationArrivingDuringRebuildIsKeptInNewFilter() {
+		Cursor<String> keys = cursor();
+		when(keys.hasNext()).thenAnswer(invocation -> {
+			// Instance khác thu hồi token trong lúc instance này đang quét Redis
+			service.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+					"revoked-during-scan".getBytes(StandardCharsets.UTF_8)), null);
+			return false;
+		});
+		when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+		when(redisTemplate.hasKey(anyString())).thenReturn(false);
+		when(redisTemplate.hasKey("auth:revoked:revoked-during-scan")).thenReturn(true);
+
+		service.init();
+
+		assertTrue(service.isRevoked("revoked-during-scan", null));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Cursor<String> cursor() {
+		return mock(Cursor.class);
+	}
+}
@@ -0,0 +1,132 @@
+package com.loopy.footballvideoprocessor.user.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.security.jwt.JwtProperties;
+import com.loopy.footballvideoprocessor.security.jwt.JwtTokenProvider;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService.RotationResult;
+import com.loopy.footballvideoprocessor.user.model.User;
+import com.loopy.footballvideoprocessor.user.repository.RoleRepository;
+import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.user.service.UserService;
+
+/**
+ * Kiểm tra xoay vòng refresh token phân biệt token bị dùng lại với phiên đã
+ * hết hạn, và /auth/validate dùng cùng kiểm tra thu hồi với filter
+ */
+class AuthServiceImplTest {
+
+	private static final String FAMILY_ID = "family-1";
+
+	private final UUID userId = UUID.randomUUID();
+
+	private TokenRevocationService revocationService;
+	private JwtTokenProvider tokenProvider;
+	private AuthServiceImpl authService;
+	private Authentication login;
+
+	@BeforeEach
+	void setUp() {
+		revocationService = mock(TokenRevocationService.class);
+		JwtProperties properties = new JwtProperties();
+		properties.setSecret("test-secret-key-with-at-least-32-bytes!!");
+		properties.setExpiration(60_000);
+		properties.setRefreshExpiration(600_000);
+		tokenProvider = new JwtTokenProvider(properties, revocationService);
+
+		User user = new User();
+		user.setId(userId);
+		user.setUsername("coach");
+		user.setPassword("");
+		user.setEnabled(true);
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findByUsername("coach")).thenReturn(Optional.of(user));
+
+		authService = new AuthServiceImpl(mock(AuthenticationManager.class), userRepository,
+				mock(RoleRepository.class), mock(PasswordEncoder.class), tokenProvider, mock(UserService.class),
+				revocationService);
+
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, List.of());
+		login = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void currentRefreshTokenIsRotated() {
+		String refreshToken = tokenProvider.generateRefreshToken(login, FAMILY_ID, "refresh-1");
+		when(revocationService.rotate(eq(FAMILY_ID), eq("refresh-1"), anyString(), any(Duration.class)))
+				.thenReturn(RotationResult.ROTATED);
+
+		assertNotNull(authService.refreshToken(refreshToken).getRefreshToken());
+		verify(revocationService, never()).revokeFamily(anyString());
+	}
+
+	@Test
+	void reusedRefreshTokenRevokesFamily() {
+		String refreshToken = tokenProvider.generateRefreshToken(login, FAMILY_ID, "refresh-1");
+		when(revocationService.rotate(eq(FAMILY_ID), eq("refresh-1"), anyString(), any(Duration.class)))
+				.thenReturn(RotationResult.REUSED);
+
+		assertThrows(BadRequestException.class, () -> authService.refreshToken(refreshToken));
+
+		verify(revocationService).revokeFamily(FAMILY_ID);
+	}
+
+	@Test
+	void unknownFamilyIsRejectedWithoutRevoking() {
+		String refreshToken = tokenProvider.generateRefreshToken(login, FAMILY_ID, "refresh-1");
+		when(revocationService.rotate(eq(FAMILY_ID), eq("refresh-1"), anyString(), any(Duration.class)))
+				.thenReturn(RotationResult.UNKNOWN_FAMILY);
+
+		assertThrows(BadRequestException.class, () -> authService.refreshToken(refreshToken));
+
+		verify(revocationService, never()).revokeFamily(anyString());
+	}
+
+	@Test
+	void validateChecksRevocation() {
+		String accessToken = tokenProvider.generateToken(login, FAMILY_ID);
+		assertTrue(authService.validateToken(accessToken));
+
+		when(revocationService.isRevoked(any(), eq(FAMILY_ID))).thenReturn(true);
+		assertFalse(authService.validateToken(accessToken));
+	}
+
+	@Test
+	void validateRejectsRefreshToken() {
+		String refreshToken = tokenProvider.generateRefreshToken(login, FAMILY_ID, "refresh-1");
+
+		assertFalse(authService.validateToken(refreshToken));
+	}
+}
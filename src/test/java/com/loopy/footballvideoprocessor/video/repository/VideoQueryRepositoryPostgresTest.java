@@ -0,0 +1,140 @@
+package com.loopy.footballvideoprocessor.video.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.PackagingStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+/**
+ * Chạy các truy vấn danh sách video trên PostgreSQL thật với schema do Flyway
+ * tạo, để thứ tự cột trong SELECT khớp với chỉ số mà toDto đọc (kể cả các cột
+ * đóng gói 18-20) và OFFSET kiểu long được driver chấp nhận
+ */
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=true",
+		"spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(VideoQueryRepository.class)
+@Testcontainers(disabledWithoutDocker = true)
+class VideoQueryRepositoryPostgresTest {
+
+	private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14.5");
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private VideoQueryRepository repository;
+
+	private UUID userId;
+
+	@BeforeEach
+	void setUp() {
+		userId = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO users (id, username, email, password, enabled) VALUES (?, ?, ?, ?, TRUE)",
+				userId, "coach", "coach@example.com", "secret");
+	}
+
+	@Test
+	void rowIsMappedFromRealColumnsIncludingPackaging() {
+		UUID videoId = insertVideo(CREATED_AT);
+		jdbcTemplate.update("""
+				UPDATE videos
+				SET description = ?, file_size = ?, duration = ?, processed_path = ?, status = 'COMPLETED',
+				    progress = 100, packaging_status = 'COMPLETED',
+				    hls_manifest_path = ?, dash_manifest_path = ?
+				WHERE id = ?
+				""", "Chung kết", 2048L, 90, "processed/a.mp4", "processed/a.m3u8", "processed/a.mpd", videoId);
+
+		VideoDto video = repository.findByUser(userId, VideoType.UPLOADED, 0L, 20).get(0);
+
+		assertEquals(videoId, video.getId());
+		assertEquals(userId, video.getUserId());
+		assertEquals("coach", video.getUsername());
+		assertEquals("Trận chung kết", video.getTitle());
+		assertEquals("Chung kết", video.getDescription());
+		assertEquals(VideoType.UPLOADED, video.getVideoType());
+		assertEquals("videos/" + videoId + ".mp4", video.getFilePath());
+		assertEquals(2048L, video.getFileSize());
+		assertEquals(90, video.getDuration());
+		assertNull(video.getThumbnailPath());
+		assertEquals("processed/a.mp4", video.getProcessedPath());
+		assertNull(video.getYoutubeUrl());
+		assertTrue(video.getIsDownloadable());
+		assertEquals(VideoStatus.COMPLETED, video.getStatus());
+		assertEquals(100, video.getProgress());
+		assertEquals(CREATED_AT, video.getCreatedAt());
+		assertEquals(PackagingStatus.COMPLETED, video.getPackagingStatus());
+		assertEquals("processed/a.m3u8", video.getHlsManifestPath());
+		assertEquals("processed/a.mpd", video.getDashManifestPath());
+	}
+
+	@Test
+	void videoWithoutPackagingHasNullPackagingFields() {
+		insertVideo(CREATED_AT);
+
+		VideoDto video = repository.findAll(0L, 20).get(0);
+
+		assertEquals(VideoStatus.PENDING, video.getStatus());
+		assertEquals(0, video.getProgress());
+		assertNull(video.getPackagingStatus());
+		assertNull(video.getHlsManifestPath());
+		assertNull(video.getDashManifestPath());
+	}
+
+	@Test
+	void pagesAreOrderedNewestFirstWithLongOffset() {
+		UUID older = insertVideo(CREATED_AT);
+		UUID newer = insertVideo(CREATED_AT.plusMinutes(1));
+
+		List<VideoDto> firstPage = repository.findByUser(userId, null, 0L, 1);
+		List<VideoDto> secondPage = repository.findByUser(userId, null, 1L, 1);
+		List<VideoDto> beyondIntRange = repository.findByUser(userId, null, (long) Integer.MAX_VALUE + 1, 1);
+
+		assertEquals(newer, firstPage.get(0).getId());
+		assertEquals(older, secondPage.get(0).getId());
+		assertTrue(beyondIntRange.isEmpty());
+	}
+
+	private UUID insertVideo(LocalDateTime createdAt) {
+		UUID videoId = UUID.randomUUID();
+		jdbcTemplate.update("""
+				INSERT INTO videos (id, user_id, title, video_type, file_path, created_at, updated_at)
+				VALUES (?, ?, ?, 'UPLOADED', ?, ?, ?)
+				""", videoId, userId, "Trận chung kết", "videos/" + videoId + ".mp4", createdAt, createdAt);
+		return videoId;
+	}
+}
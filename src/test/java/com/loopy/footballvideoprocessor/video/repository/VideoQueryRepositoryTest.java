@@ -0,0 +1,119 @@
+package com.loopy.footballvideoprocessor.video.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.PackagingStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+/**
+ * Kiểm tra truy vấn danh sách video trả thẳng VideoDto từ một câu SQL
+ */
+class VideoQueryRepositoryTest {
+
+	private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+	private EntityManager entityManager;
+	private Query query;
+	private VideoQueryRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		entityManager = mock(EntityManager.class);
+		query = mock(Query.class);
+		when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+		when(query.setParameter(anyString(), any())).thenReturn(query);
+		repository = new VideoQueryRepository(entityManager);
+	}
+
+	@Test
+	void rowIsMappedIncludingUsernameAndProgress() {
+		UUID videoId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		when(query.getResultList()).thenReturn(List.<Object[]>of(new Object[] {
+				videoId, userId, "coach", "Trận chung kết", null, "UPLOADED",
+				"videos/a.mp4", 2048L, 90, null, "processed/a.mp4",
+				null, null, true, "COMPLETED",
+				100, Timestamp.valueOf(CREATED_AT), CREATED_AT.plusMinutes(5),
+				"COMPLETED", "processed/a.m3u8", null }));
+
+		List<VideoDto> videos = repository.findByUser(userId, null, 0L, 20);
+
+		VideoDto video = videos.get(0);
+		assertEquals(videoId, video.getId());
+		assertEquals("coach", video.getUsername());
+		assertEquals(VideoType.UPLOADED, video.getVideoType());
+		assertEquals(2048L, video.getFileSize());
+		assertEquals(VideoStatus.COMPLETED, video.getStatus());
+		assertEquals(100, video.getProgress());
+		assertEquals(CREATED_AT, video.getCreatedAt());
+		assertEquals(CREATED_AT.plusMinutes(5), video.getUpdatedAt());
+		assertEquals(PackagingStatus.COMPLETED, video.getPackagingStatus());
+		assertEquals("processed/a.m3u8", video.getHlsManifestPath());
+		assertNull(video.getDashManifestPath());
+	}
+
+	@Test
+	void typeFilterIsAddedOnlyWhenRequested() {
+		when(query.getResultList()).thenReturn(List.of());
+
+		repository.findByUserAfter(UUID.randomUUID(), VideoType.YOUTUBE, CREATED_AT, UUID.randomUUID(), 11);
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(entityManager).createNativeQuery(sql.capture());
+		assertTrue(sql.getValue().contains("v.video_type = :videoType"));
+		assertTrue(sql.getValue().contains("(v.created_at, v.id) < (:createdAt, :id)"));
+		assertTrue(sql.getValue().contains("JOIN users"));
+		verify(query).setParameter("videoType", "YOUTUBE");
+		verify(query).setParameter("limit", 11);
+	}
+
+	@Test
+	void allTypesQueryHasNoTypeParameter() {
+		when(query.getResultList()).thenReturn(List.of());
+
+		repository.findAll(40L, 20);
+
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(entityManager).createNativeQuery(sql.capture());
+		assertFalse(sql.getValue().contains(":videoType"));
+		verify(query, never()).setParameter("videoType", "UPLOADED");
+		verify(query).setParameter("offset", 40L);
+	}
+
+	@Test
+	void pageOffsetDoesNotOverflowInt() {
+		assertEquals(40L, VideoQueryRepository.pageOffset(2, 20));
+		assertEquals((long) Integer.MAX_VALUE * 100, VideoQueryRepository.pageOffset(Integer.MAX_VALUE, 100));
+	}
+
+	@Test
+	void negativePageOrEmptyPageSizeIsRejected() {
+		assertThrows(BadRequestException.class, () -> VideoQueryRepository.pageOffset(-1, 20));
+		assertThrows(BadRequestException.class, () -> VideoQueryRepository.pageOffset(0, 0));
+	}
+}
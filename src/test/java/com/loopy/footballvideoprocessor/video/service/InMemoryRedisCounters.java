@@ -0,0 +1,37 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+/**
+ * StringRedisTemplate giả chỉ hỗ trợ GET và INCR trên bộ nhớ, đủ cho bộ đếm
+ * thế hệ danh sách video của VideoCacheSupport
+ */
+final class InMemoryRedisCounters {
+
+	private InMemoryRedisCounters() {
+	}
+
+	@SuppressWarnings("unchecked")
+	static StringRedisTemplate create() {
+		Map<String, Long> counters = new ConcurrentHashMap<>();
+		ValueOperations<String, String> values = mock(ValueOperations.class);
+		when(values.get(anyString())).thenAnswer(invocation -> {
+			Long value = counters.get(invocation.<String>getArgument(0));
+			return value != null ? String.valueOf(value) : null;
+		});
+		when(values.increment(anyString()))
+				.thenAnswer(invocation -> counters.merge(invocation.getArgument(0), 1L, Long::sum));
+
+		StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		return redisTemplate;
+	}
+}
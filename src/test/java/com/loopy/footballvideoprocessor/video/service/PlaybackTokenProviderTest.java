@@ -0,0 +1,82 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.security.jwt.JwtProperties;
+import com.loopy.footballvideoprocessor.security.jwt.JwtTokenProvider;
+import com.loopy.footballvideoprocessor.security.service.TokenRevocationService;
+
+/**
+ * Kiểm tra playback token dùng khóa riêng và không thay thế được access token
+ * (và ngược lại)
+ */
+class PlaybackTokenProviderTest {
+
+	private static final String JWT_SECRET = "test-secret-key-with-at-least-32-bytes!!";
+	private static final String PLAYBACK_SECRET = "playback-secret-key-with-32-bytes-or-more";
+
+	private final UUID userId = UUID.randomUUID();
+
+	private PlaybackTokenProvider playbackTokenProvider;
+	private JwtTokenProvider jwtTokenProvider;
+
+	@BeforeEach
+	void setUp() {
+		playbackTokenProvider = new PlaybackTokenProvider(PLAYBACK_SECRET, JWT_SECRET, Duration.ofMinutes(10), 100);
+
+		JwtProperties properties = new JwtProperties();
+		properties.setSecret(JWT_SECRET);
+		properties.setExpiration(60_000);
+		properties.setRefreshExpiration(600_000);
+		jwtTokenProvider = new JwtTokenProvider(properties, mock(TokenRevocationService.class));
+	}
+
+	@Test
+	void issuedTokenCoversOwnProcessedVideos() {
+		PlaybackTokenProvider.PlaybackToken token = playbackTokenProvider.issue(userId);
+
+		PlaybackTokenProvider.PlaybackToken verified = playbackTokenProvider.verify(token.getToken());
+
+		assertNotNull(verified);
+		assertEquals(PlaybackTokenProvider.processedPrefix(userId), verified.getPrefix());
+		assertTrue(verified.covers("processed/" + userId + "/match.mp4"));
+		assertFalse(verified.covers("processed/" + UUID.randomUUID() + "/match.mp4"));
+	}
+
+	@Test
+	void playbackTokenIsNotAnAccessToken() {
+		String token = playbackTokenProvider.issue(userId).getToken();
+
+		assertNull(jwtTokenProvider.authenticate(token));
+	}
+
+	@Test
+	void accessTokenIsNotAPlaybackToken() {
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, List.of());
+		String accessToken = jwtTokenProvider.generateToken(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()), "family-1");
+
+		assertNull(playbackTokenProvider.verify(accessToken));
+	}
+
+	@Test
+	void sharingTheAccessTokenSecretIsRejected() {
+		assertThrows(IllegalStateException.class,
+				() -> new PlaybackTokenProvider(JWT_SECRET, JWT_SECRET, Duration.ofMinutes(10), 100));
+	}
+}
@@ -0,0 +1,112 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loopy.footballvideoprocessor.video.dto.ProcessingEvent;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Kiểm tra kết nối SSE của một video không mất sự kiện phát ra trong lúc đọc
+ * trạng thái hiện tại
+ */
+class ProcessingEventBroadcasterTest {
+
+	private static final LocalDateTime SNAPSHOT_AT = LocalDateTime.of(2025, 5, 1, 10, 0);
+
+	private final UUID videoId = UUID.randomUUID();
+	private final UUID userId = UUID.randomUUID();
+
+	private ProcessingEventBroadcaster broadcaster;
+
+	@BeforeEach
+	void setUp() {
+		StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+		// Redis không khả dụng: sự kiện được gửi thẳng tới kết nối trên instance này
+		doThrow(new IllegalStateException("Redis down")).when(redisTemplate).convertAndSend(anyString(), anyString());
+		broadcaster = new ProcessingEventBroadcaster(redisTemplate, mock(RedisMessageListenerContainer.class),
+				new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(broadcaster, "timeout", Duration.ofMinutes(1));
+	}
+
+	@Test
+	void eventsPublishedWhileReadingSnapshotFollowIt() {
+		SseEmitter emitter = broadcaster.subscribeVideo(videoId, () -> {
+			broadcaster.publish(event(VideoStatus.PROCESSING, 40, SNAPSHOT_AT.minusSeconds(5)));
+			broadcaster.publish(event(VideoStatus.PROCESSING, 60, SNAPSHOT_AT.plusSeconds(5)));
+			return event(VideoStatus.PROCESSING, 50, SNAPSHOT_AT);
+		});
+
+		// Sự kiện cũ hơn snapshot bị bỏ, sự kiện mới hơn được gửi sau snapshot
+		assertEquals(List.of(50, 60), progressSent(emitter));
+
+		broadcaster.publish(event(VideoStatus.PROCESSING, 70, SNAPSHOT_AT.plusSeconds(10)));
+		assertEquals(List.of(50, 60, 70), progressSent(emitter));
+	}
+
+	@Test
+	void bufferedCompletionClosesConnection() {
+		SseEmitter emitter = broadcaster.subscribeVideo(videoId, () -> {
+			broadcaster.publish(event(VideoStatus.COMPLETED, 100, SNAPSHOT_AT.plusSeconds(1)));
+			return event(VideoStatus.PROCESSING, 90, SNAPSHOT_AT);
+		});
+
+		assertEquals(List.of(90, 100), progressSent(emitter));
+		// Đã hoàn tất: không gửi thêm được nữa
+		assertThrows(IllegalStateException.class, () -> emitter.send("x"));
+	}
+
+	@Test
+	void failedSnapshotUnregistersConnection() {
+		assertThrows(IllegalStateException.class, () -> broadcaster.subscribeVideo(videoId, () -> {
+			throw new IllegalStateException("DB lỗi");
+		}));
+
+		assertEquals(0, broadcaster.getSubscriberCount());
+	}
+
+	private ProcessingEvent event(VideoStatus status, int progress, LocalDateTime timestamp) {
+		return ProcessingEvent.builder()
+				.videoId(videoId)
+				.userId(userId)
+				.status(status)
+				.progress(progress)
+				.timestamp(timestamp)
+				.build();
+	}
+
+	/**
+	 * Tiến độ của các sự kiện đã gửi vào emitter (chưa gắn với response nên được
+	 * emitter giữ lại theo thứ tự gửi)
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<Integer> progressSent(SseEmitter emitter) {
+		Collection<ResponseBodyEmitter.DataWithMediaType> sent = (Collection<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils
+				.getField(emitter, "earlySendAttempts");
+		return sent.stream()
+				.map(ResponseBodyEmitter.DataWithMediaType::getData)
+				.filter(ProcessingEvent.class::isInstance)
+				.map(data -> ((ProcessingEvent) data).getProgress())
+				.toList();
+	}
+}
@@ -0,0 +1,72 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.loopy.footballvideoprocessor.video.repository.VideoProcessingStatusRepository;
+
+/**
+ * Kiểm tra lịch sử trạng thái xử lý được dọn theo từng lô nhỏ cho tới khi hết
+ */
+class ProcessingStatusRetentionTaskTest {
+
+	private static final int BATCH_SIZE = 100;
+
+	private VideoProcessingStatusRepository repository;
+	private PlatformTransactionManager transactionManager;
+	private ProcessingStatusRetentionTask task;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(VideoProcessingStatusRepository.class);
+		transactionManager = mock(PlatformTransactionManager.class);
+		task = new ProcessingStatusRetentionTask(repository, new TransactionTemplate(transactionManager));
+		ReflectionTestUtils.setField(task, "compactAfter", Duration.ofDays(1));
+		ReflectionTestUtils.setField(task, "retention", Duration.ofDays(90));
+		ReflectionTestUtils.setField(task, "batchSize", BATCH_SIZE);
+	}
+
+	@Test
+	void fullBatchesAreRepeatedEachInOwnTransaction() {
+		when(repository.compactProgressBefore(any(LocalDateTime.class), eq(BATCH_SIZE)))
+				.thenReturn(BATCH_SIZE, BATCH_SIZE, 7);
+		when(repository.deleteHistoryBefore(any(LocalDateTime.class), eq(BATCH_SIZE))).thenReturn(0);
+
+		task.cleanup();
+
+		verify(repository, times(3)).compactProgressBefore(any(LocalDateTime.class), eq(BATCH_SIZE));
+		verify(repository, times(1)).deleteHistoryBefore(any(LocalDateTime.class), eq(BATCH_SIZE));
+		// Mỗi lô là một transaction riêng: 3 lô gộp + 1 lô xóa
+		verify(transactionManager, times(4)).commit(any());
+	}
+
+	@Test
+	void cutoffsFollowConfiguredDurations() {
+		LocalDateTime before = LocalDateTime.now();
+
+		task.cleanup();
+
+		ArgumentCaptor<LocalDateTime> compactCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		ArgumentCaptor<LocalDateTime> retentionCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(repository).compactProgressBefore(compactCutoff.capture(), eq(BATCH_SIZE));
+		verify(repository).deleteHistoryBefore(retentionCutoff.capture(), eq(BATCH_SIZE));
+		assertTrue(!compactCutoff.getValue().isBefore(before.minusDays(1)));
+		assertTrue(!retentionCutoff.getValue().isBefore(before.minusDays(90)));
+		assertTrue(retentionCutoff.getValue().isBefore(compactCutoff.getValue()));
+	}
+}
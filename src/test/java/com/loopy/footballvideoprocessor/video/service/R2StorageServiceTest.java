@@ -0,0 +1,236 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+import com.loopy.footballvideoprocessor.config.CloudflareProperties;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+/**
+ * Kiểm tra upload multipart dạng streaming lên R2 và cache presigned URL với S3
+ * client giả lập
+ */
+class R2StorageServiceTest {
+
+	private static final String UPLOAD_ID = "upload-1";
+	private static final String VIDEO_KEY = "videos/owner/match.mp4";
+
+	private S3Client s3Client;
+	private S3Presigner s3Presigner;
+	private R2StorageService r2StorageService;
+	private final AtomicInteger signatures = new AtomicInteger();
+	// Thời hạn thực tế của URL do presigner trả về, null là đúng thời hạn được yêu cầu
+	private Duration signedLifetime;
+
+	@BeforeEach
+	void setUp() {
+		CloudflareProperties.R2 r2 = new CloudflareProperties.R2();
+		r2.setBucketName("videos");
+		r2.getMultipart().setPartSize(DataSize.ofBytes(4));
+		r2.getMultipart().setMaxObjectSize(DataSize.ofBytes(16));
+		CloudflareProperties properties = new CloudflareProperties();
+		properties.setR2(r2);
+
+		s3Client = mock(S3Client.class);
+		when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId(UPLOAD_ID).build());
+		when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+				.thenAnswer(invocation -> UploadPartResponse.builder()
+						.eTag("etag-" + invocation.getArgument(0, UploadPartRequest.class).partNumber())
+						.build());
+
+		s3Presigner = mock(S3Presigner.class);
+		when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenAnswer(invocation -> {
+			GetObjectPresignRequest request = invocation.getArgument(0);
+			PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+			when(presigned.url()).thenReturn(URI.create("https://r2.example/" + request.getObjectRequest().key()
+					+ "?X-Amz-Signature=" + signatures.incrementAndGet()).toURL());
+			Duration lifetime = signedLifetime != null ? signedLifetime : request.signatureDuration();
+			when(presigned.expiration()).thenReturn(Instant.now().plus(lifetime));
+			return presigned;
+		});
+
+		// Upload part chạy ngay trên thread gọi để thứ tự part cố định
+		r2StorageService = new R2StorageService(properties, Runnable::run, s3Client, s3Presigner);
+	}
+
+	@Test
+	void streamIsUploadedAsOrderedParts() {
+		R2StorageService.UploadedObject uploaded = r2StorageService.uploadVideoStream(body(10), "video/mp4",
+				"match.mp4", UUID.randomUUID());
+
+		assertEquals(10, uploaded.getSize());
+		ArgumentCaptor<CompleteMultipartUploadRequest> completed = ArgumentCaptor
+				.forClass(CompleteMultipartUploadRequest.class);
+		verify(s3Client).completeMultipartUpload(completed.capture());
+		List<CompletedPart> parts = completed.getValue().multipartUpload().parts();
+		assertEquals(List.of(1, 2, 3), parts.stream().map(CompletedPart::partNumber).toList());
+		assertEquals(List.of("etag-1", "etag-2", "etag-3"), parts.stream().map(CompletedPart::eTag).toList());
+		assertEquals(UPLOAD_ID, completed.getValue().uploadId());
+	}
+
+	@Test
+	void streamLargerThanMaxObjectSizeIsAborted() {
+		assertThrows(BadRequestException.class, () -> r2StorageService.uploadVideoStream(body(20), "video/mp4",
+				"match.mp4", UUID.randomUUID()));
+
+		verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+	}
+
+	@Test
+	void failedPartAbortsUpload() {
+		when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+				.thenThrow((S3Exception) S3Exception.builder().message("part lỗi").statusCode(500).build());
+
+		assertThrows(StorageException.class, () -> r2StorageService.uploadVideoStream(body(10), "video/mp4",
+				"match.mp4", UUID.randomUUID()));
+
+		verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+	}
+
+	@Test
+	void failedCompletionAbortsUpload() {
+		when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+				.thenThrow((S3Exception) S3Exception.builder().message("complete lỗi").statusCode(500).build());
+
+		assertThrows(StorageException.class, () -> r2StorageService.uploadVideoStream(body(10), "video/mp4",
+				"match.mp4", UUID.randomUUID()));
+
+		// Các part đã upload không được để lại trong bucket
+		verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+	}
+
+	@Test
+	void emptyStreamIsRejected() {
+		assertThrows(BadRequestException.class, () -> r2StorageService.uploadVideoStream(body(0), "video/mp4",
+				"match.mp4", UUID.randomUUID()));
+
+		verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+	}
+
+	@Test
+	void presignedUrlIsReusedForSameRequest() {
+		String first = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+		String second = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+
+		assertEquals(first, second);
+		verify(s3Presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	@Test
+	void downloadAndOtherExpirationAreSignedSeparately() {
+		String view = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+		String shorter = r2StorageService.generatePresignedUrl(VIDEO_KEY, 5);
+		String download = r2StorageService.getDownloadUrl(VIDEO_KEY, 60, "match.mp4").getUrl();
+
+		assertNotEquals(view, shorter);
+		assertNotEquals(view, download);
+		verify(s3Presigner, times(3)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	@Test
+	void clientExpirationsAreRoundedUpToSharedBuckets() {
+		R2StorageService.PresignedUrl first = r2StorageService.getPresignedUrl(VIDEO_KEY, 41);
+		R2StorageService.PresignedUrl second = r2StorageService.getPresignedUrl(VIDEO_KEY, 59);
+
+		assertEquals(first.getUrl(), second.getUrl());
+		ArgumentCaptor<GetObjectPresignRequest> request = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+		verify(s3Presigner, times(1)).presignGetObject(request.capture());
+		assertEquals(Duration.ofMinutes(60), request.getValue().signatureDuration());
+		// Thời điểm hết hạn trả cho client là của URL đã ký, không phải thời hạn được yêu cầu
+		assertTrue(first.getExpiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(59))));
+	}
+
+	@Test
+	void expirationBucketsCoverAndCapRequestedMinutes() {
+		assertEquals(5, R2StorageService.expirationBucket(0));
+		assertEquals(15, R2StorageService.expirationBucket(6));
+		assertEquals(60, R2StorageService.expirationBucket(60));
+		assertEquals(10080, R2StorageService.expirationBucket(Integer.MAX_VALUE));
+	}
+
+	@Test
+	void uncachedUrlIsSignedEveryTimeWithExactLifetime() {
+		r2StorageService.generatePresignedUrl(VIDEO_KEY, 240);
+
+		// URL segment trong manifest không được lấy từ cache, cũng không được đưa vào cache
+		r2StorageService.signPresignedUrl(VIDEO_KEY, Duration.ofMinutes(210).plusSeconds(1));
+		r2StorageService.signPresignedUrl(VIDEO_KEY, Duration.ofDays(30));
+
+		ArgumentCaptor<GetObjectPresignRequest> request = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+		verify(s3Presigner, times(3)).presignGetObject(request.capture());
+		assertEquals(Duration.ofMinutes(211), request.getAllValues().get(1).signatureDuration());
+		assertEquals(Duration.ofDays(7), request.getAllValues().get(2).signatureDuration());
+	}
+
+	@Test
+	void deletedFileIsSignedAgain() {
+		String before = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+
+		r2StorageService.deleteFile(VIDEO_KEY);
+		String after = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+
+		verify(s3Client).deleteObject(any(DeleteObjectRequest.class));
+		assertNotEquals(before, after);
+		verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	@Test
+	void urlPastReuseWindowIsSignedAgain() {
+		// URL đã gần hết hạn thì không còn được dùng lại cho client khác
+		signedLifetime = Duration.ZERO;
+
+		String first = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+		String second = r2StorageService.generatePresignedUrl(VIDEO_KEY, 60);
+
+		assertNotEquals(first, second);
+		verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+	}
+
+	private static ByteArrayInputStream body(int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) i;
+		}
+		return new ByteArrayInputStream(data);
+	}
+}
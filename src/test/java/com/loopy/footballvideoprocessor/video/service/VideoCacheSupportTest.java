@@ -0,0 +1,98 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.loopy.footballvideoprocessor.config.CacheConfig;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+
+/**
+ * Kiểm tra danh sách video được bỏ khỏi cache bằng thế hệ danh sách của chủ sở
+ * hữu thay vì quét khóa theo prefix, và cache của người dùng bị xóa không còn
+ * được đọc lại
+ */
+class VideoCacheSupportTest {
+
+	private final UUID ownerId = UUID.randomUUID();
+	private final UUID otherId = UUID.randomUUID();
+
+	private SimpleCacheManager cacheManager;
+	private ConcurrentMapCache videoCache;
+	private VideoCacheSupport cacheSupport;
+
+	@BeforeEach
+	void setUp() {
+		videoCache = new ConcurrentMapCache(CacheConfig.VIDEO_CACHE);
+		cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(List.of(videoCache, new ConcurrentMapCache(CacheConfig.VIDEO_LIST_CACHE)));
+		cacheManager.afterPropertiesSet();
+		cacheSupport = new VideoCacheSupport(cacheManager, InMemoryRedisCounters.create());
+		loginAs(ownerId);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void listKeyMovesToNextGenerationOnlyForChangedOwner() {
+		String before = cacheSupport.listKey("all", 0, 10);
+		loginAs(otherId);
+		String otherBefore = cacheSupport.listKey("all", 0, 10);
+
+		cacheSupport.evictVideoLists(ownerId);
+
+		assertEquals(otherBefore, cacheSupport.listKey("all", 0, 10));
+		loginAs(ownerId);
+		assertEquals(ownerId + ":0:all:0:10", before);
+		assertEquals(ownerId + ":1:all:0:10", cacheSupport.listKey("all", 0, 10));
+	}
+
+	@Test
+	void deletedOwnerLosesCachedVideosAndLists() {
+		UUID videoId = UUID.randomUUID();
+		videoCache.put(ownerId + ":" + videoId, "video");
+		String listKey = cacheSupport.listKey("all", 0, 10);
+
+		cacheSupport.evictOwner(ownerId, List.of(videoId));
+
+		assertNull(videoCache.get(ownerId + ":" + videoId));
+		assertNotEquals(listKey, cacheSupport.listKey("all", 0, 10));
+	}
+
+	@Test
+	void unreadableGenerationNeverReusesCachedList() {
+		StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+		when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+		cacheSupport = new VideoCacheSupport(cacheManager, redisTemplate);
+
+		String first = cacheSupport.listKey("all", 0, 10);
+
+		assertNotNull(first);
+		assertNotEquals(first, cacheSupport.listKey("all", 0, 10));
+	}
+
+	private void loginAs(UUID userId) {
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, List.of());
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+}
@@ -0,0 +1,205 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * Kiểm tra proxy nội dung video xử lý Range, If-Range và If-None-Match, và đọc
+ * từ R2 theo từng ranged GET tối đa fetch-size byte
+ */
+class VideoContentStreamerTest {
+
+	private static final String KEY = "processed/owner/match.mp4";
+	private static final String ETAG = "\"etag-1\"";
+	private static final Instant LAST_MODIFIED = Instant.parse("2025-05-01T10:00:00Z");
+	private static final byte[] CONTENT = "0123456789".getBytes();
+
+	private R2StorageService r2StorageService;
+	private VideoContentStreamer streamer;
+
+	@BeforeEach
+	void setUp() {
+		r2StorageService = mock(R2StorageService.class);
+		when(r2StorageService.headFile(KEY)).thenReturn(HeadObjectResponse.builder()
+				.contentLength((long) CONTENT.length)
+				.eTag(ETAG)
+				.lastModified(LAST_MODIFIED)
+				.contentType("video/mp4")
+				.build());
+		when(r2StorageService.downloadFile(eq(KEY), anyLong(), anyLong(), eq(ETAG))).thenAnswer(invocation -> {
+			long from = invocation.getArgument(1);
+			long to = invocation.getArgument(2);
+			return new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(
+					new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, (int) from, (int) to + 1))));
+		});
+
+		VideoSegmentCache segmentCache = mock(VideoSegmentCache.class);
+		// Buffer và fetch-size nhỏ để một khoảng byte cần nhiều lần đọc từ R2
+		streamer = new VideoContentStreamer(r2StorageService, segmentCache, new SimpleMeterRegistry(), 2,
+				Duration.ofMillis(100), DataSize.ofBytes(3), DataSize.ofBytes(4), Duration.ofMinutes(1));
+	}
+
+	@Test
+	void rangeIsServedAsPartialContentInFetchSizedReads() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-7");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 2-7/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(6, response.getContentLengthLong());
+		assertEquals("234567", response.getContentAsString());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		verify(r2StorageService).downloadFile(KEY, 2, 5, ETAG);
+		verify(r2StorageService).downloadFile(KEY, 6, 7, ETAG);
+	}
+
+	@Test
+	void suffixRangeReturnsLastBytes() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("789", response.getContentAsString());
+	}
+
+	@Test
+	void requestWithoutRangeReturnsWholeObject() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, new MockHttpServletRequest(), response);
+
+		assertEquals(200, response.getStatus());
+		assertEquals(10, response.getContentLengthLong());
+		assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertArrayEquals(CONTENT, response.getContentAsByteArray());
+	}
+
+	@Test
+	void unsatisfiableRangeReturns416() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		verify(r2StorageService, never()).downloadFile(anyString(), anyLong(), anyLong(), anyString());
+	}
+
+	@Test
+	void staleIfRangeReturnsWholeObject() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-7");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"etag-0\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(200, response.getStatus());
+		assertArrayEquals(CONTENT, response.getContentAsByteArray());
+	}
+
+	@Test
+	void matchingIfRangeKeepsRange() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(206, response.getStatus());
+		assertEquals("01", response.getContentAsString());
+	}
+
+	@Test
+	void matchingIfNoneMatchReturns304WithoutReading() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(304, response.getStatus());
+		verify(r2StorageService, never()).downloadFile(anyString(), anyLong(), anyLong(), anyString());
+	}
+
+	@Test
+	void headRequestReturnsHeadersWithoutReadingContent() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/content");
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, request, response);
+
+		assertEquals(206, response.getStatus());
+		assertEquals(4, response.getContentLengthLong());
+		assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("video/mp4", response.getContentType());
+		assertEquals(0, response.getContentAsByteArray().length);
+		verify(r2StorageService, never()).downloadFile(anyString(), anyLong(), anyLong(), anyString());
+	}
+
+	@Test
+	void responseIsInlineAndNotSniffed() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		streamer.stream(KEY, new MockHttpServletRequest(), response);
+
+		assertEquals("inline", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+		assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+	}
+
+	@Test
+	void onlyVideoContentTypesAreEchoed() {
+		assertEquals("video/webm", VideoContentStreamer.safeContentType("video/webm; codecs=vp9"));
+		assertEquals("video/mp4", VideoContentStreamer.safeContentType(null));
+		assertEquals("application/octet-stream", VideoContentStreamer.safeContentType("text/html"));
+		assertEquals("application/octet-stream", VideoContentStreamer.safeContentType("video/*"));
+		assertEquals("application/octet-stream", VideoContentStreamer.safeContentType("not a type"));
+	}
+
+	@Test
+	void objectMetadataIsReusedAcrossSeeks() throws Exception {
+		for (String range : new String[] { "bytes=0-1", "bytes=5-6" }) {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			request.addHeader(HttpHeaders.RANGE, range);
+			streamer.stream(KEY, request, new MockHttpServletResponse());
+		}
+
+		verify(r2StorageService).headFile(KEY);
+	}
+}
@@ -0,0 +1,210 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * Kiểm tra việc viết lại manifest HLS/DASH: segment được thay bằng presigned
+ * URL ký mới đủ hạn tới hết video, playlist con trỏ về endpoint HLS, BaseURL
+ * của DASH được giải theo từng cấp rồi bỏ đi, template DASH được giữ nguyên và
+ * đường dẫn thoát khỏi thư mục video bị từ chối
+ */
+class VideoManifestServiceTest {
+
+	private static final String MANIFEST = "processed/owner/video.m3u8";
+	private static final String DASH_MANIFEST = "processed/owner/video.mpd";
+	private static final String SEGMENT_DIR = "processed/owner/video/";
+	private static final String SIGNED = "https://r2.example.com/signed/";
+
+	private R2StorageService r2StorageService;
+	private VideoManifestService manifestService;
+
+	@BeforeEach
+	void setUp() {
+		r2StorageService = mock(R2StorageService.class);
+		when(r2StorageService.signPresignedUrl(anyString(), any(Duration.class))).thenAnswer(invocation ->
+				new R2StorageService.PresignedUrl(SIGNED + invocation.getArgument(0), Instant.now().plusSeconds(7_200)));
+		manifestService = new VideoManifestService(r2StorageService, Duration.ofHours(2), Duration.ofSeconds(30));
+	}
+
+	@Test
+	void masterPlaylistPointsVariantsBackToHlsEndpoint() {
+		givenManifest(MANIFEST, """
+				#EXTM3U
+				#EXT-X-STREAM-INF:BANDWIDTH=800000,RESOLUTION=640x360
+				video/360p.m3u8
+
+				#EXT-X-STREAM-INF:BANDWIDTH=2000000,RESOLUTION=1280x720
+				https://cdn.example.com/720p.m3u8
+				""");
+
+		String playlist = manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, null);
+
+		assertEquals("""
+				#EXTM3U
+				#EXT-X-STREAM-INF:BANDWIDTH=800000,RESOLUTION=640x360
+				hls?playlist=processed%2Fowner%2Fvideo%2F360p.m3u8
+
+				#EXT-X-STREAM-INF:BANDWIDTH=2000000,RESOLUTION=1280x720
+				https://cdn.example.com/720p.m3u8
+				""", playlist);
+		verify(r2StorageService, never()).signPresignedUrl(anyString(), any(Duration.class));
+	}
+
+	@Test
+	void mediaPlaylistSignsSegmentsAndUriAttributes() {
+		givenManifest(SEGMENT_DIR + "360p.m3u8", """
+				#EXTM3U
+				#EXT-X-MAP:URI="init.mp4"
+				#EXTINF:6.0,
+				seg-1.m4s
+				#EXTINF:6.0,
+				seg-2.m4s
+				#EXT-X-ENDLIST
+				""");
+
+		String playlist = manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, SEGMENT_DIR + "360p.m3u8");
+
+		assertEquals("""
+				#EXTM3U
+				#EXT-X-MAP:URI="%1$sprocessed/owner/video/init.mp4"
+				#EXTINF:6.0,
+				%1$sprocessed/owner/video/seg-1.m4s
+				#EXTINF:6.0,
+				%1$sprocessed/owner/video/seg-2.m4s
+				#EXT-X-ENDLIST
+				""".formatted(SIGNED), playlist);
+		// Thời hạn URL bằng độ dài playlist (12s) cộng segment-url-expiration (2h),
+		// ký mới thay vì lấy URL có thể đã dùng hết một phần thời hạn từ cache
+		verify(r2StorageService).signPresignedUrl(SEGMENT_DIR + "seg-1.m4s", Duration.ofHours(2).plusSeconds(12));
+		verify(r2StorageService, never()).getPresignedUrl(anyString(), anyInt());
+	}
+
+	@Test
+	void playlistOutsideVideoDirectoryIsRejected() {
+		assertThrows(BadRequestException.class,
+				() -> manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, "processed/other/video/360p.m3u8"));
+		assertThrows(BadRequestException.class,
+				() -> manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, SEGMENT_DIR + "../../other.m3u8"));
+		verify(r2StorageService, never()).downloadFile(anyString());
+	}
+
+	@Test
+	void segmentEscapingVideoDirectoryIsNotSigned() {
+		givenManifest(MANIFEST, """
+				#EXTM3U
+				#EXTINF:6.0,
+				../other/seg-1.m4s
+				""");
+
+		assertThrows(StorageException.class, () -> manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, null));
+		verify(r2StorageService, never()).signPresignedUrl(anyString(), any(Duration.class));
+	}
+
+	@Test
+	void dashManifestResolvesSegmentsAgainstBaseUrlChain() {
+		givenManifest(DASH_MANIFEST, """
+				<MPD mediaPresentationDuration="PT1H30M">
+				  <BaseURL>video/</BaseURL>
+				  <BaseURL>https://backup.example.com/</BaseURL>
+				  <Period>
+				    <AdaptationSet>
+				      <Representation id="360p">
+				        <BaseURL>360p/</BaseURL>
+				        <SegmentList>
+				          <Initialization sourceURL="init.mp4?v=1&amp;t=2"/>
+				          <SegmentURL media="seg-1.m4s"/>
+				        </SegmentList>
+				      </Representation>
+				      <Representation id="720p">
+				        <SegmentList>
+				          <SegmentURL media="720p/seg-1.m4s"/>
+				        </SegmentList>
+				        <SegmentTemplate media="seg-$Number$.m4s"/>
+				      </Representation>
+				    </AdaptationSet>
+				  </Period>
+				</MPD>
+				""");
+
+		String manifest = manifestService.getDashManifest(DASH_MANIFEST);
+
+		// BaseURL bị bỏ vì URL đã ký là tuyệt đối; BaseURL thay thế thứ hai bị bỏ qua
+		assertEquals("""
+				<MPD mediaPresentationDuration="PT1H30M">
+				  <Period>
+				    <AdaptationSet>
+				      <Representation id="360p">
+				        <SegmentList>
+				          <Initialization sourceURL="%1$sprocessed/owner/video/360p/init.mp4?v=1&amp;t=2"/>
+				          <SegmentURL media="%1$sprocessed/owner/video/360p/seg-1.m4s"/>
+				        </SegmentList>
+				      </Representation>
+				      <Representation id="720p">
+				        <SegmentList>
+				          <SegmentURL media="%1$sprocessed/owner/video/720p/seg-1.m4s"/>
+				        </SegmentList>
+				        <SegmentTemplate media="seg-$Number$.m4s"/>
+				      </Representation>
+				    </AdaptationSet>
+				  </Period>
+				</MPD>
+				""".formatted(SIGNED), manifest);
+		// &amp; trong XML được bỏ escape trước khi ký; thời hạn gồm cả độ dài video
+		verify(r2StorageService).signPresignedUrl(SEGMENT_DIR + "360p/init.mp4?v=1&t=2",
+				Duration.ofMinutes(210));
+	}
+
+	@Test
+	void dashBaseUrlEscapingVideoDirectoryIsRejected() {
+		givenManifest(DASH_MANIFEST, """
+				<MPD>
+				  <BaseURL>../other/</BaseURL>
+				  <SegmentList>
+				    <SegmentURL media="seg-1.m4s"/>
+				  </SegmentList>
+				</MPD>
+				""");
+
+		assertThrows(StorageException.class, () -> manifestService.getDashManifest(DASH_MANIFEST));
+		verify(r2StorageService, never()).signPresignedUrl(anyString(), any(Duration.class));
+	}
+
+	@Test
+	void manifestIsDownloadedOnceWithinCacheTtl() {
+		givenManifest(MANIFEST, "#EXTM3U\n");
+
+		manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, null);
+		manifestService.getHlsPlaylist(MANIFEST, SEGMENT_DIR, null);
+
+		verify(r2StorageService).downloadFile(MANIFEST);
+	}
+
+	private void givenManifest(String key, String content) {
+		when(r2StorageService.downloadFile(key)).thenAnswer(invocation -> new ResponseInputStream<>(
+				GetObjectResponse.builder().build(),
+				AbortableInputStream.create(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))));
+	}
+}
@@ -0,0 +1,205 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * Kiểm tra cache segment trên đĩa: đọc đúng khoảng byte qua nhiều segment, tải
+ * lại segment có file đã bị xóa, gộp các request trượt cùng segment vào một lần
+ * tải, xóa file khi vượt max-disk-size và không để request chờ lần tải của request
+ * khác quá load-timeout
+ */
+class VideoSegmentCacheTest {
+
+	private static final String KEY = "processed/owner/match.mp4";
+	private static final String ETAG = "\"etag-1\"";
+	private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+	@TempDir
+	Path directory;
+
+	private R2StorageService r2StorageService;
+	private VideoSegmentCache segmentCache;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		r2StorageService = mock(R2StorageService.class);
+		when(r2StorageService.downloadFile(eq(KEY), anyLong(), anyLong(), eq(ETAG)))
+				.thenAnswer(invocation -> slice(invocation.getArgument(1), invocation.getArgument(2)));
+		segmentCache = newCache(Duration.ofSeconds(10));
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void rangeAcrossSegmentsIsReadFromDisk() throws Exception {
+		assertArrayEquals("2345678".getBytes(StandardCharsets.US_ASCII), copy(2, 8));
+		assertArrayEquals("456".getBytes(StandardCharsets.US_ASCII), copy(4, 6));
+
+		// Segment [0-3], [4-7], [8-9] mỗi segment chỉ được tải từ R2 một lần
+		verify(r2StorageService).downloadFile(KEY, 0, 3, ETAG);
+		verify(r2StorageService).downloadFile(KEY, 4, 7, ETAG);
+		verify(r2StorageService).downloadFile(KEY, 8, 9, ETAG);
+		assertEquals(3, segmentFiles().size());
+	}
+
+	@Test
+	void segmentWithDeletedFileIsLoadedAgain() throws Exception {
+		copy(0, 3);
+		// Giống segment bị loại và xóa file ngay trước khi request mở nó
+		for (Path file : segmentFiles()) {
+			Files.delete(file);
+		}
+
+		assertArrayEquals("0123".getBytes(StandardCharsets.US_ASCII), copy(0, 3));
+		verify(r2StorageService, times(2)).downloadFile(KEY, 0, 3, ETAG);
+	}
+
+	@Test
+	void waiterGivesUpAfterLoadTimeout() throws Exception {
+		segmentCache = newCache(Duration.ofMillis(100));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(r2StorageService.downloadFile(eq(KEY), anyLong(), anyLong(), eq(ETAG))).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return slice(invocation.getArgument(1), invocation.getArgument(2));
+		});
+
+		Future<byte[]> first = executor.submit(() -> copy(0, 3));
+		assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+		assertThrows(StorageException.class, () -> copy(0, 3));
+
+		// Request đầu tiên vẫn hoàn tất lần tải của nó
+		release.countDown();
+		assertArrayEquals("0123".getBytes(StandardCharsets.US_ASCII), first.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void concurrentMissesShareOneDownload() throws Exception {
+		int readers = 4;
+		CountDownLatch ready = new CountDownLatch(readers);
+		CountDownLatch release = new CountDownLatch(1);
+		when(r2StorageService.downloadFile(eq(KEY), anyLong(), anyLong(), eq(ETAG))).thenAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return slice(invocation.getArgument(1), invocation.getArgument(2));
+		});
+		ExecutorService pool = Executors.newFixedThreadPool(readers);
+		try {
+			List<Future<byte[]>> reads = new ArrayList<>();
+			for (int i = 0; i < readers; i++) {
+				reads.add(pool.submit(() -> {
+					ready.countDown();
+					return copy(0, 3);
+				}));
+			}
+			assertTrue(ready.await(10, TimeUnit.SECONDS));
+			// Cho các request kịp trượt cache và chờ trên lần tải đang bị giữ
+			Thread.sleep(100);
+			release.countDown();
+
+			for (Future<byte[]> read : reads) {
+				assertArrayEquals("0123".getBytes(StandardCharsets.US_ASCII), read.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		verify(r2StorageService, times(1)).downloadFile(KEY, 0, 3, ETAG);
+		assertEquals(1, segmentFiles().size());
+	}
+
+	@Test
+	void segmentFilesAreDeletedWhenDiskQuotaIsExceeded() throws Exception {
+		// Tối đa 8 byte: hai segment 4 byte, segment thứ ba buộc phải loại bớt
+		segmentCache = newCache(Duration.ofSeconds(10), DataSize.ofBytes(8));
+
+		assertArrayEquals(CONTENT, copy(0, 9));
+
+		// Caffeine loại entry và gọi removal listener bất đồng bộ
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (totalSegmentBytes() > 8 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(totalSegmentBytes() <= 8);
+		assertTrue(segmentFiles().size() < 3);
+		// Segment bị loại được tải lại khi cần
+		assertArrayEquals(CONTENT, copy(0, 9));
+	}
+
+	private VideoSegmentCache newCache(Duration loadTimeout) throws Exception {
+		return newCache(loadTimeout, DataSize.ofKilobytes(1));
+	}
+
+	private VideoSegmentCache newCache(Duration loadTimeout, DataSize maxDiskSize) throws Exception {
+		return new VideoSegmentCache(r2StorageService, new SimpleMeterRegistry(), true, directory,
+				DataSize.ofBytes(4), maxDiskSize, loadTimeout);
+	}
+
+	private long totalSegmentBytes() throws Exception {
+		long total = 0;
+		for (Path file : segmentFiles()) {
+			total += Files.size(file);
+		}
+		return total;
+	}
+
+	private byte[] copy(long start, long end) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		segmentCache.copy(KEY, ETAG, CONTENT.length, start, end, out, new byte[3]);
+		return out.toByteArray();
+	}
+
+	private List<Path> segmentFiles() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.toList();
+		}
+	}
+
+	private static ResponseInputStream<GetObjectResponse> slice(long from, long to) {
+		return new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(
+				new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, (int) from, (int) to + 1))));
+	}
+}
@@ -0,0 +1,315 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.loopy.footballvideoprocessor.common.dto.PagedResponse;
+import com.loopy.footballvideoprocessor.config.CacheConfig;
+import com.loopy.footballvideoprocessor.config.TwoTierCache;
+import com.loopy.footballvideoprocessor.config.TwoTierCacheManager;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.user.model.User;
+import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.mapper.VideoMapper;
+import com.loopy.footballvideoprocessor.video.model.Video;
+import com.loopy.footballvideoprocessor.video.model.VideoStatus;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+import com.loopy.footballvideoprocessor.video.repository.VideoQueryRepository;
+import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Kiểm tra cache của VideoServiceImpl qua proxy @Cacheable thật: một lần đọc
+ * chạy đồng thời với cập nhật, xóa hoặc đổi trạng thái video không để lại giá
+ * trị cũ trong cache sau khi transaction ghi commit
+ */
+class VideoServiceCacheTest {
+
+	private final UUID ownerId = UUID.randomUUID();
+	private final UUID videoId = UUID.randomUUID();
+
+	// Trạng thái đã commit của video trong "cơ sở dữ liệu"
+	private final AtomicReference<String> committedTitle = new AtomicReference<>("Trận cũ");
+	private final AtomicReference<VideoStatus> committedStatus = new AtomicReference<>(VideoStatus.COMPLETED);
+
+	private final CountDownLatch readStarted = new CountDownLatch(1);
+	private final CountDownLatch writeCommitted = new CountDownLatch(1);
+
+	private VideoRepository videoRepository;
+	private VideoQueryRepository videoQueryRepository;
+	private AnnotationConfigApplicationContext context;
+	private VideoService videoService;
+	private CacheManager cacheManager;
+	private ExecutorService reader;
+
+	@BeforeEach
+	void setUp() {
+		videoRepository = mock(VideoRepository.class);
+		videoQueryRepository = mock(VideoQueryRepository.class);
+		UserRepository userRepository = mock(UserRepository.class);
+		User owner = owner();
+		when(userRepository.getReferenceById(ownerId)).thenReturn(owner);
+		when(videoRepository.save(any(Video.class))).thenAnswer(invocation -> {
+			Video video = invocation.getArgument(0);
+			committedTitle.set(video.getTitle());
+			committedStatus.set(video.getStatus());
+			return video;
+		});
+
+		context = new AnnotationConfigApplicationContext();
+		// Chuyển đổi "50MB" của @Value sang DataSize như trong ứng dụng
+		context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+		context.registerBean(VideoRepository.class, () -> videoRepository);
+		context.registerBean(VideoQueryRepository.class, () -> videoQueryRepository);
+		context.registerBean(UserRepository.class, () -> userRepository);
+		context.register(CachingConfiguration.class);
+		context.refresh();
+		videoService = context.getBean(VideoService.class);
+		cacheManager = context.getBean(CacheManager.class);
+
+		reader = Executors.newSingleThreadExecutor();
+		loginAsOwner();
+	}
+
+	@AfterEach
+	void tearDown() {
+		reader.shutdownNow();
+		context.close();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void updateDuringCachedReadLeavesNoStaleVideo() throws Exception {
+		givenReadsBlockUntilCommitted();
+
+		Future<VideoDto> read = readAsOwner(() -> videoService.getVideo(videoId));
+		assertTrue(readStarted.await(10, TimeUnit.SECONDS));
+		VideoDto update = new VideoDto();
+		update.setTitle("Trận mới");
+		videoService.updateVideo(videoId, update);
+		writeCommitted.countDown();
+
+		// Request đọc đồng thời vẫn nhận giá trị nó đã đọc, nhưng giá trị đó không ở lại cache
+		assertEquals("Trận cũ", read.get(10, TimeUnit.SECONDS).getTitle());
+		assertNull(cachedValue(CacheConfig.VIDEO_CACHE, ownerId + ":" + videoId));
+		assertEquals("Trận mới", videoService.getVideo(videoId).getTitle());
+	}
+
+	@Test
+	void statusChangeDuringCachedReadLeavesNoStaleVideo() throws Exception {
+		givenReadsBlockUntilCommitted();
+
+		Future<VideoDto> read = readAsOwner(() -> videoService.getVideo(videoId));
+		assertTrue(readStarted.await(10, TimeUnit.SECONDS));
+		videoService.reprocessVideo(videoId);
+		writeCommitted.countDown();
+
+		assertEquals(VideoStatus.COMPLETED, read.get(10, TimeUnit.SECONDS).getStatus());
+		assertNull(cachedValue(CacheConfig.VIDEO_CACHE, ownerId + ":" + videoId));
+		assertEquals(VideoStatus.PENDING, videoService.getVideo(videoId).getStatus());
+	}
+
+	@Test
+	void deleteDuringCachedListReadLeavesNoStaleList() throws Exception {
+		when(videoRepository.findById(videoId)).thenAnswer(invocation -> Optional.of(committedVideo()));
+		when(videoRepository.countByUser(any(User.class)))
+				.thenAnswer(invocation -> committedTitle.get() != null ? 1L : 0L);
+		when(videoQueryRepository.findByUser(eq(ownerId), isNull(), anyLong(), anyInt())).thenAnswer(invocation -> {
+			// Danh sách được đọc trước khi video bị xóa và trả về sau khi lần xóa commit
+			List<VideoDto> page = committedTitle.get() != null ? List.of(committedDto()) : List.of();
+			if (readStarted.getCount() > 0) {
+				readStarted.countDown();
+				writeCommitted.await(10, TimeUnit.SECONDS);
+			}
+			return page;
+		});
+		doAnswer(invocation -> {
+			committedTitle.set(null);
+			return null;
+		}).when(videoRepository).delete(any(Video.class));
+
+		Future<PagedResponse<VideoDto>> read = readAsOwner(() -> videoService.getAllVideos(0, 10));
+		assertTrue(readStarted.await(10, TimeUnit.SECONDS));
+		videoService.deleteVideo(videoId);
+		writeCommitted.countDown();
+
+		assertEquals(1, read.get(10, TimeUnit.SECONDS).getContent().size());
+		// Trang cũ có thể còn dưới thế hệ 0 nhưng lần xóa đã chuyển danh sách sang thế hệ 1
+		assertNull(cachedValue(CacheConfig.VIDEO_LIST_CACHE, ownerId + ":1:all:0:10"));
+		assertTrue(videoService.getAllVideos(0, 10).getContent().isEmpty());
+	}
+
+	/**
+	 * Lần đọc đầu tiên (của thread reader) lấy dữ liệu đã commit rồi chờ tới khi
+	 * transaction ghi commit xong mới trả về, giống một truy vấn chậm
+	 */
+	private void givenReadsBlockUntilCommitted() {
+		when(videoRepository.findById(videoId)).thenAnswer(invocation -> {
+			Video video = committedVideo();
+			if (readStarted.getCount() > 0) {
+				readStarted.countDown();
+				writeCommitted.await(10, TimeUnit.SECONDS);
+			}
+			return Optional.of(video);
+		});
+	}
+
+	private <T> Future<T> readAsOwner(Callable<T> read) {
+		return reader.submit(() -> {
+			loginAsOwner();
+			try {
+				return read.call();
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		});
+	}
+
+	private Object cachedValue(String cacheName, String key) {
+		Cache.ValueWrapper wrapper = cacheManager.getCache(cacheName).get(key);
+		return wrapper != null ? wrapper.get() : null;
+	}
+
+	private void loginAsOwner() {
+		AuthenticatedUser principal = new AuthenticatedUser(ownerId, "coach", "", true, List.of());
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	private Video committedVideo() {
+		Video video = new Video();
+		video.setId(videoId);
+		video.setUser(owner());
+		video.setTitle(committedTitle.get());
+		video.setVideoType(VideoType.UPLOADED);
+		video.setStatus(committedStatus.get());
+		video.setFilePath("videos/" + ownerId + "/match.mp4");
+		return video;
+	}
+
+	private VideoDto committedDto() {
+		return new VideoMapper().toDto(committedVideo());
+	}
+
+	private User owner() {
+		User owner = new User();
+		owner.setId(ownerId);
+		owner.setUsername("coach");
+		return owner;
+	}
+
+	/**
+	 * Cấu hình cache và transaction giống ứng dụng: cache hai tầng bọc trong
+	 * TransactionAwareCacheDecorator, xóa cache sau khi commit
+	 */
+	@Configuration
+	@EnableCaching
+	@EnableTransactionManagement
+	static class CachingConfiguration {
+
+		@Bean
+		CacheManager cacheManager() {
+			SimpleCacheManager cacheManager = new SimpleCacheManager();
+			cacheManager.setCaches(List.of(twoTierCache(CacheConfig.VIDEO_CACHE),
+					twoTierCache(CacheConfig.VIDEO_LIST_CACHE)));
+			return cacheManager;
+		}
+
+		@Bean
+		PlatformTransactionManager transactionManager() {
+			return new SynchronizingTransactionManager();
+		}
+
+		@Bean
+		VideoCacheSupport videoCacheSupport(CacheManager cacheManager) {
+			return new VideoCacheSupport(cacheManager, InMemoryRedisCounters.create());
+		}
+
+		@Bean
+		VideoService videoService(VideoRepository videoRepository, VideoQueryRepository videoQueryRepository,
+				UserRepository userRepository, PlatformTransactionManager transactionManager,
+				VideoCacheSupport videoCacheSupport) {
+			return new VideoServiceImplBuilder()
+					.videoRepository(videoRepository)
+					.videoQueryRepository(videoQueryRepository)
+					.userRepository(userRepository)
+					.transactionManager(transactionManager)
+					.videoCacheSupport(videoCacheSupport)
+					.build();
+		}
+
+		private static Cache twoTierCache(String name) {
+			return new TransactionAwareCacheDecorator(new TwoTierCache(name,
+					Caffeine.newBuilder().build(),
+					new ConcurrentMapCache(name, false), mock(TwoTierCacheManager.class), new SimpleMeterRegistry()));
+		}
+	}
+
+	/**
+	 * Transaction manager không có tài nguyên thật nhưng chạy đầy đủ các
+	 * TransactionSynchronization, để việc xóa cache sau commit diễn ra như thật
+	 */
+	static class SynchronizingTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+}
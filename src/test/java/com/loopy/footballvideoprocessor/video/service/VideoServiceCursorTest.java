@@ -0,0 +1,124 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.loopy.footballvideoprocessor.common.dto.CursorPagedResponse;
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.dashboard.service.DashboardStatsService;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.video.dto.VideoCursor;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.VideoType;
+import com.loopy.footballvideoprocessor.video.repository.VideoQueryRepository;
+
+/**
+ * Kiểm tra phân trang danh sách video theo cursor (createdAt, id)
+ */
+class VideoServiceCursorTest {
+
+	private static final LocalDateTime NEWEST = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+	private final UUID userId = UUID.randomUUID();
+
+	private VideoQueryRepository videoQueryRepository;
+	private DashboardStatsService dashboardStatsService;
+	private VideoServiceImpl videoService;
+
+	@BeforeEach
+	void setUp() {
+		videoQueryRepository = mock(VideoQueryRepository.class);
+		dashboardStatsService = mock(DashboardStatsService.class);
+		videoService = new VideoServiceImplBuilder()
+				.dashboardStatsService(dashboardStatsService)
+				.videoQueryRepository(videoQueryRepository)
+				.build();
+
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, List.of());
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void firstPageStartsBeforeNewestVideoAndPointsToLastItem() {
+		List<VideoDto> rows = videos(4);
+		when(videoQueryRepository.findByUserAfter(eq(userId), eq(null), eq(VideoCursor.START.getCreatedAt()),
+				eq(VideoCursor.START.getId()), eq(4))).thenReturn(rows);
+
+		CursorPagedResponse<VideoDto> page = videoService.getVideosByCursor(null, null, 3, false);
+
+		assertEquals(3, page.getContent().size());
+		assertTrue(page.isHasNext());
+		assertEquals(VideoCursor.of(rows.get(2)), VideoCursor.decode(page.getNextCursor()));
+		assertNull(page.getTotalElements());
+		verify(dashboardStatsService, never()).countVideos(any(), any());
+	}
+
+	@Test
+	void nextPageContinuesFromCursor() {
+		VideoDto last = videos(1).get(0);
+		String cursor = VideoCursor.of(last).encode();
+		when(videoQueryRepository.findByUserAfter(eq(userId), eq(VideoType.UPLOADED), eq(last.getCreatedAt()),
+				eq(last.getId()), eq(3))).thenReturn(videos(2));
+		when(dashboardStatsService.countVideos(userId, VideoType.UPLOADED)).thenReturn(3L);
+
+		CursorPagedResponse<VideoDto> page = videoService.getVideosByCursor(VideoType.UPLOADED, cursor, 2, true);
+
+		assertEquals(2, page.getContent().size());
+		assertFalse(page.isHasNext());
+		assertNull(page.getNextCursor());
+		assertEquals(3L, page.getTotalElements());
+	}
+
+	@Test
+	void malformedCursorIsRejected() {
+		assertThrows(BadRequestException.class, () -> videoService.getVideosByCursor(null, "không-phải-cursor", 10,
+				false));
+		assertThrows(BadRequestException.class, () -> VideoCursor.decode("bWlzc2luZy1zZXBhcmF0b3I"));
+	}
+
+	@Test
+	void pageSizeIsBounded() {
+		assertThrows(BadRequestException.class, () -> videoService.getVideosByCursor(null, null, 0, false));
+		assertThrows(BadRequestException.class, () -> videoService.getVideosByCursor(null, null, 101, false));
+		verify(videoQueryRepository, never()).findByUserAfter(any(), any(), any(), any(), anyInt());
+	}
+
+	// Các video mới nhất trước, sắp xếp giống truy vấn
+	private List<VideoDto> videos(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> VideoDto.builder()
+						.id(UUID.randomUUID())
+						.userId(userId)
+						.title("Trận " + i)
+						.createdAt(NEWEST.minusMinutes(i))
+						.build())
+				.toList();
+	}
+}
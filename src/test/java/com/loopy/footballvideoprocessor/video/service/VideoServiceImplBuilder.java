@@ -0,0 +1,103 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.mockito.Mockito.mock;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.loopy.footballvideoprocessor.config.CloudflareProperties;
+import com.loopy.footballvideoprocessor.dashboard.service.DashboardStatsService;
+import com.loopy.footballvideoprocessor.messaging.service.OutboxService;
+import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.video.mapper.VideoMapper;
+import com.loopy.footballvideoprocessor.video.repository.UploadSessionRepository;
+import com.loopy.footballvideoprocessor.video.repository.VideoQueryRepository;
+import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
+
+/**
+ * Tạo VideoServiceImpl cho test: mọi phụ thuộc mặc định là mock, mỗi test chỉ
+ * thay những phụ thuộc nó cần kiểm soát. Khi constructor thay đổi chỉ cần sửa
+ * lớp này.
+ */
+class VideoServiceImplBuilder {
+
+	private VideoRepository videoRepository = mock(VideoRepository.class);
+	private R2StorageService r2StorageService = mock(R2StorageService.class);
+	private UserRepository userRepository = mock(UserRepository.class);
+	private OutboxService outboxService = mock(OutboxService.class);
+	private PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+	private CloudflareProperties cloudflareProperties = new CloudflareProperties();
+	private DashboardStatsService dashboardStatsService = mock(DashboardStatsService.class);
+	private VideoQueryRepository videoQueryRepository = mock(VideoQueryRepository.class);
+	private ProcessingEventBroadcaster processingEventBroadcaster = mock(ProcessingEventBroadcaster.class);
+	private VideoCacheSupport videoCacheSupport = mock(VideoCacheSupport.class);
+	// Giá trị mặc định của app.video.processing.high-priority-max-size
+	private DataSize highPriorityMaxSize = DataSize.ofMegabytes(50);
+
+	VideoServiceImplBuilder videoRepository(VideoRepository videoRepository) {
+		this.videoRepository = videoRepository;
+		return this;
+	}
+
+	VideoServiceImplBuilder r2StorageService(R2StorageService r2StorageService) {
+		this.r2StorageService = r2StorageService;
+		return this;
+	}
+
+	VideoServiceImplBuilder userRepository(UserRepository userRepository) {
+		this.userRepository = userRepository;
+		return this;
+	}
+
+	VideoServiceImplBuilder outboxService(OutboxService outboxService) {
+		this.outboxService = outboxService;
+		return this;
+	}
+
+	VideoServiceImplBuilder transactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionManager = transactionManager;
+		return this;
+	}
+
+	VideoServiceImplBuilder uploadSessionRepository(UploadSessionRepository uploadSessionRepository) {
+		this.uploadSessionRepository = uploadSessionRepository;
+		return this;
+	}
+
+	VideoServiceImplBuilder cloudflareProperties(CloudflareProperties cloudflareProperties) {
+		this.cloudflareProperties = cloudflareProperties;
+		return this;
+	}
+
+	VideoServiceImplBuilder dashboardStatsService(DashboardStatsService dashboardStatsService) {
+		this.dashboardStatsService = dashboardStatsService;
+		return this;
+	}
+
+	VideoServiceImplBuilder videoQueryRepository(VideoQueryRepository videoQueryRepository) {
+		this.videoQueryRepository = videoQueryRepository;
+		return this;
+	}
+
+	VideoServiceImplBuilder videoCacheSupport(VideoCacheSupport videoCacheSupport) {
+		this.videoCacheSupport = videoCacheSupport;
+		return this;
+	}
+
+	VideoServiceImplBuilder highPriorityMaxSize(DataSize highPriorityMaxSize) {
+		this.highPriorityMaxSize = highPriorityMaxSize;
+		return this;
+	}
+
+	VideoServiceImpl build() {
+		VideoServiceImpl videoService = new VideoServiceImpl(videoRepository, r2StorageService, new VideoMapper(),
+				userRepository, outboxService, new TransactionTemplate(transactionManager), uploadSessionRepository,
+				cloudflareProperties, dashboardStatsService, videoQueryRepository, processingEventBroadcaster,
+				videoCacheSupport);
+		ReflectionTestUtils.setField(videoService, "highPriorityMaxSize", highPriorityMaxSize);
+		return videoService;
+	}
+}
@@ -0,0 +1,144 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.user.model.User;
+import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.dto.VideoStreamUploadRequest;
+import com.loopy.footballvideoprocessor.video.model.Video;
+import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
+
+/**
+ * Kiểm tra upload video dạng streaming: DTO được tạo khi người dùng (proxy
+ * lazy) còn đọc được và file trên R2 chỉ bị xóa khi video chưa được lưu
+ */
+class VideoServiceStreamUploadTest {
+
+	private static final String VIDEO_KEY = "videos/match.mp4";
+
+	private final UUID userId = UUID.randomUUID();
+	private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+	private PlatformTransactionManager transactionManager;
+	private VideoRepository videoRepository;
+	private R2StorageService r2StorageService;
+	private VideoServiceImpl videoService;
+
+	@BeforeEach
+	void setUp() {
+		transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+			inTransaction.set(true);
+			return new SimpleTransactionStatus();
+		});
+		doAnswer(invocation -> {
+			inTransaction.set(false);
+			return null;
+		}).when(transactionManager).commit(any());
+
+		User user = mock(User.class);
+		when(user.getId()).thenReturn(userId);
+		when(user.getUsername()).thenAnswer(invocation -> {
+			if (!inTransaction.get()) {
+				throw new LazyInitializationException("could not initialize proxy - no Session");
+			}
+			return "coach";
+		});
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.getReferenceById(userId)).thenReturn(user);
+
+		videoRepository = mock(VideoRepository.class);
+		when(videoRepository.save(any(Video.class))).thenAnswer(invocation -> {
+			Video video = invocation.getArgument(0);
+			video.setId(UUID.randomUUID());
+			return video;
+		});
+		r2StorageService = mock(R2StorageService.class);
+		when(r2StorageService.uploadVideoStream(any(InputStream.class), anyString(), anyString(), any(UUID.class)))
+				.thenReturn(new R2StorageService.UploadedObject(VIDEO_KEY, 8));
+
+		videoService = new VideoServiceImplBuilder()
+				.videoRepository(videoRepository)
+				.r2StorageService(r2StorageService)
+				.userRepository(userRepository)
+				.transactionManager(transactionManager)
+				.build();
+
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, List.of());
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void committedUploadReturnsDtoAndKeepsFile() {
+		VideoDto video = videoService.uploadVideoStream(request(), body(), "video/mp4");
+
+		assertEquals("coach", video.getUsername());
+		assertEquals(8L, video.getFileSize());
+		verify(r2StorageService, never()).deleteFile(anyString());
+	}
+
+	@Test
+	void failedCommitDeletesUploadedFile() {
+		doThrow(new TransactionSystemException("commit lỗi")).when(transactionManager).commit(any());
+
+		assertThrows(TransactionSystemException.class,
+				() -> videoService.uploadVideoStream(request(), body(), "video/mp4"));
+
+		verify(r2StorageService).deleteFile(VIDEO_KEY);
+	}
+
+	@Test
+	void failedInsertDeletesUploadedFile() {
+		when(videoRepository.save(any(Video.class))).thenThrow(new IllegalStateException("insert lỗi"));
+
+		assertThrows(IllegalStateException.class,
+				() -> videoService.uploadVideoStream(request(), body(), "video/mp4"));
+
+		verify(r2StorageService).deleteFile(VIDEO_KEY);
+	}
+
+	private static VideoStreamUploadRequest request() {
+		return VideoStreamUploadRequest.builder()
+				.title("Trận đấu")
+				.fileName("match.mp4")
+				.isDownloadable(true)
+				.build();
+	}
+
+	private static InputStream body() {
+		return new ByteArrayInputStream(new byte[8]);
+	}
+}
@@ -0,0 +1,294 @@
+package com.loopy.footballvideoprocessor.video.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import com.loopy.footballvideoprocessor.common.exception.BadRequestException;
+import com.loopy.footballvideoprocessor.common.exception.StorageException;
+import com.loopy.footballvideoprocessor.config.CloudflareProperties;
+import com.loopy.footballvideoprocessor.messaging.dto.VideoProcessingMessage;
+import com.loopy.footballvideoprocessor.messaging.service.OutboxService;
+import com.loopy.footballvideoprocessor.security.AuthenticatedUser;
+import com.loopy.footballvideoprocessor.user.model.User;
+import com.loopy.footballvideoprocessor.user.repository.UserRepository;
+import com.loopy.footballvideoprocessor.video.dto.UploadSessionResponse;
+import com.loopy.footballvideoprocessor.video.dto.VideoDto;
+import com.loopy.footballvideoprocessor.video.model.UploadSession;
+import com.loopy.footballvideoprocessor.video.model.UploadSessionStatus;
+import com.loopy.footballvideoprocessor.video.model.Video;
+import com.loopy.footballvideoprocessor.video.repository.UploadSessionRepository;
+import com.loopy.footballvideoprocessor.video.repository.VideoRepository;
+
+import software.amazon.awssdk.services.s3.model.Part;
+
+/**
+ * Kiểm tra việc hoàn tất phiên upload trực tiếp chỉ chấp nhận đúng kích thước
+ * mà client đã khai báo khi tạo phiên, chỉ một request hoàn tất được tiếp tục
+ * và URL part được ký theo từng lô
+ */
+class VideoServiceUploadSessionTest {
+
+	private static final long PART_SIZE = 5;
+	private static final long FILE_SIZE = 8;
+
+	private final UUID userId = UUID.randomUUID();
+
+	private VideoRepository videoRepository;
+	private R2StorageService r2StorageService;
+	private UploadSessionRepository uploadSessionRepository;
+	private OutboxService outboxService;
+	private CloudflareProperties cloudflareProperties;
+	private VideoServiceImplBuilder serviceBuilder;
+	private VideoServiceImpl videoService;
+	private UploadSession session;
+
+	@BeforeEach
+	void setUp() {
+		videoRepository = mock(VideoRepository.class);
+		r2StorageService = mock(R2StorageService.class);
+		uploadSessionRepository = mock(UploadSessionRepository.class);
+		outboxService = mock(OutboxService.class);
+		UserRepository userRepository = mock(UserRepository.class);
+
+		// Người dùng lấy bằng getReferenceById là proxy lazy: chỉ đọc được trong transaction
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		AtomicBoolean inTransaction = new AtomicBoolean();
+		when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+			inTransaction.set(true);
+			return new SimpleTransactionStatus();
+		});
+		doAnswer(invocation -> {
+			inTransaction.set(false);
+			return null;
+		}).when(transactionManager).commit(any());
+		User user = mock(User.class);
+		when(user.getId()).thenReturn(userId);
+		when(user.getUsername()).thenAnswer(invocation -> {
+			if (!inTransaction.get()) {
+				throw new LazyInitializationException("could not initialize proxy - no Session");
+			}
+			return "coach";
+		});
+		when(userRepository.getReferenceById(userId)).thenReturn(user);
+		when(videoRepository.save(any(Video.class))).thenAnswer(invocation -> {
+			Video video = invocation.getArgument(0);
+			video.setId(UUID.randomUUID());
+			return video;
+		});
+
+		CloudflareProperties.R2 r2 = new CloudflareProperties.R2();
+		r2.getMultipart().setMaxObjectSize(DataSize.ofBytes(100));
+		cloudflareProperties = new CloudflareProperties();
+		cloudflareProperties.setR2(r2);
+
+		serviceBuilder = new VideoServiceImplBuilder()
+				.videoRepository(videoRepository)
+				.r2StorageService(r2StorageService)
+				.userRepository(userRepository)
+				.outboxService(outboxService)
+				.transactionManager(transactionManager)
+				.uploadSessionRepository(uploadSessionRepository)
+				.cloudflareProperties(cloudflareProperties);
+		videoService = serviceBuilder.build();
+
+		session = new UploadSession();
+		session.setId(UUID.randomUUID());
+		session.setUser(user);
+		session.setUploadId("upload-1");
+		session.setObjectKey("videos/" + userId + "/match.mp4");
+		session.setTitle("Trận đấu");
+		session.setFileSize(FILE_SIZE);
+		session.setPartSize(PART_SIZE);
+		session.setPartCount(2);
+		session.setStatus(UploadSessionStatus.IN_PROGRESS);
+		session.setExpiresAt(LocalDateTime.now().plusHours(1));
+		when(uploadSessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+		when(uploadSessionRepository.updateStatus(session.getId(), UploadSessionStatus.IN_PROGRESS,
+				UploadSessionStatus.COMPLETING)).thenReturn(1);
+
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "coach", "", true, List.of());
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void matchingUploadCreatesVideo() {
+		givenParts(part(1, 5), part(2, 3));
+		when(r2StorageService.getObjectSize(session.getObjectKey())).thenReturn(FILE_SIZE);
+
+		VideoDto video = videoService.completeUploadSession(session.getId());
+
+		assertEquals(FILE_SIZE, video.getFileSize());
+		assertEquals("coach", video.getUsername());
+		assertEquals(UploadSessionStatus.COMPLETED, session.getStatus());
+		verify(r2StorageService).completeMultipartUpload(anyString(), anyString(), anyList());
+	}
+
+	@Test
+	void clipUnderCutoffIsQueuedWithHighPriority() {
+		givenParts(part(1, 5), part(2, 3));
+		when(r2StorageService.getObjectSize(session.getObjectKey())).thenReturn(FILE_SIZE);
+
+		videoService.completeUploadSession(session.getId());
+
+		assertTrue(enqueuedMessage().isHighPriority());
+	}
+
+	@Test
+	void videoOverCutoffIsQueuedWithNormalPriority() {
+		videoService = serviceBuilder.highPriorityMaxSize(DataSize.ofBytes(FILE_SIZE - 1)).build();
+		givenParts(part(1, 5), part(2, 3));
+		when(r2StorageService.getObjectSize(session.getObjectKey())).thenReturn(FILE_SIZE);
+
+		videoService.completeUploadSession(session.getId());
+
+		assertFalse(enqueuedMessage().isHighPriority());
+	}
+
+	@Test
+	void adminUploadOverCutoffIsQueuedWithNormalPriority() {
+		AuthenticatedUser admin = new AuthenticatedUser(userId, "coach", "", true,
+				List.of(new SimpleGrantedAuthority(AuthenticatedUser.ROLE_ADMIN)));
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+		videoService = serviceBuilder.highPriorityMaxSize(DataSize.ofBytes(FILE_SIZE - 1)).build();
+		givenParts(part(1, 5), part(2, 3));
+		when(r2StorageService.getObjectSize(session.getObjectKey())).thenReturn(FILE_SIZE);
+
+		videoService.completeUploadSession(session.getId());
+
+		// Chỉ kích thước quyết định độ ưu tiên của video tải lên
+		assertFalse(enqueuedMessage().isHighPriority());
+	}
+
+	@Test
+	void partLargerThanDeclaredIsRejectedBeforeCompleting() {
+		givenParts(part(1, 5), part(2, 5_000_000));
+
+		assertThrows(BadRequestException.class, () -> videoService.completeUploadSession(session.getId()));
+
+		verify(r2StorageService).abortMultipartUpload(session.getObjectKey(), session.getUploadId());
+		verify(r2StorageService, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+		verify(videoRepository, never()).save(any(Video.class));
+		assertEquals(UploadSessionStatus.ABORTED, session.getStatus());
+	}
+
+	@Test
+	void extraPartIsRejected() {
+		givenParts(part(1, 5), part(2, 3), part(3, 5));
+
+		assertThrows(BadRequestException.class, () -> videoService.completeUploadSession(session.getId()));
+
+		verify(r2StorageService).abortMultipartUpload(session.getObjectKey(), session.getUploadId());
+		assertEquals(UploadSessionStatus.ABORTED, session.getStatus());
+	}
+
+	@Test
+	void objectSizeMismatchDeletesCompletedObject() {
+		givenParts(part(1, 5), part(2, 3));
+		when(r2StorageService.getObjectSize(session.getObjectKey())).thenReturn(FILE_SIZE + 1);
+
+		assertThrows(BadRequestException.class, () -> videoService.completeUploadSession(session.getId()));
+
+		verify(r2StorageService).deleteFile(session.getObjectKey());
+		verify(videoRepository, never()).save(any(Video.class));
+		assertEquals(UploadSessionStatus.ABORTED, session.getStatus());
+	}
+
+	@Test
+	void missingPartKeepsSessionResumable() {
+		givenParts(part(1, 5));
+
+		assertThrows(BadRequestException.class, () -> videoService.completeUploadSession(session.getId()));
+
+		verify(r2StorageService, never()).abortMultipartUpload(anyString(), anyString());
+		assertEquals(UploadSessionStatus.IN_PROGRESS, session.getStatus());
+	}
+
+	@Test
+	void completeRacingAnotherCompleteIsRejectedBeforeTouchingR2() {
+		// Request kia đã chuyển phiên sang COMPLETING
+		when(uploadSessionRepository.updateStatus(session.getId(), UploadSessionStatus.IN_PROGRESS,
+				UploadSessionStatus.COMPLETING)).thenReturn(0);
+
+		assertThrows(BadRequestException.class, () -> videoService.completeUploadSession(session.getId()));
+
+		verify(r2StorageService, never()).listParts(anyString(), anyString());
+		verify(r2StorageService, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+		verify(videoRepository, never()).save(any(Video.class));
+	}
+
+	@Test
+	void failedCompletionReleasesClaim() {
+		givenParts(part(1, 5), part(2, 3));
+		doThrow(new StorageException("R2 lỗi")).when(r2StorageService)
+				.completeMultipartUpload(anyString(), anyString(), anyList());
+
+		assertThrows(StorageException.class, () -> videoService.completeUploadSession(session.getId()));
+
+		verify(uploadSessionRepository).updateStatus(session.getId(), UploadSessionStatus.COMPLETING,
+				UploadSessionStatus.IN_PROGRESS);
+		assertEquals(UploadSessionStatus.IN_PROGRESS, session.getStatus());
+	}
+
+	@Test
+	void missingPartUrlsAreSignedInBoundedBatches() {
+		cloudflareProperties.getR2().getMultipart().setPresignedPartBatchSize(1);
+		givenParts();
+
+		UploadSessionResponse response = videoService.getUploadSession(session.getId());
+
+		assertEquals(List.of(1), response.getPartUrls().stream()
+				.map(UploadSessionResponse.PresignedPart::getPartNumber).toList());
+		verify(r2StorageService).generatePresignedUploadPartUrl(anyString(), anyString(), anyInt(), any());
+	}
+
+	private VideoProcessingMessage enqueuedMessage() {
+		ArgumentCaptor<VideoProcessingMessage> message = ArgumentCaptor.forClass(VideoProcessingMessage.class);
+		verify(outboxService).enqueue(message.capture());
+		return message.getValue();
+	}
+
+	private void givenParts(Part... parts) {
+		when(r2StorageService.listParts(session.getObjectKey(), session.getUploadId())).thenReturn(List.of(parts));
+	}
+
+	private static Part part(int partNumber, long size) {
+		return Part.builder().partNumber(partNumber).size(size).eTag("etag-" + partNumber).build();
+	}
+}